@@ -1,5 +1,5 @@
 /**
- * (C) Copyright IBM Corporation 2014, 2023.
+ * (C) Copyright IBM Corporation 2014, 2024.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 package io.openliberty.tools.maven;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -38,14 +40,14 @@ import org.apache.maven.settings.Settings;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
-import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.eclipse.aether.resolution.VersionRangeResult;
 
 import io.openliberty.tools.maven.utils.AntTaskFactory;
+import io.openliberty.tools.maven.utils.CachingArtifactResolver;
+import io.openliberty.tools.maven.utils.ReactorIndex;
 
 import static java.util.Objects.requireNonNull;
 
@@ -92,6 +94,8 @@ public abstract class AbstractLibertySupport extends AbstractMojo {
     @Parameter(defaultValue = "${maven.multiModuleProjectDirectory}", required = false, readonly = true)
     protected File multiModuleProjectDirectory = null;
 
+    private CachingArtifactResolver artifactResolver;
+
     protected MavenProject getProject() {
         return project;
     }
@@ -106,35 +110,26 @@ public abstract class AbstractLibertySupport extends AbstractMojo {
     }
     
     protected boolean isReactorMavenProject(Artifact artifact) {
-        for (MavenProject p : reactorProjects) {
-            if (p.getGroupId().equals(artifact.getGroupId()) && p.getArtifactId().equals(artifact.getArtifactId())
-                    && p.getVersion().equals(artifact.getBaseVersion())) {
-                return true;
-            }
-        }
-        return false;
+        return ReactorIndex.get(reactorProjects).getProject(artifact) != null;
     }
     
     protected MavenProject getReactorMavenProject(Artifact artifact) {
-        for (MavenProject p : reactorProjects) {
+        MavenProject p = ReactorIndex.get(reactorProjects).getProject(artifact);
+        if (p != null) {
             // Support loose configuration to all sub-module projects in the reactorProjects object. 
             // Need to be able to retrieve all transitive dependencies in these projects.
-            if (p.getGroupId().equals(artifact.getGroupId()) && p.getArtifactId().equals(artifact.getArtifactId())
-                    && p.getVersion().equals(artifact.getBaseVersion())) {
-                p.setArtifactFilter(new ArtifactFilter() {
-                    @Override
-                    public boolean include(Artifact artifact) {
-                        if ("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope())) {
-                            return true;
-                        }
-                        return false;
+            p.setArtifactFilter(new ArtifactFilter() {
+                @Override
+                public boolean include(Artifact artifact) {
+                    if ("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope())) {
+                        return true;
                     }
-                });
-                return p;
-            }
+                    return false;
+                }
+            });
         }
         
-        return null;
+        return p;
     }
     
     // Search the value parameter for any properties referenced with ${xxx} syntax and replace those with their property value if defined.
@@ -348,6 +343,14 @@ public abstract class AbstractLibertySupport extends AbstractMojo {
                 }
             }
         
+            List<Dependency> unresolvedItems = new ArrayList<Dependency>();
+            for (Artifact projectArtifact : artifacts) {
+                if (!projectArtifact.isResolved() && isMatchingProjectDependency(projectArtifact, groupId, isWildcard, compareArtifactId, isClassifierWildcard, compareClassifier)) {
+                    unresolvedItems.add(createArtifactItem(projectArtifact.getGroupId(), projectArtifact.getArtifactId(), projectArtifact.getType(), projectArtifact.getVersion(), projectArtifact.getClassifier()));
+                }
+            }
+            prefetchArtifacts(unresolvedItems);
+
             for (Artifact projectArtifact : artifacts) {
                 if (isMatchingProjectDependency(projectArtifact, groupId, isWildcard, compareArtifactId, isClassifierWildcard, compareClassifier)) {
                     if (!projectArtifact.isResolved()) {
@@ -564,8 +567,7 @@ public abstract class AbstractLibertySupport extends AbstractMojo {
     }
     
     private Artifact resolveArtifactItem(final Dependency item) throws MojoExecutionException {
-        org.eclipse.aether.artifact.Artifact aetherArtifact = new org.eclipse.aether.artifact.DefaultArtifact(
-                item.getGroupId(), item.getArtifactId(), item.getType(), item.getVersion());
+        org.eclipse.aether.artifact.Artifact aetherArtifact = toAetherArtifact(item);
         
         File artifactFile = resolveArtifactFile(aetherArtifact);
         
@@ -594,12 +596,15 @@ public abstract class AbstractLibertySupport extends AbstractMojo {
         return artifact;
     }
     
+    private org.eclipse.aether.artifact.Artifact toAetherArtifact(Dependency item) {
+        return new org.eclipse.aether.artifact.DefaultArtifact(item.getGroupId(), item.getArtifactId(), item.getClassifier(), item.getType(), item.getVersion());
+    }
+
     private File resolveArtifactFile(org.eclipse.aether.artifact.Artifact aetherArtifact) throws MojoExecutionException {
-        ArtifactRequest req = new ArtifactRequest().setRepositories(this.repositories).setArtifact(aetherArtifact);
         ArtifactResult resolutionResult = null;
 
         try {
-            resolutionResult = this.repositorySystem.resolveArtifact(this.repoSession, req);
+            resolutionResult = getArtifactResolver().resolveArtifact(aetherArtifact);
             if (!resolutionResult.isResolved()) {
                 throw new MojoExecutionException("Unable to resolve artifact: " + aetherArtifact.getGroupId() + ":"
                         + aetherArtifact.getArtifactId() + ":" + aetherArtifact.getVersion());
@@ -619,11 +624,7 @@ public abstract class AbstractLibertySupport extends AbstractMojo {
         org.eclipse.aether.artifact.Artifact aetherArtifact = new org.eclipse.aether.artifact.DefaultArtifact(groupId,
                 artifactId, extension, version);
         
-        VersionRangeRequest rangeRequest = new VersionRangeRequest();
-        rangeRequest.setArtifact(aetherArtifact);
-        rangeRequest.setRepositories(repositories);
-        
-        VersionRangeResult rangeResult = this.repositorySystem.resolveVersionRange(this.repoSession, rangeRequest);
+        VersionRangeResult rangeResult = getArtifactResolver().resolveVersionRange(aetherArtifact);
         
         if (rangeResult == null || rangeResult.getHighestVersion() == null) {
             throw new VersionRangeResolutionException(rangeResult, "Unable to resolve version range from " + groupId
@@ -641,4 +642,60 @@ public abstract class AbstractLibertySupport extends AbstractMojo {
         }
         return resolvedArtifact;
     }
+
+    /**
+     * Resolves each of the artifacts like {@link #resolveArtifact(Artifact)}, but downloads all
+     * unresolved artifacts in parallel first.
+     *
+     * @param artifacts the artifacts to resolve
+     * @return the resolved artifacts in the same order
+     * @throws MojoExecutionException if any of the artifacts could not be resolved
+     */
+    protected List<Artifact> resolveArtifacts(Collection<Artifact> artifacts) throws MojoExecutionException {
+        List<Dependency> items = new ArrayList<Dependency>();
+        for (Artifact artifact : artifacts) {
+            if (!artifact.isResolved()) {
+                items.add(createArtifactItem(artifact.getGroupId(), artifact.getArtifactId(), artifact.getType(), artifact.getVersion(), artifact.getClassifier()));
+            }
+        }
+        prefetchArtifacts(items);
+
+        List<Artifact> resolvedArtifacts = new ArrayList<Artifact>(artifacts.size());
+        for (Artifact artifact : artifacts) {
+            resolvedArtifacts.add(resolveArtifact(artifact));
+        }
+        return resolvedArtifacts;
+    }
+
+    /**
+     * Resolves the items with a fixed version in parallel so that later calls to
+     * {@link #getArtifact(Dependency)} for the same items are served from the session cache.
+     * Failures are only logged here and are reported by the later call for the item.
+     *
+     * @param items the items to resolve
+     */
+    protected void prefetchArtifacts(Collection<Dependency> items) {
+        List<org.eclipse.aether.artifact.Artifact> aetherArtifacts = new ArrayList<org.eclipse.aether.artifact.Artifact>();
+        for (Dependency item : items) {
+            String version = item.getVersion();
+            if (version != null && !version.trim().startsWith("[") && !version.trim().startsWith("(")) {
+                aetherArtifacts.add(toAetherArtifact(item));
+            }
+        }
+        if (aetherArtifacts.size() < 2) {
+            return;
+        }
+        try {
+            getArtifactResolver().resolveArtifacts(aetherArtifacts);
+        } catch (ArtifactResolutionException e) {
+            getLog().debug("Unable to resolve all artifacts in parallel: " + e.getMessage());
+        }
+    }
+
+    protected CachingArtifactResolver getArtifactResolver() {
+        if (artifactResolver == null) {
+            artifactResolver = new CachingArtifactResolver(repositorySystem, repoSession, repositories);
+        }
+        return artifactResolver;
+    }
 }
@@ -1,5 +1,5 @@
 /**
- * (C) Copyright IBM Corporation 2014, 2023.
+ * (C) Copyright IBM Corporation 2014, 2024.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -47,6 +47,7 @@ import io.openliberty.tools.ant.install.InstallLibertyTask;
 import io.openliberty.tools.common.plugins.util.AbstractContainerSupportUtil;
 import io.openliberty.tools.common.plugins.util.PluginExecutionException;
 import io.openliberty.tools.common.plugins.util.ServerFeatureUtil;
+import io.openliberty.tools.maven.utils.RuntimeStore;
 
 /**
  * Basic Liberty Mojo Support
@@ -58,6 +59,12 @@ public abstract class BasicSupport extends AbstractLibertySupport {
     //Note these next two are regular expressions, not just the code.
     protected static final String START_APP_MESSAGE_REGEXP = "CWWKZ0001I.*";
 
+    // logged instead of the start message when a running application is deployed again
+    protected static final String UPDATE_APP_MESSAGE_REGEXP = "CWWKZ0003I.*";
+
+    // the application name comes before the exception message, which follows a colon
+    protected static final String FAIL_APP_MESSAGE_REGEXP = "CWWKZ0002E:[^:]*";
+
     protected static final ResourceBundle messages = ResourceBundle.getBundle("io.openliberty.tools.maven.MvnMessages");
 
     protected boolean defaultOutputDirSet = false;
@@ -76,6 +83,13 @@ public abstract class BasicSupport extends AbstractLibertySupport {
     @Parameter(property = "refresh", defaultValue = "false")
     protected boolean refresh = false;
 
+    /**
+     * Extract the runtime archive once into a store shared by all projects and
+     * hard link it into the install directory. Only the usr directory is copied.
+     */
+    @Parameter(property = "useSharedRuntime", defaultValue = "false")
+    protected boolean useSharedRuntime = false;
+
     /**
      * Set the false to skip the installation of the assembly, re-using anything
      * that is already there.
@@ -482,19 +496,15 @@ public abstract class BasicSupport extends AbstractLibertySupport {
 
             FileUtils.forceMkdir(installDirectory);
 
-            Expand unzip = (Expand) ant.createTask("unzip");
-
-            unzip.setSrc(assemblyArchive);
-            unzip.setDest(assemblyInstallDirectory.getCanonicalFile());
-            unzip.execute();
-
-            // Make scripts executable, since Java unzip ignores perms
-            Chmod chmod = (Chmod) ant.createTask("chmod");
-            chmod.setPerm("ugo+rx");
-            chmod.setDir(installDirectory);
-            chmod.setIncludes("bin/*");
-            chmod.setExcludes("bin/*.bat");
-            chmod.execute();
+            if (useSharedRuntime && licenseArtifact == null) {
+                installFromSharedRuntime();
+            } else {
+                if (useSharedRuntime) {
+                    // the license upgrade changes runtime files in place
+                    getLog().debug("Not using the shared runtime store because a licenseArtifact is configured.");
+                }
+                extractAssembly(assemblyInstallDirectory.getCanonicalFile());
+            }
 
             // delete installMarker first in case it was packaged with the assembly
             installMarker.delete();
@@ -507,6 +517,44 @@ public abstract class BasicSupport extends AbstractLibertySupport {
         }
     }
 
+    private void extractAssembly(File destination) throws IOException {
+        Expand unzip = (Expand) ant.createTask("unzip");
+
+        unzip.setSrc(assemblyArchive);
+        unzip.setDest(destination);
+        unzip.execute();
+
+        // Make scripts executable, since Java unzip ignores perms
+        Chmod chmod = (Chmod) ant.createTask("chmod");
+        chmod.setPerm("ugo+rx");
+        chmod.setDir(new File(destination, getRelativePath(assemblyInstallDirectory, installDirectory)));
+        chmod.setIncludes("bin/*");
+        chmod.setExcludes("bin/*.bat");
+        chmod.execute();
+    }
+
+    /**
+     * Links the runtime from the shared runtime store into the install directory,
+     * extracting it into the store first if no other project has done so.
+     */
+    private void installFromSharedRuntime() throws IOException {
+        RuntimeStore store = new RuntimeStore(
+                RuntimeStore.getDefaultStoreDirectory(getRepoSession().getLocalRepository().getBasedir()), getLog());
+        File runtime = store.getRuntime(assemblyArchive, new RuntimeStore.Installer() {
+            @Override
+            public void install(File directory) throws IOException {
+                extractAssembly(directory);
+            }
+        });
+        getLog().debug("Linking runtime " + runtime + " into " + assemblyInstallDirectory);
+        String usrPath = getRelativePath(assemblyInstallDirectory, new File(installDirectory, "usr"));
+        store.link(runtime, assemblyInstallDirectory.getCanonicalFile(), usrPath);
+    }
+
+    private static String getRelativePath(File parent, File child) throws IOException {
+        return parent.getCanonicalFile().toPath().relativize(child.getCanonicalFile().toPath()).toString();
+    }
+
     protected void installFromArchive() throws MojoExecutionException, IOException {
         InstallLibertyTask installTask = (InstallLibertyTask) ant.createTask("antlib:io/openliberty/tools/ant:install-liberty");
         if (installTask == null) {
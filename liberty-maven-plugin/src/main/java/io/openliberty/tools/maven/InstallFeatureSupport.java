@@ -1,5 +1,5 @@
 /**
- * (C) Copyright IBM Corporation 2020, 2023.
+ * (C) Copyright IBM Corporation 2020, 2024.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,19 @@
 package io.openliberty.tools.maven;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
+import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 
@@ -34,6 +39,8 @@ import io.openliberty.tools.common.plugins.util.PluginExecutionException;
 import io.openliberty.tools.common.plugins.util.PluginScenarioException;
 import io.openliberty.tools.maven.server.types.Features;
 import io.openliberty.tools.maven.server.types.Key;
+import io.openliberty.tools.maven.utils.FeatureArtifactCache;
+import io.openliberty.tools.maven.utils.FeaturesJsonIndex;
 
 
 public abstract class InstallFeatureSupport extends ServerFeatureSupport {
@@ -63,10 +70,17 @@ public abstract class InstallFeatureSupport extends ServerFeatureSupport {
     
     public static final String FEATURES_JSON_ARTIFACT_ID = "features";
 
+    private FeatureArtifactCache featureArtifactCache;
+
     protected class InstallFeatureMojoUtil extends InstallFeatureUtil {
+        // assigned while the super constructor downloads the features JSON files, so it must not have an initializer
+        private Set<File> featuresJsons;
+        private final String containerName;
+
         public InstallFeatureMojoUtil(Set<String> pluginListedEsas, List<ProductProperties> propertiesList, String openLibertyVerion, String containerName, List<String> additionalJsons, Collection<Map<String,String>> keyMap)
                 throws PluginScenarioException, PluginExecutionException {
             super(installDirectory, new File(project.getBuild().getDirectory()), features.getFrom(), features.getTo(), pluginListedEsas, propertiesList, openLibertyVerion, containerName, additionalJsons, features.getVerify(), keyMap);
+            this.containerName = containerName;
             setContainerEngine(this);
         }
 
@@ -112,17 +126,133 @@ public abstract class InstallFeatureSupport extends ServerFeatureSupport {
         
         @Override
         public File downloadArtifact(String groupId, String artifactId, String type, String version) throws PluginExecutionException {
+            File file;
             try {
-                return getArtifact(groupId, artifactId, type, version).getFile();
+                file = getArtifact(groupId, artifactId, type, version).getFile();
             } catch (MojoExecutionException e) {
                 throw new PluginExecutionException(e);
             }
+            if ("json".equals(type)) {
+                if (featuresJsons == null) {
+                    featuresJsons = new LinkedHashSet<File>();
+                }
+                featuresJsons.add(file);
+            } else if ("esa".equals(type)) {
+                try {
+                    file = getFeatureArtifactCache().store(file);
+                } catch (IOException e) {
+                    getLog().debug("Could not add " + file + " to the feature cache: " + e.getMessage());
+                }
+            }
+            return file;
         }
         
         @Override
         public File downloadSignature(File esa, String groupId, String artifactId, String type, String version) throws PluginExecutionException {
-        	return downloadArtifact(groupId, artifactId, type, version);
+        	File signature = downloadArtifact(groupId, artifactId, type, version);
+        	FeatureArtifactCache cache = getFeatureArtifactCache();
+        	if (cache.contains(esa)) {
+        	    // the install kernel expects the signature next to the ESA
+        	    try {
+        	        signature = cache.storeSignature(signature, esa);
+        	    } catch (IOException e) {
+        	        getLog().debug("Could not add " + signature + " to the feature cache: " + e.getMessage());
+        	    }
+        	}
+        	return signature;
+        }
+
+        /**
+         * Downloads the ESAs of the features and the features they require in parallel
+         * before installing, so that the one by one downloads during the install are
+         * served from the session cache.
+         */
+        @Override
+        public void installFeatures(boolean isAcceptLicense, List<String> featuresToInstall) throws PluginExecutionException {
+            if (containerName == null) {
+                prefetchFeatures(featuresToInstall);
+            }
+            super.installFeatures(isAcceptLicense, featuresToInstall);
+        }
+
+        /**
+         * Only verifies the ESAs that have not passed verification before with the same
+         * signature and settings.
+         */
+        @Override
+        public void verifyFeatures(Set<File> esaFiles, URL installJarUrl) throws PluginExecutionException {
+            String settings = getVerificationSettings(installJarUrl);
+            if (settings == null) {
+                super.verifyFeatures(esaFiles, installJarUrl);
+                return;
+            }
+            FeatureArtifactCache cache = getFeatureArtifactCache();
+            Set<File> unverified = new HashSet<File>();
+            for (File esa : esaFiles) {
+                if (!cache.isVerified(esa, settings)) {
+                    unverified.add(esa);
+                }
+            }
+            if (unverified.isEmpty()) {
+                getLog().info("Skipping feature verification because all features were verified before.");
+                return;
+            }
+            getLog().debug("Verifying " + unverified.size() + " of " + esaFiles.size() + " features, the rest were verified before.");
+            super.verifyFeatures(unverified, installJarUrl);
+            cache.setVerified(unverified, settings);
+        }
+
+        private void prefetchFeatures(List<String> featuresToInstall) {
+            if (featuresJsons == null || featuresJsons.isEmpty()) {
+                return;
+            }
+            Set<String> coordinates;
+            try {
+                coordinates = new FeaturesJsonIndex(featuresJsons).getMavenCoordinates(featuresToInstall);
+            } catch (IOException | RuntimeException e) {
+                getLog().debug("Could not read the features JSON files to download features in parallel: " + e.getMessage());
+                return;
+            }
+            boolean verify = !"skip".equalsIgnoreCase(features.getVerify());
+            List<Dependency> items = new ArrayList<Dependency>();
+            for (String coordinate : coordinates) {
+                String[] parts = coordinate.split(":");
+                if (parts.length >= 3) {
+                    items.add(createArtifactItem(parts[0], parts[1], "esa", parts[2]));
+                    if (verify) {
+                        items.add(createArtifactItem(parts[0], parts[1], "esa.asc", parts[2]));
+                    }
+                }
+            }
+            getLog().debug("Downloading " + items.size() + " feature artifacts in parallel: " + coordinates);
+            prefetchArtifacts(items);
+        }
+
+        /**
+         * @return a fingerprint of the verification settings, or null if a successful
+         *         verification with these settings cannot be trusted later
+         */
+        private String getVerificationSettings(URL installJarUrl) {
+            String verify = features.getVerify();
+            // with the warn option a feature passes verification even if its signature is invalid
+            if (!"all".equalsIgnoreCase(verify) && !"enforce".equalsIgnoreCase(verify)) {
+                return null;
+            }
+            Map<String, String> sortedKeys = new TreeMap<String, String>();
+            for (Map<String, String> key : getKeyMap()) {
+                sortedKeys.put(String.valueOf(key.get("keyid")), String.valueOf(key.get("keyurl")));
+            }
+            String installJar = installJarUrl == null ? null : new File(installJarUrl.getPath()).getName();
+            return verify.toLowerCase() + ";" + sortedKeys + ";" + installJar;
+        }
+    }
+
+    protected FeatureArtifactCache getFeatureArtifactCache() {
+        if (featureArtifactCache == null) {
+            File localRepository = getRepoSession().getLocalRepository().getBasedir();
+            featureArtifactCache = new FeatureArtifactCache(FeatureArtifactCache.getDefaultCacheDirectory(localRepository), getLog());
         }
+        return featureArtifactCache;
     }
 
     protected Set<String> getPluginListedFeatures(boolean findEsaFiles) {
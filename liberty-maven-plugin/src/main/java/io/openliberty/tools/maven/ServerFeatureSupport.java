@@ -21,8 +21,9 @@ import static org.twdata.maven.mojoexecutor.MojoExecutor.plugin;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.version;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +42,7 @@ import org.codehaus.plexus.util.xml.Xpp3Dom;
 import io.openliberty.tools.common.plugins.util.ServerFeatureUtil;
 import io.openliberty.tools.maven.utils.DevHelper;
 import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
+import io.openliberty.tools.maven.utils.ReactorIndex;
 
 public abstract class ServerFeatureSupport extends BasicSupport {
 	
@@ -139,23 +141,8 @@ public abstract class ServerFeatureSupport extends BasicSupport {
      * Returns whether potentialTopModule is a multi module project that has
      * potentialSubModule as one of its sub-modules.
      */
-    private static boolean isSubModule(MavenProject potentialTopModule, MavenProject potentialSubModule) {
-        List<String> multiModules = potentialTopModule.getModules();
-        if (multiModules != null) {
-            for (String module : multiModules) {
-                File subModuleDir = new File(potentialTopModule.getBasedir(), module);
-                try {
-                    if (subModuleDir.getCanonicalFile().equals(potentialSubModule.getBasedir().getCanonicalFile())) {
-                        return true;
-                    }
-                } catch (IOException e) {
-                    if (subModuleDir.getAbsoluteFile().equals(potentialSubModule.getBasedir().getAbsoluteFile())) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    private boolean isSubModule(MavenProject potentialTopModule, MavenProject potentialSubModule) {
+        return ReactorIndex.get(reactorProjects).isSubModule(potentialTopModule, potentialSubModule);
     }
     
     /**
@@ -179,7 +166,8 @@ public abstract class ServerFeatureSupport extends BasicSupport {
         // A leaf here is a module without any downstream modules depending on it
         List<MavenProject> leaves = new ArrayList<MavenProject>();
         for (MavenProject reactorProject : sortedReactorProjects) {
-            if (graph.getDownstreamProjects(reactorProject, true).isEmpty()) {
+            // a project without direct downstream projects has no transitive ones either
+            if (graph.getDownstreamProjects(reactorProject, false).isEmpty()) {
             	getLog().debug("Found final downstream project: " + reactorProject.getArtifactId());
                 
             	if (skipConfigured(reactorProject)) {
@@ -193,13 +181,15 @@ public abstract class ServerFeatureSupport extends BasicSupport {
         }
             
         // At this point, the only leaves we should have is one final downstream project and the parent pom project. 
-        // Loop through and find any conflicts.
-        for (MavenProject leaf1 : leaves) {
-            for (MavenProject leaf2 : leaves) {
-            	// Check that the leaves are not the same module and that one of the leaves is not the parent.
-                if (leaf1 != leaf2 && !(isSubModule(leaf2, leaf1) || isSubModule(leaf1, leaf2)) ) {
-                    conflicts.add(leaf1);
-                    conflicts.add(leaf2);
+        // Loop through and find any conflicts, unless every pair of leaves is related as module and parent.
+        if (!areAllSubModules(leaves)) {
+            for (MavenProject leaf1 : leaves) {
+                for (MavenProject leaf2 : leaves) {
+                	// Check that the leaves are not the same module and that one of the leaves is not the parent.
+                    if (leaf1 != leaf2 && !(isSubModule(leaf2, leaf1) || isSubModule(leaf1, leaf2)) ) {
+                        conflicts.add(leaf1);
+                        conflicts.add(leaf2);
+                    }
                 }
             }
         }
@@ -230,6 +220,41 @@ public abstract class ServerFeatureSupport extends BasicSupport {
         }
     }
     
+    /**
+     * @return true if, for every pair of the projects, one project is a module of
+     *         the other
+     */
+    private boolean areAllSubModules(List<MavenProject> projects) {
+        ReactorIndex index = ReactorIndex.get(reactorProjects);
+        Map<MavenProject, Integer> positions = new IdentityHashMap<MavenProject, Integer>();
+        Map<File, Integer> positionsByBasedir = new HashMap<File, Integer>();
+        for (MavenProject p : projects) {
+            if (p.getBasedir() == null || index.getProject(p.getBasedir()) != p || positions.containsKey(p)) {
+                // not indexed by its directory, let the pairwise check decide
+                return false;
+            }
+            positions.put(p, positions.size());
+            positionsByBasedir.put(index.getCanonicalBasedir(p), positions.size() - 1);
+        }
+        // count the related projects of each project through the module directories
+        int[] related = new int[projects.size()];
+        for (MavenProject top : projects) {
+            for (File moduleDirectory : index.getModuleDirectories(top)) {
+                Integer sub = positionsByBasedir.get(moduleDirectory);
+                if (sub != null && projects.get(sub) != top) {
+                    related[positions.get(top)]++;
+                    related[sub]++;
+                }
+            }
+        }
+        for (int count : related) {
+            if (count < projects.size() - 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean skipConfigured(MavenProject project) {
     	
         // Properties that are set in the pom file
@@ -259,7 +284,7 @@ public abstract class ServerFeatureSupport extends BasicSupport {
             if (reactorProject.equals(project)) {
                 break;
             }
-            if (graph.getDownstreamProjects(reactorProject, true).isEmpty()) {
+            if (graph.getDownstreamProjects(reactorProject, false).isEmpty()) {
                 mostDownstreamModule = reactorProject;
                 break;
             }
@@ -16,10 +16,19 @@
 package io.openliberty.tools.maven.applications;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
 import java.text.MessageFormat;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -32,6 +41,8 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 
+import io.openliberty.tools.maven.utils.ChecksumUtil;
+import io.openliberty.tools.maven.utils.MavenProjectUtil;
 import io.openliberty.tools.maven.utils.SpringBootUtil;
 import io.openliberty.tools.common.plugins.config.ApplicationXmlDocument;
 import io.openliberty.tools.common.plugins.config.LooseConfigData;
@@ -46,6 +57,8 @@ import io.openliberty.tools.common.plugins.util.DevUtil;
  */
 @Mojo(name = "deploy", requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
 public class DeployMojo extends DeployMojoSupport {
+
+    private static final String LOOSE_CONFIG_STATE_FILE = "liberty-plugin-loose-config.properties";
     
     @Override
     public void execute() throws MojoExecutionException {
@@ -66,6 +79,7 @@ public class DeployMojo extends DeployMojoSupport {
     private void doDeploy() throws IOException, MojoExecutionException, TransformerException, ParserConfigurationException {
         checkServerHomeExists();
         checkServerDirectoryExists();
+        markDeployLogOffset();
         
         // Delete our generated configDropins XML (a new one will be generated if necessary)
         cleanupPreviousExecution();
@@ -106,6 +120,9 @@ public class DeployMojo extends DeployMojoSupport {
             getLog().warn(messages.getString("warn.install.app.add.configuration"));
             applicationXml.writeApplicationXmlDocument(serverDirectory);
         }
+
+        // verify all deployed applications at the same time, once the server has their configuration
+        verifyAppsStarted();
     }
 
     private void installSpringBootApp() throws MojoExecutionException, IOException {
@@ -216,57 +233,30 @@ public class DeployMojo extends DeployMojoSupport {
         File devcDestDir = new File(new File(project.getBuild().getDirectory(), DevUtil.DEVC_HIDDEN_FOLDER), getAppsDirectory());
         File devcLooseConfigFile = new File(devcDestDir, looseConfigFileName);
 
-        LooseConfigData config = createLooseConfigData();
-
         switch (proj.getPackaging()) {
             case "war":
                 validateAppConfig(applicationFullPath.getCanonicalPath(), application, proj.getArtifactId());
                 getLog().info(MessageFormat.format(messages.getString("info.install.app"), looseConfigFileName));
-                installLooseConfigWar(proj, config, false);
-                installAndVerifyApp(config, looseConfigFile, application);
-                if (proj.getProperties().containsKey("container")) {
-                    // install another copy that is container specific
-                    config = createLooseConfigData();
-                    installLooseConfigWar(proj, config, true);
-                    try {
-                        config.toXmlFile(devcLooseConfigFile);
-                    } catch (Exception e) {
-                        throw new MojoExecutionException("Error writing loose application configuration file: "+devcLooseConfigFile.getCanonicalPath(), e);
-                    }
-                }
+                installLooseWar(proj, looseConfigFile, devcLooseConfigFile, application);
                 break;
             case "ear":
                 validateAppConfig(applicationFullPath.getCanonicalPath(), application, proj.getArtifactId());
                 getLog().info(MessageFormat.format(messages.getString("info.install.app"), looseConfigFileName));
+                LooseConfigData config = createLooseConfigData();
                 installLooseConfigEar(proj, config, false);
                 installAndVerifyApp(config, looseConfigFile, application);
                 if (proj.getProperties().containsKey("container")) {
                     // install another copy that is container specific
                     config = createLooseConfigData();
                     installLooseConfigEar(proj, config, true);
-                    try {
-                        config.toXmlFile(devcLooseConfigFile);
-                    } catch (Exception e) {
-                        throw new MojoExecutionException("Error writing loose application configuration file: "+devcLooseConfigFile.getCanonicalPath(), e);
-                    }
+                    writeLooseConfigFile(config, devcLooseConfigFile);
                 }
                 break;
             case "liberty-assembly":
                 if (mavenWarPluginExists(proj) || new File(proj.getBasedir(), "src/main/webapp").exists()) {
                     validateAppConfig(applicationFullPath.getCanonicalPath(), application, proj.getArtifactId());
                     getLog().info(MessageFormat.format(messages.getString("info.install.app"), looseConfigFileName));
-                    installLooseConfigWar(proj, config, false);
-                    installAndVerifyApp(config, looseConfigFile, application);
-                    if (proj.getProperties().containsKey("container")) {
-                        // install another copy that is container specific
-                        config = createLooseConfigData();
-                        installLooseConfigWar(proj, config, true);
-                        try {
-                            config.toXmlFile(devcLooseConfigFile);
-                        } catch (Exception e) {
-                            throw new MojoExecutionException("Error writing loose application configuration file: "+devcLooseConfigFile.getCanonicalPath(), e);
-                        }
-                    }
+                    installLooseWar(proj, looseConfigFile, devcLooseConfigFile, application);
                 } else {
                     getLog().debug("The liberty-assembly project does not contain the maven-war-plugin or src/main/webapp does not exist.");
                 }
@@ -279,16 +269,204 @@ public class DeployMojo extends DeployMojoSupport {
         }
     }
 
+    /**
+     * Install a war project with a loose application configuration file, and a
+     * container specific copy of it in container mode. The inputs of the files
+     * are recorded, and the files are not built again while the inputs and the
+     * installed files are unchanged. The content of the directories the files
+     * list does not matter, as the server reads the application from them.
+     * Exploded wars are always built, as building them runs the exploded goal of
+     * the maven-war-plugin.
+     */
+    private void installLooseWar(MavenProject proj, File looseConfigFile, File devcLooseConfigFile, String application)
+            throws MojoExecutionException, IOException {
+        boolean container = proj.getProperties().containsKey("container");
+        File stateFile = new File(proj.getBuild().getDirectory(), LOOSE_CONFIG_STATE_FILE);
+        Properties state = loadLooseConfigState(stateFile);
+        String inputs = LooseWarApplication.isExploded(proj) ? null : getLooseWarInputs(proj, container);
+        if (inputs != null && isInstalled(state, looseConfigFile, inputs)
+                && (!container || isInstalled(state, devcLooseConfigFile, inputs))) {
+            getLog().debug("The inputs of the loose application configuration file " + looseConfigFile + " are unchanged.");
+            keepInstalledApp(looseConfigFile, application);
+            return;
+        }
+
+        LooseConfigData config = createLooseConfigData();
+        installLooseConfigWar(proj, config, false);
+        installAndVerifyApp(config, looseConfigFile, application);
+        if (container) {
+            // install another copy that is container specific
+            config = createLooseConfigData();
+            installLooseConfigWar(proj, config, true);
+            writeLooseConfigFile(config, devcLooseConfigFile);
+        }
+        if (inputs != null) {
+            recordInstalled(state, looseConfigFile, inputs);
+            if (container) {
+                recordInstalled(state, devcLooseConfigFile, inputs);
+            }
+            saveLooseConfigState(stateFile, state);
+        }
+    }
+
+    // Everything the loose configuration of a war that is not exploded is built from
+    private String getLooseWarInputs(MavenProject proj, boolean container) {
+        StringBuilder sb = new StringBuilder();
+        appendCodeSource(sb, DeployMojo.class);
+        appendCodeSource(sb, LooseConfigData.class);
+        sb.append('|').append(proj.getBasedir()).append('|').append(multiModuleProjectDirectory);
+        sb.append('|').append(container).append('|').append(copyLibsDirectory);
+        appendFile(sb, new File(proj.getBuild().getOutputDirectory()));
+        sb.append('|').append(proj.getGoalConfiguration("org.apache.maven.plugins", "maven-war-plugin", null, null));
+        appendFile(sb, MavenProjectUtil.getManifestFile(proj, "maven-war-plugin"));
+        List<Artifact> artifacts = new ArrayList<Artifact>(proj.getArtifacts());
+        Collections.sort(artifacts);
+        for (Artifact artifact : artifacts) {
+            sb.append('|').append(artifact.getId()).append(':').append(artifact.getScope());
+            if (isReactorMavenProject(artifact)) {
+                MavenProject dependProject = getReactorMavenProject(artifact);
+                sb.append(':').append(getPreDeployAppFileName(dependProject));
+                appendFile(sb, new File(dependProject.getBuild().getOutputDirectory()));
+                appendFile(sb, MavenProjectUtil.getManifestFile(dependProject, getArchivePlugin(dependProject)));
+            } else {
+                appendFile(sb, artifact.getFile());
+            }
+        }
+        return ChecksumUtil.sha256(sb.toString());
+    }
+
+    // directories are listed in the configuration, so only their existence matters
+    private static void appendFile(StringBuilder sb, File file) {
+        sb.append('|').append(file);
+        if (file != null && file.isFile()) {
+            sb.append(':').append(file.length()).append(':').append(file.lastModified());
+        } else if (file != null) {
+            sb.append(':').append(file.isDirectory());
+        }
+    }
+
+    private static void appendCodeSource(StringBuilder sb, Class<?> type) {
+        try {
+            appendFile(sb, new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (URISyntaxException | RuntimeException e) {
+            sb.append('|').append(type.getName());
+        }
+    }
+
+    private static boolean isInstalled(Properties state, File looseConfigFile, String inputs) {
+        return getInstalledKey(looseConfigFile, inputs).equals(state.getProperty(looseConfigFile.getAbsolutePath()));
+    }
+
+    private static void recordInstalled(Properties state, File looseConfigFile, String inputs) {
+        state.setProperty(looseConfigFile.getAbsolutePath(), getInstalledKey(looseConfigFile, inputs));
+    }
+
+    // the installed file is checked as well, in case it was deleted or edited
+    private static String getInstalledKey(File looseConfigFile, String inputs) {
+        if (!looseConfigFile.isFile()) {
+            return "";
+        }
+        return inputs + ":" + looseConfigFile.length() + ":" + looseConfigFile.lastModified();
+    }
+
+    private Properties loadLooseConfigState(File stateFile) {
+        Properties state = new Properties();
+        if (stateFile.isFile()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                getLog().debug("Could not read the loose application state " + stateFile + ": " + e.getMessage());
+                state.clear();
+            }
+        }
+        return state;
+    }
+
+    private void saveLooseConfigState(File stateFile, Properties state) {
+        try {
+            Files.createDirectories(stateFile.getParentFile().toPath());
+            try (OutputStream out = new FileOutputStream(stateFile)) {
+                state.store(out, "Generated by liberty-maven-plugin");
+            }
+        } catch (IOException e) {
+            getLog().debug("Could not write the loose application state " + stateFile, e);
+        }
+    }
+
     private void installAndVerifyApp(LooseConfigData config, File looseConfigFile, String applicationName) throws MojoExecutionException, IOException {
+        byte[] looseConfig = getLooseConfigBytes(config, looseConfigFile);
+        if (isUnchanged(looseConfigFile, looseConfig)) {
+            getLog().debug("The loose application configuration file " + looseConfigFile + " is unchanged.");
+            keepInstalledApp(looseConfigFile, applicationName);
+            return;
+        }
         deleteApplication(new File(serverDirectory, "apps"), looseConfigFile);
         deleteApplication(new File(serverDirectory, "dropins"), looseConfigFile);
+        writeLooseConfigBytes(looseConfig, looseConfigFile);
+        //Only checks if server is running
+        addAppToVerify(applicationName, true);
+    }
+
+    /**
+     * Leave the installed file alone so that the server does not restart the
+     * application, but still remove any other installed form of it.
+     */
+    private void keepInstalledApp(File looseConfigFile, String applicationName) throws MojoExecutionException, IOException {
+        for (String appsDirectory : new String[] { "apps", "dropins" }) {
+            File parent = new File(serverDirectory, appsDirectory);
+            deleteApplication(parent, applicationName);
+            if (!new File(parent, looseConfigFile.getName()).equals(looseConfigFile)) {
+                deleteApplication(parent, looseConfigFile.getName());
+            }
+        }
+        //Only checks if server is running
+        addAppToVerify(applicationName, false);
+    }
+
+    /**
+     * Write the loose application configuration file, unless the file already
+     * holds the same configuration.
+     */
+    private void writeLooseConfigFile(LooseConfigData config, File looseConfigFile) throws MojoExecutionException {
+        byte[] looseConfig = getLooseConfigBytes(config, looseConfigFile);
+        if (isUnchanged(looseConfigFile, looseConfig)) {
+            getLog().debug("The loose application configuration file " + looseConfigFile + " is unchanged.");
+        } else {
+            writeLooseConfigBytes(looseConfig, looseConfigFile);
+        }
+    }
+
+    private byte[] getLooseConfigBytes(LooseConfigData config, File looseConfigFile) throws MojoExecutionException {
+        // generate the file outside of the server directories, which the server monitors
+        File tempFile = new File(project.getBuild().getDirectory(), "liberty-plugin-" + looseConfigFile.getName() + ".tmp");
         try {
-            config.toXmlFile(looseConfigFile);
+            config.toXmlFile(tempFile);
+            return Files.readAllBytes(tempFile.toPath());
         } catch (Exception e) {
             throw new MojoExecutionException("Error writing loose application file "+looseConfigFile+" from configuration data.", e);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private void writeLooseConfigBytes(byte[] looseConfig, File looseConfigFile) throws MojoExecutionException {
+        try {
+            Files.createDirectories(looseConfigFile.getParentFile().toPath());
+            Files.write(looseConfigFile.toPath(), looseConfig);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing loose application file "+looseConfigFile+" from configuration data.", e);
+        }
+    }
+
+    private static boolean isUnchanged(File file, byte[] content) {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        try {
+            return Arrays.equals(Files.readAllBytes(file.toPath()), content);
+        } catch (IOException e) {
+            return false;
         }
-        //Only checks if server is running
-        verifyAppStarted(applicationName);
     }
 
     private static LooseConfigData createLooseConfigData() throws MojoExecutionException {
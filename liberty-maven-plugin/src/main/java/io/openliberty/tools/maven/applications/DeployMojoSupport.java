@@ -20,6 +20,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,10 +37,11 @@ import org.apache.maven.project.MavenProject;
 import org.apache.tools.ant.taskdefs.Copy;
 import org.w3c.dom.Element;
 
-import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.ant.SpringBootUtilTask;
 import io.openliberty.tools.maven.server.LooseAppSupport;
+import io.openliberty.tools.maven.utils.AppStartVerifier;
 import io.openliberty.tools.maven.utils.CommonLogger;
+import io.openliberty.tools.maven.utils.LogWatcher;
 import io.openliberty.tools.maven.utils.MavenProjectUtil;
 import io.openliberty.tools.maven.utils.SpringBootUtil;
 import io.openliberty.tools.common.plugins.config.ApplicationXmlDocument;
@@ -68,6 +71,12 @@ public abstract class DeployMojoSupport extends LooseAppSupport {
 
     protected ApplicationXmlDocument applicationXml = new ApplicationXmlDocument();
 
+    // the names of the deployed applications to verify, the ones of them that were deployed again,
+    // and the length of the log before they were deployed
+    private final List<String> appsToVerify = new ArrayList<String>();
+    private final Set<String> redeployedAppsToVerify = new HashSet<String>();
+    private long deployLogOffset = 0;
+
     protected void installApp(Artifact artifact) throws MojoExecutionException, IOException {
     
         if (artifact.getFile() == null || artifact.getFile().isDirectory()) {
@@ -102,11 +111,13 @@ public abstract class DeployMojoSupport extends LooseAppSupport {
         // to target server.xml if not found for appsDirectory="apps"
         validateAppConfig(destFile.getCanonicalPath(), destFileName, artifact.getArtifactId());
 
+        long installed = destFile.lastModified();
         deleteApplication(serverDirectory, fileToCopy, destFile);
         
         copyFile.execute();
 
-        verifyAppStarted(destFileName);
+        // the copy is skipped when the installed file is up to date
+        addAppToVerify(destFileName, destFile.lastModified() != installed);
     }
 
     private void setLooseProjectRootForContainer(MavenProject proj, LooseConfigData config) throws MojoExecutionException {
@@ -304,7 +315,27 @@ public abstract class DeployMojoSupport extends LooseAppSupport {
         }
     }
 
-    protected void verifyAppStarted(String appFile) throws MojoExecutionException {
+    private File getMessagesLog() {
+        return new File(new File(outputDirectory, serverName), "logs/messages.log");
+    }
+
+    /**
+     * Record the length of the log before the applications are deployed, so that
+     * only failures of this deployment are reported.
+     */
+    protected void markDeployLogOffset() {
+        deployLogOffset = getMessagesLog().length();
+    }
+
+    /**
+     * Add a deployed application to the applications that
+     * {@link #verifyAppsStarted()} verifies, if the server is running.
+     *
+     * @param appFile    the file name of the application
+     * @param redeployed false if the installed application was left unchanged,
+     *                   so that the server does not start it again
+     */
+    protected void addAppToVerify(String appFile, boolean redeployed) throws MojoExecutionException {
         if (shouldValidateAppStart()) {
             String appName = appFile.substring(0, appFile.lastIndexOf('.'));
             if (getAppsDirectory().equals("apps")) {
@@ -325,40 +356,106 @@ public abstract class DeployMojoSupport extends LooseAppSupport {
                     getLog().debug(e);
                 } 
             }
-
-            ServerTask serverTask = initializeJava();
-            if (serverTask.waitForStringInLog(START_APP_MESSAGE_REGEXP + appName, timeout * 1000, new File(new File(outputDirectory, serverName), "logs/messages.log")) == null) {
-                throw new MojoExecutionException(MessageFormat.format(messages.getString("error.deploy.fail"), appName));
+            appsToVerify.add(appName);
+            if (redeployed) {
+                redeployedAppsToVerify.add(appName);
             }
         }
     }
 
+    /**
+     * Verify that the deployed applications started. The log is watched once for
+     * the start and failure messages of all applications, which share the
+     * timeout, and the verification ends when the last application started or
+     * failed. For the applications that were deployed again, only the messages
+     * logged since the deployment count.
+     */
+    protected void verifyAppsStarted() throws MojoExecutionException {
+        if (appsToVerify.isEmpty()) {
+            return;
+        }
+        List<AppStartVerifier.Result> results;
+        try (LogWatcher logWatcher = new LogWatcher(getMessagesLog())) {
+            AppStartVerifier verifier = new AppStartVerifier(logWatcher, START_APP_MESSAGE_REGEXP, FAIL_APP_MESSAGE_REGEXP);
+            // the log of a running server can hold failures and starts of earlier deployments,
+            // but an application that was not deployed again is not started again
+            verifier.setFailureLogOffset(deployLogOffset);
+            verifier.setRedeployed(redeployedAppsToVerify, deployLogOffset, UPDATE_APP_MESSAGE_REGEXP);
+            results = verifier.verify(appsToVerify, timeout * 1000);
+        }
+        appsToVerify.clear();
+        redeployedAppsToVerify.clear();
+        for (String line : AppStartVerifier.formatTable(results)) {
+            getLog().info(line);
+        }
+        List<String> notStarted = AppStartVerifier.getNotStarted(results);
+        if (!notStarted.isEmpty()) {
+            throw new MojoExecutionException(MessageFormat.format(messages.getString("error.deploy.fail"), String.join(", ", notStarted)));
+        }
+    }
+
     private void addEmbeddedLib(Element parent, MavenProject warProject, LooseApplication looseApp, String dir)
             throws MojoExecutionException, IOException {
         Set<Artifact> artifacts = warProject.getArtifacts();
         getLog().debug("Number of compile dependencies for " + warProject.getArtifactId() + " : " + artifacts.size());
 
+        List<Artifact> libraries = new ArrayList<Artifact>();
         for (Artifact artifact : artifacts) {
             if ( ("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope())) && 
                  ("jar".equals(artifact.getType()) || "jar".equals(artifact.getArtifactHandler().getExtension())) ) {
-                addLibrary(parent, looseApp, dir, artifact);
+                libraries.add(artifact);
             }
         }
+        prefetchLibraries(libraries);
+        for (Artifact artifact : libraries) {
+            addLibrary(parent, looseApp, dir, artifact);
+        }
     }
 
     private void addSkinnyWarLib(Element parent, MavenProject warProject, LooseEarApplication looseEar) throws MojoExecutionException, IOException {
         Set<Artifact> artifacts = warProject.getArtifacts();
         getLog().debug("Number of compile dependencies for " + warProject.getArtifactId() + " : " + artifacts.size());
 
+        List<Artifact> libraries = new ArrayList<Artifact>();
         for (Artifact artifact : artifacts) {
             // skip the embedded library if it is included in the lib directory of the ear
             // package
             if (("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope()))
                     && ("jar".equals(artifact.getType()) || "jar".equals(artifact.getArtifactHandler().getExtension()))
                     && !looseEar.isEarDependency(artifact)) {
-                addLibrary(parent, looseEar, "/WEB-INF/lib/", artifact);
+                libraries.add(artifact);
+            }
+        }
+        prefetchLibraries(libraries);
+        for (Artifact artifact : libraries) {
+            addLibrary(parent, looseEar, "/WEB-INF/lib/", artifact);
+        }
+    }
+
+    // resolve the libraries that are not reactor projects in parallel before they are added one by one
+    private void prefetchLibraries(List<Artifact> libraries) {
+        List<Dependency> items = new ArrayList<Dependency>();
+        for (Artifact artifact : libraries) {
+            if (!artifact.isResolved() && !isReactorMavenProject(artifact)) {
+                items.add(createArtifactItem(artifact.getGroupId(), artifact.getArtifactId(), artifact.getType(), artifact.getVersion(), artifact.getClassifier()));
             }
         }
+        prefetchArtifacts(items);
+    }
+
+    /**
+     * Check if a reactor project generates an ejb, bundle or jar
+     *
+     * @return the artifact id of the plugin that archives the project
+     */
+    protected static String getArchivePlugin(MavenProject dependProject) {
+        String packaging = dependProject.getPackaging();
+        if (packaging.equalsIgnoreCase("ejb")) {
+            return "maven-ejb-plugin";
+        } else if (packaging.equalsIgnoreCase("bundle")) {
+            return "maven-bundle-plugin";
+        }
+        return "maven-jar-plugin";
     }
 
     private void addLibrary(Element parent, LooseApplication looseApp, String dir, Artifact artifact) throws MojoExecutionException, IOException {
@@ -369,16 +466,7 @@ public abstract class DeployMojoSupport extends LooseAppSupport {
                 Element archive = looseApp.addArchive(parent, dir + artifactFileName);
                 looseApp.addOutputDir(archive, new File(dependProject.getBuild().getOutputDirectory()), "/");
 
-                //Check if reactor project generates an ejb, bundle or jar 
-                String archivePlugin = "maven-jar-plugin";
-                String packaging = dependProject.getPackaging();
-                if (packaging.equalsIgnoreCase("ejb")) {
-                    archivePlugin = "maven-ejb-plugin";
-                } else if (packaging.equalsIgnoreCase("bundle")) {
-                    archivePlugin = "maven-bundle-plugin";
-                }
-
-                File manifestFile = MavenProjectUtil.getManifestFile(dependProject, archivePlugin);
+                File manifestFile = MavenProjectUtil.getManifestFile(dependProject, getArchivePlugin(dependProject));
 
                 String dependProjectTargetDir = dependProject.getBuild().getDirectory();
 
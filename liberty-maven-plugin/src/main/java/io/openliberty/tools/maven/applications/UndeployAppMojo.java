@@ -26,8 +26,8 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 
-import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.maven.utils.CommonLogger;
+import io.openliberty.tools.maven.utils.LogWatcher;
 
 /**
  * Undeploy application from liberty server. If no parameters have been defined
@@ -156,8 +156,11 @@ public class UndeployAppMojo extends DeployMojoSupport {
 
         //check stop message code
         String stopMessage = STOP_APP_MESSAGE_CODE_REG + appName;
-        ServerTask serverTask = initializeJava();
-        if (serverTask.waitForStringInLog(stopMessage, APP_STOP_TIMEOUT_DEFAULT, new File(serverDirectory, "logs/messages.log")) == null) {
+        String stopLine;
+        try (LogWatcher logWatcher = new LogWatcher(new File(serverDirectory, "logs/messages.log"))) {
+            stopLine = logWatcher.waitFor(stopMessage, APP_STOP_TIMEOUT_DEFAULT);
+        }
+        if (stopLine == null) {
             throw new MojoExecutionException("CWWKM2022E: Failed to undeploy application " + file.getPath() + ". The Stop application message cannot be found in console.getLog().");
         }
     }
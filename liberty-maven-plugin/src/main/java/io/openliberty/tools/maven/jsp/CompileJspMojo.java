@@ -16,11 +16,17 @@
 package io.openliberty.tools.maven.jsp;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Plugin;
@@ -29,11 +35,13 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 
 import io.openliberty.tools.ant.jsp.CompileJSPs;
 import io.openliberty.tools.common.plugins.util.PluginExecutionException;
 import io.openliberty.tools.maven.InstallFeatureSupport;
+import io.openliberty.tools.maven.utils.IncrementalJspCompiler;
 
 /**
  * Compile the JSPs in the src/main/webapp folder.
@@ -41,6 +49,10 @@ import io.openliberty.tools.maven.InstallFeatureSupport;
 @Mojo(name = "compile-jsp", defaultPhase = LifecyclePhase.COMPILE, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
 public class CompileJspMojo extends InstallFeatureSupport {
 
+    private static final String JSP_COMPILE_DIRECTORY = "liberty-plugin-jsp-compile";
+    private static final String JSP_COMPILE_STATE = "liberty-plugin-jsp-compile.properties";
+    private static final int PAGES_PER_WORKER = 250;
+
     /**
      * The version of JSP that should be compiled against. Defaults to 2.3. Can be
      * 2.2 or 2.3
@@ -54,6 +66,21 @@ public class CompileJspMojo extends InstallFeatureSupport {
      */
     @Parameter(defaultValue = "40")
     protected int timeout;
+
+    /**
+     * Compile only the JSPs that changed since the last compile, together with
+     * the JSPs that include a changed file or use a changed tag file.
+     */
+    @Parameter(property = "incrementalJspCompile", defaultValue = "false")
+    protected boolean incremental;
+
+    /**
+     * The number of compile servers that compile the changed JSPs in parallel in
+     * incremental mode. By default one server is used for every 250 changed JSPs,
+     * up to half the number of processors.
+     */
+    @Parameter(defaultValue = "0")
+    protected int workers;
     
     @Override
     public void execute() throws MojoExecutionException {
@@ -68,23 +95,8 @@ public class CompileJspMojo extends InstallFeatureSupport {
     }
 
     private void doCompileJsps() throws MojoExecutionException {
-        CompileJSPs compile = (CompileJSPs) ant.createTask("antlib:io/openliberty/tools/ant:compileJSPs");
-        if (compile == null) {
-            throw new IllegalStateException(
-                    MessageFormat.format(messages.getString("error.dependencies.not.found"), "compileJSPs"));
-        }
-
-        compile.setInstallDir(installDirectory);
-
-        compile.setSrcdir(new File("src/main/webapp"));
-        compile.setDestdir(new File(getProject().getBuild().getOutputDirectory()));
-        compile.setTempdir(new File(getProject().getBuild().getDirectory()));
-        compile.setTimeout(timeout);
-
-        // don't delete temporary server dir
-        compile.setCleanup(false);
-
-        boolean sourceSet = false;
+        File srcdir = new File("src/main/webapp");
+        String source = null;
 
         List<Plugin> plugins = getProject().getBuildPlugins();
         for (Plugin plugin : plugins) {
@@ -96,15 +108,13 @@ public class CompileJspMojo extends InstallFeatureSupport {
                     if (child != null && child.getValue() != null) {
                         String value = child.getValue();
                         getLog().debug("compile-jsp using maven.compiler.release value: "+value+" for javaSourceLevel.");
-                        compile.setSource(value);
-                        sourceSet = true;    
+                        source = value;
                     } else {
                         child = dom.getChild("source");
                         if (child != null && child.getValue() != null) {
                             String value = child.getValue();
                             getLog().debug("compile-jsp using maven.compiler.source value: "+value+" for javaSourceLevel.");
-                            compile.setSource(value);
-                            sourceSet = true;    
+                            source = value;
                         }
                     }
                 }
@@ -115,28 +125,26 @@ public class CompileJspMojo extends InstallFeatureSupport {
                     Xpp3Dom dom = (Xpp3Dom) config;
                     Xpp3Dom val = dom.getChild("warSourceDirectory");
                     if (val != null) {
-                        compile.setSrcdir(new File(val.getValue()));
+                        srcdir = new File(val.getValue());
                     }
                 }
             }
         }
 
-        if (!sourceSet) {
+        if (source == null) {
             // look for Maven properties
             Properties props = getProject().getProperties();
             if (props.containsKey("maven.compiler.release")) {
                 String value = props.getProperty("maven.compiler.release");
                 if (value != null) {
                     getLog().debug("compile-jsp using maven.compiler.release value: "+value+" for javaSourceLevel.");
-                    compile.setSource(value);
-                    sourceSet = true;
+                    source = value;
                 }  
             } else if (props.containsKey("maven.compiler.source")) {
                 String value = props.getProperty("maven.compiler.source");
                 if (value != null) {
                     getLog().debug("compile-jsp using maven.compiler.source value: "+value+" for javaSourceLevel.");
-                    compile.setSource(value);
-                    sourceSet = true;
+                    source = value;
                 }
             }
         }
@@ -163,8 +171,9 @@ public class CompileJspMojo extends InstallFeatureSupport {
 
         String classpathStr = join(classpath, File.pathSeparator);
         getLog().debug("Classpath: " + classpathStr);
-        compile.setClasspath(classpathStr);
 
+        String version = null;
+        String features = null;
         if(initialize()) {
             Set<String> installedFeatures;
             try {
@@ -174,34 +183,177 @@ public class CompileJspMojo extends InstallFeatureSupport {
             }
 
             //Set JSP Feature Version
-            setJspVersion(compile, installedFeatures);
+            version = getJspVersion(installedFeatures);
 
             //Removing jsp features at it is already set at this point 
             installedFeatures.remove("jsp-2.3");
             installedFeatures.remove("jsp-2.2");
             
             if(installedFeatures != null && !installedFeatures.isEmpty()) {
-                compile.setFeatures(installedFeatures.toString().replace("[", "").replace("]", ""));
+                features = installedFeatures.toString().replace("[", "").replace("]", "");
             }
         }
 
-        compile.execute();
+        if (incremental) {
+            compileIncrementally(srcdir, source, classpathStr, classpath, version, features);
+        } else {
+            createCompileTask(srcdir, new File(getProject().getBuild().getOutputDirectory()),
+                    new File(getProject().getBuild().getDirectory()), source, classpathStr, version, features).execute();
+        }
     }
 
-    private void setJspVersion(CompileJSPs compile, Set<String> installedFeatures) {
+    private CompileJSPs createCompileTask(File srcdir, File destdir, File tempdir, String source, String classpath,
+            String version, String features) {
+        CompileJSPs compile = (CompileJSPs) ant.createTask("antlib:io/openliberty/tools/ant:compileJSPs");
+        if (compile == null) {
+            throw new IllegalStateException(
+                    MessageFormat.format(messages.getString("error.dependencies.not.found"), "compileJSPs"));
+        }
+
+        compile.setInstallDir(installDirectory);
+
+        compile.setSrcdir(srcdir);
+        compile.setDestdir(destdir);
+        compile.setTempdir(tempdir);
+        compile.setTimeout(timeout);
+
+        // don't delete temporary server dir
+        compile.setCleanup(false);
+
+        if (source != null) {
+            compile.setSource(source);
+        }
+        compile.setClasspath(classpath);
         //If no conditions are met, defaults to 2.3 from the ant task
-        if (jspVersion != null) {
-            compile.setJspVersion(jspVersion);
-        }
-        else {
-            for (String currentFeature : installedFeatures) {
-                if(currentFeature.startsWith("jsp-")) {
-                    String version = currentFeature.replace("jsp-", "");
-                    compile.setJspVersion(version);
-                    break;
+        if (version != null) {
+            compile.setJspVersion(version);
+        }
+        if (features != null) {
+            compile.setFeatures(features);
+        }
+        return compile;
+    }
+
+    /**
+     * Compile only the stale pages, split across compile servers that run in
+     * parallel.
+     */
+    private void compileIncrementally(File srcdir, String source, String classpathStr, Set<String> classpath,
+            String version, String features) throws MojoExecutionException {
+        File buildDirectory = new File(getProject().getBuild().getDirectory());
+        File workDirectory = new File(buildDirectory, JSP_COMPILE_DIRECTORY);
+
+        // jars are identified by their size and modification time, like the other incremental steps
+        StringBuilder configuration = new StringBuilder();
+        configuration.append(installDirectory.getAbsolutePath()).append('\n').append(srcdir.getAbsolutePath())
+                .append('\n').append(source).append('\n').append(version).append('\n').append(features);
+        for (String entry : classpath) {
+            File file = new File(entry);
+            configuration.append('\n').append(entry);
+            if (file.isFile()) {
+                configuration.append(':').append(file.length()).append(':').append(file.lastModified());
+            }
+        }
+
+        final File destdir = new File(getProject().getBuild().getOutputDirectory());
+        final IncrementalJspCompiler compiler = new IncrementalJspCompiler(srcdir, destdir,
+                new File(buildDirectory, JSP_COMPILE_STATE), configuration.toString(), getLog());
+        try {
+            List<String> stale = compiler.getStalePages();
+            if (stale.isEmpty()) {
+                getLog().info("All JSP files are up to date.");
+                compiler.save();
+                return;
+            }
+
+            int workerCount = workers > 0 ? workers
+                    : Math.min((stale.size() + PAGES_PER_WORKER - 1) / PAGES_PER_WORKER,
+                            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            workerCount = Math.max(1, Math.min(workerCount, stale.size()));
+            getLog().info("Compiling " + stale.size() + " changed JSP files"
+                    + (workerCount > 1 ? " with " + workerCount + " parallel compile servers." : "."));
+
+            final List<List<String>> pages = new ArrayList<List<String>>();
+            List<CompileJSPs> tasks = new ArrayList<CompileJSPs>();
+            final List<File> classesDirectories = new ArrayList<File>();
+            for (int i = 0; i < workerCount; i++) {
+                pages.add(new ArrayList<String>());
+            }
+            for (int i = 0; i < stale.size(); i++) {
+                pages.get(i % workerCount).add(stale.get(i));
+            }
+            for (int i = 0; i < workerCount; i++) {
+                File workerDirectory = new File(workDirectory, "worker-" + (i + 1));
+                File stagingDirectory = new File(workerDirectory, "src");
+                File classesDirectory = new File(workerDirectory, "classes");
+                compiler.stage(stagingDirectory, pages.get(i));
+                FileUtils.deleteDirectory(classesDirectory);
+                classesDirectories.add(classesDirectory);
+                // the tasks are created here, since the Ant project is not meant to be used concurrently
+                tasks.add(createCompileTask(stagingDirectory, classesDirectory, workerDirectory, source, classpathStr,
+                        version, features));
+            }
+
+            RuntimeException failure = null;
+            if (workerCount == 1) {
+                try {
+                    tasks.get(0).execute();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            } else {
+                ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+                try {
+                    List<Future<?>> futures = new ArrayList<Future<?>>();
+                    for (final CompileJSPs task : tasks) {
+                        futures.add(executor.submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                task.execute();
+                            }
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        try {
+                            future.get();
+                        } catch (ExecutionException e) {
+                            if (failure == null) {
+                                failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                                        : new IllegalStateException(e.getCause());
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while compiling JSP files.", e);
+                } finally {
+                    executor.shutdownNow();
                 }
             }
+
+            // pages that compiled are recorded even if others failed, so they are not compiled again
+            for (int i = 0; i < workerCount; i++) {
+                compiler.compiled(pages.get(i), classesDirectories.get(i));
+            }
+            compiler.save();
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error compiling the changed JSP files.", e);
+        }
+    }
+
+    private String getJspVersion(Set<String> installedFeatures) {
+        if (jspVersion != null) {
+            return jspVersion;
+        }
+        for (String currentFeature : installedFeatures) {
+            if(currentFeature.startsWith("jsp-")) {
+                return currentFeature.replace("jsp-", "");
+            }
         }
+        return null;
     }
 
     private String join(Set<String> depPathes, String sep) {
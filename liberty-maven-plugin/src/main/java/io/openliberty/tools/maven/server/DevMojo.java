@@ -28,19 +28,26 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.execution.MavenSession;
@@ -58,8 +65,9 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
-import org.apache.maven.project.ProjectBuildingResult;
 import org.apache.maven.rtinfo.RuntimeInformation;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
 
@@ -76,8 +84,17 @@ import io.openliberty.tools.common.plugins.util.ServerStatusUtil;
 import io.openliberty.tools.maven.BasicSupport;
 import io.openliberty.tools.maven.applications.DeployMojoSupport;
 import io.openliberty.tools.maven.applications.LooseWarApplication;
+import io.openliberty.tools.maven.utils.AffectedTestSelector;
+import io.openliberty.tools.maven.utils.ChangeScheduler;
 import io.openliberty.tools.maven.utils.DevHelper;
+import io.openliberty.tools.maven.utils.DevProfiler;
 import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
+import io.openliberty.tools.maven.utils.IncrementalJavaCompiler;
+import io.openliberty.tools.maven.utils.MavenProjectCache;
+import io.openliberty.tools.maven.utils.ModuleCompileScheduler;
+import io.openliberty.tools.maven.utils.ResourceFilter;
+import io.openliberty.tools.maven.utils.ResourceSync;
+import io.openliberty.tools.maven.utils.TestWorkerClient;
 
 /**
  * Start a liberty server in dev mode import to set ResolutionScope for TEST as
@@ -87,6 +104,17 @@ import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
 public class DevMojo extends LooseAppSupport {
 
     private static final String TEST_RUN_ID_PROPERTY_NAME = "liberty.dev.test.run.id";
+    private static final String TEST_WORKER_CLASSPATH = "liberty-plugin-test-worker.classpath";
+    private static final String DEV_PROFILE_TRACE = "liberty-plugin-dev-trace.json";
+    private static final String DEV_PROFILE_SUMMARY = "liberty-plugin-dev-profile.txt";
+    private static final String JUNIT_PLATFORM_GROUP_ID = "org.junit.platform";
+    // Surefire parameters that the test JVM does not reproduce
+    private static final List<String> TEST_WORKER_UNSUPPORTED_PARAMETERS = Arrays.asList("test", "includesFile",
+            "excludesFile", "groups", "excludedGroups", "parallel", "threadCount", "dependenciesToScan",
+            "classpathDependencyExcludes", "classpathDependencyScopeExclude", "properties", "systemProperties",
+            "systemPropertiesFile", "classesDirectory", "testClassesDirectory", "suiteXmlFiles", "forkMode",
+            "rerunFailingTestsCount", "skipAfterFailureCount", "testFailureIgnore", "skip", "skipTests",
+            "skipExec");
     private static final String LIBERTY_HOSTNAME = "liberty.hostname";
     private static final String LIBERTY_HTTP_PORT = "liberty.http.port";
     private static final String LIBERTY_HTTPS_PORT = "liberty.https.port";
@@ -100,12 +128,40 @@ public class DevMojo extends LooseAppSupport {
 
     DevMojoUtil util = null;
 
+    // held to run a goal or to replace the project, as the file watcher and the
+    // batches of file changes do both on their own threads
+    private final Object mojoLock = new Object();
+
+    // held to run the tests, which take too long to hold up the handling of changes
+    private final Object testLock = new Object();
+
     @Parameter(property = "changeOnDemandTestsAction", defaultValue = "false")
     private boolean changeOnDemandTestsAction;
 
     @Parameter(property = "hotTests", defaultValue = "false")
     private boolean hotTests;
 
+    /**
+     * Run only the tests affected by the class changes since the tests last
+     * passed. Tests run on demand run all tests if no class changed.
+     */
+    @Parameter(property = "runAffectedTests", defaultValue = "true")
+    private boolean runAffectedTests;
+
+    /**
+     * Run JUnit Platform unit tests in a JVM that is kept running between test
+     * runs instead of forking a Surefire JVM for every run.
+     */
+    @Parameter(property = "reuseTestJvm", defaultValue = "false")
+    private boolean reuseTestJvm;
+
+    /**
+     * Record the time and I/O volume of each dev mode phase, log a summary after
+     * each change cycle and write a Chrome trace to the target directory.
+     */
+    @Parameter(property = "profileDevMode", defaultValue = "false")
+    private boolean profileDevMode;
+
     @Parameter(property = "skipTests", defaultValue = "false")
     private boolean skipTests;
 
@@ -160,6 +216,8 @@ public class DevMojo extends LooseAppSupport {
     @Component
     protected ProjectBuilder mavenProjectBuilder;
 
+    private MavenProjectCache mavenProjectCache;
+
     @Component
     private RuntimeInformation runtime;
 
@@ -338,10 +396,41 @@ public class DevMojo extends LooseAppSupport {
         return resourceDirs;
     }
 
+    /**
+     * The tests a test run has to cover, in increasing order.
+     */
+    private enum TestScope {
+        /** the tests affected by the changed classes, none if no class changed */
+        AFFECTED,
+        /** the tests affected by the changed classes, all if no class changed */
+        ON_DEMAND,
+        /** all tests */
+        ALL
+    }
+
     private class DevMojoUtil extends DevUtil {
+        private static final int RESOURCES_PHASE = 0;
+        private static final int EXPLODED_PHASE = 1;
+
         Set<String> existingFeatures;
         Map<String, File> libertyDirPropertyFiles = new HashMap<String, File>();
         List<MavenProject> upstreamMavenProjects;
+        private final IncrementalJavaCompiler javaCompiler = new IncrementalJavaCompiler(getLog());
+        private final ChangeScheduler changeScheduler = new ChangeScheduler((long) (compileWait * 1000L),
+                Math.max((long) (compileWait * 10000L), 2000L), mojoLock, getLog());
+        private final ModuleCompileScheduler moduleCompiles;
+        private final Map<File, File[]> changedResources = new LinkedHashMap<File, File[]>();
+        private final AffectedTestSelector testSelector = new AffectedTestSelector(getLog());
+        // a test JVM for each module, as their test classpaths differ
+        private final Map<File, TestWorkerClient> testWorkers = new HashMap<File, TestWorkerClient>();
+        private boolean compileTriggeredTests = false;
+        // a test run started by a compilation has not finished yet
+        private volatile boolean compileTestRunPending = false;
+        // the next test run is for classes whose compilation already started a test run
+        private volatile boolean compiledClassesTestRun = false;
+        private TestScope unitTestScope = TestScope.AFFECTED;
+        private TestScope integrationTestScope = TestScope.AFFECTED;
+        private JavaCompilerOptions mainCompilerOptions;
 
         public DevMojoUtil(File installDir, File userDir, File serverDirectory, File sourceDirectory,
                 File testSourceDirectory, File configDirectory, File projectDirectory, File multiModuleProjectDirectory,
@@ -362,10 +451,36 @@ public class DevMojo extends LooseAppSupport {
             ServerFeatureUtil servUtil = getServerFeatureUtil(true, libertyDirPropertyFiles);           
             this.existingFeatures = servUtil.getServerFeatures(serverDirectory, libertyDirPropertyFiles);
             this.upstreamMavenProjects = upstreamMavenProjects;
+            this.mainCompilerOptions = compilerOptions;
+            if (recompileDeps && !upstreamProjects.isEmpty()) {
+                this.moduleCompiles = new ModuleCompileScheduler(getModulePrerequisites(upstreamProjects), javaCompiler,
+                        Runtime.getRuntime().availableProcessors(), getLog());
+            } else {
+                this.moduleCompiles = null;
+            }
 
             setContainerEngine(this);
         }
 
+        /**
+         * @return the canonical build files of the upstream modules each module
+         *         depends on, keyed by the canonical build file of the module
+         */
+        private Map<File, Set<File>> getModulePrerequisites(List<ProjectModule> upstreamProjects) throws IOException {
+            Map<File, Set<File>> prerequisites = new HashMap<File, Set<File>>();
+            for (ProjectModule upstreamProject : upstreamProjects) {
+                File upstreamBuildFile = upstreamProject.getBuildFile().getCanonicalFile();
+                for (File dependentModule : upstreamProject.getDependentModules()) {
+                    File dependentBuildFile = dependentModule.getCanonicalFile();
+                    if (!prerequisites.containsKey(dependentBuildFile)) {
+                        prerequisites.put(dependentBuildFile, new HashSet<File>());
+                    }
+                    prerequisites.get(dependentBuildFile).add(upstreamBuildFile);
+                }
+            }
+            return prerequisites;
+        }
+
         @Override
         public void debug(String msg) {
             getLog().debug(msg);
@@ -432,6 +547,8 @@ public class DevMojo extends LooseAppSupport {
 
         @Override
         public boolean libertyGenerateFeatures(Collection<String> classes, boolean optimize) {
+            // DevUtil runs the tests again once the features of compiled classes are generated
+            compiledClassesTestRun = classes != null && compileTestRunPending;
             try {
                 if (classes != null) {
                     Element[] classesElem = new Element[classes.size()];
@@ -482,22 +599,60 @@ public class DevMojo extends LooseAppSupport {
         }
 
         @Override
-        public void stopServer() {
-            super.serverFullyStarted.set(false);
+        public void startServer(boolean buildContainer, boolean pullParentImage) throws PluginExecutionException {
+            DevProfiler.Span span = profiler.start("server-start");
+            try {
+                super.startServer(buildContainer, pullParentImage);
+            } finally {
+                span.end();
+            }
+        }
 
-            if (container) {
-                // TODO stop the container instead
-                return;
+        @Override
+        public void restartServer(boolean buildContainer) throws PluginExecutionException {
+            DevProfiler.Span span = profiler.start("server-restart");
+            try {
+                super.restartServer(buildContainer);
+            } finally {
+                span.end();
             }
+        }
+
+        @Override
+        public void stopServer() {
+            DevProfiler.Span span = profiler.start("server-stop");
             try {
-                ServerTask serverTask = initializeJava();
-                serverTask.setOperation("stop");
-                serverTask.execute();
-            } catch (Exception e) {
-                getLog().warn(MessageFormat.format(messages.getString("warn.server.stopped"), serverName));
+                super.serverFullyStarted.set(false);
+
+                if (container) {
+                    // TODO stop the container instead
+                    return;
+                }
+                try {
+                    ServerTask serverTask = initializeJava();
+                    serverTask.setOperation("stop");
+                    serverTask.execute();
+                } catch (Exception e) {
+                    getLog().warn(MessageFormat.format(messages.getString("warn.server.stopped"), serverName));
+                }
+            } finally {
+                span.end();
             }
         }
 
+        /**
+         * Called once when dev mode exits, before the server is stopped.
+         */
+        @Override
+        public void cleanUpServerEnv() {
+            changeScheduler.flush();
+            changeScheduler.shutdown();
+            if (moduleCompiles != null) {
+                moduleCompiles.shutdown();
+            }
+            super.cleanUpServerEnv();
+        }
+
         @Override
         public ServerTask getServerTask() throws Exception {
             if (serverTask != null) {
@@ -844,9 +999,7 @@ public class DevMojo extends LooseAppSupport {
         }
         
         private MavenProject getMavenProject(File buildFile) throws ProjectBuildingException {
-            ProjectBuildingResult build = mavenProjectBuilder.build(buildFile,
-                    session.getProjectBuildingRequest().setResolveDependencies(true));
-            MavenProject builtProject = build.getProject();
+            MavenProject builtProject = buildMavenProject(buildFile);
             updateUpstreamProjectsArtifactPathToOutputDirectory(builtProject);
             return builtProject;
         }
@@ -871,93 +1024,172 @@ public class DevMojo extends LooseAppSupport {
         
         @Override
         protected void updateLooseApp() throws PluginExecutionException {
-            // Only perform operations if we are a war type application
-            if (project.getPackaging().equals("war")) {
-                // Check if we are using an exploded loose app
-                if (LooseWarApplication.isExploded(project)) {
-                    if (!isExplodedLooseWarApp) {
-                        // The project was previously running with a "non-exploded" loose app.
-                        // Update this flag and redeploy as an exploded loose app.
-                        isExplodedLooseWarApp = true;
-                        
-                        // Validate maven-war-plugin version
-                        Plugin warPlugin = getPlugin("org.apache.maven.plugins", "maven-war-plugin");
-                        if (!validatePluginVersion(warPlugin.getVersion(), "3.3.2")) {
-                            getLog().warn(
-                                    "Exploded WAR functionality is enabled. Please use maven-war-plugin version 3.3.2 or greater for best results.");
+            DevProfiler.Span span = profiler.start("loose-application");
+            try {
+                // Only perform operations if we are a war type application
+                if (project.getPackaging().equals("war")) {
+                    // Check if we are using an exploded loose app
+                    if (LooseWarApplication.isExploded(project)) {
+                        if (!isExplodedLooseWarApp) {
+                            // The project was previously running with a "non-exploded" loose app.
+                            // Update this flag and redeploy as an exploded loose app.
+                            isExplodedLooseWarApp = true;
+
+                            // Validate maven-war-plugin version
+                            Plugin warPlugin = getPlugin("org.apache.maven.plugins", "maven-war-plugin");
+                            if (!validatePluginVersion(warPlugin.getVersion(), "3.3.2")) {
+                                getLog().warn(
+                                        "Exploded WAR functionality is enabled. Please use maven-war-plugin version 3.3.2 or greater for best results.");
+                            }
+
+                            redeployApp();
+                        } else {
+                            scheduleExplodedMojo();
                         }
-                        
-                        redeployApp();
                     } else {
-                        try {
-                            runExplodedMojo();
-                        } catch (MojoExecutionException e) {
-                            getLog().error("Failed to run war:exploded goal", e);
+                        if (isExplodedLooseWarApp) {
+                            // Dev mode was previously running with an exploded loose war app. The app
+                            // must have been updated to remove any exploded war capabilities 
+                            // (filtering, overlay, etc). Update this flag and redeploy.
+                            isExplodedLooseWarApp = false;
+                            redeployApp();
                         }
                     }
-                } else {
-                    if (isExplodedLooseWarApp) {
-                        // Dev mode was previously running with an exploded loose war app. The app
-                        // must have been updated to remove any exploded war capabilities 
-                        // (filtering, overlay, etc). Update this flag and redeploy.
-                        isExplodedLooseWarApp = false;
-                        redeployApp();
-                    }
                 }
+            } finally {
+                span.end();
             }
         }
 
         @Override
         protected void resourceDirectoryCreated() throws IOException {
             if (project.getPackaging().equals("war") && LooseWarApplication.isExploded(project)) {
-                try {
-                    runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
-                    runExplodedMojo();
-                } catch (MojoExecutionException e) {
-                    getLog().error("Failed to run goal(s)", e);
-                }
+                scheduleResourcesMojo();
+                scheduleExplodedMojo();
             } 
         }
 
         @Override
         protected void resourceModifiedOrCreated(File fileChanged, File resourceParent, File outputDirectory) throws IOException {
-            /**
-             * There is an asymmetry here that we take advantage of in the exploded case. For multi-mod, this would be a copyFile, which
-             * does not apply Maven filters.
-             */
-            try {
-                runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
-            } catch (MojoExecutionException e) {
-                getLog().error("Failed to run goal(s)", e);
-            }
+            scheduleResourceSync(fileChanged, resourceParent, outputDirectory);
         }
 
         @Override
         protected void resourceDeleted(File fileChanged, File resourceParent, File outputDirectory) throws IOException {
-
             /**
-             * Why is this so asymmetric compared to resourceModifiedOrCreated() above? For two reasons: 1. The resources:resources plugin
-             * goal doesn't update the target/output directory with deletions, so we have to use our own custom deleteFile() method 2. In
-             * the case of the exploded loose app format, even having deleted the file from the outputDirectory ('target/classes'), the
-             * resource would typically also have been collected into the exploded 'webapp' directory. Even though it would take precedence
-             * in 'target/classes' when it ends up in both locations, it will still be present in the 'webapp' directory. So we re-run the
-             * exploded goal to force an "outdated" update cleaning this file from this location. Another approach might have been to do a
-             * delteFile() in the 'webapp' directory.
+             * The resource is also deleted from the output directory ('target/classes') by the resource sync. In the case of
+             * the exploded loose app format, the resource would typically also have been collected into the exploded
+             * 'webapp' directory, so we re-run the exploded goal to force an "outdated" update cleaning this file from
+             * this location.
              */
-
-            deleteFile(fileChanged, resourceParent, outputDirectory, null);
+            scheduleResourceSync(fileChanged, resourceParent, outputDirectory);
             if (project.getPackaging().equals("war") && LooseWarApplication.isExploded(project)) {
-                try {
-                    runExplodedMojo();
-                } catch (MojoExecutionException e) {
-                    getLog().error("Failed to run goal(s)", e);
-                }
+                scheduleExplodedMojo();
             } 
         }
 
+        /**
+         * Bring the output directory up to date with the changed, created or deleted
+         * resource files of a batch. Each file is copied, filtered or deleted on its
+         * own, and the resources goal only runs if its configuration cannot be
+         * reproduced file by file. Tests started for these changes wait for the
+         * application update, so they still see the copied resources.
+         */
+        private void scheduleResourceSync(File fileChanged, File resourceParent, File outputDirectory) {
+            synchronized (changedResources) {
+                changedResources.put(fileChanged, new File[] { resourceParent, outputDirectory });
+            }
+            changeScheduler.schedule(RESOURCES_PHASE, "resource-sync", new Runnable() {
+                @Override
+                public void run() {
+                    Map<File, File[]> changes;
+                    synchronized (changedResources) {
+                        changes = new LinkedHashMap<File, File[]>(changedResources);
+                        changedResources.clear();
+                    }
+                    try {
+                        syncResources(changes);
+                    } catch (MojoExecutionException | IOException e) {
+                        getLog().error("Failed to copy resources", e);
+                    }
+                }
+            });
+        }
+
+        private void syncResources(Map<File, File[]> changes) throws MojoExecutionException, IOException {
+            DevProfiler.Span span = profiler.start("resources");
+            try {
+                Plugin resourcesPlugin = getPlugin("org.apache.maven.plugins", "maven-resources-plugin");
+                ResourceSync resourceSync = new ResourceSync(project, session,
+                        ExecuteMojoUtil.getPluginGoalConfig(resourcesPlugin, "resources", getLog()), getLog());
+                boolean runResourcesMojo = !resourceSync.isSupported();
+                for (Map.Entry<File, File[]> change : changes.entrySet()) {
+                    File file = change.getKey();
+                    try {
+                        if (runResourcesMojo || !resourceSync.sync(file)) {
+                            runResourcesMojo = true;
+                            if (!file.exists()) {
+                                // the resources goal does not delete targets
+                                deleteFile(file, change.getValue()[0], change.getValue()[1], null);
+                            }
+                        }
+                    } catch (IOException e) {
+                        // the other changes of the batch are still synced
+                        getLog().error("Failed to copy resource " + file, e);
+                    }
+                }
+                if (runResourcesMojo) {
+                    runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
+                }
+            } finally {
+                span.end();
+            }
+        }
+
+        /**
+         * Run the resources goal once for all the resource changes of a batch.
+         */
+        private void scheduleResourcesMojo() {
+            changeScheduler.schedule(RESOURCES_PHASE, "resources", new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
+                    } catch (MojoExecutionException e) {
+                        getLog().error("Failed to run goal(s)", e);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Sync the exploded WAR once for all the changes of a batch, after the
+         * resources.
+         */
+        private void scheduleExplodedMojo() {
+            changeScheduler.schedule(EXPLODED_PHASE, "exploded", new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        syncExplodedWar();
+                    } catch (MojoExecutionException e) {
+                        getLog().error("Failed to run war:exploded goal", e);
+                    }
+                }
+            });
+        }
+
         @Override
         public boolean recompileBuildFile(File buildFile, Set<String> compileArtifactPaths,
                 Set<String> testArtifactPaths, boolean generateFeatures, ThreadPoolExecutor executor) throws PluginExecutionException {
+            // no goal runs while the project is replaced by the one of the changed pom.xml
+            synchronized (mojoLock) {
+                return updateBuildFile(buildFile, compileArtifactPaths, testArtifactPaths, generateFeatures, executor);
+            }
+        }
+
+        private boolean updateBuildFile(File buildFile, Set<String> compileArtifactPaths, Set<String> testArtifactPaths,
+                boolean generateFeatures, ThreadPoolExecutor executor) throws PluginExecutionException {
             // monitoring project pom.xml file changes in dev mode:
             // - liberty.* properties in project properties section
             // - changes in liberty plugin configuration in the build plugin section
@@ -970,10 +1202,9 @@ public class DevMojo extends LooseAppSupport {
             boolean runBoostPackage = false;
             boolean optimizeGenerateFeatures = false;
 
-            ProjectBuildingResult build;
+            MavenProject builtProject;
             try {
-                build = mavenProjectBuilder.build(buildFile,
-                        session.getProjectBuildingRequest().setResolveDependencies(true));
+                builtProject = buildMavenProject(buildFile);
             } catch (ProjectBuildingException e) {
                 getLog().error("Could not parse pom.xml. " + e.getMessage());
                 getLog().debug(e);
@@ -984,7 +1215,7 @@ public class DevMojo extends LooseAppSupport {
             Plugin backupLibertyPlugin = getLibertyPlugin();
             Plugin backupWarPlugin = getPluginForProject("org.apache.maven.plugins", "maven-war-plugin", project);
             MavenProject backupProject = project;
-            project = build.getProject();
+            project = builtProject;
             session.setCurrentProject(project);
             Plugin libertyPlugin = getLibertyPlugin();
             Plugin warPlugin = getPluginForProject("org.apache.maven.plugins", "maven-war-plugin", project);
@@ -1262,36 +1493,342 @@ public class DevMojo extends LooseAppSupport {
             }
         }
 
+        /**
+         * Compile the changed sources and the sources that depend on them with the
+         * session's warm compiler, then redeploy and run tests the same way as
+         * DevUtil does after its own compilation. Without a Java compiler, without
+         * the output directory or when the compilation fails, DevUtil compiles the
+         * sources instead and reports the errors.
+         */
         @Override
-        public void runUnitTests(File buildFile) throws PluginExecutionException, PluginScenarioException {
-            MavenProject currentProject = resolveMavenProject(buildFile);
+        protected boolean recompileJava(Collection<File> javaFilesChanged, Set<String> artifactPaths,
+                ThreadPoolExecutor executor, boolean tests, File outputDirectory, File testOutputDirectory,
+                String projectName, File projectBuildFile, JavaCompilerOptions projectCompilerOptions,
+                boolean forceSkipUTs, boolean skipRunningTests) throws PluginExecutionException {
+            DevProfiler.Span span = profiler.start("compile");
             try {
-                runTestMojo("org.apache.maven.plugins", "maven-surefire-plugin", "test", currentProject);
-                runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "report-only", currentProject);
-            } catch (MojoExecutionException e) {
-                Throwable cause = e.getCause();
-                if (cause != null && cause instanceof MojoFailureException) {
-                    throw new PluginScenarioException("Unit tests failed: " + cause.getLocalizedMessage(), e);
+                Collection<File> sources = javaFilesChanged;
+                File classesDir = tests ? testOutputDirectory : outputDirectory;
+                if (javaCompiler.isAvailable() && classesDir.exists()) {
+                    boolean success = false;
+                    int messageOccurrences = -1;
+                    try {
+                        messageOccurrences = countApplicationUpdatedMessages();
+                        List<String> options = getCompilerOptions(projectCompilerOptions);
+                        List<File> outputDirs = new ArrayList<File>();
+                        outputDirs.add(outputDirectory);
+                        if (tests) {
+                            outputDirs.add(testOutputDirectory);
+                        }
+                        Set<File> classPath = getClassPath(artifactPaths, outputDirs);
+
+                        // the dependent modules of a module are compiled ahead in parallel after the module
+                        success = !tests && moduleCompiles != null
+                                && moduleCompiles.take(classesDir, javaFilesChanged, classPath, options) != null;
+                        if (!success) {
+                            if (!tests && moduleCompiles != null) {
+                                moduleCompiles.clear();
+                            }
+                            sources = getExistingSources(javaCompiler.getSourcesToCompile(javaFilesChanged, classesDir));
+                            debug("Compiler options: " + options);
+                            // DevUtil reports the errors when it compiles the sources again
+                            success = javaCompiler.compile(sources, classPath, classesDir, options,
+                                    new DiagnosticCollector<JavaFileObject>());
+                            if (success && !tests && moduleCompiles != null) {
+                                compileDependentModules(projectBuildFile);
+                            }
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        debug("Could not compile with the warm compiler", e);
+                    }
+                    if (success) {
+                        compiled(executor, tests, projectName, projectBuildFile, skipRunningTests, messageOccurrences);
+                        return true;
+                    }
+                }
+                compileTriggeredTests = true;
+                try {
+                    return super.recompileJava(sources, artifactPaths, executor, tests, outputDirectory,
+                            testOutputDirectory, projectName, projectBuildFile, projectCompilerOptions, forceSkipUTs,
+                            skipRunningTests);
+                } finally {
+                    compileTriggeredTests = false;
+                }
+            } finally {
+                span.end();
+            }
+        }
+
+        /**
+         * Redeploy and run tests after a successful compilation, like DevUtil.
+         */
+        private void compiled(ThreadPoolExecutor executor, boolean tests, String projectName, File projectBuildFile,
+                boolean skipRunningTests, int messageOccurrences) throws PluginExecutionException {
+            String prefix = projectName != null ? projectName + " " : "";
+            if (tests) {
+                info(prefix.isEmpty() ? "Tests compilation was successful."
+                        : prefix + "tests compilation was successful.");
+            } else {
+                if (!isLooseApplication()) {
+                    redeployApp();
+                }
+                info(prefix.isEmpty() ? "Source compilation was successful."
+                        : prefix + "source compilation was successful.");
+            }
+            if (skipRunningTests) {
+                return;
+            }
+            compileTriggeredTests = true;
+            try {
+                if (tests) {
+                    runTestThread(false, executor, -1, skipUTs, false, projectBuildFile);
                 } else {
-                    throw new PluginExecutionException("Failed to run unit tests", e);
+                    // with feature generation on, DevUtil's test run after the features are generated is
+                    // skipped while this one has not finished, see runTestThread
+                    runTestThread(true, executor, messageOccurrences, skipUTs, false, projectBuildFile);
+                }
+            } finally {
+                compileTriggeredTests = false;
+            }
+        }
+
+        private List<File> getExistingSources(Collection<File> files) {
+            List<File> sources = new ArrayList<File>();
+            for (File file : files) {
+                if (file.exists() && file.isFile()) {
+                    sources.add(file);
+                } else {
+                    debug("The Java file " + file + " does not exist and will not be compiled.");
+                }
+            }
+            return sources;
+        }
+
+        private List<String> getCompilerOptions(JavaCompilerOptions compilerOptions) {
+            List<String> options = new ArrayList<String>(Arrays.asList("-g", "-parameters"));
+            if (compilerOptions != null) {
+                options.addAll(compilerOptions.getOptions());
+            }
+            return options;
+        }
+
+        /**
+         * Start compiling the modules that depend on a module that was just
+         * compiled. With recompileDependencies, DevUtil compiles all the sources of
+         * these modules next, one module at a time, and then gets the results of
+         * these compilations.
+         */
+        private void compileDependentModules(File buildFile) {
+            try {
+                ProjectModule module = buildFile == null ? null : getProjectModule(buildFile);
+                if (module == null) {
+                    return;
+                }
+                File mainBuildFile = project.getFile().getCanonicalFile();
+                List<ModuleCompileScheduler.Compilation> batch = new ArrayList<ModuleCompileScheduler.Compilation>();
+                for (File dependentModule : module.getDependentModules()) {
+                    ProjectModule dependentProject = getProjectModule(dependentModule);
+                    if (dependentProject != null) {
+                        addModuleCompilation(batch, dependentModule, dependentProject.getPackagingType(),
+                                dependentProject.getSourceDirectory(), dependentProject.getOutputDirectory(),
+                                dependentProject.getCompileArtifacts(), dependentProject.getCompilerOptions());
+                    } else if (dependentModule.getCanonicalFile().equals(mainBuildFile)) {
+                        addModuleCompilation(batch, dependentModule, project.getPackaging(), sourceDirectory,
+                                DevMojo.this.outputDirectory, getCompileArtifacts(), mainCompilerOptions);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    debug("Compiling " + batch.size() + " dependent modules of " + module.getProjectName() + " in parallel");
+                    moduleCompiles.schedule(batch);
                 }
+            } catch (IOException e) {
+                debug("Could not compile the dependent modules in parallel", e);
             }
         }
 
+        private void addModuleCompilation(List<ModuleCompileScheduler.Compilation> batch, File buildFile,
+                String packaging, File moduleSourceDirectory, File moduleOutputDirectory, Set<String> artifactPaths,
+                JavaCompilerOptions compilerOptions) throws IOException {
+            if ("ear".equals(packaging) || "pom".equals(packaging) || !moduleSourceDirectory.exists()) {
+                return;
+            }
+            List<File> sources = FileUtils.getFiles(moduleSourceDirectory.getCanonicalFile(),
+                    "**/*.java", null);
+            Set<File> classPath = getClassPath(artifactPaths, Collections.singletonList(moduleOutputDirectory));
+            batch.add(new ModuleCompileScheduler.Compilation(buildFile.getCanonicalFile(), moduleOutputDirectory,
+                    sources, classPath, getCompilerOptions(compilerOptions)));
+        }
+
         @Override
-        public void runIntegrationTests(File buildFile) throws PluginExecutionException, PluginScenarioException {
-            MavenProject currentProject = resolveMavenProject(buildFile);
+        public void updateJavaCompilerOptions(JavaCompilerOptions compilerOptions) {
+            super.updateJavaCompilerOptions(compilerOptions);
+            this.mainCompilerOptions = compilerOptions;
+        }
+
+        /**
+         * Record which tests the next test run has to cover. Tests started by a
+         * compilation only need the tests affected by the compiled classes, while
+         * other changes, such as resource or configuration changes, can affect any
+         * test.
+         *
+         * A compilation by this class starts a test run whether feature generation
+         * is on or not. When DevUtil then generates the features of the compiled
+         * classes and starts another run, that run is skipped if the run of the
+         * compilation has not finished, as it already covers the same classes.
+         */
+        @Override
+        public void runTestThread(boolean waitForApplicationUpdate, ThreadPoolExecutor executor,
+                int messageOccurrences, boolean forceSkipUTs, boolean manualInvocation, File... buildFiles) {
+            boolean coveredRun = compiledClassesTestRun && !compileTriggeredTests && !manualInvocation;
+            compiledClassesTestRun = false;
+            if (coveredRun && compileTestRunPending) {
+                debug("Skipping the test run after feature generation, as the test run of the compilation covers it.");
+                return;
+            }
+            if (hotTests && compileTriggeredTests && !manualInvocation) {
+                compileTestRunPending = true;
+            }
+            if (manualInvocation || hotTests) {
+                TestScope scope = manualInvocation ? TestScope.ON_DEMAND
+                        : compileTriggeredTests ? TestScope.AFFECTED : TestScope.ALL;
+                synchronized (testSelector) {
+                    unitTestScope = unitTestScope.compareTo(scope) < 0 ? scope : unitTestScope;
+                    integrationTestScope = integrationTestScope.compareTo(scope) < 0 ? scope : integrationTestScope;
+                }
+            }
+            super.runTestThread(waitForApplicationUpdate, executor, messageOccurrences, forceSkipUTs,
+                    manualInvocation, buildFiles);
+        }
+
+        @Override
+        public void runTests(boolean waitForApplicationUpdate, int messageOccurrences, ThreadPoolExecutor executor,
+                boolean manualInvocation, boolean skipUnitTests, boolean skipIntegrationTests, File buildFile,
+                String projectName) {
             try {
-                runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test", currentProject);
-                runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "failsafe-report-only", currentProject);
-                runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "verify", currentProject);
-            } catch (MojoExecutionException e) {
-                Throwable cause = e.getCause();
-                if (cause != null && cause instanceof MojoFailureException) {
-                    throw new PluginScenarioException("Integration tests failed: " + cause.getLocalizedMessage(), e);
+                super.runTests(waitForApplicationUpdate, messageOccurrences, executor, manualInvocation, skipUnitTests,
+                        skipIntegrationTests, buildFile, projectName);
+            } finally {
+                compileTestRunPending = false;
+            }
+        }
+
+        /**
+         * @return the tests to run, empty to run no tests or null to run all tests
+         */
+        private List<String> selectTests(MavenProject currentProject, String artifactId, String goal,
+                boolean integration) {
+            TestScope scope;
+            synchronized (testSelector) {
+                scope = integration ? integrationTestScope : unitTestScope;
+                if (integration) {
+                    integrationTestScope = TestScope.AFFECTED;
                 } else {
-                    throw new PluginExecutionException("Failed to run integration tests", e);
+                    unitTestScope = TestScope.AFFECTED;
+                }
+            }
+            if (!runAffectedTests || scope == TestScope.ALL) {
+                return null;
+            }
+            Plugin plugin = getPluginForProject("org.apache.maven.plugins", artifactId, currentProject);
+            Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
+            String testProperty = integration ? "it.test" : "test";
+            if (ResourceFilter.getConfigValue(config, "test") != null
+                    || session.getUserProperties().getProperty(testProperty) != null
+                    || ResourceFilter.getConfigValue(config, "includesFile") != null
+                    || ResourceFilter.getConfigValue(config, "excludesFile") != null) {
+                // the tests are selected by the user
+                return null;
+            }
+            List<String> includes = ResourceFilter.getConfigValues(config, "includes");
+            if (includes.isEmpty()) {
+                includes = integration ? Arrays.asList("**/IT*.java", "**/*IT.java", "**/*ITCase.java")
+                        : Arrays.asList("**/Test*.java", "**/*Test.java", "**/*Tests.java", "**/*TestCase.java");
+            }
+            String testClassesDirectory = ResourceFilter.getConfigValue(config, "testClassesDirectory");
+            List<String> tests = testSelector.select(getTestRun(currentProject, integration),
+                    new File(currentProject.getBuild().getOutputDirectory()),
+                    new File(testClassesDirectory != null ? testClassesDirectory
+                            : currentProject.getBuild().getTestOutputDirectory()),
+                    integration, includes, ResourceFilter.getConfigValues(config, "excludes"));
+            if (tests != null && tests.isEmpty() && scope == TestScope.ON_DEMAND) {
+                info("No classes changed since the " + (integration ? "integration" : "unit")
+                        + " tests last passed, running all of them.");
+                return null;
+            }
+            if (tests != null && !tests.isEmpty()) {
+                info("Running the " + (integration ? "integration" : "unit") + " tests affected by the changes: "
+                        + tests);
+            }
+            return tests;
+        }
+
+        private synchronized TestWorkerClient getTestWorker(MavenProject currentProject) {
+            TestWorkerClient testWorker = testWorkers.get(currentProject.getFile());
+            if (testWorker == null) {
+                testWorker = new TestWorkerClient(getLog());
+                testWorkers.put(currentProject.getFile(), testWorker);
+            }
+            return testWorker;
+        }
+
+        private String getTestRun(MavenProject currentProject, boolean integration) {
+            return (integration ? "integration tests of " : "unit tests of ") + currentProject.getFile();
+        }
+
+        @Override
+        public void runUnitTests(File buildFile) throws PluginExecutionException, PluginScenarioException {
+            DevProfiler.Span span = profiler.start("unit-tests");
+            try {
+                MavenProject currentProject = resolveMavenProject(buildFile);
+                try {
+                    List<String> tests = selectTests(currentProject, "maven-surefire-plugin", "test", false);
+                    if (tests != null && tests.isEmpty()) {
+                        info("No unit tests are affected by the changes.");
+                        return;
+                    }
+                    if (!reuseTestJvm || !runTestWorker(getTestWorker(currentProject), currentProject, tests)) {
+                        runTestMojo("org.apache.maven.plugins", "maven-surefire-plugin", "test", currentProject, tests);
+                        runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "report-only", currentProject, null);
+                    }
+                    testSelector.passed(getTestRun(currentProject, false));
+                } catch (MojoExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause != null && cause instanceof MojoFailureException) {
+                        throw new PluginScenarioException("Unit tests failed: " + cause.getLocalizedMessage(), e);
+                    } else {
+                        throw new PluginExecutionException("Failed to run unit tests", e);
+                    }
                 }
+            } finally {
+                span.end();
+            }
+        }
+
+        @Override
+        public void runIntegrationTests(File buildFile) throws PluginExecutionException, PluginScenarioException {
+            DevProfiler.Span span = profiler.start("integration-tests");
+            try {
+                MavenProject currentProject = resolveMavenProject(buildFile);
+                try {
+                    List<String> tests = selectTests(currentProject, "maven-failsafe-plugin", "integration-test", true);
+                    if (tests != null && tests.isEmpty()) {
+                        info("No integration tests are affected by the changes.");
+                        return;
+                    }
+                    runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test", currentProject, tests);
+                    runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "failsafe-report-only", currentProject, null);
+                    runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "verify", currentProject, null);
+                    testSelector.passed(getTestRun(currentProject, true));
+                } catch (MojoExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause != null && cause instanceof MojoFailureException) {
+                        throw new PluginScenarioException("Integration tests failed: " + cause.getLocalizedMessage(), e);
+                    } else {
+                        throw new PluginExecutionException("Failed to run integration tests", e);
+                    }
+                }
+            } finally {
+                span.end();
             }
         }
 
@@ -1381,6 +1918,18 @@ public class DevMojo extends LooseAppSupport {
             }
         }
 
+        if (profileDevMode) {
+            profiler = new DevProfiler(new File(project.getBuild().getDirectory(), DEV_PROFILE_TRACE),
+                    new File(project.getBuild().getDirectory(), DEV_PROFILE_SUMMARY), getLog());
+            final DevProfiler shutdownProfiler = profiler;
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    shutdownProfiler.close();
+                }
+            });
+        }
+
         // get all parent poms
         Map<String, List<String>> parentPoms = new HashMap<String, List<String>>();
         for (MavenProject proj : graph.getAllProjects()) {
@@ -1753,17 +2302,27 @@ public class DevMojo extends LooseAppSupport {
         }
     }
 
+    /**
+     * Build the project for the given pom.xml, reusing the previously built project
+     * if neither the pom.xml, its parents, nor the reactor modules it depends on
+     * have changed since.
+     */
+    private MavenProject buildMavenProject(File buildFile) throws ProjectBuildingException {
+        if (mavenProjectCache == null) {
+            mavenProjectCache = new MavenProjectCache(mavenProjectBuilder, getLog());
+        }
+        return mavenProjectCache.getProject(buildFile, session.getProjectBuildingRequest(), reactorProjects);
+    }
+
     private MavenProject resolveMavenProject(File buildFile) {
-        ProjectBuildingResult build;
         MavenProject currentProject = project; // default to main project
         try {
             if (buildFile != null && !project.getFile().getCanonicalPath().equals(buildFile.getCanonicalPath())) {
-                build = mavenProjectBuilder.build(buildFile,
-                        session.getProjectBuildingRequest().setResolveDependencies(true));
+                MavenProject builtProject = buildMavenProject(buildFile);
                 // if we can resolve the project associated with build file, run tests on
                 // corresponding project
-                if (build.getProject() != null) {
-                    currentProject = build.getProject();
+                if (builtProject != null) {
+                    currentProject = builtProject;
                 }
             }
         } catch (ProjectBuildingException | IOException e) {
@@ -1774,100 +2333,109 @@ public class DevMojo extends LooseAppSupport {
         return currentProject;
     }
 
-    private void runTestMojo(String groupId, String artifactId, String goal, MavenProject project)
+    private void runTestMojo(String groupId, String artifactId, String goal, MavenProject project, List<String> tests)
             throws MojoExecutionException {
-        Plugin plugin = getPluginForProject(groupId, artifactId, project);
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
+        DevProfiler.Span span = profiler.start(artifactId + ":" + goal);
+        try {
+            Plugin plugin = getPluginForProject(groupId, artifactId, project);
+            Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
 
-        // check if this is a project module or main module
-        if (util.isMultiModuleProject()) {
-            try {
-                Set<String> testArtifacts;
-                ProjectModule projectModule = util.getProjectModule(project.getFile());
-                if (projectModule != null) {
-                    testArtifacts = projectModule.getTestArtifacts();
+            // check if this is a project module or main module
+            if (util.isMultiModuleProject()) {
+                try {
+                    Set<String> testArtifacts;
+                    ProjectModule projectModule = util.getProjectModule(project.getFile());
+                    if (projectModule != null) {
+                        testArtifacts = projectModule.getTestArtifacts();
+                    } else {
+                        // assume this is the main module
+                        testArtifacts = util.getTestArtifacts();
+                    }
+                    if (goal.equals("test") || goal.equals("integration-test")) {
+                        injectClasspathElements(config, testArtifacts, project.getTestClasspathElements());
+                    }
+                } catch (IOException | DependencyResolutionRequiredException e) {
+                    getLog().error(
+                            "Unable to resolve test artifact paths for " + project.getFile() + ". Restart dev mode to ensure classpaths are properly resolved.");
+                    getLog().debug(e);
+                }
+            }
+
+            if (goal.equals("test")) {
+                injectTestId(config);
+                injectTests(config, tests);
+            } else if (goal.equals("integration-test")) {
+                injectTestId(config);
+                injectTests(config, tests);
+                injectLibertyProperties(config);
+
+                // clean up previous summary file
+                File summaryFile = null;
+                Xpp3Dom summaryFileElement = config.getChild("summaryFile");
+                if (summaryFileElement != null && summaryFileElement.getValue() != null) {
+                    summaryFile = new File(summaryFileElement.getValue());
                 } else {
-                    // assume this is the main module
-                    testArtifacts = util.getTestArtifacts();
+                    summaryFile = new File(project.getBuild().getDirectory(), "failsafe-reports/failsafe-summary.xml");
                 }
-                if (goal.equals("test") || goal.equals("integration-test")) {
-                    injectClasspathElements(config, testArtifacts, project.getTestClasspathElements());
+                try {
+                    getLog().debug("Looking for summary file at " + summaryFile.getCanonicalPath());
+                } catch (IOException e) {
+                    getLog().debug("Unable to resolve summary file " + e.getMessage());
                 }
-            } catch (IOException | DependencyResolutionRequiredException e) {
-                getLog().error(
-                        "Unable to resolve test artifact paths for " + project.getFile() + ". Restart dev mode to ensure classpaths are properly resolved.");
-                getLog().debug(e);
+                if (summaryFile.exists()) {
+                    boolean deleteResult = summaryFile.delete();
+                    getLog().debug("Summary file deleted? " + deleteResult);
+                } else {
+                    getLog().debug("Summary file doesn't exist");
+                }
+            } else if (goal.equals("failsafe-report-only")) {
+                Plugin failsafePlugin = getPluginForProject("org.apache.maven.plugins", "maven-failsafe-plugin", project);
+                Xpp3Dom failsafeConfig = ExecuteMojoUtil.getPluginGoalConfig(failsafePlugin, "integration-test", getLog());
+                Xpp3Dom linkXRef = new Xpp3Dom("linkXRef");
+                if (failsafeConfig != null) {
+                    Xpp3Dom reportsDirectoryElement = failsafeConfig.getChild("reportsDirectory");
+                    if (reportsDirectoryElement != null) {
+                        Xpp3Dom reportDirectories = new Xpp3Dom("reportsDirectories");
+                        reportDirectories.addChild(reportsDirectoryElement);
+                        config.addChild(reportDirectories);
+                    }
+                    linkXRef = failsafeConfig.getChild("linkXRef");
+                    if (linkXRef == null) {
+                        linkXRef = new Xpp3Dom("linkXRef");
+                    }
+                }
+                linkXRef.setValue("false");
+                config.addChild(linkXRef);
+            } else if (goal.equals("report-only")) {
+                Plugin surefirePlugin = getPluginForProject("org.apache.maven.plugins", "maven-surefire-plugin", project);
+                Xpp3Dom surefireConfig = ExecuteMojoUtil.getPluginGoalConfig(surefirePlugin, "test", getLog());
+                Xpp3Dom linkXRef = new Xpp3Dom("linkXRef");
+                if (surefireConfig != null) {
+                    Xpp3Dom reportsDirectoryElement = surefireConfig.getChild("reportsDirectory");
+                    if (reportsDirectoryElement != null) {
+                        Xpp3Dom reportDirectories = new Xpp3Dom("reportsDirectories");
+                        reportDirectories.addChild(reportsDirectoryElement);
+                        config.addChild(reportDirectories);
+                    }
+                    linkXRef = surefireConfig.getChild("linkXRef");
+                    if (linkXRef == null) {
+                        linkXRef = new Xpp3Dom("linkXRef");
+                    }
+                }
+                linkXRef.setValue("false");
+                config.addChild(linkXRef);
             }
-        }
-
-        if (goal.equals("test")) {
-            injectTestId(config);
-        } else if (goal.equals("integration-test")) {
-            injectTestId(config);
-            injectLibertyProperties(config);
 
-            // clean up previous summary file
-            File summaryFile = null;
-            Xpp3Dom summaryFileElement = config.getChild("summaryFile");
-            if (summaryFileElement != null && summaryFileElement.getValue() != null) {
-                summaryFile = new File(summaryFileElement.getValue());
-            } else {
-                summaryFile = new File(project.getBuild().getDirectory(), "failsafe-reports/failsafe-summary.xml");
+            getLog().debug("POM file: " + project.getFile() + "\n" + groupId + ":" + artifactId + " " + goal
+                    + " configuration:\n" + config);
+            MavenSession tempSession = session.clone();
+            tempSession.setCurrentProject(project);
+            synchronized (testLock) {
+                executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
             }
-            try {
-                getLog().debug("Looking for summary file at " + summaryFile.getCanonicalPath());
-            } catch (IOException e) {
-                getLog().debug("Unable to resolve summary file " + e.getMessage());
-            }
-            if (summaryFile.exists()) {
-                boolean deleteResult = summaryFile.delete();
-                getLog().debug("Summary file deleted? " + deleteResult);
-            } else {
-                getLog().debug("Summary file doesn't exist");
-            }
-        } else if (goal.equals("failsafe-report-only")) {
-            Plugin failsafePlugin = getPluginForProject("org.apache.maven.plugins", "maven-failsafe-plugin", project);
-            Xpp3Dom failsafeConfig = ExecuteMojoUtil.getPluginGoalConfig(failsafePlugin, "integration-test", getLog());
-            Xpp3Dom linkXRef = new Xpp3Dom("linkXRef");
-            if (failsafeConfig != null) {
-                Xpp3Dom reportsDirectoryElement = failsafeConfig.getChild("reportsDirectory");
-                if (reportsDirectoryElement != null) {
-                    Xpp3Dom reportDirectories = new Xpp3Dom("reportsDirectories");
-                    reportDirectories.addChild(reportsDirectoryElement);
-                    config.addChild(reportDirectories);
-                }
-                linkXRef = failsafeConfig.getChild("linkXRef");
-                if (linkXRef == null) {
-                    linkXRef = new Xpp3Dom("linkXRef");
-                }
-            }
-            linkXRef.setValue("false");
-            config.addChild(linkXRef);
-        } else if (goal.equals("report-only")) {
-            Plugin surefirePlugin = getPluginForProject("org.apache.maven.plugins", "maven-surefire-plugin", project);
-            Xpp3Dom surefireConfig = ExecuteMojoUtil.getPluginGoalConfig(surefirePlugin, "test", getLog());
-            Xpp3Dom linkXRef = new Xpp3Dom("linkXRef");
-            if (surefireConfig != null) {
-                Xpp3Dom reportsDirectoryElement = surefireConfig.getChild("reportsDirectory");
-                if (reportsDirectoryElement != null) {
-                    Xpp3Dom reportDirectories = new Xpp3Dom("reportsDirectories");
-                    reportDirectories.addChild(reportsDirectoryElement);
-                    config.addChild(reportDirectories);
-                }
-                linkXRef = surefireConfig.getChild("linkXRef");
-                if (linkXRef == null) {
-                    linkXRef = new Xpp3Dom("linkXRef");
-                }
-            }
-            linkXRef.setValue("false");
-            config.addChild(linkXRef);
-        }
-
-        getLog().debug("POM file: " + project.getFile() + "\n" + groupId + ":" + artifactId + " " + goal
-                + " configuration:\n" + config);
-        MavenSession tempSession = session.clone();
-        tempSession.setCurrentProject(project);
-        executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        } finally {
+            span.end();
+        }
     }
 
     /**
@@ -1915,6 +2483,195 @@ public class DevMojo extends LooseAppSupport {
         }
     }
 
+    /**
+     * Run unit tests in the test JVM that is kept running between test runs.
+     *
+     * @param testWorker The test JVM
+     * @param project    The project to test
+     * @param tests      The fully qualified names of the test classes, or null to
+     *                   run all tests
+     * @return false if the Surefire configuration or the test framework of the
+     *         project is not supported by the test JVM, so the tests have to run
+     *         with Surefire
+     */
+    private boolean runTestWorker(TestWorkerClient testWorker, MavenProject project, List<String> tests)
+            throws MojoExecutionException {
+        Plugin plugin = getPluginForProject("org.apache.maven.plugins", "maven-surefire-plugin", project);
+        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, "test", getLog());
+        String unsupported = getTestWorkerUnsupportedParameter(config, project);
+        if (unsupported != null) {
+            getLog().debug("Running the unit tests with Surefire because it is configured with " + unsupported);
+            return false;
+        }
+
+        List<String> classpath = new ArrayList<String>();
+        try {
+            classpath.addAll(project.getTestClasspathElements());
+            if (util.isMultiModuleProject()) {
+                ProjectModule projectModule = util.getProjectModule(project.getFile());
+                for (String testArtifact : projectModule != null ? projectModule.getTestArtifacts()
+                        : util.getTestArtifacts()) {
+                    if (!classpath.contains(testArtifact)) {
+                        classpath.add(testArtifact);
+                    }
+                }
+            }
+        } catch (IOException | DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Unable to resolve the test classpath of " + project.getFile(), e);
+        }
+        classpath.addAll(ResourceFilter.getConfigValues(config, "additionalClasspathElements"));
+
+        // the launcher is provided by Surefire when the project does not depend on it
+        String engineVersion = null;
+        boolean hasLauncher = false;
+        for (Artifact artifact : project.getArtifacts()) {
+            if (JUNIT_PLATFORM_GROUP_ID.equals(artifact.getGroupId())) {
+                if ("junit-platform-engine".equals(artifact.getArtifactId())) {
+                    engineVersion = artifact.getVersion();
+                } else if ("junit-platform-launcher".equals(artifact.getArtifactId())) {
+                    hasLauncher = true;
+                }
+            }
+        }
+        if (engineVersion == null) {
+            getLog().debug("Running the unit tests with Surefire because they do not use the JUnit Platform");
+            return false;
+        }
+        List<String> dependencies = new ArrayList<String>();
+        List<String> classDirectories = new ArrayList<String>();
+        for (String element : classpath) {
+            if (new File(element).isDirectory()) {
+                classDirectories.add(element);
+            } else if (new File(element).isFile()) {
+                dependencies.add(element);
+            }
+        }
+        if (!hasLauncher) {
+            dependencies.add(getArtifact(JUNIT_PLATFORM_GROUP_ID, "junit-platform-launcher", "jar", engineVersion)
+                    .getFile().getAbsolutePath());
+        }
+
+        if (tests == null) {
+            List<String> includes = ResourceFilter.getConfigValues(config, "includes");
+            if (includes.isEmpty()) {
+                includes = Arrays.asList("**/Test*.java", "**/*Test.java", "**/*Tests.java", "**/*TestCase.java");
+            }
+            tests = AffectedTestSelector.getTestClasses(new File(project.getBuild().getTestOutputDirectory()),
+                    includes, ResourceFilter.getConfigValues(config, "excludes"));
+            if (tests == null) {
+                getLog().debug("Running the unit tests with Surefire because the includes use a regular expression");
+                return false;
+            }
+        }
+        if (tests.isEmpty()) {
+            getLog().info("No tests to run.");
+            return true;
+        }
+
+        List<String> command = new ArrayList<String>();
+        String jvm = ResourceFilter.getConfigValue(config, "jvm");
+        command.add(jvm != null ? jvm : new File(System.getProperty("java.home"), "bin/java").getAbsolutePath());
+        if (!"false".equals(ResourceFilter.getConfigValue(config, "enableAssertions"))) {
+            command.add("-ea");
+        }
+        String argLine = ResourceFilter.getConfigValue(config, "argLine");
+        if (argLine != null) {
+            try {
+                command.addAll(Arrays.asList(CommandLineUtils.translateCommandline(argLine)));
+            } catch (Exception e) {
+                throw new MojoExecutionException("Unable to parse the Surefire argLine " + argLine, e);
+            }
+        }
+        Properties systemProperties = new Properties();
+        systemProperties.setProperty("basedir", project.getBasedir().getAbsolutePath());
+        systemProperties.putAll(session.getUserProperties());
+        Xpp3Dom systemPropertyVariables = config.getChild("systemPropertyVariables");
+        if (systemPropertyVariables != null) {
+            for (Xpp3Dom property : systemPropertyVariables.getChildren()) {
+                systemProperties.setProperty(property.getName(), property.getValue() == null ? "" : property.getValue());
+            }
+        }
+        for (String name : new TreeSet<String>(systemProperties.stringPropertyNames())) {
+            command.add("-D" + name + "=" + systemProperties.getProperty(name));
+        }
+        Map<String, String> environment = new HashMap<String, String>();
+        Xpp3Dom environmentVariables = config.getChild("environmentVariables");
+        if (environmentVariables != null) {
+            for (Xpp3Dom variable : environmentVariables.getChildren()) {
+                environment.put(variable.getName(), variable.getValue() == null ? "" : variable.getValue());
+            }
+        }
+        String workingDirectory = ResourceFilter.getConfigValue(config, "workingDirectory");
+
+        try {
+            TestWorkerClient.Result result = testWorker.run(command, environment,
+                    workingDirectory != null ? new File(workingDirectory) : project.getBasedir(), dependencies,
+                    new File(project.getBuild().getDirectory(), TEST_WORKER_CLASSPATH), classDirectories, tests);
+            getLog().info(result.toString());
+            if (result.hasFailures()) {
+                throw new MojoExecutionException("There are test failures.",
+                        new MojoFailureException("There are test failures."));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to run the unit tests in the test JVM", e);
+        }
+        return true;
+    }
+
+    private String getTestWorkerUnsupportedParameter(Xpp3Dom config, MavenProject project) {
+        for (String parameter : TEST_WORKER_UNSUPPORTED_PARAMETERS) {
+            Xpp3Dom child = config.getChild(parameter);
+            if (ResourceFilter.getConfigValue(config, parameter) != null
+                    || (child != null && child.getChildCount() > 0)) {
+                return parameter;
+            }
+        }
+        for (String property : Arrays.asList("test", "groups", "excludedGroups", "skipTests", "maven.test.skip")) {
+            if (session.getUserProperties().getProperty(property) != null) {
+                return "the " + property + " property";
+            }
+        }
+        if ("0".equals(ResourceFilter.getConfigValue(config, "forkCount"))) {
+            return "forkCount 0";
+        }
+        if ("false".equals(ResourceFilter.getConfigValue(config, "reuseForks"))) {
+            return "reuseForks false";
+        }
+        // expressions that are not resolved, such as late replacement in the argLine
+        if (config.toString().contains("${") || config.toString().contains("@{")) {
+            return "an unresolved expression";
+        }
+        if (new File(project.getBuild().getOutputDirectory(), "module-info.class").exists()
+                || new File(project.getBuild().getTestOutputDirectory(), "module-info.class").exists()) {
+            return "a module path";
+        }
+        return null;
+    }
+
+    /**
+     * Run only the given test classes.
+     *
+     * @param config The configuration element
+     * @param tests  The fully qualified names of the test classes, or null to run
+     *               all tests
+     */
+    private void injectTests(Xpp3Dom config, List<String> tests) {
+        if (tests == null) {
+            return;
+        }
+        StringBuilder value = new StringBuilder();
+        for (String test : tests) {
+            value.append(value.length() == 0 ? "" : ",").append(test);
+        }
+        config.addChild(element(name("test"), value.toString()).toDom());
+        Xpp3Dom failIfNoSpecifiedTests = config.getChild("failIfNoSpecifiedTests");
+        if (failIfNoSpecifiedTests == null) {
+            config.addChild(element(name("failIfNoSpecifiedTests"), "false").toDom());
+        } else {
+            failIfNoSpecifiedTests.setValue("false");
+        }
+    }
+
     /**
      * Add Liberty system properties for tests to consume.
      *
@@ -1957,8 +2714,10 @@ public class DevMojo extends LooseAppSupport {
         MavenSession boostSession = this.session;
 
         getLog().debug("plugin version: " + boostPlugin.getVersion());
-        executeMojo(boostPlugin, goal(goal), configuration(),
-                executionEnvironment(boostProject, boostSession, pluginManager));
+        synchronized (mojoLock) {
+            executeMojo(boostPlugin, goal(goal), configuration(),
+                    executionEnvironment(boostProject, boostSession, pluginManager));
+        }
 
     }
 
@@ -1988,15 +2747,22 @@ public class DevMojo extends LooseAppSupport {
      * @throws MojoExecutionException
      */
     private void runCompileMojo(String goal, MavenProject mavenProject) throws MojoExecutionException {
-        Plugin plugin = getPluginForProject("org.apache.maven.plugins", "maven-compiler-plugin", mavenProject);
-        MavenSession tempSession = session.clone();
-        tempSession.setCurrentProject(mavenProject);
-        MavenProject tempProject = mavenProject;
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
-        config = Xpp3Dom.mergeXpp3Dom(configuration(element(name("failOnError"), "false")), config);
-        getLog().info("Running maven-compiler-plugin:" + goal + " on " + tempProject.getFile());
-        getLog().debug("configuration:\n" + config);
-        executeMojo(plugin, goal(goal), config, executionEnvironment(tempProject, tempSession, pluginManager));
+        DevProfiler.Span span = profiler.start("maven-compiler-plugin:" + goal);
+        try {
+            Plugin plugin = getPluginForProject("org.apache.maven.plugins", "maven-compiler-plugin", mavenProject);
+            MavenSession tempSession = session.clone();
+            tempSession.setCurrentProject(mavenProject);
+            MavenProject tempProject = mavenProject;
+            Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
+            config = Xpp3Dom.mergeXpp3Dom(configuration(element(name("failOnError"), "false")), config);
+            getLog().info("Running maven-compiler-plugin:" + goal + " on " + tempProject.getFile());
+            getLog().debug("configuration:\n" + config);
+            synchronized (mojoLock) {
+                executeMojo(plugin, goal(goal), config, executionEnvironment(tempProject, tempSession, pluginManager));
+            }
+        } finally {
+            span.end();
+        }
     }
 
     /**
@@ -2044,7 +2810,9 @@ public class DevMojo extends LooseAppSupport {
      */
     @Override
     protected void runLibertyMojoInstallFeature(Element features, File serverDir, String containerName) throws MojoExecutionException {
-        super.runLibertyMojoInstallFeature(features, serverDir, containerName);
+        synchronized (mojoLock) {
+            super.runLibertyMojoInstallFeature(features, serverDir, containerName);
+        }
     }
 
     /**
@@ -2081,7 +2849,9 @@ public class DevMojo extends LooseAppSupport {
                 } catch (IOException e) {
                 }
             }
-            super.runLibertyMojoCreate();
+            synchronized (mojoLock) {
+                super.runLibertyMojoCreate();
+            }
         }
     }
 
@@ -2092,6 +2862,37 @@ public class DevMojo extends LooseAppSupport {
      */
     @Override
     protected void runLibertyMojoGenerateFeatures(Element classFiles, boolean optimize) throws MojoExecutionException {
-        super.runLibertyMojoGenerateFeatures(classFiles, optimize);
+        synchronized (mojoLock) {
+            super.runLibertyMojoGenerateFeatures(classFiles, optimize);
+        }
+    }
+
+    @Override
+    protected void runLibertyMojoDeploy(boolean forceLooseApp) throws MojoExecutionException {
+        synchronized (mojoLock) {
+            super.runLibertyMojoDeploy(forceLooseApp);
+        }
+    }
+
+    @Override
+    protected void runMojo(String groupId, String artifactId, String goal) throws MojoExecutionException {
+        synchronized (mojoLock) {
+            super.runMojo(groupId, artifactId, goal);
+        }
+    }
+
+    @Override
+    protected void runMojoForProject(String groupId, String artifactId, String goal, MavenProject project)
+            throws MojoExecutionException {
+        synchronized (mojoLock) {
+            super.runMojoForProject(groupId, artifactId, goal, project);
+        }
+    }
+
+    @Override
+    protected void runExplodedMojo() throws MojoExecutionException {
+        synchronized (mojoLock) {
+            super.runExplodedMojo();
+        }
     }
 }
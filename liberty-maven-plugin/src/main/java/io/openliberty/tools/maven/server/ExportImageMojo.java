@@ -0,0 +1,131 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import io.openliberty.tools.maven.utils.ImageLayoutWriter;
+import io.openliberty.tools.maven.utils.ServerImageLayers;
+
+/**
+ * Export a liberty server as a container image in the OCI image layout
+ */
+@Mojo(name = "export-image", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
+public class ExportImageMojo extends StartDebugMojoSupport {
+
+    private static final String IMAGE_STATE_PREFIX = "liberty-plugin-image-";
+
+    /**
+     * The directory to write the OCI image layout to.
+     */
+    @Parameter(property = "imageDirectory", defaultValue = "${project.build.directory}/liberty-image")
+    private File imageDirectory;
+
+    /**
+     * The reference name of the image in the image layout.
+     */
+    @Parameter(property = "imageTag", defaultValue = "${project.version}")
+    private String imageTag;
+
+    /**
+     * An OCI image layout directory that holds the base image, such as a Java
+     * runtime image. If not set, the image only holds the server layers.
+     */
+    @Parameter(property = "baseImageDirectory")
+    private File baseImageDirectory;
+
+    /**
+     * The path of the Liberty runtime in the image.
+     */
+    @Parameter(property = "imageInstallDirectory", defaultValue = "/opt/ol/wlp")
+    private String imageInstallDirectory;
+
+    /**
+     * Skips this goal
+     */
+    @Parameter(property = "skipLibertyExportImage", defaultValue = "false")
+    protected boolean skipLibertyExportImage = false;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        init();
+
+        if (skip || skipLibertyExportImage) {
+            getLog().info("\nSkipping export-image goal.\n");
+            return;
+        }
+
+        try {
+            doExportImage();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error exporting the Liberty server image.", e);
+        }
+    }
+
+    private void doExportImage() throws MojoExecutionException, IOException {
+        if (isInstall) {
+            installServerAssembly();
+        } else {
+            getLog().info(MessageFormat.format(messages.getString("info.install.type.preexisting"), ""));
+            checkServerHomeExists();
+            checkServerDirectoryExists();
+        }
+        copyConfigFiles();
+
+        if (hasLooseApplication()) {
+            throw new MojoExecutionException("The server " + serverName + " has loose applications, which cannot be "
+                    + "exported to an image. Deploy the applications with the looseApplication parameter set to false.");
+        }
+        if (baseImageDirectory != null && !new File(baseImageDirectory, ImageLayoutWriter.INDEX_FILE).isFile()) {
+            throw new MojoExecutionException("The base image directory " + baseImageDirectory
+                    + " is not an OCI image layout directory.");
+        }
+
+        String imageRoot = "/" + imageInstallDirectory.replace('\\', '/').replaceAll("^/+|/+$", "");
+        ServerImageLayers serverLayers = new ServerImageLayers(installDirectory, userDirectory, serverDirectory,
+                imageRoot);
+        for (File location : getCopyDependenciesLocations()) {
+            serverLayers.addDependencyDirectory(location);
+        }
+        List<ImageLayoutWriter.Layer> layers = serverLayers.getLayers();
+
+        getLog().info("Exporting server " + serverName + " to the image directory " + imageDirectory.getCanonicalPath()
+                + ".");
+        File stateFile = new File(project.getBuild().getDirectory(),
+                IMAGE_STATE_PREFIX + imageDirectory.getName() + ".properties");
+        ImageLayoutWriter writer = new ImageLayoutWriter(imageDirectory, stateFile, getOutputTimestamp(), getLog());
+        writer.setBaseImage(baseImageDirectory);
+        writer.setCommand(Arrays.asList(imageRoot + "/bin/server", "run", serverName));
+        String digest = writer.write(layers, imageTag, Runtime.getRuntime().availableProcessors());
+
+        List<String> layerNames = new ArrayList<String>();
+        for (ImageLayoutWriter.Layer layer : layers) {
+            layerNames.add(layer.getName());
+        }
+        getLog().info("Exported image " + digest + " with the layers " + layerNames + ".");
+    }
+}
@@ -21,7 +21,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -29,6 +31,7 @@ import javax.xml.transform.TransformerException;
 import org.apache.maven.execution.ProjectDependencyGraph;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
@@ -44,6 +47,8 @@ import static io.openliberty.tools.common.plugins.util.BinaryScannerUtil.*;
 import io.openliberty.tools.common.plugins.util.PluginExecutionException;
 import io.openliberty.tools.common.plugins.util.ServerFeatureUtil;
 import io.openliberty.tools.maven.ServerFeatureSupport;
+import io.openliberty.tools.maven.utils.BinaryScannerIndex;
+import io.openliberty.tools.maven.utils.ChecksumUtil;
 
 /**
  * This mojo generates the features required in the featureManager element in
@@ -65,6 +70,10 @@ public class GenerateFeaturesMojo extends PluginConfigSupport {
     public static final String NO_CLASSES_DIR_WARNING = "Could not find classes directory to generate features against. Liberty features will not be generated. "
             + "Ensure your project has first been compiled.";
 
+    private static final String BINARY_SCANNER_INDEX_FILE = "liberty-plugin-binary-scanner-index.properties";
+
+    private static final Map<String, BinaryScannerHandler> binaryScannerHandlers = new HashMap<String, BinaryScannerHandler>();
+
     private File binaryScanner;
 
     @Parameter(property = "classFiles")
@@ -157,7 +166,7 @@ public class GenerateFeaturesMojo extends PluginConfigSupport {
         }
 
         binaryScanner = getBinaryScannerJarFromRepository();
-        BinaryScannerHandler binaryScannerHandler = new BinaryScannerHandler(binaryScanner);
+        BinaryScannerHandler binaryScannerHandler = getBinaryScannerHandler(binaryScanner);
 
         getLog().debug("--- Generate Features values ---");
         getLog().debug("Binary scanner jar: " + binaryScanner.getName());
@@ -214,7 +223,7 @@ public class GenerateFeaturesMojo extends PluginConfigSupport {
             String logLocation = project.getBuild().getDirectory();
             String eeVersionArg = composeEEVersion(eeVersion);
             String mpVersionArg = composeMPVersion(mpVersion);
-            scannedFeatureList = binaryScannerHandler.runBinaryScanner(nonCustomFeatures, classFiles, directories, logLocation, eeVersionArg, mpVersionArg, optimize);
+            scannedFeatureList = runBinaryScanner(binaryScannerHandler, nonCustomFeatures, directories, logLocation, eeVersionArg, mpVersionArg);
         } catch (BinaryScannerUtil.NoRecommendationException noRecommendation) {
             throw new MojoExecutionException(String.format(BinaryScannerUtil.BINARY_SCANNER_CONFLICT_MESSAGE3, noRecommendation.getConflicts()));
         } catch (BinaryScannerUtil.FeatureModifiedException featuresModified) {
@@ -326,6 +335,129 @@ public class GenerateFeaturesMojo extends PluginConfigSupport {
         }
     }
 
+    /**
+     * Runs the binary scanner. When all class files are scanned (optimize is true and no class files
+     * are specified), an index of the class files scanned last time is kept in the build directory.
+     * If no class file changed since then, the previous result is reused without running the scanner.
+     * If class files were only added, just those are scanned on top of the previous result. If a class
+     * file was changed or removed, a feature only it needed may no longer be needed, so all class files
+     * are scanned, as they are if the narrowed scan fails.
+     *
+     * When only the given class files are scanned, as dev mode does after a compile, the index skips
+     * the class files whose content was already scanned, and records the scanned ones. The scan is
+     * skipped when all of them were already scanned, as it could only return the current features.
+     */
+    private Set<String> runBinaryScanner(BinaryScannerHandler binaryScannerHandler, Set<String> nonCustomFeatures,
+            Set<String> directories, String logLocation, String eeVersionArg, String mpVersionArg)
+            throws PluginExecutionException, BinaryScannerUtil.NoRecommendationException,
+            BinaryScannerUtil.RecommendationSetException, BinaryScannerUtil.FeatureModifiedException,
+            BinaryScannerUtil.FeatureUnavailableException, BinaryScannerUtil.IllegalTargetException,
+            BinaryScannerUtil.IllegalTargetComboException {
+        if (!optimize && classFiles != null && !classFiles.isEmpty() && !directories.isEmpty()) {
+            return runIncrementalBinaryScanner(binaryScannerHandler, nonCustomFeatures, directories, logLocation, eeVersionArg, mpVersionArg);
+        }
+        if (!optimize || (classFiles != null && !classFiles.isEmpty()) || directories.isEmpty()) {
+            return binaryScannerHandler.scan(getLog(), nonCustomFeatures, classFiles, directories, logLocation, eeVersionArg, mpVersionArg, optimize);
+        }
+
+        BinaryScannerIndex index = new BinaryScannerIndex(new File(project.getBuild().getDirectory(), BINARY_SCANNER_INDEX_FILE), getLog());
+        String scannerInputs = getBinaryScannerInputs(directories, eeVersionArg, mpVersionArg);
+        String inputs = getBinaryScannerInputs(nonCustomFeatures, scannerInputs);
+        try {
+            index.update(directories);
+        } catch (IOException e) {
+            getLog().debug("Could not read the class files for the binary scanner index, scanning all class files", e);
+            index.invalidate();
+            return binaryScannerHandler.scan(getLog(), nonCustomFeatures, classFiles, directories, logLocation, eeVersionArg, mpVersionArg, optimize);
+        }
+
+        if (index.hasSameInputs(inputs) && !index.hasChangedOrRemovedClassFiles()) {
+            List<String> addedClassFiles = index.getAddedClassFiles();
+            if (addedClassFiles.isEmpty()) {
+                getLog().debug("No class files changed since the last binary scan, reusing the previously scanned features.");
+                return index.getFeatures();
+            }
+            getLog().debug("Scanning " + addedClassFiles.size() + " added class files: " + addedClassFiles);
+            Set<String> features = new HashSet<String>(nonCustomFeatures);
+            features.addAll(index.getFeatures());
+            try {
+                Set<String> scannedFeatures = binaryScannerHandler.scan(getLog(), features, addedClassFiles, directories, logLocation, eeVersionArg, mpVersionArg, false);
+                saveBinaryScannerIndex(index, inputs, scannerInputs, scannedFeatures);
+                return scannedFeatures;
+            } catch (Exception e) {
+                getLog().debug("Scanning only the changed class files failed, scanning all class files", e);
+            }
+        }
+
+        Set<String> scannedFeatures;
+        try {
+            scannedFeatures = binaryScannerHandler.scan(getLog(), nonCustomFeatures, classFiles, directories, logLocation, eeVersionArg, mpVersionArg, optimize);
+        } catch (Exception e) {
+            index.invalidate();
+            throw e;
+        }
+        saveBinaryScannerIndex(index, inputs, scannerInputs, scannedFeatures);
+        return scannedFeatures;
+    }
+
+    private Set<String> runIncrementalBinaryScanner(BinaryScannerHandler binaryScannerHandler, Set<String> nonCustomFeatures,
+            Set<String> directories, String logLocation, String eeVersionArg, String mpVersionArg)
+            throws PluginExecutionException, BinaryScannerUtil.NoRecommendationException,
+            BinaryScannerUtil.RecommendationSetException, BinaryScannerUtil.FeatureModifiedException,
+            BinaryScannerUtil.FeatureUnavailableException, BinaryScannerUtil.IllegalTargetException,
+            BinaryScannerUtil.IllegalTargetComboException {
+        BinaryScannerIndex index = new BinaryScannerIndex(new File(project.getBuild().getDirectory(), BINARY_SCANNER_INDEX_FILE), getLog());
+        List<String> changedClassFiles;
+        try {
+            changedClassFiles = index.getChangedClassFiles(classFiles, getBinaryScannerInputs(directories, eeVersionArg, mpVersionArg));
+        } catch (IOException e) {
+            getLog().debug("Could not read the class files for the binary scanner index, scanning all given class files", e);
+            return binaryScannerHandler.scan(getLog(), nonCustomFeatures, classFiles, directories, logLocation, eeVersionArg, mpVersionArg, false);
+        }
+        if (changedClassFiles.isEmpty()) {
+            getLog().debug("The class files were already scanned with the same content, keeping the current features.");
+            return nonCustomFeatures;
+        }
+        if (changedClassFiles.size() < classFiles.size()) {
+            getLog().debug("Scanning " + changedClassFiles.size() + " of " + classFiles.size() + " class files: " + changedClassFiles);
+        }
+        Set<String> scannedFeatures = binaryScannerHandler.scan(getLog(), nonCustomFeatures, changedClassFiles, directories, logLocation, eeVersionArg, mpVersionArg, false);
+        if (scannedFeatures != null) {
+            try {
+                index.saveClassFiles(scannedFeatures);
+            } catch (IOException e) {
+                getLog().debug("Could not write the binary scanner index", e);
+            }
+        }
+        return scannedFeatures;
+    }
+
+    private void saveBinaryScannerIndex(BinaryScannerIndex index, String inputs, String scannerInputs, Set<String> scannedFeatures) {
+        if (scannedFeatures == null) {
+            index.invalidate();
+            return;
+        }
+        try {
+            index.save(inputs, scannerInputs, scannedFeatures);
+        } catch (IOException e) {
+            getLog().debug("Could not write the binary scanner index", e);
+        }
+    }
+
+    // Everything other than the class files and the features that affects the binary scanner result
+    private String getBinaryScannerInputs(Set<String> directories, String eeVersionArg, String mpVersionArg) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(binaryScanner.getAbsolutePath()).append(':').append(binaryScanner.length()).append(':').append(binaryScanner.lastModified());
+        sb.append('|').append(new TreeSet<String>(directories));
+        sb.append('|').append(eeVersionArg).append('|').append(mpVersionArg);
+        return ChecksumUtil.sha256(sb.toString());
+    }
+
+    // Everything other than the class files that affects the binary scanner result
+    private String getBinaryScannerInputs(Set<String> nonCustomFeatures, String scannerInputs) {
+        return ChecksumUtil.sha256(scannerInputs + '|' + new TreeSet<String>(nonCustomFeatures));
+    }
+
     // Get the features from the server config and optionally exclude the specified config files from the search.
     private Set<String> getServerFeatures(ServerFeatureUtil servUtil, Set<String> generatedFiles, boolean excludeGenerated) {
         servUtil.setLowerCaseFeatures(false);
@@ -581,34 +713,95 @@ public class GenerateFeaturesMojo extends PluginConfigSupport {
         throw new NoUmbrellaDependencyException();
     }
 
+    /**
+     * Get the binary scanner handler for the given scanner jar. Handlers are kept for as long as the plugin
+     * is loaded, which spans the whole dev mode session or reactor build, so the scanner jar is loaded and
+     * warmed up once instead of on every run. A new handler is created if the scanner jar changes, and
+     * the replaced handler is dropped along with the class loader of the old jar.
+     */
+    private static BinaryScannerHandler getBinaryScannerHandler(File scannerFile) {
+        String key = scannerFile.getAbsolutePath();
+        String stamp = scannerFile.length() + ":" + scannerFile.lastModified();
+        BinaryScannerHandler handler;
+        BinaryScannerHandler replaced = null;
+        synchronized (binaryScannerHandlers) {
+            handler = binaryScannerHandlers.get(key);
+            if (handler == null || !handler.stamp.equals(stamp)) {
+                replaced = handler;
+                handler = new BinaryScannerHandler(scannerFile, stamp);
+                binaryScannerHandlers.put(key, handler);
+            }
+        }
+        if (replaced != null) {
+            // outside of the map lock, as retiring waits for a scan in progress on the replaced handler
+            replaced.retire();
+        }
+        return handler;
+    }
+
     // Define the logging functions of the binary scanner handler and make it available in this plugin
-    private class BinaryScannerHandler extends BinaryScannerUtil {
-        BinaryScannerHandler(File scannerFile) {
+    private static class BinaryScannerHandler extends BinaryScannerUtil {
+        private final File scannerFile;
+        private final String stamp;
+        private Log log;
+        private boolean retired = false;
+
+        BinaryScannerHandler(File scannerFile, String stamp) {
             super(scannerFile);
+            this.scannerFile = scannerFile;
+            this.stamp = stamp;
         }
+
+        // The scanner is shared by mojo executions, so only run one scan at a time and log to the caller's log
+        Set<String> scan(Log log, Set<String> currentFeatureSet, List<String> classFiles,
+                Set<String> allClassesDirectories, String logLocation, String targetJavaEE, String targetMicroProfile,
+                boolean optimize) throws PluginExecutionException, BinaryScannerUtil.NoRecommendationException,
+                BinaryScannerUtil.RecommendationSetException, BinaryScannerUtil.FeatureModifiedException,
+                BinaryScannerUtil.FeatureUnavailableException, BinaryScannerUtil.IllegalTargetException,
+                BinaryScannerUtil.IllegalTargetComboException {
+            synchronized (this) {
+                if (!retired) {
+                    this.log = log;
+                    return runBinaryScanner(currentFeatureSet, classFiles, allClassesDirectories, logLocation,
+                            targetJavaEE, targetMicroProfile, optimize);
+                }
+            }
+            // the scanner jar changed after this handler was handed out
+            return getBinaryScannerHandler(scannerFile).scan(log, currentFeatureSet, classFiles, allClassesDirectories,
+                    logLocation, targetJavaEE, targetMicroProfile, optimize);
+        }
+
+        /**
+         * Stop using this handler for scans, so that once the scans in progress end, it and the class loader
+         * BinaryScannerUtil created for the scanner jar can be garbage collected.
+         */
+        synchronized void retire() {
+            retired = true;
+        }
+
         @Override
         public void debug(String msg) {
-            getLog().debug(msg);
+            log.debug(msg);
         }
         @Override
         public void debug(String msg, Throwable t) {
-            getLog().debug(msg, t);
+            log.debug(msg, t);
         }
         @Override
         public void error(String msg) {
-            getLog().error(msg);
+            log.error(msg);
         }
         @Override
         public void warn(String msg) {
-            getLog().warn(msg);
+            log.warn(msg);
         }
         @Override
         public void info(String msg) {
-            getLog().info(msg);
+            log.info(msg);
         }
         @Override
         public boolean isDebugEnabled() {
-            return getLog().isDebugEnabled();
+            return log.isDebugEnabled();
         }
     }
 
@@ -32,6 +32,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 
 import io.openliberty.tools.ant.ServerTask;
+import io.openliberty.tools.maven.utils.ServerPackager;
 
 /**
  * Package a liberty server
@@ -68,6 +69,8 @@ public class PackageServerMojo extends StartDebugMojoSupport {
         }
     }
 
+    private static final String PACKAGE_MANIFEST_PREFIX = "liberty-plugin-package-";
+
     private PackageFileType packageFileType = null;
     private File packageFile = null;
 
@@ -124,6 +127,23 @@ public class PackageServerMojo extends StartDebugMojoSupport {
      */
     @Parameter(property = "skipLibertyPackage", defaultValue = "false")
     protected boolean skipLibertyPackage = false;
+
+    /**
+     * Write zip, tar and tar.gz packages with the plugin, compressing on all
+     * processors, instead of with the Liberty package command. Packages that need
+     * the package command, such as jar, minify and runnable packages or servers
+     * with loose applications, are still written by the package command.
+     */
+    @Parameter(property = "parallelPackage", defaultValue = "false")
+    private boolean parallelPackage;
+
+    /**
+     * Write a reproducible zip, tar or tar.gz package with the plugin. Entries are
+     * sorted and get the time of the project.build.outputTimestamp property, and
+     * the package is only written again when the content of an entry changed.
+     */
+    @Parameter(property = "reproduciblePackage", defaultValue = "false")
+    private boolean reproduciblePackage;
        
     @Override
     public void execute() throws MojoExecutionException {
@@ -167,7 +187,18 @@ public class PackageServerMojo extends StartDebugMojoSupport {
         serverTask.setOs(os);
         serverTask.setServerRoot(serverRoot);
         getLog().info(MessageFormat.format(messages.getString("info.server.package.file.location"), packageFile.getCanonicalPath()));
-        serverTask.execute();
+        if ((parallelPackage || reproduciblePackage) && isParallelPackageSupported()) {
+            ArrayList<String> includeValues = parseInclude();
+            ServerPackager packager = new ServerPackager(installDirectory, userDirectory, serverDirectory, serverRoot,
+                    !includeValues.contains("usr"), getLog());
+            if (reproduciblePackage) {
+                packager.setReproducible(getOutputTimestamp(), new File(packageFile.getParentFile(),
+                        PACKAGE_MANIFEST_PREFIX + packageFile.getName() + ".properties"));
+            }
+            packager.write(packageFile, packageFileType.getValue(), Runtime.getRuntime().availableProcessors());
+        } else {
+            serverTask.execute();
+        }
 
         if ("liberty-assembly".equals(project.getPackaging())) {
             project.getArtifact().setFile(packageFile);
@@ -180,6 +211,33 @@ public class PackageServerMojo extends StartDebugMojoSupport {
         }
     }
 
+    /**
+     * The plugin writes the same layout as the package command for the runtime and
+     * user directory of a server. Minified runtimes and the packaging of loose
+     * applications are left to the package command. So are runnable jars for now:
+     * writing them needs the launcher classes and manifest of the package command,
+     * which is planned as a follow-up.
+     */
+    private boolean isParallelPackageSupported() {
+        String reason = null;
+        ArrayList<String> includeValues = parseInclude();
+        if (packageFileType == PackageFileType.JAR) {
+            reason = "runnable jar packages are not written by the plugin yet";
+        } else if (os != null && !os.isEmpty()) {
+            reason = "the os parameter is set";
+        } else if (includeValues.size() > 1
+                || (includeValues.size() == 1 && !includeValues.contains("all") && !includeValues.contains("usr"))) {
+            reason = "the include value is " + include;
+        } else if (hasLooseApplication()) {
+            reason = "the server has loose applications";
+        }
+        if (reason != null) {
+            getLog().info("The package command packages the server because " + reason + ".");
+            return false;
+        }
+        return true;
+    }
+
     private ArrayList<String> parseInclude() {
         ArrayList<String> includeValues;
         List<String> includeStrings;
@@ -27,10 +27,15 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.EnumSet;
@@ -55,8 +60,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.apache.tools.ant.taskdefs.Copy;
-import org.apache.tools.ant.types.FileSet;
+import org.apache.tools.ant.DirectoryScanner;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
 
@@ -64,7 +68,10 @@ import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.common.plugins.config.ServerConfigXmlDocument;
 import io.openliberty.tools.maven.ServerFeatureSupport;
 import io.openliberty.tools.maven.applications.LooseWarApplication;
+import io.openliberty.tools.maven.utils.DevProfiler;
 import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
+import io.openliberty.tools.maven.utils.ExplodedWarSync;
+import io.openliberty.tools.maven.utils.FileSync;
 
 /**
  * Start/Debug server support.
@@ -79,6 +86,17 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
 
     private boolean configFilesCopied = false;
 
+    private static final String CONFIG_SYNC_MANIFEST = "liberty-plugin-config-sync.properties";
+    private static final String DEPENDENCY_SYNC_MANIFEST_PREFIX = "liberty-plugin-dependency-sync-";
+    private static final String EXPLODED_SYNC_STATE = "liberty-plugin-exploded-sync.properties";
+
+    // 1980-01-01T00:00:02Z, the earliest even second a zip entry can hold
+    private static final long DEFAULT_OUTPUT_TIMESTAMP = 315532802000L;
+
+    private FileSync configSync;
+
+    protected DevProfiler profiler = DevProfiler.DISABLED;
+
     protected final String PLUGIN_VARIABLE_CONFIG_OVERRIDES_XML = "configDropins/overrides/liberty-plugin-variable-config.xml";
     protected final String PLUGIN_VARIABLE_CONFIG_DEFAULTS_XML = "configDropins/defaults/liberty-plugin-variable-config.xml";
 
@@ -176,12 +194,17 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
     }
     
     protected void runMojo(String groupId, String artifactId, String goal) throws MojoExecutionException {
-        Plugin plugin = getPlugin(groupId, artifactId);
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
-        getLog().info("Running " + artifactId + ":" + goal);
-        getLog().debug("configuration:\n" + config);
-        executeMojo(plugin, goal(goal), config,
-                executionEnvironment(project, session, pluginManager));
+        DevProfiler.Span span = profiler.start(artifactId + ":" + goal);
+        try {
+            Plugin plugin = getPlugin(groupId, artifactId);
+            Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
+            getLog().info("Running " + artifactId + ":" + goal);
+            getLog().debug("configuration:\n" + config);
+            executeMojo(plugin, goal(goal), config,
+                    executionEnvironment(project, session, pluginManager));
+        } finally {
+            span.end();
+        }
     }
     
     /**
@@ -191,32 +214,100 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
      * @throws MojoExecutionException
      */
     protected void runExplodedMojo() throws MojoExecutionException {
-        Plugin warPlugin = getPlugin("org.apache.maven.plugins", "maven-war-plugin");
-        Xpp3Dom explodedConfig = ExecuteMojoUtil.getPluginGoalConfig(warPlugin, "exploded", getLog());
-        
-        if (explodedConfig.getChild("outdatedCheckPath") == null) {
-            if (validatePluginVersion(warPlugin.getVersion(), "3.3.2")) {
-                explodedConfig.addChild(element(name("outdatedCheckPath"), "/").toDom());
-            } else if (validatePluginVersion(warPlugin.getVersion(), "3.3.1")) {
-                explodedConfig.addChild(element(name("outdatedCheckPath"), "WEB-INF").toDom());
+        DevProfiler.Span span = profiler.start("maven-war-plugin:exploded");
+        try {
+            Plugin warPlugin = getPlugin("org.apache.maven.plugins", "maven-war-plugin");
+            Xpp3Dom explodedConfig = ExecuteMojoUtil.getPluginGoalConfig(warPlugin, "exploded", getLog());
+            ExplodedWarSync explodedSync = getExplodedWarSync(new Xpp3Dom(explodedConfig));
+
+            if (explodedConfig.getChild("outdatedCheckPath") == null) {
+                if (validatePluginVersion(warPlugin.getVersion(), "3.3.2")) {
+                    explodedConfig.addChild(element(name("outdatedCheckPath"), "/").toDom());
+                } else if (validatePluginVersion(warPlugin.getVersion(), "3.3.1")) {
+                    explodedConfig.addChild(element(name("outdatedCheckPath"), "WEB-INF").toDom());
+                }
+            }
+
+            getLog().info("Running maven-war-plugin:exploded");
+            getLog().debug("configuration:\n" + explodedConfig);
+            session.getRequest().setStartTime(new Date());
+            executeMojo(warPlugin, goal("exploded"), explodedConfig, executionEnvironment(project, session, pluginManager));
+
+            if (explodedSync != null) {
+                try {
+                    explodedSync.recordBaseline();
+                } catch (IOException e) {
+                    getLog().debug("Could not record the state of the exploded WAR: " + e.getMessage());
+                }
+            }
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Bring the exploded WAR directory up to date with the changes to the web
+     * resources, the WAR source directory and the classes directory, copying
+     * and deleting only the changed entries. The exploded goal runs instead if
+     * the configuration, dependencies or filter properties changed since it last
+     * ran, or if the configuration cannot be reproduced entry by entry. This
+     * method should only be called for WAR type applications.
+     * 
+     * @throws MojoExecutionException
+     */
+    protected void syncExplodedWar() throws MojoExecutionException {
+        DevProfiler.Span span = profiler.start("exploded-sync");
+        try {
+            Plugin warPlugin = getPlugin("org.apache.maven.plugins", "maven-war-plugin");
+            ExplodedWarSync explodedSync = getExplodedWarSync(ExecuteMojoUtil.getPluginGoalConfig(warPlugin, "exploded", getLog()));
+            try {
+                if (explodedSync != null && explodedSync.isCurrent() && explodedSync.sync()) {
+                    return;
+                }
+            } catch (IOException e) {
+                getLog().debug("Could not sync the exploded WAR: " + e.getMessage());
             }
+            runExplodedMojo();
+        } finally {
+            span.end();
         }
+    }
 
-        getLog().info("Running maven-war-plugin:exploded");
-        getLog().debug("configuration:\n" + explodedConfig);
-        session.getRequest().setStartTime(new Date());
-        executeMojo(warPlugin, goal("exploded"), explodedConfig, executionEnvironment(project, session, pluginManager));
+    /**
+     * @return the exploded WAR sync for the configuration, or null if the
+     *         exploded goal has to run for every change
+     */
+    private ExplodedWarSync getExplodedWarSync(Xpp3Dom explodedConfig) {
+        try {
+            ExplodedWarSync explodedSync = new ExplodedWarSync(project, session, explodedConfig,
+                    new File(project.getBuild().getDirectory(), EXPLODED_SYNC_STATE),
+                    LooseWarApplication.isUsingOverlays(project), getLog());
+            String unsupported = explodedSync.getUnsupportedParameter();
+            if (unsupported != null) {
+                getLog().debug("The exploded goal runs for every change because it is configured with " + unsupported);
+                return null;
+            }
+            return explodedSync;
+        } catch (IOException e) {
+            getLog().debug("Could not read the configuration of the exploded goal: " + e.getMessage());
+            return null;
+        }
     }
 
     protected void runMojoForProject(String groupId, String artifactId, String goal, MavenProject project)
             throws MojoExecutionException {
-        Plugin plugin = getPluginForProject(groupId, artifactId, project);
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
-        getLog().info("Running " + artifactId + ":" + goal + " on " + project.getFile());
-        getLog().debug("configuration:\n" + config);
-        MavenSession tempSession = session.clone();
-        tempSession.setCurrentProject(project);
-        executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        DevProfiler.Span span = profiler.start(artifactId + ":" + goal);
+        try {
+            Plugin plugin = getPluginForProject(groupId, artifactId, project);
+            Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, getLog());
+            getLog().info("Running " + artifactId + ":" + goal + " on " + project.getFile());
+            getLog().debug("configuration:\n" + config);
+            MavenSession tempSession = session.clone();
+            tempSession.setCurrentProject(project);
+            executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        } finally {
+            span.end();
+        }
     }
     
     protected boolean validatePluginVersion(String version, String minVersion) {
@@ -301,15 +392,25 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
     }
 
     private void runLibertyMojo(String goal, Xpp3Dom config) throws MojoExecutionException {
-        getLog().info("Running liberty:" + goal);
-        getLog().debug("configuration:\n" + config);
-        getLog().debug("project:\n" + project);
-        MavenSession tempSession = session.clone();
-        tempSession.setCurrentProject(project);
-        executeMojo(getLibertyPlugin(), goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        DevProfiler.Span span = profiler.start("liberty:" + goal);
+        try {
+            getLog().info("Running liberty:" + goal);
+            getLog().debug("configuration:\n" + config);
+            getLog().debug("project:\n" + project);
+            MavenSession tempSession = session.clone();
+            tempSession.setCurrentProject(project);
+            executeMojo(getLibertyPlugin(), goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        } finally {
+            span.end();
+        }
     }
 
     private void copyDependencies() throws MojoExecutionException, IOException {
+        // only changed dependencies are copied, and the ones copied by an earlier build that are no longer configured are removed;
+        // each server has its own manifest, so that executions for other servers keep what they copied
+        FileSync dependencySync = new FileSync(new File(project.getBuild().getDirectory(),
+                DEPENDENCY_SYNC_MANIFEST_PREFIX + serverName + ".properties"), getLog());
+        boolean allMatched = true;
         if (copyDependencies != null) {
             List<Dependency> deps = copyDependencies.getDependencies();
             boolean defaultStripVersion = copyDependencies.isStripVersion();
@@ -334,8 +435,21 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
                 getLog().debug("copyDependencies to location: "+dftLocationPath);
             }
 
+            // download all dependencies with a fixed version up front instead of one at a time
+            List<Dependency> allDeps = new ArrayList<Dependency>(deps);
+            for (DependencyGroup depGroup : copyDependencies.getDependencyGroups()) {
+                allDeps.addAll(depGroup.getDependencies());
+            }
+            List<org.apache.maven.model.Dependency> items = new ArrayList<org.apache.maven.model.Dependency>();
+            for (Dependency dep : allDeps) {
+                if (dep.getVersion() != null && dep.getArtifactId() != null && !dep.getArtifactId().endsWith("*")) {
+                    items.add(createArtifactItem(dep.getGroupId(), dep.getArtifactId(), dep.getType(), dep.getVersion(), dep.getClassifier()));
+                }
+            }
+            prefetchArtifacts(items);
+
             for (Dependency dep : deps) {
-                copyDependencies(dep, null, dftLocationPath, defaultStripVersion);                
+                allMatched &= copyDependencies(dep, null, dftLocationPath, defaultStripVersion, dependencySync);
             }
 
             List<DependencyGroup> depGroups = copyDependencies.getDependencyGroups();
@@ -354,14 +468,27 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
                 }
                 List<Dependency> groupDeps = depGroup.getDependencies();
                 for (Dependency dep : groupDeps) {
-                    copyDependencies(dep, overrideLocation, dftLocationPath, stripVersion);                
+                    allMatched &= copyDependencies(dep, overrideLocation, dftLocationPath, stripVersion, dependencySync);
                 }
             }
 
         }
+
+        if (allMatched) {
+            for (File stale : dependencySync.deleteUntouched(getCopyDependenciesLocations())) {
+                getLog().info("copyDependencies removed file " + stale + " because it is no longer a configured dependency.");
+            }
+        } else {
+            // keep what an earlier build copied rather than remove a dependency that failed to resolve
+            getLog().debug("copyDependencies did not remove any previously copied files because some dependencies did not match.");
+        }
+        dependencySync.save();
     }
 
-    private void copyDependencies(Dependency dep, String overrideLocation, String defaultLocation, boolean stripVersion) throws MojoExecutionException, IOException {
+    /**
+     * @return false if no resolved artifacts matched the dependency
+     */
+    private boolean copyDependencies(Dependency dep, String overrideLocation, String defaultLocation, boolean stripVersion, FileSync dependencySync) throws MojoExecutionException, IOException {
 
         String location = defaultLocation;
 
@@ -400,6 +527,7 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
             sb.append(". No matching resolved dependencies were found.");
 
             getLog().warn(sb.toString());
+            return false;
         } else {
             for (Artifact nextArtifact : artifactsToCopy) {
                 File nextFile = nextArtifact.getFile();
@@ -410,15 +538,82 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
 
                 File fileToCopyTo = new File(location, targetFileName);
 
-                Copy copy = (Copy) ant.createTask("copy");
-                copy.setFile(nextFile);
-                copy.setTofile(fileToCopyTo);
-                copy.setOverwrite(true);
-                copy.execute();
+                if (dependencySync.copy(nextFile, fileToCopyTo)) {
+                    getLog().info("copyDependencies copied file "+nextFile.getName()+" to location "+location+"/"+targetFileName+".");
+                } else {
+                    getLog().debug("copyDependencies skipped file "+nextFile.getName()+" because "+location+"/"+targetFileName+" is up to date.");
+                }
+            }
+        }
+        return true;
+    }
 
-                getLog().info("copyDependencies copied file "+nextFile.getName()+" to location "+location+"/"+targetFileName+".");
+    /**
+     * @return the directories the copyDependencies configuration copies
+     *         dependencies to
+     */
+    protected List<File> getCopyDependenciesLocations() throws IOException {
+        List<File> locations = new ArrayList<File>();
+        if (copyDependencies != null) {
+            locations.add(getCopyDependenciesLocation(copyDependencies.getLocation()));
+            for (DependencyGroup depGroup : copyDependencies.getDependencyGroups()) {
+                if (depGroup.getLocation() != null) {
+                    locations.add(getCopyDependenciesLocation(depGroup.getLocation()));
+                }
             }
         }
+        return locations;
+    }
+
+    private File getCopyDependenciesLocation(String location) throws IOException {
+        File locationFile = new File(location);
+        if (!locationFile.isAbsolute()) {
+            // relative path
+            locationFile = new File(serverDirectory, location);
+        }
+        return locationFile.getCanonicalFile();
+    }
+
+    /**
+     * @return the time of the project.build.outputTimestamp property, given in
+     *         seconds since the epoch or as an ISO 8601 date and time, or the
+     *         earliest time a zip entry can hold if it is not set
+     */
+    protected long getOutputTimestamp() throws MojoExecutionException {
+        String value = project.getProperties().getProperty("project.build.outputTimestamp");
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_OUTPUT_TIMESTAMP;
+        }
+        value = value.trim();
+        try {
+            if (value.matches("\\d+")) {
+                return Long.parseLong(value) * 1000;
+            }
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new MojoExecutionException("Invalid project.build.outputTimestamp value " + value + ".", e);
+        }
+    }
+
+    /**
+     * @return true if the apps or dropins directory of the server holds a loose
+     *         application configuration file
+     */
+    protected boolean hasLooseApplication() {
+        return hasLooseApplication(new File(serverDirectory, "apps"))
+                || hasLooseApplication(new File(serverDirectory, "dropins"));
+    }
+
+    private static boolean hasLooseApplication(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.getName().endsWith(".xml")) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -435,23 +630,33 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
         // First check for Liberty configuration specified by Maven properties.
         loadLibertyConfigFromProperties();
 
+        // only files whose content changed are written, so that Liberty does not reload unchanged configuration
+        configSync = new FileSync(new File(project.getBuild().getDirectory(), CONFIG_SYNC_MANIFEST), getLog());
+
         if (configDirectory != null && configDirectory.exists()) {
             // copy configuration files from configuration directory to server directory if end-user set it
-            Copy copydir = (Copy) ant.createTask("copy");
-            FileSet fileset = new FileSet();
-            fileset.setDir(configDirectory);
+            DirectoryScanner scanner = new DirectoryScanner();
+            scanner.setBasedir(configDirectory);
+            scanner.addDefaultExcludes();
 
             // If mergeServerEnv is true, don't overwrite generated server.env
             File configDirServerEnv = new File(configDirectory, "server.env");
+            List<String> excludes = new ArrayList<String>();
             if(mergeServerEnv && configDirServerEnv.exists()){
                 // set excludes pattern 
-                fileset.setExcludes("server.env");
+                excludes.add("server.env");
             }
+            // skip files that are replaced by other configuration below, so they are not written twice
+            excludes.addAll(getOverriddenConfigDirectoryFiles());
+            scanner.setExcludes(excludes.toArray(new String[excludes.size()]));
 
-            copydir.addFileset(fileset);
-            copydir.setTodir(serverDirectory);
-            copydir.setOverwrite(true);
-            copydir.execute();
+            scanner.scan();
+            for (String dir : scanner.getIncludedDirectories()) {
+                new File(serverDirectory, dir).mkdirs();
+            }
+            for (String file : scanner.getIncludedFiles()) {
+                configSync.copy(new File(configDirectory, file), new File(serverDirectory, file));
+            }
 
             File configDirServerXML = new File(configDirectory, "server.xml");
             if (configDirServerXML.exists()) {
@@ -478,21 +683,18 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
             if (serverXMLPath != null && ! serverXmlFile.getCanonicalPath().equals(serverXMLPath)) {
                 getLog().info("The " + serverXMLPath + " file is overwritten by the "+serverXmlFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(serverXmlFile);
-            copy.setTofile(new File(serverDirectory, "server.xml"));
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.copy(serverXmlFile, new File(serverDirectory, "server.xml"));
             serverXMLPath = serverXmlFile.getCanonicalPath();
         }
 
         // copy jvm.options to server directory if end-user explicitly set it
         File optionsFile = new File(serverDirectory, "jvm.options");
-        if (optionsFile.exists() && jvmOptionsPath == null) {
+        boolean jvmOptionsConfigured = jvmOptions != null || !jvmMavenPropValues.isEmpty() || (jvmOptionsFile != null && jvmOptionsFile.exists());
+        if (optionsFile.exists() && jvmOptionsPath == null && !jvmOptionsConfigured) {
             // if using pre-existing installation, do not delete file
             if (installType != InstallType.ALREADY_EXISTS) {
                 getLog().info(optionsFile.getCanonicalPath() + " file deleted before processing plugin configuration.");
-                optionsFile.delete();
+                configSync.delete(optionsFile);
             }
         }
         if (jvmOptions != null || !jvmMavenPropValues.isEmpty()) {
@@ -506,21 +708,18 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
             if (jvmOptionsPath != null) {
                 getLog().info("The " + jvmOptionsPath + " file is overwritten by the "+jvmOptionsFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(jvmOptionsFile);
-            copy.setTofile(optionsFile);
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.copy(jvmOptionsFile, optionsFile);
             jvmOptionsPath = jvmOptionsFile.getCanonicalPath();
         }
 
         // copy bootstrap.properties to server directory if end-user explicitly set it
         File bootstrapFile = new File(serverDirectory, "bootstrap.properties");
-        if (bootstrapFile.exists() && bootStrapPropertiesPath == null) {
+        boolean bootstrapPropertiesConfigured = bootstrapProperties != null || !bootstrapMavenProps.isEmpty() || (bootstrapPropertiesFile != null && bootstrapPropertiesFile.exists());
+        if (bootstrapFile.exists() && bootStrapPropertiesPath == null && !bootstrapPropertiesConfigured) {
             // if using pre-existing installation, do not delete file
             if (installType != InstallType.ALREADY_EXISTS) {
                 getLog().info(bootstrapFile.getCanonicalPath() + " file deleted before processing plugin configuration.");
-                bootstrapFile.delete();
+                configSync.delete(bootstrapFile);
             }
         } 
         if (bootstrapProperties != null || !bootstrapMavenProps.isEmpty()) {
@@ -534,11 +733,7 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
             if (bootStrapPropertiesPath != null) {
                 getLog().info("The " + bootStrapPropertiesPath + " file is overwritten by the "+ bootstrapPropertiesFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(bootstrapPropertiesFile);
-            copy.setTofile(bootstrapFile);
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.copy(bootstrapPropertiesFile, bootstrapFile);
             bootStrapPropertiesPath = bootstrapPropertiesFile.getCanonicalPath();
         }
 
@@ -559,32 +754,32 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
                 writeServerEnvProperties(envFile, envPropsToWrite);
                 serverEnvPath = "inlined configuration";
             } else if (serverEnvFile != null && serverEnvFile.exists()) {
-                Copy copy = (Copy) ant.createTask("copy");
-                copy.setFile(serverEnvFile);
-                copy.setTofile(envFile);
-                copy.setOverwrite(true);
-                copy.execute();
+                configSync.copy(serverEnvFile, envFile);
                 serverEnvPath = serverEnvFile.getCanonicalPath();
             }
         }
 
         File pluginVariableConfig = new File(serverDirectory, PLUGIN_VARIABLE_CONFIG_OVERRIDES_XML);
-        if (pluginVariableConfig.exists()) {
-            getLog().debug(pluginVariableConfig.getCanonicalPath() + " file deleted before processing plugin configuration.");
-            pluginVariableConfig.delete();
-        }
         if (!varMavenProps.isEmpty()) {
             writeConfigDropinsServerVariables(pluginVariableConfig, varMavenProps, false);  
+        } else if (pluginVariableConfig.exists()) {
+            getLog().debug(pluginVariableConfig.getCanonicalPath() + " file deleted before processing plugin configuration.");
+            configSync.delete(pluginVariableConfig);
         }
 
         pluginVariableConfig = new File(serverDirectory, PLUGIN_VARIABLE_CONFIG_DEFAULTS_XML);
-        if (pluginVariableConfig.exists()) {
-            getLog().debug(pluginVariableConfig.getCanonicalPath() + " file deleted before processing plugin configuration.");
-            pluginVariableConfig.delete();
-        }
         if (!defaultVarMavenProps.isEmpty()) {
             writeConfigDropinsServerVariables(pluginVariableConfig, defaultVarMavenProps, true);  
+        } else if (pluginVariableConfig.exists()) {
+            getLog().debug(pluginVariableConfig.getCanonicalPath() + " file deleted before processing plugin configuration.");
+            configSync.delete(pluginVariableConfig);
+        }
+
+        if (!configSync.getSkipped().isEmpty()) {
+            getLog().debug("Skipped " + configSync.getSkipped().size() + " configuration file(s) in " + serverDirectory
+                    + " whose content is unchanged: " + configSync.getSkipped());
         }
+        configSync.save();
 
         // log info on the configuration files that get used
         if (serverXMLPath != null && !serverXMLPath.isEmpty()) {
@@ -610,6 +805,27 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
         copyDependencies();
     }
 
+    /**
+     * Get the files in the configDirectory that are always replaced by the
+     * serverXmlFile, jvmOptions, bootstrapProperties or serverEnvFile configuration.
+     */
+    private List<String> getOverriddenConfigDirectoryFiles() {
+        List<String> overridden = new ArrayList<String>();
+        if (serverXmlFile != null && serverXmlFile.exists()) {
+            overridden.add("server.xml");
+        }
+        if (jvmOptions != null || !jvmMavenPropValues.isEmpty() || (jvmOptionsFile != null && jvmOptionsFile.exists())) {
+            overridden.add("jvm.options");
+        }
+        if (bootstrapProperties != null || !bootstrapMavenProps.isEmpty() || (bootstrapPropertiesFile != null && bootstrapPropertiesFile.exists())) {
+            overridden.add("bootstrap.properties");
+        }
+        if (!mergeServerEnv && (!envMavenProps.isEmpty() || (serverEnvFile != null && serverEnvFile.exists()))) {
+            overridden.add("server.env");
+        }
+        return overridden;
+    }
+
     /**
      * Merges envProps with special properties found in the install (target) server.env.  We return a clone/copy of
      * envProps, to which any of a list of special properties found in server.env have been added.  We give precedence
@@ -833,10 +1049,10 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
             combinedBootstrapProperties = properties;
         }
 
-        makeParentDirectory(file);
+        StringWriter content = new StringWriter();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(content);
             writer.println(HEADER);
             for (Map.Entry<String, String> entry : combinedBootstrapProperties.entrySet()) {
                 String key = entry.getKey();
@@ -854,13 +1070,14 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
                 writer.close();
             }
         }
+        syncConfigFile(content.toString(), file);
     }
 
     private void writeServerEnvProperties(File file, Map<String, String> mavenProperties) throws IOException {
-        makeParentDirectory(file);
+        StringWriter content = new StringWriter();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(content);
             writer.println(HEADER);
             for (Map.Entry<String, String> entry : mavenProperties.entrySet()) {
                 String key = entry.getKey();
@@ -877,6 +1094,7 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
                 writer.close();
             }
         }
+        syncConfigFile(content.toString(), file);
     }
 
     // Remove any duplicate entries in the passed in List
@@ -917,10 +1135,10 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
             combinedJvmOptions = uniqueOptions;
         }
 
-        makeParentDirectory(file);
+        StringWriter content = new StringWriter();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(content);
             writer.println(HEADER);
             for (String option : combinedJvmOptions) {
                 writer.println(option);
@@ -930,6 +1148,7 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
                 writer.close();
             }
         }
+        syncConfigFile(content.toString(), file);
     }
 
     private void writeConfigDropinsServerVariables(File file, Map<String,String> props, boolean isDefaultVar) throws IOException, MojoExecutionException {
@@ -943,9 +1162,19 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
                 configDocument.createVariableWithValue(entry.getKey(), entry.getValue(), isDefaultVar);
             }
     
-            // write XML document to file
+            // write XML document to a temporary file and only replace the existing file if it changed
             makeParentDirectory(file);
-            configDocument.writeXMLDocument(file);    
+            File tempFile = File.createTempFile(file.getName(), ".tmp");
+            try {
+                configDocument.writeXMLDocument(tempFile);
+                if (configSync != null) {
+                    configSync.copy(tempFile, file);
+                } else {
+                    Files.copy(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                tempFile.delete();
+            }
         } catch (ParserConfigurationException | TransformerException e) {
             throw new MojoExecutionException("Error writing configDropins variable file "+file.getCanonicalPath(), e);
         }
@@ -958,6 +1187,15 @@ public abstract class StartDebugMojoSupport extends ServerFeatureSupport {
         }
     }
 
+    private void syncConfigFile(String content, File file) throws IOException {
+        if (configSync != null) {
+            configSync.write(content, file);
+        } else {
+            makeParentDirectory(file);
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     public boolean isConfigCopied() {
         return configFilesCopied;
     }
@@ -17,6 +17,8 @@ package io.openliberty.tools.maven.server;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -24,6 +26,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 
 import io.openliberty.tools.ant.ServerTask;
+import io.openliberty.tools.maven.utils.AppStartVerifier;
+import io.openliberty.tools.maven.utils.LogWatcher;
 
 /**
  * Start a liberty server
@@ -106,16 +110,20 @@ public class StartServerMojo extends StartDebugMojoSupport {
             verifyTimeout = 30;
         }
         long timeout = verifyTimeout * 1000;
-        long endTime = System.currentTimeMillis() + timeout;
         if (applications != null) {
-            String[] apps = applications.split("[,\\s]+");
-            for (String archiveName : apps) {
-                String startMessage = serverTask.waitForStringInLog(START_APP_MESSAGE_REGEXP + archiveName, timeout, serverTask.getLogFile());
-                if (startMessage == null) {
-                    stopServer();
-                    throw new MojoExecutionException(MessageFormat.format(messages.getString("error.server.start.verify"), verifyTimeout));
-                }
-                timeout = endTime - System.currentTimeMillis();
+            List<String> apps = Arrays.asList(applications.split("[,\\s]+"));
+            // wait for all applications at the same time, and stop waiting for an application that failed to start
+            List<AppStartVerifier.Result> results;
+            try (LogWatcher logWatcher = new LogWatcher(serverTask.getLogFile())) {
+                results = new AppStartVerifier(logWatcher, START_APP_MESSAGE_REGEXP, FAIL_APP_MESSAGE_REGEXP)
+                        .verify(apps, timeout);
+            }
+            for (String line : AppStartVerifier.formatTable(results)) {
+                getLog().info(line);
+            }
+            if (!AppStartVerifier.getNotStarted(results).isEmpty()) {
+                stopServer();
+                throw new MojoExecutionException(MessageFormat.format(messages.getString("error.server.start.verify"), verifyTimeout));
             }
         }
     }
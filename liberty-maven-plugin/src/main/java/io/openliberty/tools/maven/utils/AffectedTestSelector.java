@@ -0,0 +1,252 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.SelectorUtils;
+
+import io.openliberty.tools.maven.utils.IncrementalJavaCompiler.ClassInfo;
+
+/**
+ * Selects the tests that can observe the classes that changed since the tests
+ * last passed.
+ *
+ * The class files of the production and test classes directories are read
+ * into a class level dependency graph. A test is affected by a change if its
+ * class, or a class it depends on directly or through other classes, was
+ * added, changed or deleted. Dependencies that do not show in the class files,
+ * such as reflection, service loading or inlined constants, are not seen.
+ *
+ * The class files are recorded for each kind of test run when the run passes,
+ * so tests affected by a change keep being selected until they pass.
+ */
+public class AffectedTestSelector {
+
+    private final Log log;
+    private final Map<File, ClassInfo> classes = new HashMap<File, ClassInfo>();
+    private final Map<String, Map<File, String>> passed = new HashMap<String, Map<File, String>>();
+    private final Map<String, Map<File, String>> selected = new HashMap<String, Map<File, String>>();
+
+    public AffectedTestSelector(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Select the tests affected by the class changes since the last passed run.
+     *
+     * @param run                      identifies the kind of test run, such as the
+     *                                 unit tests of a module
+     * @param classesDirectory         the production classes directory
+     * @param testClassesDirectory     the test classes directory
+     * @param productionChangesRunAll  whether any production class change affects
+     *                                 every test, as for integration tests that
+     *                                 use the deployed application
+     * @param includes                 the test include patterns of the test plugin
+     * @param excludes                 the test exclude patterns of the test plugin
+     * @return the fully qualified names of the affected test classes, empty if no
+     *         class changed, or null if all tests have to run
+     */
+    public synchronized List<String> select(String run, File classesDirectory, File testClassesDirectory,
+            boolean productionChangesRunAll, List<String> includes, List<String> excludes) {
+        Map<File, String> current = new HashMap<File, String>();
+        addClassFiles(classesDirectory, current);
+        addClassFiles(testClassesDirectory, current);
+        selected.put(run, current);
+
+        Map<File, String> previous = passed.get(run);
+        if (previous == null) {
+            log.debug("Running all tests of " + run + " because they have not passed in this session yet");
+            return null;
+        }
+        for (String pattern : includes) {
+            if (pattern.startsWith("%regex[") || pattern.indexOf('#') >= 0) {
+                log.debug("Running all tests of " + run + " because the test includes use " + pattern);
+                return null;
+            }
+        }
+
+        Set<File> changedFiles = new HashSet<File>();
+        for (Map.Entry<File, String> entry : current.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                changedFiles.add(entry.getKey());
+            }
+        }
+        for (File file : previous.keySet()) {
+            if (!current.containsKey(file)) {
+                changedFiles.add(file);
+            }
+        }
+        if (changedFiles.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+        Set<String> testClasses = new HashSet<String>();
+        for (File classFile : current.keySet()) {
+            ClassInfo classInfo = getClassInfo(classFile);
+            if (classInfo == null) {
+                log.debug("Running all tests of " + run + " because " + classFile + " could not be read");
+                return null;
+            }
+            if (isIn(classFile, testClassesDirectory)) {
+                testClasses.add(classInfo.getName());
+            }
+            for (String reference : classInfo.getReferences()) {
+                Set<String> referencing = dependents.get(reference);
+                if (referencing == null) {
+                    referencing = new HashSet<String>();
+                    dependents.put(reference, referencing);
+                }
+                referencing.add(classInfo.getName());
+            }
+        }
+
+        Deque<String> queue = new ArrayDeque<String>();
+        for (File file : changedFiles) {
+            boolean test = isIn(file, testClassesDirectory);
+            if (!test && productionChangesRunAll) {
+                log.debug("Running all tests of " + run + " because production class " + file + " changed");
+                return null;
+            }
+            ClassInfo classInfo = file.exists() ? getClassInfo(file) : null;
+            queue.add(classInfo != null ? classInfo.getName()
+                    : getClassName(file, test ? testClassesDirectory : classesDirectory));
+        }
+        Set<String> affected = new HashSet<String>(queue);
+        while (!queue.isEmpty()) {
+            Set<String> referencing = dependents.get(queue.poll());
+            if (referencing != null) {
+                for (String dependent : referencing) {
+                    if (affected.add(dependent)) {
+                        queue.add(dependent);
+                    }
+                }
+            }
+        }
+
+        Set<String> tests = new TreeSet<String>();
+        for (String name : affected) {
+            if (!testClasses.contains(name)) {
+                continue;
+            }
+            int nested = name.indexOf('$');
+            String topLevel = nested < 0 ? name : name.substring(0, nested);
+            if (matches(includes, topLevel) && !matches(excludes, topLevel)) {
+                tests.add(topLevel.replace('/', '.'));
+            }
+        }
+        log.debug(changedFiles.size() + " class files changed for " + run + ", affected tests: " + tests);
+        return new ArrayList<String>(tests);
+    }
+
+    /**
+     * Record that the tests of the last selection passed, so that the next
+     * selection only includes the tests affected by later changes.
+     */
+    public synchronized void passed(String run) {
+        Map<File, String> current = selected.remove(run);
+        if (current != null) {
+            passed.put(run, current);
+        }
+    }
+
+    /**
+     * @param testClassesDirectory the test classes directory
+     * @param includes             the test include patterns of the test plugin
+     * @param excludes             the test exclude patterns of the test plugin
+     * @return the sorted fully qualified names of the top level test classes that
+     *         match the patterns, or null if the patterns are not supported
+     */
+    public static List<String> getTestClasses(File testClassesDirectory, List<String> includes,
+            List<String> excludes) {
+        for (String pattern : includes) {
+            if (pattern.startsWith("%regex[") || pattern.indexOf('#') >= 0) {
+                return null;
+            }
+        }
+        List<File> classFiles = new ArrayList<File>();
+        IncrementalJavaCompiler.listClassFiles(testClassesDirectory, classFiles);
+        Set<String> tests = new TreeSet<String>();
+        for (File classFile : classFiles) {
+            String name = getClassName(classFile, testClassesDirectory);
+            if (name.indexOf('$') < 0 && matches(includes, name) && !matches(excludes, name)) {
+                tests.add(name.replace('/', '.'));
+            }
+        }
+        return new ArrayList<String>(tests);
+    }
+
+    private ClassInfo getClassInfo(File classFile) {
+        ClassInfo classInfo = classes.get(classFile);
+        if (classInfo == null || !classInfo.isCurrent(classFile)) {
+            try {
+                classInfo = ClassInfo.read(classFile);
+                classes.put(classFile, classInfo);
+            } catch (IOException e) {
+                log.debug("Could not read the dependencies of " + classFile + ": " + e.getMessage());
+                classes.remove(classFile);
+                return null;
+            }
+        }
+        return classInfo;
+    }
+
+    private static void addClassFiles(File directory, Map<File, String> result) {
+        List<File> classFiles = new ArrayList<File>();
+        IncrementalJavaCompiler.listClassFiles(directory, classFiles);
+        for (File classFile : classFiles) {
+            result.put(classFile, classFile.length() + ":" + classFile.lastModified());
+        }
+    }
+
+    private static boolean isIn(File file, File directory) {
+        return file.getAbsolutePath().startsWith(directory.getAbsolutePath() + File.separator);
+    }
+
+    private static String getClassName(File classFile, File directory) {
+        String path = classFile.getAbsolutePath().substring(directory.getAbsolutePath().length() + 1);
+        return path.substring(0, path.length() - ".class".length()).replace(File.separatorChar, '/');
+    }
+
+    // surefire and failsafe patterns name test sources, e.g. **/*Test.java
+    private static boolean matches(List<String> patterns, String className) {
+        for (String pattern : patterns) {
+            String normalized = pattern.trim().replace('\\', '/');
+            if (normalized.endsWith(".class")) {
+                normalized = normalized.substring(0, normalized.length() - ".class".length()) + ".java";
+            } else if (!normalized.endsWith(".java") && !normalized.endsWith("*")) {
+                normalized += ".java";
+            }
+            if (SelectorUtils.matchPath(normalized, className + ".java", "/", true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Verifies that applications started by watching the log once for the start
+ * and the failure messages of all of them. The verification ends as soon as
+ * every application started or failed, or when the timeout expires, so the
+ * applications share one wait instead of waiting in turn.
+ *
+ * An application name only matches as a whole name, so that the messages of an
+ * application named app2 are not taken for the messages of app.
+ */
+public class AppStartVerifier {
+
+    public enum Status {
+        STARTED("started"), FAILED("failed"), TIMED_OUT("timed out");
+
+        private final String description;
+
+        private Status(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private final LogWatcher logWatcher;
+    private final String startRegexp;
+    private final String failRegexp;
+    private long failureLogOffset = 0;
+    private final Set<String> redeployed = new HashSet<String>();
+    private long startLogOffset = 0;
+    private String updateRegexp;
+
+    /**
+     * @param logWatcher  the watcher of the server log
+     * @param startRegexp the regular expression of the start message up to the
+     *                    application name
+     * @param failRegexp  the regular expression of the failure message up to the
+     *                    application name
+     */
+    public AppStartVerifier(LogWatcher logWatcher, String startRegexp, String failRegexp) {
+        this.logWatcher = logWatcher;
+        this.startRegexp = startRegexp;
+        this.failRegexp = failRegexp;
+    }
+
+    /**
+     * Only report the failure messages that start at or after an offset of the
+     * log, for a log that may hold failures of an earlier deployment of the
+     * applications.
+     */
+    public void setFailureLogOffset(long failureLogOffset) {
+        this.failureLogOffset = failureLogOffset;
+    }
+
+    /**
+     * Only report the start messages of the given applications that start at or
+     * after an offset of the log, for applications that were deployed again to a
+     * running server, whose log holds the start message of the earlier
+     * deployment. A running application that is deployed again logs an update
+     * message instead of a start message, so the update message counts as well.
+     *
+     * @param appNames       the names of the applications deployed again
+     * @param startLogOffset the length of the log before they were deployed
+     * @param updateRegexp   the regular expression of the update message up to
+     *                       the application name
+     */
+    public void setRedeployed(Collection<String> appNames, long startLogOffset, String updateRegexp) {
+        this.redeployed.addAll(appNames);
+        this.startLogOffset = startLogOffset;
+        this.updateRegexp = updateRegexp;
+    }
+
+    /**
+     * Wait until every application started or failed, or the timeout expired.
+     *
+     * @param appNames the names of the applications
+     * @param timeout  the time to wait for all applications in milliseconds
+     * @return the result per application, in the order of the given names
+     */
+    public List<Result> verify(Collection<String> appNames, long timeout) {
+        final long start = System.currentTimeMillis();
+        List<String> names = new ArrayList<String>(new LinkedHashSet<String>(appNames));
+        List<String> startRegexps = new ArrayList<String>();
+        List<String> redeployedStartRegexps = new ArrayList<String>();
+        List<String> failRegexps = new ArrayList<String>();
+        for (String name : names) {
+            if (redeployed.contains(name)) {
+                String regexp = "(?:" + startRegexp + "|" + updateRegexp + ")" + getNameRegexp(name);
+                startRegexps.add(regexp);
+                redeployedStartRegexps.add(regexp);
+            } else {
+                startRegexps.add(startRegexp + getNameRegexp(name));
+            }
+            failRegexps.add(failRegexp + getNameRegexp(name));
+        }
+        List<String> otherStartRegexps = new ArrayList<String>(startRegexps);
+        otherStartRegexps.removeAll(redeployedStartRegexps);
+        Map<String, CompletableFuture<String>> starts = new HashMap<String, CompletableFuture<String>>(
+                logWatcher.watch(otherStartRegexps));
+        starts.putAll(logWatcher.watch(redeployedStartRegexps, startLogOffset));
+        Map<String, CompletableFuture<String>> failures = logWatcher.watch(failRegexps, failureLogOffset);
+
+        Map<String, CompletableFuture<Object>> firstMessages = new LinkedHashMap<String, CompletableFuture<Object>>();
+        final Map<String, Long> elapsed = new ConcurrentHashMap<String, Long>();
+        for (int i = 0; i < names.size(); i++) {
+            final String name = names.get(i);
+            CompletableFuture<Object> firstMessage = CompletableFuture.anyOf(starts.get(startRegexps.get(i)),
+                    failures.get(failRegexps.get(i)));
+            firstMessage.thenRun(new Runnable() {
+                @Override
+                public void run() {
+                    elapsed.put(name, System.currentTimeMillis() - start);
+                }
+            });
+            firstMessages.put(name, firstMessage);
+        }
+
+        try {
+            CompletableFuture.allOf(firstMessages.values().toArray(new CompletableFuture[0])).get(timeout,
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // the applications without a message timed out
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            CompletableFuture<Object> firstMessage = firstMessages.get(name);
+            String line = firstMessage.isDone() && !firstMessage.isCompletedExceptionally()
+                    ? (String) firstMessage.getNow(null)
+                    : null;
+            Status status = Status.TIMED_OUT;
+            if (line != null) {
+                status = line.equals(starts.get(startRegexps.get(i)).getNow(null)) ? Status.STARTED : Status.FAILED;
+            }
+            Long time = elapsed.get(name);
+            results.add(new Result(name, status, line, time == null ? System.currentTimeMillis() - start : time));
+        }
+        return results;
+    }
+
+    /**
+     * @return a regular expression of the name that is not part of a longer name
+     */
+    private static String getNameRegexp(String name) {
+        return "(?<![\\w.-])" + Pattern.quote(name) + "(?![\\w-]|\\.\\w)";
+    }
+
+    /**
+     * @return the names of the applications that did not start
+     */
+    public static List<String> getNotStarted(List<Result> results) {
+        List<String> names = new ArrayList<String>();
+        for (Result result : results) {
+            if (result.getStatus() != Status.STARTED) {
+                names.add(result.getAppName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return a table of the status of every application, with the time it took
+     *         and the failure message of the applications that failed
+     */
+    public static List<String> formatTable(List<Result> results) {
+        int nameWidth = "Application".length();
+        for (Result result : results) {
+            nameWidth = Math.max(nameWidth, result.getAppName().length());
+        }
+        String format = "%-" + nameWidth + "s  %-9s  %8s  %s";
+        List<String> lines = new ArrayList<String>();
+        lines.add(String.format(format, "Application", "Status", "Time", "").trim());
+        for (Result result : results) {
+            String time = String.format(Locale.ROOT, "%.1f s", result.getElapsed() / 1000.0);
+            String detail = result.getStatus() == Status.FAILED ? result.getLine() : "";
+            lines.add(String.format(format, result.getAppName(), result.getStatus(), time, detail).trim());
+        }
+        return lines;
+    }
+
+    /**
+     * The start verification result of an application.
+     */
+    public static class Result {
+        private final String appName;
+        private final Status status;
+        private final String line;
+        private final long elapsed;
+
+        Result(String appName, Status status, String line, long elapsed) {
+            this.appName = appName;
+            this.status = status;
+            this.line = line;
+            this.elapsed = elapsed;
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the start or failure message, or null if the verification
+         *         timed out
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * @return the milliseconds from the start of the verification to the
+         *         message, or to the timeout
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Records the class files that the binary scanner last scanned for a module,
+ * together with the scanner inputs and the features it returned, so that the
+ * next generate-features run can tell which class files were added, and
+ * whether any class file was changed or removed.
+ *
+ * Class files are identified by content hash. The size and modification time
+ * are stored as well so that unchanged files do not have to be read again.
+ *
+ * Scans of only some class files, such as the ones dev mode runs after a
+ * compile, use the index as well: class files whose content was already
+ * scanned are skipped, and the scanned ones are recorded. As such a scan only
+ * adds features, a changed class file it records makes the next scan of all
+ * class files scan everything again.
+ */
+public class BinaryScannerIndex {
+
+    private static final String INPUTS_KEY = "inputs";
+    private static final String SCANNER_KEY = "scanner";
+    private static final String FEATURES_KEY = "features";
+    private static final String RESCAN_KEY = "rescan";
+    private static final String CLASS_PREFIX = "class:";
+
+    private final File indexFile;
+    private final Log log;
+    private final Properties previous = new Properties();
+    private final Map<String, String> current = new HashMap<String, String>();
+    private final List<String> added = new ArrayList<String>();
+    private boolean changedOrRemoved = false;
+
+    public BinaryScannerIndex(File indexFile, Log log) {
+        this.indexFile = indexFile;
+        this.log = log;
+        if (indexFile.isFile()) {
+            try (InputStream in = new FileInputStream(indexFile)) {
+                previous.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read the binary scanner index " + indexFile + ": " + e.getMessage());
+                previous.clear();
+            }
+        }
+    }
+
+    /**
+     * Compute the current state of the class files in the given directories and
+     * compare it to the state recorded by the last scan.
+     *
+     * @param directories the class directories that are scanned
+     * @throws IOException if a class file cannot be read
+     */
+    public void update(Collection<String> directories) throws IOException {
+        current.clear();
+        added.clear();
+        changedOrRemoved = false;
+        for (String dir : directories) {
+            Files.walkFileTree(new File(dir).toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
+                    if (path.getFileName().toString().endsWith(".class")) {
+                        addClassFile(path.toFile(), attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        changedOrRemoved |= Boolean.parseBoolean(previous.getProperty(RESCAN_KEY));
+        for (String key : previous.stringPropertyNames()) {
+            if (key.startsWith(CLASS_PREFIX) && !current.containsKey(key.substring(CLASS_PREFIX.length()))) {
+                changedOrRemoved = true;
+                break;
+            }
+        }
+        log.debug("Binary scanner index: " + current.size() + " class files, " + added.size() + " added"
+                + (changedOrRemoved ? ", some changed or removed" : ""));
+    }
+
+    private void addClassFile(File classFile, BasicFileAttributes attrs) throws IOException {
+        String path = classFile.getAbsolutePath();
+        String stamp = ":" + attrs.size() + ":" + attrs.lastModifiedTime().toMillis();
+        String entry = previous.getProperty(CLASS_PREFIX + path);
+        if (entry != null && entry.endsWith(stamp)) {
+            current.put(path, entry);
+            return;
+        }
+        String hash = ChecksumUtil.sha256(classFile);
+        current.put(path, hash + stamp);
+        if (entry == null) {
+            added.add(path);
+        } else if (!entry.startsWith(hash + ":")) {
+            changedOrRemoved = true;
+        }
+    }
+
+    /**
+     * Compare the given class files to the state recorded by the last scan, for
+     * a scan of only those class files.
+     *
+     * @param classFiles    the class files to scan
+     * @param scannerInputs a fingerprint of the scanner jar, the class
+     *                      directories and the EE and MP versions
+     * @return the class files that were added or changed since they were last
+     *         scanned, all of them if the last scan was done with another
+     *         scanner
+     * @throws IOException if a class file cannot be read
+     */
+    public List<String> getChangedClassFiles(Collection<String> classFiles, String scannerInputs) throws IOException {
+        current.clear();
+        added.clear();
+        changedOrRemoved = false;
+        if (!scannerInputs.equals(previous.getProperty(SCANNER_KEY))) {
+            previous.clear();
+            previous.setProperty(SCANNER_KEY, scannerInputs);
+        }
+        List<String> changed = new ArrayList<String>();
+        for (String classFile : classFiles) {
+            File file = new File(classFile);
+            String path = file.getAbsolutePath();
+            String stamp = ":" + file.length() + ":" + file.lastModified();
+            String entry = previous.getProperty(CLASS_PREFIX + path);
+            if (entry != null && entry.endsWith(stamp)) {
+                continue;
+            }
+            String hash = ChecksumUtil.sha256(file);
+            current.put(path, hash + stamp);
+            if (entry == null) {
+                added.add(path);
+                changed.add(classFile);
+            } else if (!entry.startsWith(hash + ":")) {
+                changedOrRemoved = true;
+                changed.add(classFile);
+            }
+        }
+        log.debug("Binary scanner index: " + classFiles.size() + " class files, " + changed.size()
+                + " added or changed");
+        return changed;
+    }
+
+    /**
+     * @param inputs a fingerprint of the other scanner inputs such as the
+     *               scanner jar, the EE and MP versions and the user features
+     * @return true if the last scan was done with the same inputs
+     */
+    public boolean hasSameInputs(String inputs) {
+        return inputs.equals(previous.getProperty(INPUTS_KEY));
+    }
+
+    /**
+     * @return the class files that were added since the last scan
+     */
+    public List<String> getAddedClassFiles() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * A changed or removed class file may have been the only class that needed
+     * one of the previous features, so the previous result cannot be built on.
+     *
+     * @return true if class files were changed or removed since the last scan
+     */
+    public boolean hasChangedOrRemovedClassFiles() {
+        return changedOrRemoved;
+    }
+
+    /**
+     * @return the features returned by the last scan
+     */
+    public Set<String> getFeatures() {
+        Set<String> features = new HashSet<String>();
+        String value = previous.getProperty(FEATURES_KEY);
+        if (value != null && !value.isEmpty()) {
+            Collections.addAll(features, value.split(","));
+        }
+        return features;
+    }
+
+    /**
+     * Record the current class files as scanned with the given inputs and result.
+     *
+     * @param inputs        a fingerprint of the other scanner inputs
+     * @param scannerInputs a fingerprint of the inputs other than the features
+     * @param features      the features returned by the scanner
+     * @throws IOException if the index cannot be written
+     */
+    public void save(String inputs, String scannerInputs, Set<String> features) throws IOException {
+        Properties index = new Properties();
+        index.setProperty(INPUTS_KEY, inputs);
+        index.setProperty(SCANNER_KEY, scannerInputs);
+        index.setProperty(FEATURES_KEY, join(features));
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            index.setProperty(CLASS_PREFIX + entry.getKey(), entry.getValue());
+        }
+        write(index);
+    }
+
+    /**
+     * Record the class files compared by {@link #getChangedClassFiles} as
+     * scanned, and add the features returned by their scan to the recorded
+     * ones. The entries of the other class files are kept.
+     *
+     * @param features the features returned by the scanner
+     * @throws IOException if the index cannot be written
+     */
+    public void saveClassFiles(Set<String> features) throws IOException {
+        Properties index = new Properties();
+        index.putAll(previous);
+        Set<String> allFeatures = getFeatures();
+        allFeatures.addAll(features);
+        index.setProperty(FEATURES_KEY, join(allFeatures));
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            index.setProperty(CLASS_PREFIX + entry.getKey(), entry.getValue());
+        }
+        if (changedOrRemoved) {
+            // the recorded features may hold ones that only the previous content needed
+            index.setProperty(RESCAN_KEY, "true");
+        }
+        write(index);
+    }
+
+    private void write(Properties index) throws IOException {
+        File parentDir = indexFile.getParentFile();
+        if (parentDir != null) {
+            parentDir.mkdirs();
+        }
+        try (OutputStream out = new FileOutputStream(indexFile)) {
+            index.store(out, "Generated by liberty-maven-plugin");
+        }
+        previous.clear();
+        previous.putAll(index);
+        added.clear();
+        changedOrRemoved = false;
+    }
+
+    private static String join(Set<String> features) {
+        StringBuilder sb = new StringBuilder();
+        for (String feature : new TreeSet<String>(features)) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(feature);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Delete the index so that the next run scans all class files.
+     */
+    public void invalidate() {
+        previous.clear();
+        if (indexFile.exists()) {
+            indexFile.delete();
+        }
+    }
+}
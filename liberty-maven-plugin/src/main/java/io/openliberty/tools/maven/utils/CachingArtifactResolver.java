@@ -0,0 +1,293 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+
+/**
+ * Resolves artifacts and version ranges through the repository system and
+ * remembers the results for the rest of the Maven session, so that the same
+ * coordinates are only resolved once no matter how many mojos or modules ask
+ * for them. Several artifacts can be resolved at once with bounded parallelism.
+ *
+ * The cache is kept in the {@link SessionData} of the repository session and is
+ * shared by every instance created for that session. Results are keyed by the
+ * full coordinates, including the classifier, and by the remote repositories
+ * they were resolved against, so the same coordinates from different
+ * repositories are resolved separately.
+ */
+public class CachingArtifactResolver {
+
+    // keyed by class so that different versions of the plugin in one build do not share the cache
+    private static final Object CACHE_KEY = Cache.class;
+
+    /**
+     * The same property Maven uses to limit parallel artifact downloads.
+     */
+    private static final String ARTIFACT_THREADS_PROPERTY = "maven.artifact.threads";
+    private static final int DEFAULT_ARTIFACT_THREADS = 5;
+
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession repoSession;
+    private final List<RemoteRepository> repositories;
+    private final String repositoriesKey;
+    private final Cache cache;
+
+    public CachingArtifactResolver(RepositorySystem repositorySystem, RepositorySystemSession repoSession,
+            List<RemoteRepository> repositories) {
+        this.repositorySystem = repositorySystem;
+        this.repoSession = repoSession;
+        this.repositories = repositories;
+        this.repositoriesKey = getRepositoriesKey(repositories);
+        this.cache = getCache(repoSession);
+    }
+
+    /**
+     * Resolve a single artifact, using the session cache if it was resolved
+     * before.
+     *
+     * @param artifact the artifact to resolve
+     * @return the resolution result
+     * @throws ArtifactResolutionException if the artifact could not be resolved
+     */
+    public ArtifactResult resolveArtifact(Artifact artifact) throws ArtifactResolutionException {
+        ArtifactRequest request = newRequest(artifact);
+        ArtifactResult cached = getCached(request);
+        if (cached != null) {
+            return cached;
+        }
+        return resolveAndCache(request);
+    }
+
+    /**
+     * Resolve several artifacts at once. Artifacts already in the session cache are
+     * returned immediately and the rest are resolved in parallel, limited by the
+     * maven.artifact.threads property.
+     *
+     * @param artifacts the artifacts to resolve
+     * @return the resolution results in the same order as the artifacts
+     * @throws ArtifactResolutionException if any artifact could not be resolved,
+     *                                     the exception holds the results of all
+     *                                     artifacts
+     */
+    public List<ArtifactResult> resolveArtifacts(Collection<? extends Artifact> artifacts) throws ArtifactResolutionException {
+        List<ArtifactResult> results = new ArrayList<ArtifactResult>(artifacts.size());
+        List<ArtifactRequest> pending = new ArrayList<ArtifactRequest>();
+        List<Integer> pendingIndexes = new ArrayList<Integer>();
+        for (Artifact artifact : artifacts) {
+            ArtifactRequest request = newRequest(artifact);
+            ArtifactResult cached = getCached(request);
+            if (cached == null) {
+                pending.add(request);
+                pendingIndexes.add(results.size());
+            }
+            results.add(cached);
+        }
+
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        boolean failed = false;
+        int threads = Math.min(getArtifactThreads(), pending.size());
+        if (threads <= 1) {
+            for (int i = 0; i < pending.size(); i++) {
+                ArtifactResult result = resolveQuietly(pending.get(i));
+                failed |= !result.isResolved();
+                results.set(pendingIndexes.get(i), result);
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<ArtifactResult>> futures = new ArrayList<Future<ArtifactResult>>(pending.size());
+                for (final ArtifactRequest request : pending) {
+                    futures.add(executor.submit(new Callable<ArtifactResult>() {
+                        @Override
+                        public ArtifactResult call() {
+                            return resolveQuietly(request);
+                        }
+                    }));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    ArtifactResult result = getResult(futures.get(i), pending.get(i));
+                    failed |= !result.isResolved();
+                    results.set(pendingIndexes.get(i), result);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        if (failed) {
+            throw new ArtifactResolutionException(results);
+        }
+        return results;
+    }
+
+    /**
+     * Resolve a version range, using the session cache if the same range was
+     * resolved before against the same repositories.
+     *
+     * @param artifact the artifact whose version is a range
+     * @return the version range result
+     * @throws VersionRangeResolutionException if the range could not be resolved
+     */
+    public VersionRangeResult resolveVersionRange(Artifact artifact) throws VersionRangeResolutionException {
+        String key = getKey(artifact);
+        VersionRangeResult cached = cache.versionRanges.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        VersionRangeRequest rangeRequest = new VersionRangeRequest();
+        rangeRequest.setArtifact(artifact);
+        rangeRequest.setRepositories(repositories);
+        VersionRangeResult rangeResult = repositorySystem.resolveVersionRange(repoSession, rangeRequest);
+        if (rangeResult != null && rangeResult.getHighestVersion() != null) {
+            cache.versionRanges.put(key, rangeResult);
+        }
+        return rangeResult;
+    }
+
+    private ArtifactRequest newRequest(Artifact artifact) {
+        return new ArtifactRequest().setRepositories(repositories).setArtifact(artifact);
+    }
+
+    private ArtifactResult getCached(ArtifactRequest request) {
+        String key = getKey(request.getArtifact());
+        Artifact resolved = cache.artifacts.get(key);
+        if (resolved == null) {
+            return null;
+        }
+        File file = resolved.getFile();
+        if (file == null || !file.exists()) {
+            // removed from the local repository since, resolve it again
+            cache.artifacts.remove(key, resolved);
+            return null;
+        }
+        return new ArtifactResult(request).setArtifact(resolved);
+    }
+
+    private ArtifactResult resolveAndCache(ArtifactRequest request) throws ArtifactResolutionException {
+        ArtifactResult result = repositorySystem.resolveArtifact(repoSession, request);
+        if (result != null && result.isResolved()) {
+            cache.artifacts.put(getKey(request.getArtifact()), result.getArtifact());
+        }
+        return result;
+    }
+
+    String getKey(Artifact artifact) {
+        return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getExtension() + ':'
+                + artifact.getClassifier() + ':' + artifact.getVersion() + '|' + repositoriesKey;
+    }
+
+    private static String getRepositoriesKey(List<RemoteRepository> repositories) {
+        StringBuilder sb = new StringBuilder();
+        if (repositories != null) {
+            for (RemoteRepository repository : repositories) {
+                sb.append(repository.getId()).append('=').append(repository.getUrl()).append(',');
+            }
+        }
+        return sb.toString();
+    }
+
+    private ArtifactResult resolveQuietly(ArtifactRequest request) {
+        try {
+            return resolveAndCache(request);
+        } catch (ArtifactResolutionException e) {
+            if (!e.getResults().isEmpty()) {
+                return e.getResult();
+            }
+            ArtifactResult result = new ArtifactResult(request);
+            result.addException(e);
+            return result;
+        } catch (RuntimeException e) {
+            ArtifactResult result = new ArtifactResult(request);
+            result.addException(e);
+            return result;
+        }
+    }
+
+    private static ArtifactResult getResult(Future<ArtifactResult> future, ArtifactRequest request) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ArtifactResult result = new ArtifactResult(request);
+            result.addException(e);
+            return result;
+        } catch (ExecutionException e) {
+            ArtifactResult result = new ArtifactResult(request);
+            result.addException(e);
+            return result;
+        }
+    }
+
+    private int getArtifactThreads() {
+        Object value = repoSession.getConfigProperties().get(ARTIFACT_THREADS_PROPERTY);
+        if (value == null) {
+            value = repoSession.getUserProperties().get(ARTIFACT_THREADS_PROPERTY);
+        }
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value.toString().trim()));
+            } catch (NumberFormatException e) {
+                // use the default
+            }
+        }
+        return DEFAULT_ARTIFACT_THREADS;
+    }
+
+    private static Cache getCache(RepositorySystemSession repoSession) {
+        SessionData data = repoSession.getData();
+        Cache cache = (Cache) data.get(CACHE_KEY);
+        while (cache == null) {
+            Cache newCache = new Cache();
+            if (data.set(CACHE_KEY, null, newCache)) {
+                cache = newCache;
+            } else {
+                cache = (Cache) data.get(CACHE_KEY);
+            }
+        }
+        return cache;
+    }
+
+    private static class Cache {
+        private final ConcurrentMap<String, Artifact> artifacts = new ConcurrentHashMap<String, Artifact>();
+        private final ConcurrentMap<String, VersionRangeResult> versionRanges = new ConcurrentHashMap<String, VersionRangeResult>();
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Collects the work that file changes cause into batches and runs each batch
+ * once the changes stop.
+ *
+ * Work is scheduled under a key, and work scheduled again under the same key
+ * before the batch runs replaces the earlier work, so a hundred changed
+ * resources run the resources goal once. When a batch runs, its work runs in
+ * the order of the phases it was scheduled with.
+ *
+ * The time to wait for more changes adapts to how fast changes arrive. It
+ * starts at the minimum and grows up to the maximum while changes keep coming
+ * at longer intervals, as they do during a checkout or a code generator run.
+ * A batch never waits longer than the maximum after its first change.
+ *
+ * Batches run on their own thread while holding a lock that the caller shares
+ * with the other threads that run goals or change the project, so a batch never
+ * runs at the same time as them.
+ */
+public class ChangeScheduler {
+
+    private static final double RATE_WEIGHT = 0.3;
+
+    private final long minQuietMillis;
+    private final long maxQuietMillis;
+    private final Object lock;
+    private final Log log;
+    private final ScheduledExecutorService executor;
+
+    private final Map<String, Work> pending = new LinkedHashMap<String, Work>();
+    private ScheduledFuture<?> dispatch;
+    private long firstChange;
+    private long lastChange;
+    private double averageInterval;
+    private int changes;
+
+    /**
+     * @param minQuietMillis the time without changes after which a batch runs
+     * @param maxQuietMillis the longest time to wait for changes to stop
+     * @param lock           the lock to hold while a batch runs
+     * @param log            the log
+     */
+    public ChangeScheduler(long minQuietMillis, long maxQuietMillis, Object lock, Log log) {
+        this.minQuietMillis = minQuietMillis;
+        this.maxQuietMillis = Math.max(minQuietMillis, maxQuietMillis);
+        this.lock = lock;
+        this.log = log;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "liberty-dev-change-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Schedule work for the current batch.
+     *
+     * @param phase the order of the work within the batch, lower phases run first
+     * @param key   identifies the work, work with the same key runs once per batch
+     * @param work  the work
+     */
+    public synchronized void schedule(int phase, String key, Runnable work) {
+        long now = System.currentTimeMillis();
+        if (pending.isEmpty()) {
+            firstChange = now;
+            changes = 0;
+        } else {
+            long interval = now - lastChange;
+            averageInterval = changes == 1 ? interval
+                    : (1 - RATE_WEIGHT) * averageInterval + RATE_WEIGHT * interval;
+        }
+        lastChange = now;
+        changes++;
+        pending.put(key, new Work(phase, key, work));
+
+        if (dispatch != null) {
+            dispatch.cancel(false);
+        }
+        long delay = Math.min(getQuietMillis(), firstChange + maxQuietMillis - now);
+        dispatch = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runBatch();
+            }
+        }, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the time to wait for more changes, twice the average interval
+     *         between the changes of the current batch within the bounds
+     */
+    synchronized long getQuietMillis() {
+        long quiet = (long) (2 * averageInterval);
+        return Math.max(minQuietMillis, Math.min(maxQuietMillis, quiet));
+    }
+
+    /**
+     * Run the work of the current batch now on the calling thread, without
+     * waiting for the changes to stop. Waits for a batch that is running.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (dispatch != null) {
+                dispatch.cancel(false);
+            }
+        }
+        runBatch();
+    }
+
+    /**
+     * Stop the scheduler. Work that has not run yet is dropped, so call
+     * {@link #flush()} first to run it.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runBatch() {
+        synchronized (lock) {
+            List<Work> batch;
+            int batchChanges;
+            synchronized (this) {
+                batch = new ArrayList<Work>(pending.values());
+                batchChanges = changes;
+                pending.clear();
+                dispatch = null;
+                averageInterval = 0;
+            }
+            if (!batch.isEmpty()) {
+                runBatch(batch, batchChanges);
+            }
+        }
+    }
+
+    private void runBatch(List<Work> batch, int batchChanges) {
+        Collections.sort(batch, new Comparator<Work>() {
+            @Override
+            public int compare(Work a, Work b) {
+                return Integer.compare(a.phase, b.phase);
+            }
+        });
+        if (log.isDebugEnabled()) {
+            log.debug("Running " + batch.size() + " tasks for " + batchChanges + " changes");
+        }
+        for (Work work : batch) {
+            try {
+                work.work.run();
+            } catch (RuntimeException e) {
+                log.error("Failed to process changes for " + work.key, e);
+            }
+        }
+    }
+
+    private static class Work {
+        private final int phase;
+        private final String key;
+        private final Runnable work;
+
+        private Work(int phase, String key, Runnable work) {
+            this.phase = phase;
+            this.key = key;
+            this.work = work;
+        }
+    }
+}
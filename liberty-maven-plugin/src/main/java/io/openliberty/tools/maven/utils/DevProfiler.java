@@ -0,0 +1,389 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Records the wall time and I/O volume of the phases of dev mode, such as
+ * compilation, resource processing, deployment, server restarts and tests.
+ *
+ * Phases are grouped into change cycles: a cycle starts with the first phase
+ * that starts while no phase runs, and ends once no phase has run for
+ * {@link #CYCLE_IDLE_MILLIS}. At the end of each cycle a one line summary is
+ * logged, and the trace and the rolling summary files are rewritten:
+ * <ul>
+ * <li>the trace file holds the phases in the Chrome trace event format, which
+ * chrome://tracing and Perfetto can open</li>
+ * <li>the summary file holds the run count, total, mean and longest time and
+ * I/O volume of each phase over the last {@link #ROLLING_CYCLES} cycles</li>
+ * </ul>
+ *
+ * The I/O volume is the number of bytes the Maven process read and wrote while
+ * a phase ran, as reported by the operating system, so it includes the I/O of
+ * phases that run at the same time. It is not recorded on systems that do not
+ * report it, and does not include the I/O of the server process.
+ */
+public class DevProfiler {
+
+    public static final long CYCLE_IDLE_MILLIS = 1000;
+    public static final int ROLLING_CYCLES = 20;
+
+    /** a profiler that records nothing */
+    public static final DevProfiler DISABLED = new DevProfiler();
+
+    private static final int MAX_TRACE_EVENTS = 20000;
+    private static final File PROCESS_IO = new File("/proc/self/io");
+    private static final Span NO_SPAN = new Span(null, null, 0, 0, 0, 0);
+
+    private final boolean enabled;
+    private final File traceFile;
+    private final File summaryFile;
+    private final Log log;
+    private final long origin = System.nanoTime();
+    private final ScheduledExecutorService executor;
+    private final Deque<String> traceEvents = new ArrayDeque<String>();
+    private final Deque<Map<String, PhaseStats>> cycles = new ArrayDeque<Map<String, PhaseStats>>();
+    private Map<String, PhaseStats> cyclePhases = new LinkedHashMap<String, PhaseStats>();
+    private ScheduledFuture<?> cycleEnd;
+    private int activeSpans;
+    private int cycleCount;
+    private long cycleStart;
+    private long cycleLastEnd;
+
+    private DevProfiler() {
+        this.enabled = false;
+        this.traceFile = null;
+        this.summaryFile = null;
+        this.log = null;
+        this.executor = null;
+    }
+
+    /**
+     * @param traceFile   the Chrome trace file to write
+     * @param summaryFile the rolling summary file to write
+     * @param log         the log
+     */
+    public DevProfiler(File traceFile, File summaryFile, Log log) {
+        this.enabled = true;
+        this.traceFile = traceFile;
+        this.summaryFile = summaryFile;
+        this.log = log;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "liberty-dev-profiler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Start timing a phase. The returned span has to be ended, usually in a
+     * finally block.
+     *
+     * @param phase the name of the phase, such as compile or deploy
+     * @return the span of the phase
+     */
+    public Span start(String phase) {
+        if (!enabled) {
+            return NO_SPAN;
+        }
+        synchronized (this) {
+            if (cycleEnd != null) {
+                cycleEnd.cancel(false);
+                cycleEnd = null;
+            }
+            if (activeSpans++ == 0 && cyclePhases.isEmpty()) {
+                cycleCount++;
+                cycleStart = now();
+            }
+        }
+        long[] io = readProcessIo();
+        return new Span(this, phase, now(), Thread.currentThread().getId(), io[0], io[1]);
+    }
+
+    /**
+     * Write the files for the current cycle and log the rolling summary.
+     */
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        executor.shutdownNow();
+        synchronized (this) {
+            endCycle();
+            if (!cycles.isEmpty()) {
+                log.info(getRollingSummary());
+            }
+        }
+    }
+
+    private void end(Span span) {
+        long end = now();
+        long[] io = readProcessIo();
+        long read = io[0] < 0 ? -1 : io[0] - span.read;
+        long written = io[1] < 0 ? -1 : io[1] - span.written;
+        synchronized (this) {
+            PhaseStats stats = cyclePhases.get(span.phase);
+            if (stats == null) {
+                stats = new PhaseStats();
+                cyclePhases.put(span.phase, stats);
+            }
+            stats.add(end - span.start, read, written);
+            cycleLastEnd = Math.max(cycleLastEnd, end);
+            addTraceEvent(span.phase, "phase", span.start, end - span.start, span.threadId,
+                    "\"cycle\":" + cycleCount + (read < 0 ? "" : ",\"readBytes\":" + read + ",\"writtenBytes\":" + written));
+            if (--activeSpans == 0 && !executor.isShutdown()) {
+                cycleEnd = executor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (DevProfiler.this) {
+                            if (activeSpans == 0) {
+                                endCycle();
+                            }
+                        }
+                    }
+                }, CYCLE_IDLE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void endCycle() {
+        if (cyclePhases.isEmpty()) {
+            return;
+        }
+        long duration = cycleLastEnd - cycleStart;
+        addTraceEvent("cycle " + cycleCount, "cycle", cycleStart, duration, 0, "\"cycle\":" + cycleCount);
+
+        StringBuilder summary = new StringBuilder("Dev mode cycle " + cycleCount + " took " + formatMicros(duration));
+        String separator = ": ";
+        for (Map.Entry<String, PhaseStats> entry : sortByTotal(cyclePhases)) {
+            PhaseStats stats = entry.getValue();
+            summary.append(separator).append(entry.getKey()).append(' ').append(formatMicros(stats.total));
+            if (stats.read >= 0) {
+                summary.append(" (read ").append(formatBytes(stats.read)).append(", written ")
+                        .append(formatBytes(stats.written)).append(')');
+            }
+            separator = ", ";
+        }
+        log.info(summary.toString());
+
+        cycles.addLast(cyclePhases);
+        if (cycles.size() > ROLLING_CYCLES) {
+            cycles.removeFirst();
+        }
+        cyclePhases = new LinkedHashMap<String, PhaseStats>();
+        try {
+            writeTrace();
+            write(summaryFile, getRollingSummary());
+        } catch (IOException e) {
+            log.debug("Could not write the dev mode profile: " + e.getMessage());
+        }
+    }
+
+    private void addTraceEvent(String name, String category, long start, long duration, long threadId, String args) {
+        traceEvents.addLast("{\"name\":\"" + escape(name) + "\",\"cat\":\"" + category + "\",\"ph\":\"X\",\"ts\":"
+                + start + ",\"dur\":" + duration + ",\"pid\":1,\"tid\":" + threadId + ",\"args\":{" + args + "}}");
+        if (traceEvents.size() > MAX_TRACE_EVENTS) {
+            traceEvents.removeFirst();
+        }
+    }
+
+    private void writeTrace() throws IOException {
+        StringBuilder trace = new StringBuilder("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        String separator = "";
+        for (String event : traceEvents) {
+            trace.append(separator).append(event);
+            separator = ",\n";
+        }
+        write(traceFile, trace.append("\n]}\n").toString());
+    }
+
+    private String getRollingSummary() {
+        Map<String, PhaseStats> rolling = new LinkedHashMap<String, PhaseStats>();
+        for (Map<String, PhaseStats> cycle : cycles) {
+            for (Map.Entry<String, PhaseStats> entry : cycle.entrySet()) {
+                PhaseStats stats = rolling.get(entry.getKey());
+                if (stats == null) {
+                    stats = new PhaseStats();
+                    rolling.put(entry.getKey(), stats);
+                }
+                stats.merge(entry.getValue());
+            }
+        }
+        StringBuilder summary = new StringBuilder();
+        summary.append("Dev mode phases over the last ").append(cycles.size()).append(" cycles:\n");
+        summary.append(String.format(Locale.ROOT, "%-40s %6s %10s %10s %10s %10s %10s%n", "Phase", "Runs", "Total",
+                "Mean", "Max", "Read", "Written"));
+        for (Map.Entry<String, PhaseStats> entry : sortByTotal(rolling)) {
+            PhaseStats stats = entry.getValue();
+            summary.append(String.format(Locale.ROOT, "%-40s %6d %10s %10s %10s %10s %10s%n", entry.getKey(),
+                    stats.count, formatMicros(stats.total), formatMicros(stats.total / stats.count),
+                    formatMicros(stats.max), stats.read < 0 ? "-" : formatBytes(stats.read),
+                    stats.read < 0 ? "-" : formatBytes(stats.written)));
+        }
+        return summary.toString();
+    }
+
+    private static List<Map.Entry<String, PhaseStats>> sortByTotal(Map<String, PhaseStats> phases) {
+        List<Map.Entry<String, PhaseStats>> entries = new ArrayList<Map.Entry<String, PhaseStats>>(phases.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, PhaseStats>>() {
+            @Override
+            public int compare(Map.Entry<String, PhaseStats> a, Map.Entry<String, PhaseStats> b) {
+                return Long.compare(b.getValue().total, a.getValue().total);
+            }
+        });
+        return entries;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the bytes read and written by the process so far, or -1 if the
+     *         operating system does not report them
+     */
+    private static long[] readProcessIo() {
+        long[] io = new long[] { -1, -1 };
+        if (!PROCESS_IO.canRead()) {
+            return io;
+        }
+        try {
+            for (String line : Files.readAllLines(PROCESS_IO.toPath(), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("rchar:")) {
+                    io[0] = Long.parseLong(line.substring("rchar:".length()).trim());
+                } else if (line.startsWith("wchar:")) {
+                    io[1] = Long.parseLong(line.substring("wchar:".length()).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return new long[] { -1, -1 };
+        }
+        return io[0] < 0 || io[1] < 0 ? new long[] { -1, -1 } : io;
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - origin);
+    }
+
+    private static String formatMicros(long micros) {
+        return micros < 1000000 ? (micros / 1000) + " ms"
+                : String.format(Locale.ROOT, "%.2f s", micros / 1000000.0);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        return bytes < 1024 * 1024 ? String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0)
+                : String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * A running phase.
+     */
+    public static class Span {
+        private final DevProfiler profiler;
+        private final String phase;
+        private final long start;
+        private final long threadId;
+        private final long read;
+        private final long written;
+        private boolean ended;
+
+        private Span(DevProfiler profiler, String phase, long start, long threadId, long read, long written) {
+            this.profiler = profiler;
+            this.phase = phase;
+            this.start = start;
+            this.threadId = threadId;
+            this.read = read;
+            this.written = written;
+        }
+
+        /**
+         * End the phase. Ending it again has no effect.
+         */
+        public void end() {
+            if (profiler != null && !ended) {
+                ended = true;
+                profiler.end(this);
+            }
+        }
+    }
+
+    private static class PhaseStats {
+        private int count;
+        private long total;
+        private long max;
+        private long read;
+        private long written;
+
+        private void add(long duration, long read, long written) {
+            count++;
+            total += duration;
+            max = Math.max(max, duration);
+            if (read < 0 || (count > 1 && this.read < 0)) {
+                this.read = -1;
+                this.written = -1;
+            } else {
+                this.read += read;
+                this.written += written;
+            }
+        }
+
+        private void merge(PhaseStats other) {
+            boolean noIo = other.read < 0 || (count > 0 && read < 0);
+            count += other.count;
+            total += other.total;
+            max = Math.max(max, other.max);
+            read = noIo ? -1 : read + other.read;
+            written = noIo ? -1 : written + other.written;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /**
- * (C) Copyright IBM Corporation 2019, 2023.
+ * (C) Copyright IBM Corporation 2019, 2024.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,8 +23,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
@@ -35,7 +38,7 @@ import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
 public class ExecuteMojoUtil {
 
     // https://maven.apache.org/plugins/maven-compiler-plugin/compile-mojo.html
-    private static final ArrayList<String> COMPILE_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> COMPILE_PARAMS = new HashSet<>(Arrays.asList(
             "annotationProcessorPaths", "annotationProcessors", "compilerArgs", "compilerArgument",
             "compilerArguments", "compilerId", "compilerReuseStrategy", "compilerVersion", "debug",
             "debuglevel", "encoding", "excludes", "executable", "failOnError", "failOnWarning",
@@ -47,7 +50,7 @@ public class ExecuteMojoUtil {
     ));
 
     // https://maven.apache.org/plugins/maven-compiler-plugin/testCompile-mojo.html
-    private static final ArrayList<String> TEST_COMPILE_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> TEST_COMPILE_PARAMS = new HashSet<>(Arrays.asList(
             "annotationProcessorPaths", "annotationProcessors", "compilerArgs", "compilerArgument",
             "compilerArguments", "compilerId", "compilerReuseStrategy", "compilerVersion", "debug",
             "debuglevel", "encoding", "executable", "failOnError", "failOnWarning", 
@@ -60,7 +63,7 @@ public class ExecuteMojoUtil {
     ));
 
     // https://maven.apache.org/plugins/maven-resources-plugin/resources-mojo.html
-    private static final ArrayList<String> RESOURCES_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> RESOURCES_PARAMS = new HashSet<>(Arrays.asList(
             "outputDirectory", "resources", "addDefaultExcludes", "delimiters", "encoding", "escapeString",
             "escapeWindowsPaths", "fileNameFiltering", "filters", "includeEmptyDirs", 
             "mavenFilteringHints", "nonFilteredFileExtensions", "overwrite", "skip",
@@ -68,7 +71,7 @@ public class ExecuteMojoUtil {
     ));
 
     // https://maven.apache.org/plugins/maven-resources-plugin/testResources-mojo.html
-    private static final ArrayList<String> TEST_RESOURCES_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> TEST_RESOURCES_PARAMS = new HashSet<>(Arrays.asList(
             "outputDirectory", "resources", "addDefaultExcludes", "delimiters", "encoding",
             "escapeString", "escapeWindowsPaths", "fileNameFiltering", "filters",
             "includeEmptyDirs", "mavenFilteringHints", "nonFilteredFileExtensions",
@@ -77,7 +80,7 @@ public class ExecuteMojoUtil {
     ));
 
     // https://maven.apache.org/surefire/maven-surefire-plugin/test-mojo.html
-    private static final ArrayList<String> TEST_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> TEST_PARAMS = new HashSet<>(Arrays.asList(
             "testSourceDirectory", "additionalClasspathElements", "argLine", "basedir",
             "childDelegation", "classesDirectory", "classpathDependencyExcludes", 
             "classpathDependencyScopeExclude", "debugForkedProcess", "dependenciesToScan",
@@ -100,7 +103,7 @@ public class ExecuteMojoUtil {
     ));
 
     // https://maven.apache.org/surefire/maven-failsafe-plugin/integration-test-mojo.html
-    private static final ArrayList<String> INTEGRATION_TEST_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> INTEGRATION_TEST_PARAMS = new HashSet<>(Arrays.asList(
             "summaryFile", "testSourceDirectory", "additionalClasspathElements", "argLine",
             "basedir", "childDelegation", "classesDirectory", "classpathDependencyExcludes",
             "classpathDependencyScopeExclude", "debugForkedProcess", "dependenciesToScan",
@@ -122,25 +125,25 @@ public class ExecuteMojoUtil {
     ));
 
     // https://maven.apache.org/surefire/maven-failsafe-plugin/verify-mojo.html
-    private static final ArrayList<String> VERIFY_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> VERIFY_PARAMS = new HashSet<>(Arrays.asList(
             "summaryFile", "basedir", "encoding", "failIfNoTests", "reportsDirectory",
             "skip", "skipExec", "skipITs", "skipTests", "summaryFiles", 
             "testClassesDirectory", "testFailureIgnore"
     ));
 
     // https://maven.apache.org/surefire/maven-surefire-report-plugin/report-only-mojo.html
-    private static final ArrayList<String> REPORT_ONLY_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> REPORT_ONLY_PARAMS = new HashSet<>(Arrays.asList(
             "outputName", "showSuccess", "aggregate", "alwaysGenerateSurefireReport",
             "description", "linkXRef", "reportsDirectories", "reportsDirectory",
             "skipSurefireReport", "title", "xrefLocation"
     ));
 
     // https://maven.apache.org/surefire/maven-surefire-report-plugin/failsafe-report-only-mojo.html
-    private static final ArrayList<String> FAILSAFE_REPORT_ONLY_PARAMS = REPORT_ONLY_PARAMS;
+    private static final Set<String> FAILSAFE_REPORT_ONLY_PARAMS = REPORT_ONLY_PARAMS;
     
     // https://maven.apache.org/plugins/maven-war-plugin/exploded-mojo.html
     //  as of Version: 3.4.1-SNAPSHOT, 2023-06-11
-    private static final ArrayList<String> EXPLODED_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> EXPLODED_PARAMS = new HashSet<>(Arrays.asList(
             // Required
             "warSourceDirectory", "webappDirectory", "workDirectory", 
             // Optional - skip archive* options which may not make sense with our loose app approach
@@ -153,7 +156,7 @@ public class ExecuteMojoUtil {
             ));
 
     // https://maven.apache.org/plugins/maven-ear-plugin/ear-mojo.html
-    private static final ArrayList<String> EAR_PARAMS = new ArrayList<>(
+    private static final Set<String> EAR_PARAMS = new HashSet<>(
             Arrays.asList("earSourceDirectory", "outputDirectory", "outputFileNameMapping", "tempFolder", "workDirectory",
                     "applicationXml", "archive", "artifactTypeMappings", "classifier", "defaultLibBundleDir", "earSourceExcludes",
                     "earSourceIncludes", "encoding", "escapeString", "escapedBackslashesInFilePath",
@@ -163,25 +166,25 @@ public class ExecuteMojoUtil {
                     "useBaseVersion", "useJvmChmod", "version"));
 
     // https://maven.apache.org/plugins/maven-jar-plugin/jar-mojo.html
-    private static final ArrayList<String> JAR_PARAMS = new ArrayList<>(
+    private static final Set<String> JAR_PARAMS = new HashSet<>(
             Arrays.asList("classesDirectory", "outputDirectory", "archive", "classifier", "excludes", "forceCreation",
                     "includes", "outputTimestamp", "skipIfEmpty", "useDefaultManifestFile"));
     
     // https://maven.apache.org/plugins/maven-ejb-plugin/ejb-mojo.html
-    private static final ArrayList<String> EJB_PARAMS = new ArrayList<>(
+    private static final Set<String> EJB_PARAMS = new HashSet<>(
             Arrays.asList("sourceDirectory", "archive", "classifier", "clientClassifier", "clientExcludes",
                     "clientIncludes", "ejbJar", "ejbVersion", "escapeBackslashesInFilePath", "escapeString", "excludes",
                     "filterDeploymentDescriptor", "filters", "generateClient", "outputTimestamp"));
 
     // https://felix.apache.org/documentation/_attachments/components/bundle-plugin/bundle-mojo.html
-    private static final ArrayList<String> BUNDLE_PARAMS = new ArrayList<>(
+    private static final Set<String> BUNDLE_PARAMS = new HashSet<>(
             Arrays.asList("archive", "buildDirectory", "classifier", "createDependencyReducedPom", "dependencyReducedPomLocation",
                     "dumpClasspath", "dumpInstructions", "excludeDependencies", "exportScr", "finalName", "instructions",
                     "manifestLocation", "niceManifest", "noWarningProjectTypes", "outputDirectory", "packaging", "scrLocation",
                     "supportedProjectTypes", "unpackbundle"));
 
     // https://maven.apache.org/plugins/maven-war-plugin/war-mojo.html
-    private static final ArrayList<String> WAR_PARAMS = new ArrayList<>(Arrays.asList("outputDirectory",
+    private static final Set<String> WAR_PARAMS = new HashSet<>(Arrays.asList("outputDirectory",
             "warSourceDirectory", "webappDirectory", "workDirectory", "archive", "archiveClasses", "attachClasses",
             "classesClassifier", "classifier", "containerConfigXML", "delimiters", "dependentWarExcludes",
             "dependentWarIncludes", "escapeString", "escapedBackslashesInFilePath", "failOnMissingWebXml",
@@ -192,7 +195,7 @@ public class ExecuteMojoUtil {
             "warSourceIncludes", "webResources", "webXml"));
 
     // https://maven.apache.org/plugins/maven-ear-plugin/generate-application-xml-mojo.html
-    private static final ArrayList<String> EAR_GENERATE_APPLICATION_XML_PARAMS = new ArrayList<>(
+    private static final Set<String> EAR_GENERATE_APPLICATION_XML_PARAMS = new HashSet<>(
             Arrays.asList("outputFileNameMapping", "tempFolder", "workDirectory", "applicationId", "applicationName",
                     "artifactTypeMappings", "defaultLibBundleDir", "description", "displayName", "ejbRefs", "encoding",
                     "envEntries", "fileNameMapping", "generateApplicationXml", "generateModuleId",
@@ -200,7 +203,7 @@ public class ExecuteMojoUtil {
                     "libraryDirectoryMode", "mainArtifactId", "modules", "resourceRefs", "security", "useBaseVersion",
                     "version"));
 
-    private static final ArrayList<String> LIBERTY_COMMON_PARAMS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> LIBERTY_COMMON_PARAMS = new HashSet<>(Arrays.asList(
             "installDirectory", "assemblyArchive", "assemblyArtifact", "libertyRuntimeVersion",
             "install", "licenseArtifact", "serverName", "userDirectory", "outputDirectory",
             "assemblyInstallDirectory", "refresh", "skip", "serverXmlFile", "configDirectory", 
@@ -209,22 +212,22 @@ public class ExecuteMojoUtil {
     // "runtimeArchive", "runtimeArtifact", "runtimeInstallDirectory" "configFile" "serverEnv"
     ));
 
-    private static final ArrayList<String> LIBERTY_COMMON_SERVER_PARAMS = new ArrayList<>(
+    private static final Set<String> LIBERTY_COMMON_SERVER_PARAMS = new HashSet<>(
             Arrays.asList("copyDependencies", "bootstrapProperties", "bootstrapPropertiesFile", "jvmOptions", "jvmOptionsFile"
             ));
     
-    private static final ArrayList<String> CREATE_PARAMS;
+    private static final Set<String> CREATE_PARAMS;
     static {
-        CREATE_PARAMS = new ArrayList<>(Arrays.asList(
+        CREATE_PARAMS = new HashSet<>(Arrays.asList(
                 "template", "libertySettingsFolder", "noPassword"
                 ));
         CREATE_PARAMS.addAll(LIBERTY_COMMON_PARAMS);
         CREATE_PARAMS.addAll(LIBERTY_COMMON_SERVER_PARAMS);
     }
     
-    private static final ArrayList<String> DEPLOY_PARAMS;
+    private static final Set<String> DEPLOY_PARAMS;
     static {
-        DEPLOY_PARAMS = new ArrayList<>(Arrays.asList(
+        DEPLOY_PARAMS = new HashSet<>(Arrays.asList(
                 "appsDirectory", "stripVersion", "deployPackages", "timeout", "looseApplication",
                 "copyLibsDirectory"
                 // executeMojo can not use alias parameters:
@@ -234,13 +237,13 @@ public class ExecuteMojoUtil {
         DEPLOY_PARAMS.addAll(LIBERTY_COMMON_SERVER_PARAMS);
     }
     
-    private static final ArrayList<String> INSTALL_FEATURE_PARAMS;
+    private static final Set<String> INSTALL_FEATURE_PARAMS;
     static {
-        INSTALL_FEATURE_PARAMS = new ArrayList<>(Arrays.asList("features"));
+        INSTALL_FEATURE_PARAMS = new HashSet<>(Arrays.asList("features"));
         INSTALL_FEATURE_PARAMS.addAll(LIBERTY_COMMON_PARAMS);
     }
 
-    private static final ArrayList<String> GENERATE_FEATURES_PARAMS;
+    private static final Set<String> GENERATE_FEATURES_PARAMS;
     static {
         GENERATE_FEATURES_PARAMS = LIBERTY_COMMON_PARAMS;
     }
@@ -257,6 +260,19 @@ public class ExecuteMojoUtil {
         LIBERTY_ALIAS_MAP = Collections.unmodifiableMap(tempMap);
     }
 
+    private static final int GOAL_CONFIG_CACHE_SIZE = 64;
+
+    // validated goal configurations keyed by plugin, goal, execution and a hash of the source configuration
+    private static final Map<String, Xpp3Dom> GOAL_CONFIG_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, Xpp3Dom>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Xpp3Dom> eldest) {
+                    return size() > GOAL_CONFIG_CACHE_SIZE;
+                }
+            });
+
     /**
      * Given the Plugin get the goal execution configuration.
      *
@@ -293,14 +309,23 @@ public class ExecuteMojoUtil {
                     + " goal has multiple execution configurations (default to \"" + execId + "\" execution)");
         }
         
-        if (config == null) {
-            config = configuration();
-        } else {
-            config = Xpp3Dom.mergeXpp3Dom(configuration(), config);
-            config = validateConfiguration(plugin, goal, config, log);
+        String key = plugin.getKey() + ":" + plugin.getVersion() + ":" + goal + ":" + execId + ":"
+                + (config == null ? "" : ChecksumUtil.sha256(config.toString()));
+        Xpp3Dom goalConfig = GOAL_CONFIG_CACHE.get(key);
+        if (goalConfig == null) {
+            if (config == null) {
+                goalConfig = configuration();
+            } else {
+                goalConfig = Xpp3Dom.mergeXpp3Dom(configuration(), config);
+                goalConfig = validateConfiguration(plugin, goal, goalConfig, log);
+            }
+            GOAL_CONFIG_CACHE.put(key, goalConfig);
         }
-        log.debug(plugin.getArtifactId() + ":" + goal + " configuration\n" + config);
-        return config;
+        if (log.isDebugEnabled()) {
+            log.debug(plugin.getArtifactId() + ":" + goal + " configuration\n" + goalConfig);
+        }
+        // callers add to the configuration, so never hand out the cached instance
+        return new Xpp3Dom(goalConfig);
     }
     
     private static Xpp3Dom validateConfiguration(Plugin plugin, String goal, Xpp3Dom config, Log log) {
@@ -410,7 +435,7 @@ public class ExecuteMojoUtil {
      * @param goalParams the config elements to keep
      * @return config with non applicable elements removed
      */
-    private static Xpp3Dom stripConfigElements(Xpp3Dom config, ArrayList<String> goalParams) {
+    private static Xpp3Dom stripConfigElements(Xpp3Dom config, Set<String> goalParams) {
         // strip non applicable parameters
         List<Integer> removeChildren = new ArrayList<Integer>();
         for (int i=0; i<config.getChildCount(); i++) {
@@ -0,0 +1,373 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Keeps the exploded WAR directory up to date without rerunning the exploded
+ * goal of the maven-war-plugin for every change.
+ *
+ * The entries the exploded goal copies from the project, i.e. the filtered
+ * deployment descriptors, the webResources, the WAR source directory and the
+ * classes directory, are tracked by target path. For each target the state
+ * records which source provides it, with the size, modification time and
+ * checksum of the source. A sync scans the source directories, and only copies
+ * the entries whose source changed, or whose source is now a different file,
+ * and deletes the entries that no source provides any more. As in the WAR
+ * plugin, the first source that provides a target path wins.
+ *
+ * Everything else in the exploded directory, such as overlays and libraries,
+ * only changes with the project configuration or dependencies. The state is
+ * therefore only valid for the configuration, dependencies and filter
+ * properties it was recorded with, and the exploded goal has to run when they
+ * change. The state is saved in the build directory so that it is shared by
+ * the deploy goal and dev mode.
+ */
+public class ExplodedWarSync {
+
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String ENTRY_PREFIX = "entry:";
+    private static final String[] DEPLOYMENT_DESCRIPTORS = { "WEB-INF/web.xml", "META-INF/context.xml" };
+
+    private final MavenProject project;
+    private final Xpp3Dom config;
+    private final File webappDirectory;
+    private final File stateFile;
+    private final boolean overlays;
+    private final Log log;
+    private final List<Root> roots = new ArrayList<Root>();
+    private final List<String> filterFiles = new ArrayList<String>();
+    private final ResourceFilter filter;
+    private final String fingerprint;
+    private final Properties state = new Properties();
+
+    /**
+     * @param project   the project
+     * @param session   the session
+     * @param config    the configuration of the exploded goal
+     * @param stateFile the file to keep the state of the exploded directory in
+     * @param overlays  whether the project has WAR overlays
+     * @param log       the log
+     */
+    public ExplodedWarSync(MavenProject project, MavenSession session, Xpp3Dom config, File stateFile,
+            boolean overlays, Log log) throws IOException {
+        this.project = project;
+        this.config = config;
+        this.stateFile = stateFile;
+        this.overlays = overlays;
+        this.log = log;
+
+        String webappDir = getValue("webappDirectory");
+        this.webappDirectory = webappDir != null ? resolve(webappDir)
+                : new File(project.getBuild().getDirectory(), project.getBuild().getFinalName());
+
+        filterFiles.addAll(project.getBuild().getFilters());
+        filterFiles.addAll(ResourceFilter.getConfigValues(config, "filters"));
+        List<String> delimiters = new ArrayList<String>(ResourceFilter.getConfigValues(config, "delimiters"));
+        if (!"false".equals(getValue("useDefaultDelimiters"))) {
+            delimiters.addAll(ResourceFilter.DEFAULT_DELIMITERS);
+        }
+        String encoding = getValue("resourceEncoding");
+        if (encoding == null) {
+            encoding = project.getProperties().getProperty("project.build.sourceEncoding");
+        }
+        this.filter = new ResourceFilter(project, session, filterFiles, delimiters, getValue("escapeString"),
+                Boolean.parseBoolean(getValue("escapedBackslashesInFilePath")),
+                ResourceFilter.getConfigValues(config, "nonFilteredFileExtensions"), encoding, log);
+
+        addRoots();
+        this.fingerprint = getFingerprint();
+
+        if (stateFile.isFile()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read exploded WAR state " + stateFile + ": " + e.getMessage());
+                state.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the name of a parameter of the exploded goal that this class does
+     *         not reproduce, or null if the exploded directory can be synced
+     */
+    public String getUnsupportedParameter() {
+        if (getValue("webXml") != null) {
+            return "webXml";
+        }
+        if (getValue("containerConfigXML") != null) {
+            return "containerConfigXML";
+        }
+        if (Boolean.parseBoolean(getValue("archiveClasses"))) {
+            return "archiveClasses";
+        }
+        if (Boolean.parseBoolean(getValue("supportMultiLineFiltering"))) {
+            return "supportMultiLineFiltering";
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the state was recorded for the current configuration,
+     *         dependencies and filter properties
+     */
+    public boolean isCurrent() {
+        return fingerprint.equals(state.getProperty(FINGERPRINT));
+    }
+
+    /**
+     * Record the state of an exploded directory the exploded goal just built.
+     */
+    public void recordBaseline() throws IOException {
+        state.clear();
+        state.setProperty(FINGERPRINT, fingerprint);
+        for (Map.Entry<String, Source> entry : scan().entrySet()) {
+            // the checksum is only computed once the source changes
+            state.setProperty(ENTRY_PREFIX + entry.getKey(), entry.getValue().toEntry(""));
+        }
+        save();
+    }
+
+    /**
+     * Apply the changes of the tracked sources to the exploded directory.
+     *
+     * @return false if the exploded goal has to run instead, because a target
+     *         path was deleted that an overlay may provide
+     */
+    public boolean sync() throws IOException {
+        Map<String, Source> sources = scan();
+        List<String> deleted = new ArrayList<String>();
+        for (String key : state.stringPropertyNames()) {
+            if (key.startsWith(ENTRY_PREFIX) && !sources.containsKey(key.substring(ENTRY_PREFIX.length()))) {
+                deleted.add(key.substring(ENTRY_PREFIX.length()));
+            }
+        }
+        if (!deleted.isEmpty() && overlays) {
+            log.debug("Running the exploded goal because " + deleted.size() + " entries were deleted and the project has overlays");
+            return false;
+        }
+
+        int copied = 0;
+        for (Map.Entry<String, Source> entry : sources.entrySet()) {
+            String path = entry.getKey();
+            Source source = entry.getValue();
+            File target = new File(webappDirectory, path);
+            String[] recorded = split(state.getProperty(ENTRY_PREFIX + path));
+            boolean sameSource = recorded != null && recorded[3].equals(Integer.toString(source.root))
+                    && recorded[4].equals(source.file.getPath()) && target.isFile();
+            if (sameSource && recorded[0].equals(Long.toString(source.length))
+                    && recorded[1].equals(Long.toString(source.lastModified))) {
+                continue;
+            }
+            String hash = ChecksumUtil.sha256(source.file);
+            if (!sameSource || !hash.equals(recorded[2])) {
+                filter.copy(source.file, target, source.filtering);
+                copied++;
+            }
+            state.setProperty(ENTRY_PREFIX + path, source.toEntry(hash));
+        }
+        for (String path : deleted) {
+            File target = new File(webappDirectory, path);
+            log.debug("Deleting " + target + " from the exploded WAR");
+            Files.deleteIfExists(target.toPath());
+            state.remove(ENTRY_PREFIX + path);
+        }
+        log.debug("Synced the exploded WAR " + webappDirectory + ": " + copied + " copied, " + deleted.size() + " deleted");
+        save();
+        return true;
+    }
+
+    private void addRoots() {
+        File warSourceDirectory = resolve(getValue("warSourceDirectory") != null ? getValue("warSourceDirectory")
+                : "src/main/webapp");
+        if (Boolean.parseBoolean(getValue("filteringDeploymentDescriptors"))) {
+            // the WAR plugin copies the descriptors after everything else of the project
+            roots.add(new Root(warSourceDirectory, "", true, DEPLOYMENT_DESCRIPTORS, new String[0]));
+        }
+        Xpp3Dom webResources = config == null ? null : config.getChild("webResources");
+        if (webResources != null) {
+            for (Xpp3Dom resource : webResources.getChildren("resource")) {
+                String directory = ResourceFilter.getConfigValue(resource, "directory");
+                if (directory == null) {
+                    continue;
+                }
+                String targetPath = ResourceFilter.getConfigValue(resource, "targetPath");
+                roots.add(new Root(resolve(directory), targetPath == null ? "" : targetPath,
+                        Boolean.parseBoolean(ResourceFilter.getConfigValue(resource, "filtering")),
+                        toArray(ResourceFilter.getConfigValues(resource, "includes")),
+                        toArray(ResourceFilter.getConfigValues(resource, "excludes"))));
+            }
+        }
+        roots.add(new Root(warSourceDirectory, "", false, splitPatterns(getValue("warSourceIncludes")),
+                splitPatterns(getValue("warSourceExcludes"))));
+        String classesDirectory = getValue("classesDirectory");
+        roots.add(new Root(resolve(classesDirectory != null ? classesDirectory : project.getBuild().getOutputDirectory()),
+                "WEB-INF/classes", false, new String[0], new String[0]));
+    }
+
+    private Map<String, Source> scan() {
+        Map<String, Source> sources = new LinkedHashMap<String, Source>();
+        for (int i = 0; i < roots.size(); i++) {
+            Root root = roots.get(i);
+            if (!root.directory.isDirectory()) {
+                continue;
+            }
+            DirectoryScanner scanner = new DirectoryScanner();
+            scanner.setBasedir(root.directory);
+            if (root.includes.length > 0) {
+                scanner.setIncludes(root.includes);
+            }
+            if (root.excludes.length > 0) {
+                scanner.setExcludes(root.excludes);
+            }
+            scanner.addDefaultExcludes();
+            scanner.scan();
+            for (String relativePath : scanner.getIncludedFiles()) {
+                String path = root.targetPath + relativePath.replace(File.separatorChar, '/');
+                if (!sources.containsKey(path)) {
+                    sources.put(path, new Source(i, new File(root.directory, relativePath), root.filtering));
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * @return a checksum of everything that changes the exploded directory
+     *         besides the tracked sources
+     */
+    private String getFingerprint() {
+        StringBuilder value = new StringBuilder();
+        value.append(webappDirectory).append('\n').append(config).append('\n');
+        value.append(new TreeMap<Object, Object>(project.getProperties())).append('\n');
+        for (String filterFile : filterFiles) {
+            File file = resolve(filterFile);
+            value.append(file).append(':').append(file.length()).append(':').append(file.lastModified()).append('\n');
+        }
+        for (Artifact artifact : project.getArtifacts()) {
+            File file = artifact.getFile();
+            value.append(artifact.getId()).append(':').append(file == null ? "" : file.getPath() + ':' + file.length() + ':'
+                    + file.lastModified()).append('\n');
+        }
+        return ChecksumUtil.sha256(value.toString());
+    }
+
+    private void save() throws IOException {
+        File parent = stateFile.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (OutputStream out = new FileOutputStream(stateFile)) {
+            state.store(out, "Generated by liberty-maven-plugin");
+        }
+    }
+
+    private File resolve(String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(project.getBasedir(), path);
+    }
+
+    private String getValue(String name) {
+        return ResourceFilter.getConfigValue(config, name);
+    }
+
+    // entries are length:lastModified:checksum:root:path, the path last as it may contain colons
+    private static String[] split(String entry) {
+        if (entry == null) {
+            return null;
+        }
+        String[] fields = entry.split(":", 5);
+        return fields.length == 5 ? fields : null;
+    }
+
+    private static String[] toArray(List<String> values) {
+        return values.toArray(new String[values.size()]);
+    }
+
+    private static String[] splitPatterns(String patterns) {
+        if (patterns == null) {
+            return new String[0];
+        }
+        List<String> values = new ArrayList<String>();
+        for (String pattern : patterns.split(",")) {
+            if (!pattern.trim().isEmpty()) {
+                values.add(pattern.trim());
+            }
+        }
+        return toArray(values);
+    }
+
+    private static class Root {
+        private final File directory;
+        private final String targetPath;
+        private final boolean filtering;
+        private final String[] includes;
+        private final String[] excludes;
+
+        private Root(File directory, String targetPath, boolean filtering, String[] includes, String[] excludes) {
+            this.directory = directory;
+            String path = targetPath.replace('\\', '/');
+            while (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+            this.targetPath = path.isEmpty() || path.endsWith("/") ? path : path + "/";
+            this.filtering = filtering;
+            this.includes = includes;
+            this.excludes = excludes;
+        }
+    }
+
+    private static class Source {
+        private final int root;
+        private final File file;
+        private final boolean filtering;
+        private final long length;
+        private final long lastModified;
+
+        private Source(int root, File file, boolean filtering) {
+            this.root = root;
+            this.file = file;
+            this.filtering = filtering;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        private String toEntry(String hash) {
+            return length + ":" + lastModified + ":" + hash + ":" + root + ":" + file.getPath();
+        }
+    }
+}
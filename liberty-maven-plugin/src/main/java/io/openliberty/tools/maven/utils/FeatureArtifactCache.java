@@ -0,0 +1,217 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Properties;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A content-addressed store for feature ESAs and their signatures that is shared
+ * by every project and runtime using the same cache directory.
+ *
+ * Each ESA is kept as {@code <sha256>/<file name>}, so identical content
+ * downloaded under different coordinates or into different local repositories
+ * is only stored once, and its signature is kept next to it. Files are hard
+ * linked into the store when possible and copied otherwise. As a linked file
+ * changes when the local repository file is replaced in place, the content of
+ * an entry is hashed again whenever it is reused.
+ *
+ * The store also remembers which ESAs passed signature verification, keyed by
+ * the ESA hash, the signature hash and the verification settings, so that the
+ * same content is not verified again.
+ */
+public class FeatureArtifactCache {
+
+    private static final String VERIFIED_FILE = "verified.properties";
+
+    private final File cacheDirectory;
+    private final Log log;
+    private Properties verified;
+
+    public FeatureArtifactCache(File cacheDirectory, Log log) {
+        this.cacheDirectory = cacheDirectory;
+        this.log = log;
+    }
+
+    /**
+     * @param localRepository the base directory of the local Maven repository
+     * @return the default cache directory inside the local Maven repository
+     */
+    public static File getDefaultCacheDirectory(File localRepository) {
+        return new File(localRepository, ".cache/liberty-maven-plugin/features");
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Add the ESA to the store.
+     *
+     * @param esa the downloaded ESA
+     * @return the ESA in the store
+     * @throws IOException if the ESA could not be stored
+     */
+    public File store(File esa) throws IOException {
+        String hash = ChecksumUtil.sha256(esa);
+        File cached = new File(new File(cacheDirectory, hash), esa.getName());
+        // a linked entry changes with the local repository file it was linked from
+        if (cached.isFile() && cached.length() == esa.length() && ChecksumUtil.sha256(cached).equals(hash)) {
+            log.debug("Using cached feature " + cached);
+            return cached;
+        }
+        put(esa, cached);
+        return cached;
+    }
+
+    /**
+     * Add the signature of an ESA in the store next to that ESA.
+     *
+     * @param signature the downloaded signature
+     * @param cachedEsa the ESA returned by {@link #store(File)}
+     * @return the signature in the store
+     * @throws IOException if the signature could not be stored
+     */
+    public File storeSignature(File signature, File cachedEsa) throws IOException {
+        File cached = new File(cachedEsa.getParentFile(), cachedEsa.getName() + ".asc");
+        if (cached.isFile() && cached.length() == signature.length()
+                && ChecksumUtil.sha256(cached).equals(ChecksumUtil.sha256(signature))) {
+            return cached;
+        }
+        put(signature, cached);
+        return cached;
+    }
+
+    /**
+     * @return true if the file is an ESA in the store
+     */
+    public boolean contains(File esa) {
+        File entryDir = esa.getAbsoluteFile().getParentFile();
+        return entryDir != null && cacheDirectory.getAbsoluteFile().equals(entryDir.getParentFile());
+    }
+
+    /**
+     * @param esa      the ESA
+     * @param settings a fingerprint of the verification settings such as the
+     *                 verify option and the keys
+     * @return true if the same ESA with the same signature was verified before
+     *         with the same settings
+     */
+    public synchronized boolean isVerified(File esa, String settings) {
+        try {
+            return getVerified().containsKey(getVerificationKey(esa, settings));
+        } catch (IOException e) {
+            log.debug("Could not check the verification cache for " + esa + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remember that the ESAs passed verification with the given settings.
+     *
+     * @param esas     the verified ESAs
+     * @param settings a fingerprint of the verification settings
+     */
+    public synchronized void setVerified(Collection<File> esas, String settings) {
+        if (esas.isEmpty()) {
+            return;
+        }
+        try {
+            // merge with the entries other builds added since the cache was read
+            verified = loadVerified();
+            for (File esa : esas) {
+                verified.setProperty(getVerificationKey(esa, settings), esa.getName());
+            }
+            cacheDirectory.mkdirs();
+            File tempFile = File.createTempFile(VERIFIED_FILE, ".tmp", cacheDirectory);
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                verified.store(out, "Generated by liberty-maven-plugin");
+            }
+            move(tempFile, new File(cacheDirectory, VERIFIED_FILE));
+        } catch (IOException e) {
+            log.debug("Could not update the verification cache in " + cacheDirectory + ": " + e.getMessage());
+        }
+    }
+
+    private String getVerificationKey(File esa, String settings) throws IOException {
+        // the content is hashed even in the store, as a linked entry may have been replaced since it was stored
+        String esaHash = ChecksumUtil.sha256(esa);
+        File signature = new File(esa.getParentFile(), esa.getName() + ".asc");
+        String signatureHash = signature.isFile() ? ChecksumUtil.sha256(signature) : "none";
+        return esaHash + "." + signatureHash + "." + ChecksumUtil.sha256(settings);
+    }
+
+    private Properties getVerified() {
+        if (verified == null) {
+            verified = loadVerified();
+        }
+        return verified;
+    }
+
+    private Properties loadVerified() {
+        Properties properties = new Properties();
+        File verifiedFile = new File(cacheDirectory, VERIFIED_FILE);
+        if (verifiedFile.isFile()) {
+            try (InputStream in = new FileInputStream(verifiedFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read the verification cache " + verifiedFile + ": " + e.getMessage());
+                properties.clear();
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Link or copy the source into a temporary file next to the target and then
+     * move it into place, so that concurrent builds never see a partial file.
+     */
+    private void put(File source, File target) throws IOException {
+        File parentDir = target.getParentFile();
+        parentDir.mkdirs();
+        File tempFile = new File(parentDir, target.getName() + "." + Thread.currentThread().getId() + "."
+                + System.nanoTime() + ".tmp");
+        try {
+            Files.createLink(tempFile.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            // different file systems or no hard link support
+            Files.copy(source.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        move(tempFile, target);
+        log.debug("Stored " + source + " as " + target);
+    }
+
+    private static void move(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException | FileAlreadyExistsException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the features.json files of a Liberty runtime and of user feature BOMs
+ * to find the Maven coordinates of the ESAs that a set of features needs.
+ *
+ * The closure only follows the features each feature directly requires and
+ * does not include auto features or tolerated alternatives, so it is a lower
+ * bound of what the install kernel resolves. It is used to download the ESAs
+ * ahead of time and is never relied on for the install itself.
+ */
+public class FeaturesJsonIndex {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    /**
+     * @param jsonFiles the features.json files
+     * @throws IOException if a file cannot be read or parsed
+     */
+    public FeaturesJsonIndex(Collection<File> jsonFiles) throws IOException {
+        for (File jsonFile : jsonFiles) {
+            read(jsonFile);
+        }
+    }
+
+    /**
+     * @param features feature short names or symbolic names, in any case
+     * @return the Maven coordinates in groupId:artifactId:version form of the
+     *         ESAs for the features and the features they require
+     */
+    public Set<String> getMavenCoordinates(Collection<String> features) {
+        Set<String> coordinates = new LinkedHashSet<String>();
+        Set<Entry> visited = new HashSet<Entry>();
+        Deque<String> pending = new ArrayDeque<String>(features);
+        while (!pending.isEmpty()) {
+            Entry entry = entries.get(pending.remove().toLowerCase(Locale.ENGLISH));
+            if (entry == null || !visited.add(entry)) {
+                continue;
+            }
+            if (entry.mavenCoordinates != null) {
+                coordinates.add(entry.mavenCoordinates);
+            }
+            pending.addAll(entry.requiredFeatures);
+        }
+        return coordinates;
+    }
+
+    private void read(File jsonFile) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(jsonFile)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of features in " + jsonFile);
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Object wlpInformation = ((Map<?, ?>) readValue(parser)).get("wlpInformation");
+                if (wlpInformation instanceof Map) {
+                    addEntry((Map<?, ?>) wlpInformation);
+                }
+            }
+        }
+    }
+
+    private void addEntry(Map<?, ?> wlpInformation) {
+        Entry entry = new Entry();
+        Object mavenCoordinates = wlpInformation.get("mavenCoordinates");
+        if (mavenCoordinates instanceof String) {
+            entry.mavenCoordinates = (String) mavenCoordinates;
+        }
+        Object requireFeatureWithTolerates = wlpInformation.get("requireFeatureWithTolerates");
+        if (requireFeatureWithTolerates instanceof List) {
+            for (Object required : (List<?>) requireFeatureWithTolerates) {
+                if (required instanceof Map && ((Map<?, ?>) required).get("feature") instanceof String) {
+                    entry.requiredFeatures.add((String) ((Map<?, ?>) required).get("feature"));
+                }
+            }
+        } else {
+            addStrings(wlpInformation.get("requireFeature"), entry.requiredFeatures);
+        }
+
+        List<String> names = new ArrayList<String>();
+        addStrings(wlpInformation.get("provideFeature"), names);
+        addStrings(wlpInformation.get("shortName"), names);
+        for (String name : names) {
+            entries.put(name.toLowerCase(Locale.ENGLISH), entry);
+        }
+    }
+
+    private static void addStrings(Object value, List<String> result) {
+        if (value instanceof String) {
+            result.add((String) value);
+        } else if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item instanceof String) {
+                    result.add((String) item);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the value at the current token into maps, lists and strings.
+     */
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<String, Object>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    map.put(name, readValue(parser));
+                }
+                return map;
+            case START_ARRAY:
+                List<Object> list = new ArrayList<Object>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser));
+                }
+                return list;
+            case VALUE_NULL:
+                return null;
+            default:
+                return parser.getText();
+        }
+    }
+
+    private static class Entry {
+        private String mavenCoordinates;
+        private final List<String> requiredFeatures = new ArrayList<String>();
+    }
+}
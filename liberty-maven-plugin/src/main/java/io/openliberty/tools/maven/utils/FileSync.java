@@ -0,0 +1,273 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Copies and writes files only when their content differs from what is already
+ * at the target location.
+ *
+ * A manifest records the checksum, size and modification time of every file
+ * written through this class. When the target still has the recorded size and
+ * modification time, the recorded checksum is trusted and the target does not
+ * need to be read. Otherwise the target is hashed and compared directly, so a
+ * missing or stale manifest only costs an extra read, never a wrong skip.
+ *
+ * The checksum of a copied source file is recorded as well, together with its
+ * size and modification time, so that large unchanged sources such as
+ * dependency jars are not read on every copy.
+ *
+ * Call {@link #save()} to persist the manifest for the next build.
+ */
+public class FileSync {
+
+    private static final String SOURCE_PREFIX = "source:";
+
+    private final File manifestFile;
+    private final Log log;
+    private final Properties manifest = new Properties();
+    private final List<File> written = new ArrayList<File>();
+    private final List<File> skipped = new ArrayList<File>();
+    private boolean manifestChanged = false;
+
+    /**
+     * @param manifestFile the file the manifest is loaded from and saved to, may
+     *                     be null to keep the manifest in memory only
+     * @param log          the log to report skipped and written files to
+     */
+    public FileSync(File manifestFile, Log log) {
+        this.manifestFile = manifestFile;
+        this.log = log;
+        if (manifestFile != null && manifestFile.isFile()) {
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                manifest.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read file synchronization manifest " + manifestFile + ": " + e.getMessage());
+                manifest.clear();
+            }
+        }
+    }
+
+    /**
+     * Copy the source file to the target file if their content differs.
+     *
+     * @return true if the target file was written
+     */
+    public boolean copy(File source, File target) throws IOException {
+        String hash = getSourceHash(source, target);
+        if (isCurrent(target, hash, source.length())) {
+            skip(target);
+            return false;
+        }
+        makeParentDirectory(target);
+        Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        record(target, hash);
+        return true;
+    }
+
+    /**
+     * Write the content to the target file if the target does not already have
+     * exactly that content.
+     *
+     * @return true if the target file was written
+     */
+    public boolean write(byte[] content, File target) throws IOException {
+        String hash = ChecksumUtil.sha256(content);
+        if (isCurrent(target, hash, content.length)) {
+            skip(target);
+            return false;
+        }
+        makeParentDirectory(target);
+        try (OutputStream out = new FileOutputStream(target)) {
+            out.write(content);
+        }
+        record(target, hash);
+        return true;
+    }
+
+    /**
+     * Write the content encoded as UTF-8 to the target file if the target does not
+     * already have exactly that content.
+     *
+     * @return true if the target file was written
+     */
+    public boolean write(String content, File target) throws IOException {
+        return write(content.getBytes(StandardCharsets.UTF_8), target);
+    }
+
+    /**
+     * Delete the target file and forget it in the manifest.
+     *
+     * @return true if the target file existed and was deleted
+     */
+    public boolean delete(File target) {
+        if (manifest.remove(getKey(target)) != null) {
+            manifestChanged = true;
+        }
+        manifest.remove(SOURCE_PREFIX + getKey(target));
+        return target.exists() && target.delete();
+    }
+
+    /**
+     * Delete the files in the manifest that were neither written nor skipped
+     * since this object was created, i.e. files written by an earlier build that
+     * are no longer part of the output. Only files under the given directories
+     * are deleted, so that files another configuration wrote elsewhere are kept.
+     *
+     * @param directories the directories the output is written to
+     * @return the deleted files
+     */
+    public List<File> deleteUntouched(Collection<File> directories) {
+        Set<String> touched = new HashSet<String>();
+        for (File file : written) {
+            touched.add(getKey(file));
+        }
+        for (File file : skipped) {
+            touched.add(getKey(file));
+        }
+        List<String> prefixes = new ArrayList<String>();
+        for (File directory : directories) {
+            prefixes.add(getKey(directory) + File.separator);
+        }
+        List<File> deleted = new ArrayList<File>();
+        for (String key : manifest.stringPropertyNames()) {
+            if (key.startsWith(SOURCE_PREFIX) || touched.contains(key) || !startsWithAny(key, prefixes)) {
+                continue;
+            }
+            File stale = new File(key);
+            delete(stale);
+            deleted.add(stale);
+            log.debug("Deleted " + stale + " because it is no longer part of the output");
+        }
+        return deleted;
+    }
+
+    /**
+     * @return the files written since this object was created
+     */
+    public List<File> getWritten() {
+        return written;
+    }
+
+    /**
+     * @return the files left as is because their content was already current
+     */
+    public List<File> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Save the manifest if it changed.
+     */
+    public void save() throws IOException {
+        if (manifestFile == null || !manifestChanged) {
+            return;
+        }
+        makeParentDirectory(manifestFile);
+        try (OutputStream out = new FileOutputStream(manifestFile)) {
+            manifest.store(out, "Generated by liberty-maven-plugin");
+        }
+        manifestChanged = false;
+    }
+
+    private boolean isCurrent(File target, String hash, long size) throws IOException {
+        if (!target.isFile() || target.length() != size) {
+            return false;
+        }
+        String key = getKey(target);
+        String entry = manifest.getProperty(key);
+        if (entry != null && entry.equals(toEntry(target, hash))) {
+            return true;
+        }
+        // the target was changed outside of this class or is not in the manifest yet
+        if (hash.equals(ChecksumUtil.sha256(target))) {
+            manifest.setProperty(key, toEntry(target, hash));
+            manifestChanged = true;
+            return true;
+        }
+        return false;
+    }
+
+    private String getSourceHash(File source, File target) throws IOException {
+        String key = SOURCE_PREFIX + getKey(target);
+        String stamp = getKey(source) + ":" + source.length() + ":" + source.lastModified() + ":";
+        String entry = manifest.getProperty(key);
+        if (entry != null && entry.startsWith(stamp)) {
+            return entry.substring(stamp.length());
+        }
+        String hash = ChecksumUtil.sha256(source);
+        manifest.setProperty(key, stamp + hash);
+        manifestChanged = true;
+        return hash;
+    }
+
+    private void record(File target, String hash) {
+        manifest.setProperty(getKey(target), toEntry(target, hash));
+        manifestChanged = true;
+        written.add(target);
+        log.debug("Updated " + target);
+    }
+
+    private void skip(File target) {
+        skipped.add(target);
+        log.debug("Skipped " + target + " because its content is unchanged");
+    }
+
+    private static String toEntry(File target, String hash) {
+        return hash + ":" + target.length() + ":" + target.lastModified();
+    }
+
+    private static String getKey(File target) {
+        try {
+            return target.getCanonicalPath();
+        } catch (IOException e) {
+            return target.getAbsolutePath();
+        }
+    }
+
+    private static boolean startsWithAny(String key, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void makeParentDirectory(File file) {
+        File parentDir = file.getParentFile();
+        if (parentDir != null) {
+            parentDir.mkdirs();
+        }
+    }
+}
@@ -0,0 +1,692 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Writes a container image to a directory in the OCI image layout, without a
+ * container engine or a registry. The image can be copied to a registry or
+ * loaded into a container engine by tools that read the layout, such as skopeo.
+ *
+ * Every layer is a gzip compressed tar file of sorted entries that all get the
+ * same modification time and owner, so a layer of the same content always has
+ * the same digest. The content hash of every layer is kept in a state file, and
+ * only the layers whose content changed are written again.
+ *
+ * The layers can be added on top of a base image that is read from another
+ * image layout directory.
+ */
+public class ImageLayoutWriter {
+
+    public static final String INDEX_FILE = "index.json";
+    public static final String LAYOUT_FILE = "oci-layout";
+    public static final String INDEX_MEDIA_TYPE = "application/vnd.oci.image.index.v1+json";
+    public static final String MANIFEST_MEDIA_TYPE = "application/vnd.oci.image.manifest.v1+json";
+    public static final String CONFIG_MEDIA_TYPE = "application/vnd.oci.image.config.v1+json";
+    public static final String LAYER_MEDIA_TYPE = "application/vnd.oci.image.layer.v1.tar+gzip";
+    public static final String LAYER_ANNOTATION = "io.openliberty.tools.layer";
+    public static final String REF_NAME_ANNOTATION = "org.opencontainers.image.ref.name";
+
+    private static final String DOCKER_LAYER_MEDIA_TYPE = "application/vnd.docker.image.rootfs.diff.tar.gzip";
+    private static final String SHA256 = "sha256:";
+    private static final String FILE_PREFIX = "file.";
+    private static final String LAYER_PREFIX = "layer.";
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final File layoutDirectory;
+    private final File blobDirectory;
+    private final File stateFile;
+    private final long timestamp;
+    private final Log log;
+    private File baseImageDirectory;
+    private List<String> command;
+
+    /**
+     * @param layoutDirectory the directory to write the image layout to
+     * @param stateFile       the file to keep the content hashes of the layers in
+     * @param timestamp       the creation time of the image and the modification
+     *                        time of the layer entries
+     * @param log             the log to report progress to
+     */
+    public ImageLayoutWriter(File layoutDirectory, File stateFile, long timestamp, Log log) {
+        this.layoutDirectory = layoutDirectory;
+        this.blobDirectory = new File(layoutDirectory, "blobs/sha256");
+        this.stateFile = stateFile;
+        this.timestamp = timestamp;
+        this.log = log;
+    }
+
+    /**
+     * @param baseImageDirectory an image layout directory that holds the image to
+     *                           add the layers to, or null to write an image of
+     *                           only the layers
+     */
+    public void setBaseImage(File baseImageDirectory) {
+        this.baseImageDirectory = baseImageDirectory;
+    }
+
+    /**
+     * @param command the command the image runs, which replaces the command of
+     *                the base image
+     */
+    public void setCommand(List<String> command) {
+        this.command = command;
+    }
+
+    /**
+     * Write the image. Blobs that the image no longer references are removed
+     * from the layout directory.
+     *
+     * @param layers    the layers to add, in order
+     * @param reference the reference name of the image in the layout, such as a
+     *                  tag
+     * @param threads   the number of threads to hash and compress with
+     * @return the digest of the image manifest
+     */
+    public String write(List<Layer> layers, String reference, int threads) throws IOException {
+        long start = System.currentTimeMillis();
+        if (!blobDirectory.isDirectory() && !blobDirectory.mkdirs()) {
+            throw new IOException("Could not create the directory " + blobDirectory);
+        }
+        Properties previous = loadState();
+        Properties state = new Properties();
+        Set<String> referenced = new HashSet<String>();
+        List<Object> descriptors = new ArrayList<Object>();
+        List<Object> diffIds = new ArrayList<Object>();
+        Map<String, Object> config = new LinkedHashMap<String, Object>();
+        List<Object> history = new ArrayList<Object>();
+        if (baseImageDirectory != null) {
+            config = readBaseImage(descriptors, diffIds, referenced);
+            history = config.get("history") instanceof List ? getList(config, "history") : null;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int rewritten = 0;
+        try {
+            Map<File, String> hashes = hashFiles(layers, previous, state, executor);
+            Map<Layer, Future<LayerBlob>> blobs = new LinkedHashMap<Layer, Future<LayerBlob>>();
+            for (final Layer layer : layers) {
+                final String key = getLayerKey(layer, hashes);
+                LayerBlob recorded = LayerBlob.parse(previous.getProperty(LAYER_PREFIX + layer.getName()));
+                if (recorded != null && recorded.key.equals(key)
+                        && getBlob(recorded.digest).length() == recorded.size) {
+                    blobs.put(layer, CompletableFuture.completedFuture(recorded));
+                    continue;
+                }
+                rewritten++;
+                blobs.put(layer, executor.submit(new Callable<LayerBlob>() {
+                    @Override
+                    public LayerBlob call() throws IOException {
+                        return writeLayer(layer, key);
+                    }
+                }));
+            }
+            String created = Instant.ofEpochMilli(timestamp).toString();
+            for (Map.Entry<Layer, Future<LayerBlob>> blob : blobs.entrySet()) {
+                LayerBlob layerBlob = get(blob.getValue());
+                state.setProperty(LAYER_PREFIX + blob.getKey().getName(), layerBlob.toString());
+                referenced.add(layerBlob.digest);
+                Map<String, Object> descriptor = getDescriptor(LAYER_MEDIA_TYPE, layerBlob.digest, layerBlob.size);
+                descriptor.put("annotations", Collections.singletonMap(LAYER_ANNOTATION, blob.getKey().getName()));
+                descriptors.add(descriptor);
+                diffIds.add(SHA256 + layerBlob.diffId);
+                if (history != null) {
+                    Map<String, Object> step = new LinkedHashMap<String, Object>();
+                    step.put("created", created);
+                    step.put("created_by", "liberty-maven-plugin " + blob.getKey().getName() + " layer");
+                    history.add(step);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        byte[] configBytes = toJson(getConfig(config, diffIds, history));
+        String configDigest = writeBlob(configBytes);
+        referenced.add(configDigest);
+
+        Map<String, Object> manifest = new LinkedHashMap<String, Object>();
+        manifest.put("schemaVersion", 2);
+        manifest.put("mediaType", MANIFEST_MEDIA_TYPE);
+        manifest.put("config", getDescriptor(CONFIG_MEDIA_TYPE, configDigest, configBytes.length));
+        manifest.put("layers", descriptors);
+        byte[] manifestBytes = toJson(manifest);
+        String manifestDigest = writeBlob(manifestBytes);
+        referenced.add(manifestDigest);
+
+        Map<String, Object> platform = new LinkedHashMap<String, Object>();
+        platform.put("architecture", config.get("architecture"));
+        platform.put("os", config.get("os"));
+        Map<String, Object> manifestDescriptor = getDescriptor(MANIFEST_MEDIA_TYPE, manifestDigest,
+                manifestBytes.length);
+        manifestDescriptor.put("platform", platform);
+        if (reference != null && !reference.isEmpty()) {
+            manifestDescriptor.put("annotations", Collections.singletonMap(REF_NAME_ANNOTATION, reference));
+        }
+        Map<String, Object> index = new LinkedHashMap<String, Object>();
+        index.put("schemaVersion", 2);
+        index.put("mediaType", INDEX_MEDIA_TYPE);
+        index.put("manifests", Collections.singletonList(manifestDescriptor));
+        writeFile(new File(layoutDirectory, LAYOUT_FILE),
+                toJson(Collections.singletonMap("imageLayoutVersion", "1.0.0")));
+        writeFile(new File(layoutDirectory, INDEX_FILE), toJson(index));
+
+        removeUnreferencedBlobs(referenced);
+        saveState(state);
+        log.debug("Wrote the image " + SHA256 + manifestDigest + " to " + layoutDirectory + ", " + rewritten + " of "
+                + layers.size() + " layers changed, in " + (System.currentTimeMillis() - start) + " ms");
+        return SHA256 + manifestDigest;
+    }
+
+    /**
+     * Hash the files of the layers. The hash of a file that has the size and
+     * modification time recorded in the previous state is taken from it, the
+     * other files are hashed on the executor.
+     */
+    private Map<File, String> hashFiles(List<Layer> layers, Properties previous, Properties state,
+            ExecutorService executor) throws IOException {
+        Map<File, Future<String>> hashes = new LinkedHashMap<File, Future<String>>();
+        for (Layer layer : layers) {
+            for (ServerPackager.Source source : layer.getEntries()) {
+                final File file = source.getFile();
+                if (source.isDirectory() || hashes.containsKey(file)) {
+                    continue;
+                }
+                final String fileKey = file.length() + ":" + file.lastModified();
+                String recorded = previous.getProperty(FILE_PREFIX + file.getAbsolutePath());
+                if (recorded != null && recorded.indexOf(':') > 0
+                        && recorded.substring(recorded.indexOf(':') + 1).equals(fileKey)) {
+                    hashes.put(file, CompletableFuture.completedFuture(recorded));
+                    continue;
+                }
+                hashes.put(file, executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws IOException {
+                        return ChecksumUtil.sha256(file) + ":" + fileKey;
+                    }
+                }));
+            }
+        }
+        Map<File, String> result = new HashMap<File, String>();
+        for (Map.Entry<File, Future<String>> hash : hashes.entrySet()) {
+            String value = get(hash.getValue());
+            state.setProperty(FILE_PREFIX + hash.getKey().getAbsolutePath(), value);
+            result.put(hash.getKey(), value.substring(0, value.indexOf(':')));
+        }
+        return result;
+    }
+
+    /**
+     * @return a hash of the names, permissions and content of the layer entries
+     *         and their modification time, which identifies the layer content
+     */
+    private String getLayerKey(Layer layer, Map<File, String> hashes) {
+        StringBuilder key = new StringBuilder().append(timestamp).append('\n');
+        for (ServerPackager.Source source : layer.getEntries()) {
+            key.append(source.getName()).append(' ').append(Integer.toOctalString(source.getMode())).append(' ')
+                    .append(source.isDirectory() ? "-" : hashes.get(source.getFile())).append('\n');
+        }
+        return ChecksumUtil.sha256(key.toString());
+    }
+
+    private LayerBlob writeLayer(Layer layer, String key) throws IOException {
+        File temp = File.createTempFile("layer-", ".tmp", blobDirectory);
+        MessageDigest compressedDigest = ChecksumUtil.newDigest();
+        MessageDigest tarDigest = ChecksumUtil.newDigest();
+        try {
+            OutputStream file = new BufferedOutputStream(new FileOutputStream(temp), 65536);
+            OutputStream gzip = new GZIPOutputStream(new DigestOutputStream(file, compressedDigest), 65536);
+            OutputStream tarOut = new BufferedOutputStream(new DigestOutputStream(gzip, tarDigest), 65536);
+            try (TarArchiveWriter tar = new TarArchiveWriter(tarOut)) {
+                for (ServerPackager.Source source : layer.getEntries()) {
+                    if (source.isDirectory()) {
+                        tar.addDirectory(source.getName(), source.getMode(), timestamp);
+                    } else {
+                        tar.addFile(source.getName(), source.getFile(), source.getMode(), timestamp);
+                    }
+                }
+            }
+            String digest = ChecksumUtil.toHex(compressedDigest.digest());
+            long size = temp.length();
+            Files.move(temp.toPath(), getBlob(digest).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.debug("Wrote the " + layer.getName() + " layer " + SHA256 + digest + " of " + layer.getEntries().size()
+                    + " entries");
+            return new LayerBlob(key, digest, ChecksumUtil.toHex(tarDigest.digest()), size);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Read the manifest and configuration of the base image, and link its layers
+     * into the layout directory.
+     *
+     * @return the configuration of the base image
+     */
+    private Map<String, Object> readBaseImage(List<Object> descriptors, List<Object> diffIds, Set<String> referenced)
+            throws IOException {
+        Map<String, Object> manifest = getMap(readJson(new File(baseImageDirectory, INDEX_FILE)), INDEX_FILE);
+        // an index of several images can be nested in the index of the layout
+        while (manifest.containsKey("manifests")) {
+            Map<String, Object> descriptor = selectManifest(getList(manifest, "manifests"));
+            manifest = getMap(readJson(getBaseBlob(descriptor)), String.valueOf(descriptor.get("digest")));
+        }
+        Map<String, Object> configDescriptor = getMap(manifest.get("config"), "config");
+        Map<String, Object> config = getMap(readJson(getBaseBlob(configDescriptor)), "config");
+
+        for (Object layer : getList(manifest, "layers")) {
+            Map<String, Object> descriptor = new LinkedHashMap<String, Object>(getMap(layer, "layers"));
+            if (DOCKER_LAYER_MEDIA_TYPE.equals(descriptor.get("mediaType"))) {
+                // the same content, as a layer of an OCI image manifest
+                descriptor.put("mediaType", LAYER_MEDIA_TYPE);
+            }
+            File source = getBaseBlob(descriptor);
+            String digest = getHexDigest(descriptor);
+            linkBlob(source, getBlob(digest));
+            referenced.add(digest);
+            descriptors.add(descriptor);
+        }
+        Map<String, Object> rootfs = getMap(config.get("rootfs"), "rootfs");
+        diffIds.addAll(getList(rootfs, "diff_ids"));
+        return config;
+    }
+
+    /**
+     * @return the image of the index for the platform of the build, or else the
+     *         first image
+     */
+    private Map<String, Object> selectManifest(List<Object> manifests) throws IOException {
+        String architecture = getArchitecture();
+        Map<String, Object> selected = null;
+        for (Object manifest : manifests) {
+            Map<String, Object> descriptor = getMap(manifest, "manifests");
+            Object platform = descriptor.get("platform");
+            Object platformArchitecture = platform instanceof Map ? ((Map<?, ?>) platform).get("architecture") : null;
+            // attestation manifests have an unknown platform
+            if ("unknown".equals(platformArchitecture)) {
+                continue;
+            }
+            if (architecture.equals(platformArchitecture) && "linux".equals(((Map<?, ?>) platform).get("os"))) {
+                return descriptor;
+            }
+            if (selected == null) {
+                selected = descriptor;
+            }
+        }
+        if (selected == null) {
+            throw new IOException("The base image directory " + baseImageDirectory + " does not contain an image.");
+        }
+        return selected;
+    }
+
+    private Map<String, Object> getConfig(Map<String, Object> config, List<Object> diffIds, List<Object> history) {
+        config.put("created", Instant.ofEpochMilli(timestamp).toString());
+        if (!config.containsKey("architecture")) {
+            config.put("architecture", "amd64");
+        }
+        if (!config.containsKey("os")) {
+            config.put("os", "linux");
+        }
+        Map<String, Object> runConfig = getMapOrNull(config.get("config"));
+        if (runConfig == null) {
+            runConfig = new LinkedHashMap<String, Object>();
+        }
+        if (command != null) {
+            runConfig.put("Cmd", new ArrayList<Object>(command));
+        }
+        config.put("config", runConfig);
+        Map<String, Object> rootfs = new LinkedHashMap<String, Object>();
+        rootfs.put("type", "layers");
+        rootfs.put("diff_ids", diffIds);
+        config.put("rootfs", rootfs);
+        if (history != null) {
+            config.put("history", history);
+        }
+        return config;
+    }
+
+    private static Map<String, Object> getDescriptor(String mediaType, String digest, long size) {
+        Map<String, Object> descriptor = new LinkedHashMap<String, Object>();
+        descriptor.put("mediaType", mediaType);
+        descriptor.put("digest", SHA256 + digest);
+        descriptor.put("size", size);
+        return descriptor;
+    }
+
+    private String writeBlob(byte[] content) throws IOException {
+        String digest = ChecksumUtil.sha256(content);
+        File blob = getBlob(digest);
+        if (blob.length() != content.length) {
+            writeFile(blob, content);
+        }
+        return digest;
+    }
+
+    private File getBlob(String digest) {
+        return new File(blobDirectory, digest);
+    }
+
+    private File getBaseBlob(Map<String, Object> descriptor) throws IOException {
+        File blob = new File(baseImageDirectory, "blobs/sha256/" + getHexDigest(descriptor));
+        if (!blob.isFile()) {
+            throw new IOException("The base image directory " + baseImageDirectory + " does not contain the blob "
+                    + descriptor.get("digest") + ".");
+        }
+        return blob;
+    }
+
+    private static String getHexDigest(Map<String, Object> descriptor) throws IOException {
+        Object digest = descriptor.get("digest");
+        if (!(digest instanceof String) || !((String) digest).matches("sha256:[0-9a-f]{64}")) {
+            throw new IOException("Unsupported digest " + digest + " in the base image.");
+        }
+        return ((String) digest).substring(SHA256.length());
+    }
+
+    /**
+     * Link a blob of the base image into the layout directory, or copy it if the
+     * file system does not support links.
+     */
+    private static void linkBlob(File source, File target) throws IOException {
+        if (target.isFile() && target.length() == source.length()) {
+            return;
+        }
+        Files.deleteIfExists(target.toPath());
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void removeUnreferencedBlobs(Set<String> referenced) {
+        File[] blobs = blobDirectory.listFiles();
+        if (blobs == null) {
+            return;
+        }
+        for (File blob : blobs) {
+            if (!referenced.contains(blob.getName()) && blob.delete()) {
+                log.debug("Removed the unreferenced blob " + blob.getName());
+            }
+        }
+    }
+
+    /**
+     * Write a file through a temporary file, so that a reader never sees a
+     * partial file.
+     */
+    private static void writeFile(File file, byte[] content) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        Files.write(temp.toPath(), content);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Properties loadState() {
+        Properties state = new Properties();
+        if (stateFile.isFile()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read image state " + stateFile + ": " + e.getMessage());
+                state.clear();
+            }
+        }
+        return state;
+    }
+
+    private void saveState(Properties state) throws IOException {
+        try (OutputStream out = new FileOutputStream(stateFile)) {
+            state.store(out, "Generated by liberty-maven-plugin");
+        }
+    }
+
+    /**
+     * @return the name of the architecture of the build platform in the form
+     *         images use
+     */
+    private static String getArchitecture() {
+        String arch = System.getProperty("os.arch");
+        if ("x86_64".equals(arch) || "amd64".equals(arch)) {
+            return "amd64";
+        }
+        if ("aarch64".equals(arch)) {
+            return "arm64";
+        }
+        return arch;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the image");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not write the image", e.getCause());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getMapOrNull(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private static Map<String, Object> getMap(Object value, String name) throws IOException {
+        Map<String, Object> map = getMapOrNull(value);
+        if (map == null) {
+            throw new IOException("The base image " + name + " is not a JSON object.");
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> getList(Map<String, Object> map, String name) throws IOException {
+        Object value = map.get(name);
+        if (!(value instanceof List)) {
+            throw new IOException("The base image " + name + " is not a JSON array.");
+        }
+        return (List<Object>) value;
+    }
+
+    /**
+     * Read a JSON document into maps, lists, strings, numbers and booleans.
+     */
+    static Object readJson(File file) throws IOException {
+        try (JsonParser parser = JSON.createParser(file)) {
+            parser.nextToken();
+            return readValue(parser);
+        }
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == null) {
+            throw new IOException("Unexpected end of JSON content");
+        }
+        switch (token) {
+        case START_OBJECT:
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                map.put(name, readValue(parser));
+            }
+            return map;
+        case START_ARRAY:
+            List<Object> list = new ArrayList<Object>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                list.add(readValue(parser));
+            }
+            return list;
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+            return parser.getNumberValue();
+        case VALUE_NUMBER_FLOAT:
+            return parser.getDecimalValue();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            throw new IOException("Unexpected JSON token " + token);
+        }
+    }
+
+    /**
+     * Write maps, lists, strings, numbers and booleans as compact JSON, with the
+     * keys of a map in its iteration order.
+     */
+    static byte[] toJson(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            writeValue(generator, value);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof List) {
+            generator.writeStartArray();
+            for (Object item : (List<?>) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(String.valueOf(value));
+        }
+    }
+
+    /**
+     * A layer of the image, with its entries sorted by name.
+     */
+    public static class Layer {
+        private final String name;
+        private final List<ServerPackager.Source> entries;
+
+        public Layer(String name, List<ServerPackager.Source> entries) {
+            this.name = name;
+            this.entries = new ArrayList<ServerPackager.Source>(entries);
+            Collections.sort(this.entries);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<ServerPackager.Source> getEntries() {
+            return entries;
+        }
+    }
+
+    /**
+     * The compressed tar file of a layer, with the hash of the layer content it
+     * was written from.
+     */
+    private static class LayerBlob {
+        private final String key;
+        private final String digest;
+        private final String diffId;
+        private final long size;
+
+        LayerBlob(String key, String digest, String diffId, long size) {
+            this.key = key;
+            this.digest = digest;
+            this.diffId = diffId;
+            this.size = size;
+        }
+
+        static LayerBlob parse(String value) {
+            String[] values = value == null ? new String[0] : value.split(":");
+            if (values.length != 4) {
+                return null;
+            }
+            try {
+                return new LayerBlob(values[0], values[1], values[2], Long.parseLong(values[3]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return key + ":" + digest + ":" + diffId + ":" + size;
+        }
+    }
+}
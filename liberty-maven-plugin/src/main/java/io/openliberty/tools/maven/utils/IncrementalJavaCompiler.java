@@ -0,0 +1,432 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Compiles the Java sources that change during dev mode with one in-process
+ * compiler that is kept for the whole session.
+ *
+ * A file manager is kept for each output directory and reused until the class
+ * path changes, so the dependency jars are not opened again for every change.
+ * The class files in each output directory are read into a dependency graph,
+ * which is updated as class files change, so that the sources of classes that
+ * reference a changed class are recompiled with it.
+ *
+ * Sources of different output directories can be compiled concurrently.
+ *
+ * Constants that javac inlines into other classes are not recorded in the
+ * class files that use them, so changing the value of a constant does not
+ * recompile the classes that use it.
+ */
+public class IncrementalJavaCompiler {
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    private final Log log;
+    private final Map<File, Output> outputs = new HashMap<File, Output>();
+
+    public IncrementalJavaCompiler(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * @return false if the JVM does not provide a Java compiler, for example
+     *         because it is a JRE
+     */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Get the sources to compile for a set of changed sources.
+     *
+     * @param changedSources  the changed Java source files
+     * @param outputDirectory the directory the sources are compiled to
+     * @return the changed sources followed by the existing sources of classes in
+     *         the output directory that reference a class compiled from a
+     *         changed source
+     */
+    public Set<File> getSourcesToCompile(Collection<File> changedSources, File outputDirectory) {
+        Output output = getOutput(outputDirectory);
+        synchronized (output) {
+            return output.getSourcesToCompile(changedSources);
+        }
+    }
+
+    /**
+     * Compile the sources into the output directory, writing errors and warnings
+     * to System.err.
+     *
+     * @param sources         the Java source files
+     * @param classPath       the class path entries
+     * @param outputDirectory the directory to write class files to
+     * @param options         the compiler options
+     * @return true if the compilation was successful
+     * @throws IOException if the file manager could not be set up
+     */
+    public boolean compile(Collection<File> sources, Collection<File> classPath, File outputDirectory,
+            List<String> options) throws IOException {
+        return compile(sources, classPath, outputDirectory, options, null);
+    }
+
+    /**
+     * Compile the sources into the output directory.
+     *
+     * @param sources         the Java source files
+     * @param classPath       the class path entries
+     * @param outputDirectory the directory to write class files to
+     * @param options         the compiler options
+     * @param diagnostics     receives the errors and warnings, or null to write
+     *                        them to System.err
+     * @return true if the compilation was successful
+     * @throws IOException if the file manager could not be set up
+     */
+    public boolean compile(Collection<File> sources, Collection<File> classPath, File outputDirectory,
+            List<String> options, DiagnosticListener<? super JavaFileObject> diagnostics) throws IOException {
+        Output output = getOutput(outputDirectory);
+        synchronized (output) {
+            StandardJavaFileManager fileManager = output.getFileManager(classPath);
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(sources);
+            return compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits).call();
+        }
+    }
+
+    private synchronized Output getOutput(File outputDirectory) {
+        File key = outputDirectory.getAbsoluteFile();
+        Output output = outputs.get(key);
+        if (output == null) {
+            output = new Output(key);
+            outputs.put(key, output);
+        }
+        return output;
+    }
+
+    /**
+     * The file manager and the class graph of one output directory.
+     */
+    private class Output {
+        private final File directory;
+        private final Map<File, ClassInfo> classes = new HashMap<File, ClassInfo>();
+        private StandardJavaFileManager fileManager;
+        private String classPathFingerprint;
+
+        private Output(File directory) {
+            this.directory = directory;
+        }
+
+        private Set<File> getSourcesToCompile(Collection<File> changedSources) {
+            Set<File> sources = new LinkedHashSet<File>(changedSources);
+            refresh();
+
+            Set<String> changedClasses = new HashSet<String>();
+            Set<String> sourceRoots = new LinkedHashSet<String>();
+            for (File changed : changedSources) {
+                String changedPath = changed.getAbsolutePath().replace(File.separatorChar, '/');
+                for (ClassInfo classInfo : classes.values()) {
+                    if (changedPath.endsWith("/" + classInfo.sourcePath)) {
+                        changedClasses.add(classInfo.name);
+                        sourceRoots.add(changedPath.substring(0, changedPath.length() - classInfo.sourcePath.length()));
+                    }
+                }
+            }
+            if (changedClasses.isEmpty()) {
+                return sources;
+            }
+
+            for (ClassInfo classInfo : classes.values()) {
+                if (changedClasses.contains(classInfo.name) || Collections.disjoint(classInfo.references, changedClasses)) {
+                    continue;
+                }
+                for (String sourceRoot : sourceRoots) {
+                    File dependent = new File(sourceRoot + classInfo.sourcePath);
+                    if (dependent.isFile() && sources.add(dependent)) {
+                        log.debug("Recompiling " + dependent + " because it depends on a changed source");
+                        break;
+                    }
+                }
+            }
+            return sources;
+        }
+
+        private StandardJavaFileManager getFileManager(Collection<File> classPath) throws IOException {
+            // jars are read once per file manager, so a changed jar needs a new one
+            StringBuilder fingerprint = new StringBuilder();
+            for (File entry : classPath) {
+                fingerprint.append(entry.getAbsolutePath());
+                if (entry.isFile()) {
+                    fingerprint.append(':').append(entry.lastModified()).append(':').append(entry.length());
+                }
+                fingerprint.append(File.pathSeparatorChar);
+            }
+            if (fileManager != null && fingerprint.toString().equals(classPathFingerprint)) {
+                return fileManager;
+            }
+            if (fileManager != null) {
+                log.debug("The class path of " + directory + " changed, creating a new file manager");
+                fileManager.close();
+            }
+            fileManager = compiler.getStandardFileManager(null, null, null);
+            fileManager.setLocation(StandardLocation.CLASS_PATH, classPath);
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(directory));
+            classPathFingerprint = fingerprint.toString();
+            return fileManager;
+        }
+
+        /**
+         * Read the class files that were added or changed since the last refresh.
+         */
+        private void refresh() {
+            List<File> classFiles = new ArrayList<File>();
+            listClassFiles(directory, classFiles);
+            Set<File> existing = new HashSet<File>(classFiles);
+            for (Iterator<File> it = classes.keySet().iterator(); it.hasNext();) {
+                if (!existing.contains(it.next())) {
+                    it.remove();
+                }
+            }
+            for (File classFile : classFiles) {
+                ClassInfo classInfo = classes.get(classFile);
+                if (classInfo != null && classInfo.isCurrent(classFile)) {
+                    continue;
+                }
+                try {
+                    classes.put(classFile, ClassInfo.read(classFile));
+                } catch (IOException e) {
+                    log.debug("Could not read the dependencies of " + classFile + ": " + e.getMessage());
+                    classes.remove(classFile);
+                }
+            }
+        }
+    }
+
+    static void listClassFiles(File dir, List<File> result) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                listClassFiles(file, result);
+            } else if (file.getName().endsWith(".class") && !file.getName().equals("module-info.class")) {
+                result.add(file);
+            }
+        }
+    }
+
+    /**
+     * The name, source file and referenced classes of a class file.
+     */
+    static class ClassInfo {
+        private long lastModified;
+        private long length;
+        private String name;
+        private String sourcePath;
+        private final Set<String> references = new HashSet<String>();
+
+        static ClassInfo read(File classFile) throws IOException {
+            ClassInfo classInfo = new ClassInfo();
+            classInfo.lastModified = classFile.lastModified();
+            classInfo.length = classFile.length();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(classFile)))) {
+                classInfo.read(in);
+            }
+            return classInfo;
+        }
+
+        /**
+         * @return the internal name of the class, such as com/example/Outer$Inner
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the internal names of the classes the class refers to
+         */
+        Set<String> getReferences() {
+            return references;
+        }
+
+        /**
+         * @return true if the class file did not change since it was read
+         */
+        boolean isCurrent(File classFile) {
+            return lastModified == classFile.lastModified() && length == classFile.length();
+        }
+
+        private void read(DataInputStream in) throws IOException {
+            if (in.readInt() != CLASS_FILE_MAGIC) {
+                throw new IOException("Not a class file");
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            int[] classNames = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1: // Utf8
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7: // Class
+                        classNames[i] = in.readUnsignedShort();
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        in.readUnsignedShort();
+                        break;
+                    case 15: // MethodHandle
+                        in.readUnsignedByte();
+                        in.readUnsignedShort();
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        in.readInt();
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        in.readLong();
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag);
+                }
+            }
+
+            in.readUnsignedShort(); // access flags
+            name = utf8[classNames[in.readUnsignedShort()]];
+            in.readUnsignedShort(); // super class, also a class constant
+            skip(in, 2 * in.readUnsignedShort()); // interfaces, also class constants
+            skipMembers(in); // fields
+            skipMembers(in); // methods
+            String sourceFile = null;
+            int attributes = in.readUnsignedShort();
+            for (int i = 0; i < attributes; i++) {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                if ("SourceFile".equals(attributeName)) {
+                    sourceFile = utf8[in.readUnsignedShort()];
+                } else {
+                    skip(in, length);
+                }
+            }
+
+            int packageEnd = name.lastIndexOf('/');
+            if (sourceFile == null) {
+                // compiled without debug information, assume the usual layout
+                int nested = name.indexOf('$', packageEnd + 1);
+                sourceFile = (nested < 0 ? name.substring(packageEnd + 1) : name.substring(packageEnd + 1, nested))
+                        + ".java";
+            }
+            sourcePath = packageEnd < 0 ? sourceFile : name.substring(0, packageEnd + 1) + sourceFile;
+
+            for (int i = 1; i < count; i++) {
+                if (classNames[i] != 0) {
+                    addReferences(utf8[classNames[i]]);
+                } else if (utf8[i] != null && utf8[i].indexOf(';') > 0) {
+                    // field, method and generic signatures name classes that have no class constant
+                    addReferences(utf8[i]);
+                }
+            }
+            references.remove(name);
+        }
+
+        private void addReferences(String value) {
+            if (value.indexOf(';') < 0) {
+                references.add(value);
+                return;
+            }
+            // a descriptor or signature such as (Ljava/util/List<Lcom/example/Item;>;)V
+            int start = -1;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (start < 0) {
+                    if (c == 'L') {
+                        start = i + 1;
+                    }
+                } else if (c == ';' || c == '<') {
+                    references.add(value.substring(start, i));
+                    start = -1;
+                } else if (c == '.') {
+                    // inner class of a parameterized type, Lcom/example/Outer<TT;>.Inner;
+                    start = -1;
+                } else if (!Character.isJavaIdentifierPart(c) && c != '/') {
+                    start = -1;
+                }
+            }
+        }
+
+        private static void skipMembers(DataInputStream in) throws IOException {
+            int members = in.readUnsignedShort();
+            for (int i = 0; i < members; i++) {
+                skip(in, 6); // access flags, name and descriptor
+                int attributes = in.readUnsignedShort();
+                for (int j = 0; j < attributes; j++) {
+                    in.readUnsignedShort();
+                    skip(in, in.readInt());
+                }
+            }
+        }
+
+        private static void skip(DataInputStream in, int bytes) throws IOException {
+            int remaining = bytes;
+            while (remaining > 0) {
+                int skipped = in.skipBytes(remaining);
+                if (skipped <= 0) {
+                    throw new EOFException();
+                }
+                remaining -= skipped;
+            }
+        }
+    }
+}
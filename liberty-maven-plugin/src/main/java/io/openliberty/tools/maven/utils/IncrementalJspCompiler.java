@@ -0,0 +1,409 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Works out which JSPs of a web application need to be compiled again, so that
+ * the JSP compile server only has to compile the pages that changed.
+ *
+ * A state file records, for every compiled page, a fingerprint of the page and
+ * of the files it statically includes and the tag files of the tag directories
+ * it uses, together with the class files that were compiled from it. A page is
+ * stale when its fingerprint changed, when one of its class files is missing or
+ * when the compile configuration changed. The configuration covers the settings
+ * of the compile server and the deployment descriptor, tag library descriptors
+ * and jars under WEB-INF.
+ *
+ * Changes to the classes of the project do not make pages stale.
+ */
+public class IncrementalJspCompiler {
+
+    private static final String CONFIGURATION_KEY = "configuration";
+    private static final String PAGE_PREFIX = "page.";
+
+    private static final Pattern INCLUDE = Pattern.compile(
+            "(?:<%@\\s*include|<jsp:directive\\.include)\\b[^>]*?\\bfile\\s*=\\s*[\"']([^\"']+)[\"']");
+    private static final Pattern TAG_DIRECTORY = Pattern.compile(
+            "(?:(?:<%@\\s*taglib|<jsp:directive\\.taglib)\\b[^>]*?\\btagdir\\s*=\\s*[\"']|urn:jsptagdir:)([^\"']+)");
+
+    private final File sourceDirectory;
+    private final File destinationDirectory;
+    private final File stateFile;
+    private final String configuration;
+    private final Log log;
+    private final Properties state = new Properties();
+    private final Map<String, String> fingerprints = new HashMap<String, String>();
+    private final Map<String, Set<File>> dependencies = new HashMap<String, Set<File>>();
+    private final Map<File, List<File>> directDependencies = new HashMap<File, List<File>>();
+
+    /**
+     * @param sourceDirectory      the web application source directory
+     * @param destinationDirectory the directory the JSP classes are compiled to
+     * @param stateFile            the file the compile state is kept in
+     * @param configuration        the settings of the JSP compile server, a
+     *                             change of which recompiles all pages
+     * @param log                  the log to report stale pages to
+     */
+    public IncrementalJspCompiler(File sourceDirectory, File destinationDirectory, File stateFile,
+            String configuration, Log log) {
+        this.sourceDirectory = sourceDirectory;
+        this.destinationDirectory = destinationDirectory;
+        this.stateFile = stateFile;
+        this.configuration = configuration;
+        this.log = log;
+        if (stateFile.isFile()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read JSP compile state " + stateFile + ": " + e.getMessage());
+                state.clear();
+            }
+        }
+    }
+
+    /**
+     * Find the pages to compile, and delete the class files of the pages that
+     * were removed since the last compile.
+     *
+     * @return the paths of the stale pages relative to the source directory
+     */
+    public List<String> getStalePages() throws IOException {
+        List<String> pages = new ArrayList<String>();
+        findPages(sourceDirectory, "", pages);
+
+        String configurationHash = ChecksumUtil.sha256(configuration + "\n" + getWebInfFingerprint());
+        boolean configurationChanged = !configurationHash.equals(state.getProperty(CONFIGURATION_KEY));
+        if (configurationChanged) {
+            log.debug("The JSP compile configuration changed, all pages are compiled");
+        }
+        state.setProperty(CONFIGURATION_KEY, configurationHash);
+
+        Set<String> current = new TreeSet<String>(pages);
+        for (String key : new TreeSet<String>(state.stringPropertyNames())) {
+            if (key.startsWith(PAGE_PREFIX) && !current.contains(key.substring(PAGE_PREFIX.length()))) {
+                for (String classFile : getRecordedClasses(key)) {
+                    new File(destinationDirectory, classFile).delete();
+                }
+                state.remove(key);
+                log.debug("Deleted the classes of removed page " + key.substring(PAGE_PREFIX.length()));
+            }
+        }
+
+        List<String> stale = new ArrayList<String>();
+        for (String page : pages) {
+            Set<File> pageDependencies = new LinkedHashSet<File>();
+            collectDependencies(new File(sourceDirectory, page), pageDependencies);
+            dependencies.put(page, pageDependencies);
+            String fingerprint = getFingerprint(page, pageDependencies);
+            fingerprints.put(page, fingerprint);
+            if (configurationChanged || !isCurrent(page, fingerprint)) {
+                stale.add(page);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Create a copy of the source directory that holds the given pages, the
+     * pages they include and every other file except the remaining pages. Files
+     * are linked instead of copied where the file system allows it.
+     *
+     * @param stagingDirectory the directory to create, deleted first if it exists
+     * @param pages            the stale pages to compile
+     */
+    public void stage(File stagingDirectory, Collection<String> pages) throws IOException {
+        FileUtils.deleteDirectory(stagingDirectory);
+        Set<File> included = new LinkedHashSet<File>();
+        for (String page : pages) {
+            included.add(normalize(new File(sourceDirectory, page)));
+            for (File dependency : dependencies.get(page)) {
+                included.add(normalize(dependency));
+            }
+        }
+        stage(sourceDirectory, stagingDirectory, included);
+    }
+
+    /**
+     * Record the pages that were compiled and copy the classes compiled for them
+     * to the destination directory. Pages whose class is missing from the
+     * classes directory stay stale.
+     *
+     * @param pages            the pages that were compiled
+     * @param classesDirectory the directory the pages were compiled to
+     */
+    public void compiled(Collection<String> pages, File classesDirectory) throws IOException {
+        for (String page : pages) {
+            String classFile = getClassFileName(page);
+            File directory = new File(classesDirectory, classFile).getParentFile();
+            String prefix = classFile.substring(0, classFile.lastIndexOf('/') + 1);
+            String name = classFile.substring(prefix.length());
+            String innerClassPrefix = name.substring(0, name.length() - ".class".length()) + "$";
+            if (!new File(classesDirectory, classFile).isFile()) {
+                state.remove(PAGE_PREFIX + page);
+                continue;
+            }
+            StringBuilder entry = new StringBuilder(fingerprints.get(page)).append('\t').append(classFile);
+            String[] siblings = directory.list();
+            if (siblings != null) {
+                for (String sibling : siblings) {
+                    if (sibling.startsWith(innerClassPrefix) && sibling.endsWith(".class")) {
+                        entry.append(',').append(prefix).append(sibling);
+                    }
+                }
+            }
+            state.setProperty(PAGE_PREFIX + page, entry.toString());
+        }
+        copyClasses(classesDirectory, destinationDirectory);
+    }
+
+    /**
+     * Save the compile state for the next build.
+     */
+    public void save() throws IOException {
+        Files.createDirectories(stateFile.getAbsoluteFile().getParentFile().toPath());
+        try (OutputStream out = new FileOutputStream(stateFile)) {
+            state.store(out, "Generated by liberty-maven-plugin");
+        }
+    }
+
+    /**
+     * @param page the path of a page relative to the source directory
+     * @return the path of the class compiled from the page relative to the
+     *         destination directory, as named by the JSP compile server
+     */
+    public static String getClassFileName(String page) {
+        int slash = page.lastIndexOf('/');
+        String name = page.substring(slash + 1);
+        StringBuilder className = new StringBuilder(page.substring(0, slash + 1)).append('_');
+        for (int i = 0; i < name.length() - ".jsp".length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                className.append(c);
+            } else {
+                className.append('_').append(Integer.toHexString(c).toUpperCase()).append('_');
+            }
+        }
+        return className.append(".class").toString();
+    }
+
+    private boolean isCurrent(String page, String fingerprint) {
+        String entry = state.getProperty(PAGE_PREFIX + page);
+        if (entry == null || !entry.startsWith(fingerprint + "\t")) {
+            return false;
+        }
+        for (String classFile : getRecordedClasses(PAGE_PREFIX + page)) {
+            if (!new File(destinationDirectory, classFile).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<String> getRecordedClasses(String key) {
+        String entry = state.getProperty(key);
+        int tab = entry == null ? -1 : entry.indexOf('\t');
+        if (tab < 0) {
+            return Collections.emptyList();
+        }
+        List<String> classFiles = new ArrayList<String>();
+        for (String classFile : entry.substring(tab + 1).split(",")) {
+            if (!classFile.isEmpty()) {
+                classFiles.add(classFile);
+            }
+        }
+        return classFiles;
+    }
+
+    private void findPages(File directory, String prefix, List<String> pages) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findPages(file, prefix + file.getName() + "/", pages);
+            } else if (file.getName().endsWith(".jsp")) {
+                pages.add(prefix + file.getName());
+            }
+        }
+    }
+
+    private void collectDependencies(File file, Set<File> collected) throws IOException {
+        for (File dependency : getDirectDependencies(file)) {
+            if (collected.add(dependency) && dependency.isFile()) {
+                collectDependencies(dependency, collected);
+            }
+        }
+    }
+
+    private List<File> getDirectDependencies(File file) throws IOException {
+        List<File> direct = directDependencies.get(file);
+        if (direct != null) {
+            return direct;
+        }
+        direct = new ArrayList<File>();
+        if (file.isFile()) {
+            // the directives are ASCII, so the encoding of the page does not matter
+            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+            Matcher include = INCLUDE.matcher(content);
+            while (include.find()) {
+                direct.add(resolve(file, include.group(1)));
+            }
+            Matcher tagDirectory = TAG_DIRECTORY.matcher(content);
+            while (tagDirectory.find()) {
+                File directory = resolve(file, tagDirectory.group(1));
+                // the directory itself stands for the list of its tag files
+                direct.add(directory);
+                addTagFiles(directory, direct);
+            }
+        }
+        directDependencies.put(file, direct);
+        return direct;
+    }
+
+    private void addTagFiles(File directory, List<File> tagFiles) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addTagFiles(file, tagFiles);
+            } else if (file.getName().endsWith(".tag") || file.getName().endsWith(".tagx")) {
+                tagFiles.add(file);
+            }
+        }
+    }
+
+    private File resolve(File file, String path) {
+        return path.startsWith("/") ? new File(sourceDirectory, path.substring(1))
+                : new File(file.getParentFile(), path);
+    }
+
+    private String getFingerprint(String page, Set<File> pageDependencies) {
+        StringBuilder fingerprint = new StringBuilder();
+        appendFingerprint(fingerprint, new File(sourceDirectory, page));
+        for (File dependency : pageDependencies) {
+            appendFingerprint(fingerprint, dependency);
+        }
+        return ChecksumUtil.sha256(fingerprint.toString());
+    }
+
+    private static void appendFingerprint(StringBuilder fingerprint, File file) {
+        fingerprint.append(file.getAbsolutePath()).append(':');
+        if (file.isDirectory()) {
+            String[] names = file.list();
+            if (names != null) {
+                Set<String> sorted = new TreeSet<String>();
+                Collections.addAll(sorted, names);
+                fingerprint.append(sorted);
+            }
+        } else if (file.isFile()) {
+            fingerprint.append(file.length()).append(':').append(file.lastModified());
+        } else {
+            fingerprint.append("missing");
+        }
+        fingerprint.append('\n');
+    }
+
+    private String getWebInfFingerprint() {
+        StringBuilder fingerprint = new StringBuilder();
+        appendWebInfFingerprint(new File(sourceDirectory, "WEB-INF"), fingerprint);
+        return fingerprint.toString();
+    }
+
+    private static void appendWebInfFingerprint(File directory, StringBuilder fingerprint) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Set<File> sorted = new TreeSet<File>();
+        Collections.addAll(sorted, files);
+        for (File file : sorted) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                appendWebInfFingerprint(file, fingerprint);
+            } else if (name.equals("web.xml") || name.endsWith(".tld") || name.endsWith(".jar")) {
+                appendFingerprint(fingerprint, file);
+            }
+        }
+    }
+
+    private static void stage(File source, File target, Set<File> included) throws IOException {
+        File[] files = source.listFiles();
+        if (files == null) {
+            return;
+        }
+        Files.createDirectories(target.toPath());
+        for (File file : files) {
+            File staged = new File(target, file.getName());
+            if (file.isDirectory()) {
+                stage(file, staged, included);
+            } else if (!file.getName().endsWith(".jsp") || included.contains(normalize(file))) {
+                try {
+                    Files.createLink(staged.toPath(), file.toPath());
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(file.toPath(), staged.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    private static File normalize(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+    private static void copyClasses(File source, File target) throws IOException {
+        File[] files = source.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            File copy = new File(target, file.getName());
+            if (file.isDirectory()) {
+                copyClasses(file, copy);
+            } else if (file.getName().endsWith(".class")) {
+                Files.createDirectories(target.toPath());
+                Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Follows a Liberty log file such as messages.log and completes registered
+ * waiters as soon as a line matching their regular expression is written.
+ *
+ * The file is read incrementally from the last offset instead of being re-read
+ * in full on every check. A file system watch on the log directory is used to
+ * pick up new content promptly, with a short poll interval as a fallback for
+ * platforms where watch events are slow or unavailable. If the file shrinks,
+ * for example because the log rolled over, it is read again from the start.
+ *
+ * Like {@code ServerTask.waitForStringInLog}, the log is read from the
+ * beginning, so lines written before the watcher was created are matched too,
+ * unless the waiters are registered with an offset to match from. Nothing is
+ * read while no waiter is registered, and a waiter registered after lines were
+ * read makes the watcher read the log again from the offset of the waiter, so
+ * every waiter is checked against every line from its offset.
+ */
+public class LogWatcher implements Closeable {
+
+    private static final long POLL_INTERVAL = 100;
+
+    private final File logFile;
+    private final List<Waiter> waiters = new ArrayList<Waiter>();
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private long offset = 0;
+    private long lineOffset = 0;
+    private boolean skipLine = false;
+    // the smallest offset of the waiters registered since the last read, or -1
+    private long rewindOffset = -1;
+    private Thread readerThread;
+    private volatile boolean closed = false;
+
+    public LogWatcher(File logFile) {
+        this.logFile = logFile;
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Register a waiter for a line matching the regular expression.
+     *
+     * @param regexp the regular expression to find in a line of the log
+     * @return a future that completes with the first matching line
+     */
+    public CompletableFuture<String> watch(String regexp) {
+        return watch(Collections.singletonList(regexp)).get(regexp);
+    }
+
+    /**
+     * Register waiters for lines matching each of the regular expressions.
+     *
+     * @param regexps the regular expressions to find in lines of the log
+     * @return a future per regular expression that completes with the first
+     *         matching line, in the iteration order of the given collection
+     */
+    public Map<String, CompletableFuture<String>> watch(Collection<String> regexps) {
+        return watch(regexps, 0);
+    }
+
+    /**
+     * Register waiters for lines matching each of the regular expressions that
+     * start at or after an offset of the log, such as the length of the log
+     * before an operation. All lines match again once the log rolls over.
+     *
+     * @param regexps    the regular expressions to find in lines of the log
+     * @param fromOffset the offset of the log to match lines from
+     * @return a future per regular expression that completes with the first
+     *         matching line, in the iteration order of the given collection
+     */
+    public synchronized Map<String, CompletableFuture<String>> watch(Collection<String> regexps, long fromOffset) {
+        if (closed) {
+            throw new IllegalStateException("The watcher for " + logFile + " is closed.");
+        }
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<String, CompletableFuture<String>>();
+        for (String regexp : regexps) {
+            Waiter waiter = new Waiter(regexp, fromOffset);
+            waiters.add(waiter);
+            futures.put(regexp, waiter.future);
+        }
+        rewindOffset = rewindOffset < 0 ? fromOffset : Math.min(rewindOffset, fromOffset);
+        if (readerThread == null) {
+            readerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    follow();
+                }
+            }, "Liberty log watcher: " + logFile.getName());
+            readerThread.setDaemon(true);
+            readerThread.start();
+        }
+        notifyAll();
+        return futures;
+    }
+
+    /**
+     * Wait for a line matching the regular expression.
+     *
+     * @param regexp  the regular expression to find in a line of the log
+     * @param timeout the time to wait in milliseconds
+     * @return the matching line, or null if no line matched within the timeout
+     */
+    public String waitFor(String regexp, long timeout) {
+        return waitFor(Collections.singletonList(regexp), timeout).get(regexp);
+    }
+
+    /**
+     * Wait for lines matching each of the regular expressions. All expressions
+     * are watched at the same time and share the same timeout.
+     *
+     * @param regexps the regular expressions to find in lines of the log
+     * @param timeout the total time to wait in milliseconds
+     * @return the matching line per regular expression, with a null value for
+     *         each expression that did not match within the timeout
+     */
+    public Map<String, String> waitFor(Collection<String> regexps, long timeout) {
+        long endTime = System.currentTimeMillis() + timeout;
+        Map<String, CompletableFuture<String>> futures = watch(regexps);
+        Map<String, String> results = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, CompletableFuture<String>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), await(entry.getValue(), endTime - System.currentTimeMillis()));
+        }
+        return results;
+    }
+
+    private static String await(Future<String> future, long timeout) {
+        try {
+            if (future.isDone() || timeout > 0) {
+                return future.get(Math.max(timeout, 0), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // no match
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Waiter waiter : waiters) {
+            waiter.future.cancel(false);
+        }
+        waiters.clear();
+        notifyAll();
+        if (readerThread != null) {
+            readerThread.interrupt();
+        }
+    }
+
+    private void follow() {
+        WatchService watchService = createWatchService();
+        try {
+            while (!closed) {
+                synchronized (this) {
+                    // nothing to match against, wait until a waiter is registered
+                    while (!closed && waiters.isEmpty()) {
+                        wait();
+                    }
+                }
+                if (closed) {
+                    break;
+                }
+                readNewLines();
+                if (watchService != null) {
+                    WatchKey key = watchService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                } else {
+                    Thread.sleep(POLL_INTERVAL);
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } finally {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private WatchService createWatchService() {
+        File logDir = logFile.getAbsoluteFile().getParentFile();
+        if (logDir == null || !logDir.isDirectory()) {
+            // the log directory is not created yet, rely on polling
+            return null;
+        }
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            Path dir = logDir.toPath();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private void readNewLines() {
+        if (!logFile.isFile()) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            long length = file.length();
+            if (length < offset) {
+                // the log was rolled over or truncated
+                offset = 0;
+                lineOffset = 0;
+                skipLine = false;
+                partialLine.reset();
+                resetFromOffsets();
+            }
+            rewind(file, takeRewindOffset());
+            if (length == offset) {
+                return;
+            }
+            file.seek(offset);
+            byte[] buffer = new byte[8192];
+            int read;
+            while (offset < length && (read = file.read(buffer, 0, (int) Math.min(buffer.length, length - offset))) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        partialLine.write(buffer, start, i - start);
+                        if (!skipLine) {
+                            matchLine(new String(partialLine.toByteArray(), StandardCharsets.UTF_8), lineOffset);
+                        }
+                        skipLine = false;
+                        partialLine.reset();
+                        lineOffset = offset + i + 1;
+                        start = i + 1;
+                    }
+                }
+                partialLine.write(buffer, start, read - start);
+                offset += read;
+            }
+        } catch (IOException e) {
+            // the log may be in the middle of a roll over, try again on the next check
+        }
+    }
+
+    private synchronized long takeRewindOffset() {
+        long rewind = rewindOffset;
+        rewindOffset = -1;
+        return rewind;
+    }
+
+    /**
+     * Read the log again from the offset of a newly registered waiter if that part
+     * of the log was already read. The line being read is never skipped, and if
+     * the offset is in the middle of an earlier line, the rest of that line is not
+     * matched.
+     */
+    private void rewind(RandomAccessFile file, long rewind) throws IOException {
+        if (rewind < 0 || rewind >= offset) {
+            return;
+        }
+        long target = Math.min(rewind, lineOffset);
+        skipLine = false;
+        if (target > 0 && target < lineOffset) {
+            file.seek(target - 1);
+            skipLine = file.read() != '\n';
+        }
+        offset = target;
+        lineOffset = target;
+        partialLine.reset();
+    }
+
+    private synchronized void resetFromOffsets() {
+        for (Waiter waiter : waiters) {
+            waiter.fromOffset = 0;
+        }
+    }
+
+    private synchronized void matchLine(String line, long lineStart) {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        for (Waiter waiter : new ArrayList<Waiter>(waiters)) {
+            if (lineStart >= waiter.fromOffset && waiter.pattern.matcher(line).find()) {
+                waiter.future.complete(line.trim());
+                waiters.remove(waiter);
+            }
+        }
+    }
+
+    private static class Waiter {
+        private final Pattern pattern;
+        private long fromOffset;
+        private final CompletableFuture<String> future = new CompletableFuture<String>();
+
+        private Waiter(String regexp, long fromOffset) {
+            this.pattern = Pattern.compile(regexp);
+            this.fromOffset = fromOffset;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Caches the MavenProject objects built by dev mode for the lifetime of the dev
+ * mode session. A cached project is only reused if none of the inputs that went
+ * into building it have changed. The inputs are the pom.xml itself, every pom.xml
+ * in its parent chain, the pom.xml of every reactor module it depends on, the
+ * files of the SNAPSHOT dependencies it resolved, and the local repository,
+ * active profiles and user properties of the building request.
+ *
+ * Each pom.xml is hashed after being parsed and re-serialized, so whitespace or
+ * comment-only edits do not invalidate the cached project.
+ *
+ * Callers get a copy of the cached project with copies of its resolved
+ * artifacts, so that changes they make, such as pointing the artifacts of
+ * reactor modules at their output directories, do not leak into the cache.
+ */
+public class MavenProjectCache {
+
+    private final ProjectBuilder projectBuilder;
+    private final Log log;
+    private final Map<String, CachedProject> cache = new HashMap<String, CachedProject>();
+
+    public MavenProjectCache(ProjectBuilder projectBuilder, Log log) {
+        this.projectBuilder = projectBuilder;
+        this.log = log;
+    }
+
+    /**
+     * Get the project for the given build file, building it only if it is not
+     * cached or if any of its inputs have changed since it was cached.
+     *
+     * @param buildFile       the pom.xml of the project
+     * @param request         the project building request, dependencies will be
+     *                        resolved
+     * @param reactorProjects the reactor projects whose pom.xml files should be
+     *                        tracked as inputs if the project depends on them
+     * @return a copy of the project for the build file
+     * @throws ProjectBuildingException if the project could not be built
+     */
+    public synchronized MavenProject getProject(File buildFile, ProjectBuildingRequest request,
+            Collection<MavenProject> reactorProjects) throws ProjectBuildingException {
+        String key = getKey(buildFile);
+        String requestFingerprint = getRequestFingerprint(request);
+
+        CachedProject cached = cache.get(key);
+        if (cached != null && cached.isCurrent(requestFingerprint)) {
+            log.debug("Reusing cached project for " + buildFile);
+            return copy(cached.project);
+        }
+
+        MavenProject project = projectBuilder.build(buildFile, request.setResolveDependencies(true)).getProject();
+        cache.put(key, new CachedProject(project, getInputs(project, reactorProjects), getSnapshotInputs(project),
+                requestFingerprint));
+        log.debug("Built project for " + buildFile + (cached != null ? " (inputs changed)" : ""));
+        return copy(project);
+    }
+
+    static MavenProject copy(MavenProject project) {
+        MavenProject copy = project.clone();
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+        for (Artifact artifact : project.getArtifacts()) {
+            artifacts.add(ArtifactUtils.copyArtifact(artifact));
+        }
+        copy.setArtifacts(artifacts);
+        return copy;
+    }
+
+    private Map<File, String> getInputs(MavenProject project, Collection<MavenProject> reactorProjects) {
+        Map<File, String> inputs = new LinkedHashMap<File, String>();
+        // the pom.xml and its parent chain
+        for (MavenProject p = project; p != null; p = p.getParent()) {
+            if (p.getFile() != null) {
+                inputs.put(p.getFile(), getPomHash(p.getFile()));
+            }
+        }
+        // reactor modules that this project depends on
+        if (reactorProjects != null) {
+            Map<String, Artifact> artifactMap = project.getArtifactMap();
+            for (MavenProject reactorProject : reactorProjects) {
+                if (reactorProject.getFile() != null
+                        && artifactMap.containsKey(reactorProject.getGroupId() + ":" + reactorProject.getArtifactId())) {
+                    inputs.put(reactorProject.getFile(), getPomHash(reactorProject.getFile()));
+                }
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * A SNAPSHOT dependency can be installed again in the local repository without
+     * any pom.xml change, so the resolved files of SNAPSHOT dependencies are inputs
+     * too. Reactor modules resolved to their output directories are skipped, as
+     * their pom.xml files are already inputs.
+     */
+    private static Map<File, String> getSnapshotInputs(MavenProject project) {
+        Map<File, String> inputs = new LinkedHashMap<File, String>();
+        for (Artifact artifact : project.getArtifacts()) {
+            File file = artifact.getFile();
+            if (artifact.isSnapshot() && file != null && !file.isDirectory()) {
+                inputs.put(file, getFileStamp(file));
+            }
+        }
+        return inputs;
+    }
+
+    static String getFileStamp(File file) {
+        return file.isFile() ? file.lastModified() + ":" + file.length() : null;
+    }
+
+    private static String getKey(File buildFile) {
+        try {
+            return buildFile.getCanonicalPath();
+        } catch (IOException e) {
+            return buildFile.getAbsolutePath();
+        }
+    }
+
+    private static String getRequestFingerprint(ProjectBuildingRequest request) {
+        StringBuilder sb = new StringBuilder();
+        if (request.getLocalRepository() != null) {
+            sb.append(request.getLocalRepository().getBasedir());
+        }
+        sb.append('|');
+        sb.append(request.getActiveProfileIds()).append('|');
+        sb.append(request.getInactiveProfileIds()).append('|');
+        sb.append(sortedProperties(request.getUserProperties()));
+        return ChecksumUtil.sha256(sb.toString());
+    }
+
+    private static Map<String, String> sortedProperties(Properties props) {
+        Map<String, String> sorted = new TreeMap<String, String>();
+        if (props != null) {
+            for (String name : props.stringPropertyNames()) {
+                sorted.put(name, props.getProperty(name));
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Hash the model of the pom.xml rather than its raw bytes so that formatting
+     * changes are ignored. Falls back to the raw bytes if the pom.xml cannot be
+     * parsed, and returns null if the file does not exist.
+     */
+    static String getPomHash(File pom) {
+        if (!pom.isFile()) {
+            return null;
+        }
+        try (Reader reader = new FileReader(pom)) {
+            Model model = new MavenXpp3Reader().read(reader, false);
+            StringWriter writer = new StringWriter();
+            new MavenXpp3Writer().write(writer, model);
+            return ChecksumUtil.sha256(writer.toString());
+        } catch (IOException | XmlPullParserException e) {
+            try {
+                return ChecksumUtil.sha256(Files.readAllBytes(pom.toPath()));
+            } catch (IOException ioe) {
+                return null;
+            }
+        }
+    }
+
+    private static class CachedProject {
+        private final MavenProject project;
+        private final Map<File, String> inputs;
+        private final Map<File, String> snapshotInputs;
+        private final String requestFingerprint;
+
+        private CachedProject(MavenProject project, Map<File, String> inputs, Map<File, String> snapshotInputs,
+                String requestFingerprint) {
+            this.project = project;
+            this.inputs = inputs;
+            this.snapshotInputs = snapshotInputs;
+            this.requestFingerprint = requestFingerprint;
+        }
+
+        private boolean isCurrent(String currentRequestFingerprint) {
+            if (!requestFingerprint.equals(currentRequestFingerprint)) {
+                return false;
+            }
+            for (Map.Entry<File, String> input : inputs.entrySet()) {
+                String hash = getPomHash(input.getKey());
+                if (hash == null || !hash.equals(input.getValue())) {
+                    return false;
+                }
+            }
+            for (Map.Entry<File, String> input : snapshotInputs.entrySet()) {
+                String stamp = getFileStamp(input.getKey());
+                if (stamp == null || !stamp.equals(input.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Compiles the sources of several modules of a multi-module project
+ * concurrently, in the order of the module dependency graph.
+ *
+ * The graph is built once from the reactor. When a set of modules has to be
+ * recompiled, each module starts as soon as the modules it depends on have
+ * compiled successfully, and independent modules compile at the same time. A
+ * module is not compiled if a module it depends on failed.
+ *
+ * The results are kept until the compilation of the same module is asked for,
+ * and are only used if the sources, class path and options are still the same
+ * and no source changed since the compilation was scheduled.
+ *
+ * The errors and warnings of these compilations are collected instead of being
+ * written out, so that the output of modules compiling at the same time does
+ * not interleave. A module that failed is compiled again by the caller, which
+ * reports its errors once.
+ */
+public class ModuleCompileScheduler {
+
+    /**
+     * A compilation of the sources of one module.
+     */
+    public static class Compilation {
+        private final File module;
+        private final File outputDirectory;
+        private final Set<File> sources;
+        private final Set<File> classPath;
+        private final List<String> options;
+        private final Map<File, Long> sourceTimestamps = new HashMap<File, Long>();
+        private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        private CompletableFuture<Boolean> result;
+
+        /**
+         * @param module          the build file of the module
+         * @param outputDirectory the directory to write class files to
+         * @param sources         the Java source files
+         * @param classPath       the class path entries
+         * @param options         the compiler options
+         */
+        public Compilation(File module, File outputDirectory, Collection<File> sources, Collection<File> classPath,
+                List<String> options) {
+            this.module = module;
+            this.outputDirectory = outputDirectory.getAbsoluteFile();
+            this.sources = new HashSet<File>(sources);
+            this.classPath = new HashSet<File>(classPath);
+            this.options = new ArrayList<String>(options);
+            for (File source : sources) {
+                sourceTimestamps.put(source, source.lastModified());
+            }
+        }
+
+        private boolean matches(Collection<File> sources, Collection<File> classPath, List<String> options) {
+            if (!this.sources.equals(new HashSet<File>(sources)) || !this.classPath.equals(new HashSet<File>(classPath))
+                    || !this.options.equals(options)) {
+                return false;
+            }
+            for (Map.Entry<File, Long> entry : sourceTimestamps.entrySet()) {
+                if (entry.getKey().lastModified() != entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Map<File, Set<File>> prerequisites;
+    private final IncrementalJavaCompiler compiler;
+    private final Log log;
+    private final ExecutorService executor;
+    private final Map<File, Compilation> compilations = new HashMap<File, Compilation>();
+
+    /**
+     * @param prerequisites the build files of the modules each module depends on,
+     *                      keyed by the build file of the module
+     * @param compiler      the compiler
+     * @param parallelism   the number of modules to compile at the same time
+     * @param log           the log
+     */
+    public ModuleCompileScheduler(Map<File, Set<File>> prerequisites, IncrementalJavaCompiler compiler, int parallelism,
+            Log log) {
+        this.prerequisites = prerequisites;
+        this.compiler = compiler;
+        this.log = log;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "liberty-dev-module-compile");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Start compiling the modules. Compilations that were scheduled before and
+     * not used yet are discarded.
+     *
+     * @param batch the compilations, at most one for each module
+     */
+    public synchronized void schedule(List<Compilation> batch) {
+        clear();
+        Map<File, Compilation> byModule = new HashMap<File, Compilation>();
+        for (Compilation compilation : batch) {
+            byModule.put(compilation.module, compilation);
+        }
+        // start upstream modules first so that their futures exist for their dependents
+        List<Compilation> pending = new ArrayList<Compilation>(batch);
+        while (!pending.isEmpty()) {
+            boolean progress = false;
+            for (int i = 0; i < pending.size(); i++) {
+                Compilation compilation = pending.get(i);
+                List<CompletableFuture<Boolean>> upstream = new ArrayList<CompletableFuture<Boolean>>();
+                boolean ready = true;
+                for (File prerequisite : getPrerequisites(compilation.module)) {
+                    Compilation upstreamCompilation = byModule.get(prerequisite);
+                    if (upstreamCompilation == null) {
+                        continue;
+                    }
+                    if (upstreamCompilation.result == null) {
+                        ready = false;
+                        break;
+                    }
+                    upstream.add(upstreamCompilation.result);
+                }
+                if (ready) {
+                    start(compilation, upstream);
+                    compilations.put(compilation.outputDirectory, compilation);
+                    pending.remove(i--);
+                    progress = true;
+                }
+            }
+            if (!progress) {
+                log.debug("The module dependencies form a cycle, not compiling " + pending.size() + " modules ahead");
+                break;
+            }
+        }
+    }
+
+    /**
+     * Get the result of a scheduled compilation, waiting for it to finish.
+     *
+     * @return true if the same sources were compiled successfully into the output
+     *         directory with the same class path and options, or null if they
+     *         still need to be compiled, including when the compilation failed
+     */
+    public Boolean take(File outputDirectory, Collection<File> sources, Collection<File> classPath,
+            List<String> options) {
+        Compilation compilation;
+        synchronized (this) {
+            compilation = compilations.remove(outputDirectory.getAbsoluteFile());
+        }
+        if (compilation == null) {
+            return null;
+        }
+        // wait even if it does not match, so that it does not write classes after the caller's compilation
+        Boolean result = join(compilation);
+        if (Boolean.FALSE.equals(result)) {
+            log.debug("The parallel compilation of " + compilation.module + " had "
+                    + compilation.diagnostics.getDiagnostics().size() + " errors or warnings");
+        }
+        if (!Boolean.TRUE.equals(result) || !compilation.matches(sources, classPath, options)) {
+            return null;
+        }
+        log.debug("Using the parallel compilation of " + compilation.module);
+        return result;
+    }
+
+    /**
+     * Discard the compilations that were not used, waiting for the running ones
+     * to finish.
+     */
+    public synchronized void clear() {
+        for (Compilation compilation : compilations.values()) {
+            join(compilation);
+        }
+        compilations.clear();
+    }
+
+    /**
+     * Stop the compilations that are running and drop the results.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Set<File> getPrerequisites(File module) {
+        Set<File> modules = prerequisites.get(module);
+        return modules == null ? Collections.<File>emptySet() : modules;
+    }
+
+    private void start(final Compilation compilation, final List<CompletableFuture<Boolean>> upstream) {
+        CompletableFuture<Void> upstreamDone = CompletableFuture
+                .allOf(upstream.toArray(new CompletableFuture<?>[upstream.size()]));
+        compilation.result = upstreamDone.thenApplyAsync(new Function<Void, Boolean>() {
+            @Override
+            public Boolean apply(Void ignored) {
+                for (CompletableFuture<Boolean> upstreamResult : upstream) {
+                    if (!Boolean.TRUE.equals(upstreamResult.join())) {
+                        log.debug("Not compiling " + compilation.module + " because a module it depends on failed");
+                        return null;
+                    }
+                }
+                try {
+                    log.debug("Compiling " + compilation.sources.size() + " sources of " + compilation.module);
+                    return compiler.compile(compilation.sources, compilation.classPath, compilation.outputDirectory,
+                            compilation.options, compilation.diagnostics);
+                } catch (Exception e) {
+                    log.debug("Could not compile " + compilation.module + " ahead: " + e.getMessage());
+                    return null;
+                }
+            }
+        }, executor);
+    }
+
+    private static Boolean join(Compilation compilation) {
+        try {
+            return compilation.result.join();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
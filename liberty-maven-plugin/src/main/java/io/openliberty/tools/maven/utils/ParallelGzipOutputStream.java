@@ -0,0 +1,126 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A gzip stream that compresses blocks of its content on several threads. Each
+ * block is written as a gzip member of its own, and a sequence of members is a
+ * valid gzip file that decompresses to the concatenated content.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+
+    /**
+     * @param out      the stream to write the compressed content to
+     * @param executor the executor that compresses the blocks
+     * @param threads  the number of threads of the executor, which bounds the
+     *                 number of blocks held in memory
+     */
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int threads) {
+        this.out = out;
+        this.executor = executor;
+        this.maxPending = Math.max(2, threads * 2);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[blockLength++] = (byte) b;
+        if (blockLength == BLOCK_SIZE) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int count = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compress the remaining content, write all blocks and close the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (blockLength > 0 || pending.isEmpty()) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeNextBlock();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] content = Arrays.copyOf(block, blockLength);
+        blockLength = 0;
+        pending.add(executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 65536)) {
+                    gzip.write(content);
+                }
+                return compressed.toByteArray();
+            }
+        }));
+        while (pending.size() >= maxPending) {
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not compress a block of the archive", e.getCause());
+        }
+    }
+}
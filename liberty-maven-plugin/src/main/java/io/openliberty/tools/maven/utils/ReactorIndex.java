@@ -0,0 +1,160 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Looks up the projects of a reactor build by their coordinates and base
+ * directories in constant time, instead of scanning the reactor projects for
+ * every dependency of every module.
+ *
+ * The index is built once for the reactor projects list of a session and
+ * shared by the mojos that run in the session.
+ */
+public class ReactorIndex {
+
+    private static volatile ReactorIndex current;
+
+    private final List<MavenProject> reactorProjects;
+    private final int size;
+    private final Map<String, MavenProject> projectsByCoordinates = new HashMap<String, MavenProject>();
+    private final Map<File, MavenProject> projectsByBasedir = new HashMap<File, MavenProject>();
+    // computed on first use, also for projects that are not in the reactor
+    private final Map<MavenProject, File> basedirs = Collections
+            .synchronizedMap(new IdentityHashMap<MavenProject, File>());
+    private final Map<MavenProject, Set<File>> moduleDirectories = Collections
+            .synchronizedMap(new IdentityHashMap<MavenProject, Set<File>>());
+
+    private ReactorIndex(List<MavenProject> reactorProjects) {
+        this.reactorProjects = reactorProjects;
+        this.size = reactorProjects.size();
+        for (MavenProject project : reactorProjects) {
+            // the first matching project wins, as with a scan of the reactor projects
+            String key = getKey(project.getGroupId(), project.getArtifactId(), project.getVersion());
+            if (!projectsByCoordinates.containsKey(key)) {
+                projectsByCoordinates.put(key, project);
+            }
+            File basedir = getCanonicalBasedir(project);
+            if (basedir != null && !projectsByBasedir.containsKey(basedir)) {
+                projectsByBasedir.put(basedir, project);
+            }
+        }
+    }
+
+    /**
+     * @param reactorProjects the reactor projects of the session
+     * @return the index of the reactor projects, built when the list is first
+     *         seen
+     */
+    public static ReactorIndex get(List<MavenProject> reactorProjects) {
+        ReactorIndex index = current;
+        if (index == null || index.reactorProjects != reactorProjects || index.size != reactorProjects.size()) {
+            synchronized (ReactorIndex.class) {
+                index = current;
+                if (index == null || index.reactorProjects != reactorProjects
+                        || index.size != reactorProjects.size()) {
+                    index = new ReactorIndex(reactorProjects);
+                    current = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param artifact the artifact
+     * @return the reactor project with the group id, artifact id and base version
+     *         of the artifact, or null if it is not built by the reactor
+     */
+    public MavenProject getProject(Artifact artifact) {
+        return projectsByCoordinates.get(getKey(artifact.getGroupId(), artifact.getArtifactId(),
+                artifact.getBaseVersion()));
+    }
+
+    /**
+     * @param basedir the base directory of a module
+     * @return the reactor project in the directory, or null if there is none
+     */
+    public MavenProject getProject(File basedir) {
+        return projectsByBasedir.get(getCanonicalFile(basedir));
+    }
+
+    /**
+     * @return whether the sub module is one of the modules of the top module
+     */
+    public boolean isSubModule(MavenProject potentialTopModule, MavenProject potentialSubModule) {
+        File basedir = getCanonicalBasedir(potentialSubModule);
+        return basedir != null && getModuleDirectories(potentialTopModule).contains(basedir);
+    }
+
+    /**
+     * @return the canonical directories of the modules of the project
+     */
+    public Set<File> getModuleDirectories(MavenProject project) {
+        Set<File> directories = moduleDirectories.get(project);
+        if (directories == null) {
+            directories = new HashSet<File>();
+            List<String> modules = project.getModules();
+            if (modules != null && project.getBasedir() != null) {
+                for (String module : modules) {
+                    directories.add(getCanonicalFile(new File(project.getBasedir(), module)));
+                }
+            }
+            directories = Collections.unmodifiableSet(directories);
+            moduleDirectories.put(project, directories);
+        }
+        return directories;
+    }
+
+    /**
+     * @return the canonical base directory of the project, or null if it has none
+     */
+    public File getCanonicalBasedir(MavenProject project) {
+        if (project.getBasedir() == null) {
+            return null;
+        }
+        File basedir = basedirs.get(project);
+        if (basedir == null) {
+            basedir = getCanonicalFile(project.getBasedir());
+            basedirs.put(project, basedir);
+        }
+        return basedir;
+    }
+
+    private static File getCanonicalFile(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static String getKey(String groupId, String artifactId, String version) {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+}
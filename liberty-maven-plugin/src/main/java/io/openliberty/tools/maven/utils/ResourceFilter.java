@@ -0,0 +1,215 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.interpolation.InterpolationPostProcessor;
+import org.codehaus.plexus.interpolation.PrefixAwareRecursionInterceptor;
+import org.codehaus.plexus.interpolation.PrefixedObjectValueSource;
+import org.codehaus.plexus.interpolation.PropertiesBasedValueSource;
+import org.codehaus.plexus.interpolation.multi.MultiDelimiterInterpolatorFilterReader;
+import org.codehaus.plexus.interpolation.multi.MultiDelimiterStringSearchInterpolator;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Copies files with Maven resource filtering applied, the way maven-filtering
+ * does for the resources goal and the WAR plugin.
+ *
+ * Expressions are resolved from the properties of the filter files, the
+ * project, system and user properties, and the project, session and settings
+ * objects.
+ */
+public class ResourceFilter {
+
+    public static final List<String> DEFAULT_NON_FILTERED_EXTENSIONS = Arrays.asList("jpg", "jpeg", "gif", "bmp",
+            "png");
+    public static final List<String> DEFAULT_DELIMITERS = Arrays.asList("${*}", "@");
+
+    private static final List<String> PROJECT_PREFIXES = Arrays.asList("project.", "pom.");
+    private static final Pattern WINDOWS_PATH = Pattern.compile("^[a-zA-Z]:\\\\.*");
+
+    private final Log log;
+    private final Set<String> nonFilteredExtensions = new HashSet<String>();
+    private final Charset encoding;
+    private final LinkedHashSet<String> delimiters;
+    private final String escapeString;
+    private final MultiDelimiterStringSearchInterpolator interpolator;
+
+    /**
+     * @param project               the project
+     * @param session               the session, for system and user properties
+     *                              and session expressions, may be null
+     * @param filterFiles           the filter property files, relative to the
+     *                              project base directory or absolute
+     * @param delimiters            the expression delimiters
+     * @param escapeString          the string that escapes an expression, may be
+     *                              null
+     * @param escapeWindowsPaths    whether to escape backslashes in values that
+     *                              are Windows paths
+     * @param nonFilteredExtensions the extensions of files that are copied
+     *                              without filtering, besides the default ones
+     * @param encoding              the encoding of the filtered files, or null for
+     *                              the platform encoding
+     * @param log                   the log
+     */
+    public ResourceFilter(MavenProject project, MavenSession session, List<String> filterFiles,
+            Collection<String> delimiters, String escapeString, boolean escapeWindowsPaths,
+            Collection<String> nonFilteredExtensions, String encoding, Log log) throws IOException {
+        this.log = log;
+        this.delimiters = new LinkedHashSet<String>(delimiters);
+        this.escapeString = escapeString;
+        this.encoding = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        this.nonFilteredExtensions.addAll(DEFAULT_NON_FILTERED_EXTENSIONS);
+        for (String extension : nonFilteredExtensions) {
+            this.nonFilteredExtensions.add(extension.toLowerCase(Locale.ROOT));
+        }
+
+        // same precedence as maven-filtering: project properties over the properties
+        // of filter files, then system properties, including env.*, and user
+        // properties over all of them
+        Properties filterProperties = new Properties();
+        for (String filter : filterFiles) {
+            File filterFile = new File(filter);
+            if (!filterFile.isAbsolute()) {
+                filterFile = new File(project.getBasedir(), filter);
+            }
+            try (InputStream in = new FileInputStream(filterFile)) {
+                filterProperties.load(in);
+            }
+        }
+        filterProperties.putAll(project.getProperties());
+        if (session != null) {
+            filterProperties.putAll(session.getSystemProperties());
+            filterProperties.putAll(session.getUserProperties());
+        }
+
+        interpolator = new MultiDelimiterStringSearchInterpolator();
+        interpolator.setDelimiterSpecs(this.delimiters);
+        interpolator.setEscapeString(escapeString);
+        interpolator.addValueSource(new PropertiesBasedValueSource(filterProperties));
+        interpolator.addValueSource(new PrefixedObjectValueSource(PROJECT_PREFIXES, project, true));
+        if (session != null) {
+            interpolator.addValueSource(new PrefixedObjectValueSource("session.", session));
+            if (session.getSettings() != null) {
+                interpolator.addValueSource(new PrefixedObjectValueSource("settings.", session.getSettings()));
+            }
+        }
+        if (escapeWindowsPaths) {
+            interpolator.addPostProcessor(new InterpolationPostProcessor() {
+                @Override
+                public Object execute(String expression, Object value) {
+                    // escape the path unless it is escaped already
+                    if (value instanceof String && WINDOWS_PATH.matcher((String) value).matches()
+                            && !((String) value).contains("\\\\")) {
+                        return ((String) value).replace("\\", "\\\\");
+                    }
+                    return value;
+                }
+            });
+        }
+        interpolator.setCacheAnswers(true);
+    }
+
+    /**
+     * Copy a file, filtering it if asked to and if its extension is not one of
+     * the non-filtered extensions.
+     *
+     * @param file      the source file
+     * @param target    the target file, its parent directories are created
+     * @param filtering whether to filter the file
+     */
+    public void copy(File file, File target, boolean filtering) throws IOException {
+        Files.createDirectories(target.getParentFile().toPath());
+        if (filtering && !nonFilteredExtensions.contains(getExtension(file))) {
+            log.debug("Filtering " + file + " to " + target);
+            MultiDelimiterInterpolatorFilterReader reader = new MultiDelimiterInterpolatorFilterReader(
+                    new InputStreamReader(new FileInputStream(file), encoding), interpolator,
+                    new PrefixAwareRecursionInterceptor(PROJECT_PREFIXES, true));
+            reader.setDelimiterSpecs(delimiters);
+            reader.setEscapeString(escapeString);
+            reader.setInterpolateWithPrefixPattern(false);
+            try (Reader in = reader;
+                    Writer out = new OutputStreamWriter(Files.newOutputStream(target.toPath()), encoding)) {
+                char[] buffer = new char[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            }
+        } else {
+            log.debug("Copying " + file + " to " + target);
+            Files.copy(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return the trimmed value of a plugin configuration parameter, or null if it
+     *         is not set
+     */
+    public static String getConfigValue(Xpp3Dom config, String name) {
+        Xpp3Dom child = config == null ? null : config.getChild(name);
+        if (child == null || child.getValue() == null || child.getValue().trim().isEmpty()) {
+            return null;
+        }
+        return child.getValue().trim();
+    }
+
+    /**
+     * @return the trimmed values of a list plugin configuration parameter
+     */
+    public static List<String> getConfigValues(Xpp3Dom config, String name) {
+        List<String> values = new ArrayList<String>();
+        Xpp3Dom child = config == null ? null : config.getChild(name);
+        if (child != null) {
+            for (Xpp3Dom value : child.getChildren()) {
+                if (value.getValue() != null && !value.getValue().trim().isEmpty()) {
+                    values.add(value.getValue().trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String getExtension(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
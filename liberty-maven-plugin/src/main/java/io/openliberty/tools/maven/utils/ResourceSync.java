@@ -0,0 +1,283 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.SelectorUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Copies single changed resource files to the output directory the way the
+ * resources goal of the maven-resources-plugin would, so that a change to one
+ * resource does not process every resource of the project.
+ *
+ * Each file is mapped to its target path through the resource directories,
+ * target paths and includes and excludes of the project, and filtered with the
+ * properties, filter files, delimiters and escape string of the resources goal
+ * configuration when its resource is filtered. When a file is gone, its target
+ * file is deleted, or replaced with the file of another resource that maps to
+ * the same target path. A rename is a delete followed by a create, and the
+ * targets of a deleted directory are deleted file by file.
+ *
+ * Configurations this class does not reproduce, such as file name filtering or
+ * custom filtering components, are reported by {@link #isSupported()} so that
+ * the caller can run the resources goal instead.
+ */
+public class ResourceSync {
+
+    private final List<Resource> resources;
+    private final File baseDirectory;
+    private final File outputDirectory;
+    private final Xpp3Dom config;
+    private final Log log;
+    private final String unsupported;
+    private final boolean skip;
+    private final boolean addDefaultExcludes;
+    private final ResourceFilter filter;
+
+    /**
+     * @param project the project
+     * @param session the session, for system and user properties and session
+     *                expressions
+     * @param config  the configuration of the resources goal
+     * @param log     the log
+     */
+    public ResourceSync(MavenProject project, MavenSession session, Xpp3Dom config, Log log) throws IOException {
+        this.resources = project.getResources();
+        this.baseDirectory = project.getBasedir();
+        this.config = config;
+        this.log = log;
+        this.unsupported = getUnsupportedParameter();
+
+        String output = getValue("outputDirectory");
+        this.outputDirectory = resolve(output != null ? output : project.getBuild().getOutputDirectory());
+        this.skip = Boolean.parseBoolean(getValue("skip"));
+        this.addDefaultExcludes = !"false".equals(getValue("addDefaultExcludes"));
+
+        String encoding = getValue("encoding");
+        if (encoding == null) {
+            encoding = project.getProperties().getProperty("project.build.sourceEncoding");
+        }
+        List<String> delimiters = new ArrayList<String>(getValues("delimiters"));
+        if (!"false".equals(getValue("useDefaultDelimiters"))) {
+            delimiters.addAll(ResourceFilter.DEFAULT_DELIMITERS);
+        }
+        List<String> filters = new ArrayList<String>();
+        if (!"false".equals(getValue("useBuildFilters"))) {
+            filters.addAll(project.getBuild().getFilters());
+        }
+        filters.addAll(getValues("filters"));
+        this.filter = new ResourceFilter(project, session, filters, delimiters, getValue("escapeString"),
+                !"false".equals(getValue("escapeWindowsPaths")), getValues("nonFilteredFileExtensions"), encoding, log);
+    }
+
+    /**
+     * @return true if the configuration of the resources goal can be reproduced
+     *         file by file, false if the goal has to run instead
+     */
+    public boolean isSupported() {
+        if (unsupported != null) {
+            log.debug("Resources are copied by the resources goal because it is configured with " + unsupported);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Bring the target of a resource file up to date with the file. If the file
+     * exists, it is copied to the output directory, filtered if its resource is
+     * filtered. If it does not exist, its target is deleted. A new or deleted
+     * directory is synced with every file in it, as a moved directory may only be
+     * reported for the directory itself.
+     *
+     * @param file the changed, created or deleted resource file or directory
+     * @return false if the file is not in a resource directory of the project
+     */
+    public boolean sync(File file) throws IOException {
+        if (skip) {
+            return true;
+        }
+        boolean found = false;
+        boolean newDirectory = false;
+        for (Resource resource : resources) {
+            String relativePath = getRelativePath(resource, file);
+            if (relativePath == null) {
+                continue;
+            }
+            found = true;
+            File target = getTarget(resource, relativePath);
+            if (file.isDirectory()) {
+                // the files of an existing directory are reported on their own when they change
+                newDirectory |= !target.exists();
+                continue;
+            }
+            if (!file.exists() && target.isDirectory()) {
+                // the includes and excludes match files, the files of a deleted directory are all gone
+                delete(target);
+                continue;
+            }
+            if (!isIncluded(resource, relativePath)) {
+                continue;
+            }
+            if (file.isFile()) {
+                filter.copy(file, target, resource.isFiltering());
+            } else if (!file.exists()) {
+                delete(target);
+            }
+        }
+        File[] children = file.listFiles();
+        if (newDirectory && children != null) {
+            for (File child : children) {
+                sync(child);
+            }
+        }
+        return found;
+    }
+
+    private void delete(File target) throws IOException {
+        if (!target.exists()) {
+            return;
+        }
+        if (target.isDirectory()) {
+            File[] children = target.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    delete(child);
+                }
+            }
+            // a directory that still holds files of another resource is kept
+            String[] remaining = target.list();
+            if (remaining != null && remaining.length == 0) {
+                log.debug("Deleting resource directory " + target);
+                Files.deleteIfExists(target.toPath());
+            }
+            return;
+        }
+        // another resource directory may provide a file for the same target, the last one wins
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            Resource resource = resources.get(i);
+            String relativePath = getRelativeTargetPath(resource, target);
+            if (relativePath != null && isIncluded(resource, relativePath)) {
+                File file = new File(resolve(resource.getDirectory()), relativePath);
+                if (file.isFile()) {
+                    filter.copy(file, target, resource.isFiltering());
+                    return;
+                }
+            }
+        }
+        log.debug("Deleting resource " + target);
+        Files.deleteIfExists(target.toPath());
+    }
+
+    private String getRelativePath(Resource resource, File file) throws IOException {
+        String directory = resolve(resource.getDirectory()).getCanonicalPath() + File.separator;
+        String path = file.getCanonicalPath();
+        return path.startsWith(directory) ? path.substring(directory.length()) : null;
+    }
+
+    private String getRelativeTargetPath(Resource resource, File target) throws IOException {
+        String directory = getTargetDirectory(resource).getCanonicalPath() + File.separator;
+        String path = target.getCanonicalPath();
+        return path.startsWith(directory) ? path.substring(directory.length()) : null;
+    }
+
+    private File getTarget(Resource resource, String relativePath) {
+        return new File(getTargetDirectory(resource), relativePath);
+    }
+
+    private File getTargetDirectory(Resource resource) {
+        String targetPath = resource.getTargetPath();
+        if (targetPath == null) {
+            return outputDirectory;
+        }
+        File target = new File(targetPath);
+        return target.isAbsolute() ? target : new File(outputDirectory, targetPath);
+    }
+
+    private boolean isIncluded(Resource resource, String relativePath) {
+        List<String> includes = resource.getIncludes();
+        if (includes == null || includes.isEmpty()) {
+            includes = Collections.singletonList("**/**");
+        }
+        List<String> excludes = new ArrayList<String>();
+        if (resource.getExcludes() != null) {
+            excludes.addAll(resource.getExcludes());
+        }
+        if (addDefaultExcludes) {
+            excludes.addAll(Arrays.asList(DirectoryScanner.DEFAULTEXCLUDES));
+        }
+        return matches(includes, relativePath) && !matches(excludes, relativePath);
+    }
+
+    private static boolean matches(List<String> patterns, String relativePath) {
+        for (String pattern : patterns) {
+            if (SelectorUtils.matchPath(normalizePattern(pattern), relativePath, File.separator, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // same normalization as the directory scanner the resources goal uses
+    private static String normalizePattern(String pattern) {
+        String normalized = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+        if (normalized.endsWith(File.separator)) {
+            normalized += "**";
+        }
+        return normalized;
+    }
+
+    private File resolve(String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(baseDirectory, path);
+    }
+
+    private String getUnsupportedParameter() {
+        if (Boolean.parseBoolean(getValue("fileNameFiltering"))) {
+            return "fileNameFiltering";
+        }
+        if (Boolean.parseBoolean(getValue("supportMultiLineFiltering"))) {
+            return "supportMultiLineFiltering";
+        }
+        if (!getValues("mavenFilteringHints").isEmpty()) {
+            return "mavenFilteringHints";
+        }
+        if (config != null && config.getChild("resources") != null) {
+            return "resources";
+        }
+        return null;
+    }
+
+    private String getValue(String name) {
+        return ResourceFilter.getConfigValue(config, name);
+    }
+
+    private List<String> getValues(String name) {
+        return ResourceFilter.getConfigValues(config, name);
+    }
+}
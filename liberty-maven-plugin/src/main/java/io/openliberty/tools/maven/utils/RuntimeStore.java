@@ -0,0 +1,195 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+import io.openliberty.tools.common.plugins.util.OSUtil;
+
+/**
+ * A machine wide store of extracted Liberty runtimes, keyed by the checksum of
+ * the runtime archive.
+ *
+ * Each runtime is extracted once into {@code <key>/} and then hard linked into
+ * the install directory of every project that uses it. The files of a private
+ * subtree, normally the usr directory, are copied instead so that projects can
+ * change them freely. Files in the store are made read-only where the platform
+ * allows deleting read-only links, so that a tool writing to a linked file in
+ * place fails instead of changing the runtime of every other project.
+ *
+ * If hard links are not supported, for example because the store and the
+ * project are on different file systems, the files are copied.
+ */
+public class RuntimeStore {
+
+    /**
+     * Extracts or installs a runtime into an empty directory.
+     */
+    public interface Installer {
+        void install(File directory) throws Exception;
+    }
+
+    private final File storeDirectory;
+    private final Log log;
+
+    public RuntimeStore(File storeDirectory, Log log) {
+        this.storeDirectory = storeDirectory;
+        this.log = log;
+    }
+
+    /**
+     * @param localRepository the base directory of the local Maven repository
+     * @return the default store directory inside the local Maven repository
+     */
+    public static File getDefaultStoreDirectory(File localRepository) {
+        return new File(localRepository, ".cache/liberty-maven-plugin/runtimes");
+    }
+
+    /**
+     * Get the runtime extracted from the archive, extracting it into the store if
+     * it is not there yet.
+     *
+     * @param archive   the runtime archive
+     * @param installer extracts the archive into a given directory
+     * @return the directory in the store that holds the extracted archive
+     */
+    public File getRuntime(File archive, Installer installer) throws IOException {
+        String key = ChecksumUtil.sha256(archive);
+        File runtime = new File(storeDirectory, key);
+        if (runtime.isDirectory()) {
+            log.debug("Using runtime " + runtime + " from the shared runtime store for " + archive);
+            return runtime;
+        }
+
+        // extract next to the final location and move it into place when complete,
+        // so that concurrent builds never use a partially extracted runtime
+        File tempDir = new File(storeDirectory, key + ".tmp-" + System.nanoTime());
+        FileUtils.forceMkdir(tempDir);
+        try {
+            log.debug("Extracting " + archive + " into the shared runtime store " + runtime);
+            installer.install(tempDir);
+            if (!OSUtil.isWindows()) {
+                makeReadOnly(tempDir);
+            }
+            try {
+                Files.move(tempDir.toPath(), runtime.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempDir.toPath(), runtime.toPath());
+            }
+        } catch (FileAlreadyExistsException e) {
+            log.debug("Another build added " + runtime + " to the shared runtime store");
+        } catch (IOException e) {
+            if (!runtime.isDirectory()) {
+                throw e;
+            }
+            // another build moved its copy into place first
+        } catch (Exception e) {
+            throw new IOException("Could not extract " + archive + " into the shared runtime store", e);
+        } finally {
+            if (tempDir.exists()) {
+                deleteTree(tempDir);
+            }
+        }
+        return runtime;
+    }
+
+    /**
+     * Link the files of a runtime into the target directory.
+     *
+     * @param runtime     the runtime directory returned by {@link #getRuntime(File, Installer)}
+     * @param target      the directory the runtime archive would have been extracted to
+     * @param privatePath the path relative to the target directory of the subtree
+     *                    that is copied instead of linked, or null to link everything
+     * @return the number of files that were copied because they could not be linked
+     */
+    public int link(File runtime, final File target, String privatePath) throws IOException {
+        final Path source = runtime.toPath();
+        final Path targetPath = target.toPath();
+        final Path privateDir = privatePath == null ? null : source.resolve(privatePath).normalize();
+        final int[] copied = new int[1];
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(targetPath.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path to = targetPath.resolve(source.relativize(file).toString());
+                if (privateDir != null && file.startsWith(privateDir)) {
+                    copy(file, to);
+                } else if (!link(file, to)) {
+                    copy(file, to);
+                    copied[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (copied[0] > 0) {
+            log.debug("Copied " + copied[0] + " runtime files that could not be hard linked into " + target);
+        }
+        return copied[0];
+    }
+
+    private static boolean link(Path from, Path to) throws IOException {
+        Files.deleteIfExists(to);
+        try {
+            Files.createLink(to, from);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        // no COPY_ATTRIBUTES so that copies of read-only store files stay writable
+        Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING);
+        if (Files.isExecutable(from)) {
+            to.toFile().setExecutable(true, false);
+        }
+    }
+
+    private static void makeReadOnly(File dir) throws IOException {
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                file.toFile().setWritable(false, false);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void deleteTree(File dir) {
+        try {
+            FileUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            log.debug("Could not delete " + dir + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Manifest;
+
+/**
+ * Splits a Liberty server into the layers of a container image, from the layer
+ * that changes least to the layer that changes most:
+ * <ul>
+ * <li>runtime: the runtime without its user directory and installed features</li>
+ * <li>features: the files of the features in lib/features and the extension
+ * directory of the user directory</li>
+ * <li>dependencies: the copyDependencies locations</li>
+ * <li>config: the rest of the server directory and the shared directory of the
+ * user directory</li>
+ * <li>application: the apps and dropins directories of the server</li>
+ * </ul>
+ * The files of a feature are the ones listed in the Subsystem-Content header of
+ * its manifest, except for the files the kernel manifests in lib/platform also
+ * list.
+ *
+ * All entries are owned by root and the group gets the permissions of the
+ * owner, so that the server can run as any user of the root group.
+ */
+public class ServerImageLayers {
+
+    public static final String RUNTIME = "runtime";
+    public static final String FEATURES = "features";
+    public static final String DEPENDENCIES = "dependencies";
+    public static final String CONFIGURATION = "config";
+    public static final String APPLICATION = "application";
+
+    private static final List<String> LAYER_NAMES = Arrays.asList(RUNTIME, FEATURES, DEPENDENCIES, CONFIGURATION,
+            APPLICATION);
+    private static final List<String> APPLICATION_DIRECTORIES = Arrays.asList("apps", "dropins");
+    private static final String FEATURES_DIRECTORY = "lib/features/";
+
+    private enum Area {
+        INSTALL, EXTENSION, SHARED, SERVER
+    }
+
+    private final File installDirectory;
+    private final File userDirectory;
+    private final File serverDirectory;
+    private final String root;
+    private final List<String> dependencyDirectories = new ArrayList<String>();
+
+    /**
+     * @param installDirectory the Liberty runtime directory
+     * @param userDirectory    the user directory of the server
+     * @param serverDirectory  the server directory
+     * @param root             the path of the runtime in the image, such as
+     *                         opt/ol/wlp
+     */
+    public ServerImageLayers(File installDirectory, File userDirectory, File serverDirectory, String root) {
+        this.installDirectory = installDirectory;
+        this.userDirectory = userDirectory;
+        this.serverDirectory = serverDirectory;
+        this.root = trimSlashes(root);
+    }
+
+    /**
+     * Put the content of a directory in the server or shared directory in the
+     * dependencies layer.
+     */
+    public void addDependencyDirectory(File directory) throws IOException {
+        dependencyDirectories.add(directory.getCanonicalPath() + File.separator);
+    }
+
+    /**
+     * @return the layers that hold at least one file, in order
+     */
+    public List<ImageLayoutWriter.Layer> getLayers() throws IOException {
+        Map<String, Map<String, ServerPackager.Source>> layers = new LinkedHashMap<String, Map<String, ServerPackager.Source>>();
+        for (String name : LAYER_NAMES) {
+            layers.put(name, new HashMap<String, ServerPackager.Source>());
+        }
+        Set<String> featureFiles = getFeatureFiles();
+        addTree(layers, Area.INSTALL, installDirectory, root, "", featureFiles);
+        File extension = new File(userDirectory, "extension");
+        if (extension.isDirectory()) {
+            addTree(layers, Area.EXTENSION, extension, root + "/usr/extension", "", featureFiles);
+        }
+        File shared = new File(userDirectory, "shared");
+        if (shared.isDirectory()) {
+            addTree(layers, Area.SHARED, shared, root + "/usr/shared", "", featureFiles);
+        }
+        addTree(layers, Area.SERVER, serverDirectory, root + "/usr/servers/" + serverDirectory.getName(), "",
+                featureFiles);
+
+        List<ImageLayoutWriter.Layer> result = new ArrayList<ImageLayoutWriter.Layer>();
+        for (Map.Entry<String, Map<String, ServerPackager.Source>> layer : layers.entrySet()) {
+            Map<String, ServerPackager.Source> entries = layer.getValue();
+            boolean hasFiles = false;
+            for (ServerPackager.Source source : new ArrayList<ServerPackager.Source>(entries.values())) {
+                hasFiles |= !source.isDirectory();
+                addParents(entries, source.getName());
+            }
+            if (hasFiles) {
+                result.add(new ImageLayoutWriter.Layer(layer.getKey(),
+                        new ArrayList<ServerPackager.Source>(entries.values())));
+            }
+        }
+        return result;
+    }
+
+    private void addTree(Map<String, Map<String, ServerPackager.Source>> layers, Area area, File directory,
+            String name, String relativePath, Set<String> featureFiles) throws IOException {
+        layers.get(getLayerName(area, directory, relativePath, featureFiles)).put(name + "/",
+                new ServerPackager.Source(name + "/", directory, 0775, 0));
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String relative = relativePath + file.getName();
+            if ((area == Area.INSTALL && relative.equals("usr"))
+                    || (area == Area.SERVER && ServerPackager.SERVER_EXCLUDES.contains(relative))) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                addTree(layers, area, file, name + "/" + file.getName(), relative + "/", featureFiles);
+            } else if (file.isFile()) {
+                String entryName = name + "/" + file.getName();
+                layers.get(getLayerName(area, file, relative, featureFiles)).put(entryName,
+                        new ServerPackager.Source(entryName, file, file.canExecute() ? 0775 : 0664, 0));
+            }
+        }
+    }
+
+    private String getLayerName(Area area, File file, String relativePath, Set<String> featureFiles)
+            throws IOException {
+        switch (area) {
+        case INSTALL:
+            return relativePath.startsWith(FEATURES_DIRECTORY) || featureFiles.contains(relativePath) ? FEATURES
+                    : RUNTIME;
+        case EXTENSION:
+            return FEATURES;
+        default:
+            if (!dependencyDirectories.isEmpty()) {
+                String path = file.getCanonicalPath() + (file.isDirectory() ? File.separator : "");
+                for (String dependencyDirectory : dependencyDirectories) {
+                    if (path.startsWith(dependencyDirectory)) {
+                        return DEPENDENCIES;
+                    }
+                }
+            }
+            int slash = relativePath.indexOf('/');
+            String topLevel = slash < 0 ? relativePath : relativePath.substring(0, slash);
+            return area == Area.SERVER && APPLICATION_DIRECTORIES.contains(topLevel) ? APPLICATION : CONFIGURATION;
+        }
+    }
+
+    /**
+     * Add the parent directories of an entry, so that every layer can be
+     * extracted on its own. The directories above the runtime keep the usual
+     * permissions.
+     */
+    private void addParents(Map<String, ServerPackager.Source> entries, String name) {
+        int slash = name.lastIndexOf('/', name.length() - 2);
+        while (slash > 0) {
+            String parent = name.substring(0, slash + 1);
+            if (entries.containsKey(parent)) {
+                return;
+            }
+            int mode = (root + "/").startsWith(parent) && !parent.equals(root + "/") ? 0755 : 0775;
+            entries.put(parent, new ServerPackager.Source(parent, null, mode, 0));
+            slash = name.lastIndexOf('/', slash - 1);
+        }
+    }
+
+    /**
+     * @return the paths relative to the install directory of the files of the
+     *         features that are not part of the kernel
+     */
+    Set<String> getFeatureFiles() {
+        Set<String> files = getContentFiles(new File(installDirectory, FEATURES_DIRECTORY));
+        files.removeAll(getContentFiles(new File(installDirectory, "lib/platform")));
+        return files;
+    }
+
+    private Set<String> getContentFiles(File manifestDirectory) {
+        Set<String> files = new HashSet<String>();
+        File[] manifests = manifestDirectory.listFiles();
+        if (manifests == null) {
+            return files;
+        }
+        Map<String, String[]> listings = new HashMap<String, String[]>();
+        for (File manifestFile : manifests) {
+            if (!manifestFile.isFile() || !manifestFile.getName().endsWith(".mf")) {
+                continue;
+            }
+            String content;
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                content = new Manifest(in).getMainAttributes().getValue("Subsystem-Content");
+            } catch (IOException e) {
+                // the files of a feature whose manifest cannot be read stay in the runtime layer
+                continue;
+            }
+            if (content != null) {
+                addContentFiles(files, content, listings);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Add the files of the elements of a Subsystem-Content header. A bundle is
+     * found in its location directories, lib/ by default, by its symbolic name
+     * and a version suffix. Other elements are located by file name.
+     */
+    private void addContentFiles(Set<String> files, String content, Map<String, String[]> listings) {
+        for (String element : split(content, ',')) {
+            List<String> parts = split(element, ';');
+            String symbolicName = parts.get(0).trim();
+            String type = "osgi.bundle";
+            List<String> locations = Collections.singletonList("lib/");
+            for (String attribute : parts.subList(1, parts.size())) {
+                int equals = attribute.indexOf('=');
+                if (equals < 0) {
+                    continue;
+                }
+                String key = attribute.substring(0, equals).trim();
+                if (key.endsWith(":")) {
+                    key = key.substring(0, key.length() - 1);
+                }
+                String value = attribute.substring(equals + 1).trim().replace("\"", "");
+                if (key.equals("type")) {
+                    type = value;
+                } else if (key.equals("location")) {
+                    locations = split(value, ',');
+                }
+            }
+            if (type.equals("osgi.subsystem.feature")) {
+                continue;
+            }
+            for (String location : locations) {
+                location = location.trim();
+                if (!location.endsWith("/")) {
+                    files.add(location);
+                    continue;
+                }
+                String[] names = listings.get(location);
+                if (names == null) {
+                    names = new File(installDirectory, location).list();
+                    listings.put(location, names == null ? new String[0] : names);
+                    names = listings.get(location);
+                }
+                for (String name : names) {
+                    if (name.endsWith(".jar")
+                            && (name.equals(symbolicName + ".jar") || name.startsWith(symbolicName + "_"))) {
+                        files.add(location + name);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Split a header value at the separators that are not quoted.
+     */
+    private static List<String> split(String value, char separator) {
+        List<String> parts = new ArrayList<String>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == separator && !quoted) {
+                parts.add(value.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(value.substring(start));
+        return parts;
+    }
+
+    private static String trimSlashes(String path) {
+        String trimmed = path.replace('\\', '/');
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,467 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Packages a Liberty server into a zip, tar or tar.gz archive without starting
+ * the Liberty package command.
+ *
+ * The archive has the layout of the package command: the runtime under the
+ * root folder, followed by the server directory and the shared and extension
+ * directories of the user directory under {@code usr}. The logs and workarea
+ * directories of the server and expanded applications are left out. Only the
+ * user directory parts are packaged when the runtime is not included.
+ *
+ * The entries of a zip archive are compressed on several threads and written in
+ * order by one thread. A tar.gz archive is compressed in blocks on several
+ * threads.
+ *
+ * A reproducible archive, see {@link #setReproducible(long, File)}, holds the
+ * same bytes whenever the content of its entries is the same.
+ */
+public class ServerPackager {
+
+    public static final String ZIP = "zip";
+    public static final String TAR = "tar";
+    public static final String TAR_GZ = "tar.gz";
+
+    private static final String CONFIGURATION_KEY = "configuration";
+    private static final String ARCHIVE_KEY = "archive";
+    private static final String ENTRY_PREFIX = "entry.";
+
+    static final List<String> SERVER_EXCLUDES = Arrays.asList("logs", "workarea", "apps/expanded");
+    private static final List<String> USER_DIRECTORIES = Arrays.asList("shared", "extension");
+
+    private final File installDirectory;
+    private final File userDirectory;
+    private final File serverDirectory;
+    private final String root;
+    private final boolean includeRuntime;
+    private final Log log;
+    private long timestamp = -1;
+    private File manifestFile;
+
+    /**
+     * @param installDirectory the Liberty runtime directory
+     * @param userDirectory    the user directory of the server
+     * @param serverDirectory  the directory of the server to package
+     * @param root             the root folder of the archive, defaults to wlp
+     * @param includeRuntime   whether to package the runtime, or only the user
+     *                         directory parts
+     * @param log              the log to report progress to
+     */
+    public ServerPackager(File installDirectory, File userDirectory, File serverDirectory, String root,
+            boolean includeRuntime, Log log) {
+        this.installDirectory = installDirectory;
+        this.userDirectory = userDirectory;
+        this.serverDirectory = serverDirectory;
+        this.root = root == null || root.isEmpty() ? "wlp" : root;
+        this.includeRuntime = includeRuntime;
+        this.log = log;
+    }
+
+    /**
+     * Make the archive reproducible. All entries get the same modification time,
+     * and a manifest of the content hash of every entry is kept, so that the
+     * archive is not written again when its content did not change, and the
+     * compressed content of unchanged zip entries is copied from the previous
+     * archive instead of compressed again.
+     *
+     * @param timestamp    the modification time of the entries
+     * @param manifestFile the file to keep the content hashes in
+     */
+    public void setReproducible(long timestamp, File manifestFile) {
+        this.timestamp = timestamp;
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * @return the entries of the archive, sorted by name
+     */
+    public List<Source> getSources() {
+        List<Source> sources = new ArrayList<Source>();
+        Set<String> names = new HashSet<String>();
+        if (includeRuntime) {
+            addDirectory(sources, names, root, installDirectory, Collections.singletonList("usr"));
+        } else {
+            addParents(sources, names, root + "/usr/servers");
+        }
+        addDirectory(sources, names, root + "/usr/servers/" + serverDirectory.getName(), serverDirectory,
+                SERVER_EXCLUDES);
+        for (String directory : USER_DIRECTORIES) {
+            File source = new File(userDirectory, directory);
+            if (source.isDirectory()) {
+                addDirectory(sources, names, root + "/usr/" + directory, source, Collections.<String>emptyList());
+            }
+        }
+        Collections.sort(sources);
+        if (timestamp >= 0) {
+            for (int i = 0; i < sources.size(); i++) {
+                Source source = sources.get(i);
+                sources.set(i, new Source(source.name, source.file, source.mode, timestamp));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Write the archive. The archive is written to a temporary file first, so
+     * that an existing archive is only replaced by a complete one.
+     *
+     * @param archive the archive file
+     * @param format  {@link #ZIP}, {@link #TAR} or {@link #TAR_GZ}
+     * @param threads the number of threads to compress with
+     */
+    public void write(File archive, String format, int threads) throws IOException {
+        List<Source> sources = getSources();
+        File temp = new File(archive.getParentFile(), archive.getName() + ".tmp");
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Properties manifest = null;
+            Map<String, ZipArchiveWriter.Entry> previousEntries = Collections.emptyMap();
+            if (manifestFile != null) {
+                Properties previous = loadManifest();
+                manifest = createManifest(sources, format, previous, executor);
+                boolean archiveCurrent = archive.isFile()
+                        && getArchiveKey(archive).equals(previous.getProperty(ARCHIVE_KEY))
+                        && manifest.getProperty(CONFIGURATION_KEY).equals(previous.getProperty(CONFIGURATION_KEY));
+                if (archiveCurrent && getEntryHashes(manifest).equals(getEntryHashes(previous))) {
+                    log.info("The package " + archive.getName() + " is up to date.");
+                    return;
+                }
+                if (archiveCurrent && ZIP.equals(format)) {
+                    previousEntries = getReusableEntries(archive, manifest, previous);
+                }
+            }
+            if (ZIP.equals(format)) {
+                writeZip(sources, temp, executor, threads, previousEntries);
+            } else {
+                writeTar(sources, temp, TAR_GZ.equals(format), executor, threads);
+            }
+            Files.move(temp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (manifest != null) {
+                manifest.setProperty(ARCHIVE_KEY, getArchiveKey(archive));
+                saveManifest(manifest);
+            }
+            log.debug("Packaged " + sources.size() + " entries into " + archive + " with " + threads + " threads in "
+                    + (System.currentTimeMillis() - start) + " ms"
+                    + (previousEntries.isEmpty() ? "" : ", copying " + previousEntries.size() + " unchanged entries"));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Record the content hash of every entry. The hash of a file that has the
+     * size and modification time recorded in the previous manifest is taken from
+     * it, the other files are hashed on the executor.
+     */
+    private Properties createManifest(List<Source> sources, String format, Properties previous,
+            ExecutorService executor) throws IOException {
+        Properties manifest = new Properties();
+        manifest.setProperty(CONFIGURATION_KEY, format + "\n" + root + "\n" + timestamp);
+        boolean sameConfiguration = manifest.getProperty(CONFIGURATION_KEY)
+                .equals(previous.getProperty(CONFIGURATION_KEY));
+        Map<String, Future<String>> hashes = new LinkedHashMap<String, Future<String>>();
+        for (final Source source : sources) {
+            String key = ENTRY_PREFIX + source.getName();
+            if (source.isDirectory()) {
+                manifest.setProperty(key, "directory");
+                continue;
+            }
+            // the permissions are part of the entry, the size and modification time identify the file
+            final String fileKey = Integer.toOctalString(source.getMode()) + ":" + source.getFile().length() + ":"
+                    + source.getFile().lastModified();
+            String recorded = previous.getProperty(key);
+            if (sameConfiguration && recorded != null && recorded.indexOf(':') > 0
+                    && recorded.substring(recorded.indexOf(':') + 1).equals(fileKey)) {
+                manifest.setProperty(key, recorded);
+                continue;
+            }
+            hashes.put(key, executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return ChecksumUtil.sha256(source.getFile()) + ":" + fileKey;
+                }
+            }));
+        }
+        for (Map.Entry<String, Future<String>> hash : hashes.entrySet()) {
+            manifest.setProperty(hash.getKey(), get(hash.getValue()));
+        }
+        return manifest;
+    }
+
+    /**
+     * @return the entries of the previous archive whose content hash did not
+     *         change
+     */
+    private Map<String, ZipArchiveWriter.Entry> getReusableEntries(File archive, Properties manifest,
+            Properties previous) {
+        Map<String, ZipArchiveWriter.Entry> entries;
+        try {
+            entries = ZipArchiveWriter.readEntries(archive);
+        } catch (IOException e) {
+            log.debug("Could not read the previous package " + archive + ": " + e.getMessage());
+            return Collections.emptyMap();
+        }
+        Map<String, String> hashes = getEntryHashes(manifest);
+        Map<String, String> previousHashes = getEntryHashes(previous);
+        Map<String, ZipArchiveWriter.Entry> reusable = new HashMap<String, ZipArchiveWriter.Entry>();
+        for (Map.Entry<String, ZipArchiveWriter.Entry> entry : entries.entrySet()) {
+            String hash = hashes.get(entry.getKey());
+            if (hash != null && hash.equals(previousHashes.get(entry.getKey()))) {
+                reusable.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return reusable;
+    }
+
+    private static Map<String, String> getEntryHashes(Properties manifest) {
+        Map<String, String> hashes = new HashMap<String, String>();
+        for (String key : manifest.stringPropertyNames()) {
+            if (key.startsWith(ENTRY_PREFIX)) {
+                // the hash and the permissions, without the size and modification time of the file
+                String value = manifest.getProperty(key);
+                int colon = value.indexOf(':', value.indexOf(':') + 1);
+                hashes.put(key.substring(ENTRY_PREFIX.length()), colon < 0 ? value : value.substring(0, colon));
+            }
+        }
+        return hashes;
+    }
+
+    private static String getArchiveKey(File archive) {
+        return archive.length() + ":" + archive.lastModified();
+    }
+
+    private Properties loadManifest() {
+        Properties manifest = new Properties();
+        if (manifestFile.isFile()) {
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                manifest.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read package manifest " + manifestFile + ": " + e.getMessage());
+                manifest.clear();
+            }
+        }
+        return manifest;
+    }
+
+    private void saveManifest(Properties manifest) throws IOException {
+        try (OutputStream out = new FileOutputStream(manifestFile)) {
+            manifest.store(out, "Generated by liberty-maven-plugin");
+        }
+    }
+
+    private void writeZip(List<Source> sources, File archive, ExecutorService executor, int threads,
+            final Map<String, ZipArchiveWriter.Entry> previousEntries) throws IOException {
+        final File spillDirectory = Files.createTempDirectory(archive.getAbsoluteFile().getParentFile().toPath(),
+                "liberty-plugin-package").toFile();
+        // a bounded number of compressed entries waits to be written
+        Deque<Future<ZipArchiveWriter.Entry>> pending = new ArrayDeque<Future<ZipArchiveWriter.Entry>>();
+        try (ZipArchiveWriter zip = new ZipArchiveWriter(archive)) {
+            for (final Source source : sources) {
+                pending.add(executor.submit(new Callable<ZipArchiveWriter.Entry>() {
+                    @Override
+                    public ZipArchiveWriter.Entry call() throws IOException {
+                        long time = getZipTime(source.getTime());
+                        if (source.isDirectory()) {
+                            return ZipArchiveWriter.directory(source.getName(), source.getMode(), time);
+                        }
+                        ZipArchiveWriter.Entry previous = previousEntries.get(source.getName());
+                        if (previous != null) {
+                            return ZipArchiveWriter.copy(previous, source.getMode(), time);
+                        }
+                        return ZipArchiveWriter.compress(source.getName(), source.getFile(), source.getMode(), time,
+                                spillDirectory);
+                    }
+                }));
+                while (pending.size() >= threads * 4) {
+                    zip.add(get(pending.removeFirst()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                zip.add(get(pending.removeFirst()));
+            }
+        } finally {
+            for (Future<ZipArchiveWriter.Entry> future : pending) {
+                future.cancel(true);
+            }
+            FileUtils.deleteDirectory(spillDirectory);
+        }
+    }
+
+    private void writeTar(List<Source> sources, File archive, boolean gzip, ExecutorService executor, int threads)
+            throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(archive), 65536);
+        if (gzip) {
+            out = new ParallelGzipOutputStream(out, executor, threads);
+        }
+        try (TarArchiveWriter tar = new TarArchiveWriter(out)) {
+            for (Source source : sources) {
+                if (source.isDirectory()) {
+                    tar.addDirectory(source.getName(), source.getMode(), source.getTime());
+                } else {
+                    tar.addFile(source.getName(), source.getFile(), source.getMode(), source.getTime());
+                }
+            }
+        }
+    }
+
+    /**
+     * ZIP entries hold the local time. The time of a reproducible archive is
+     * shifted so that the entries hold the same time in every time zone.
+     */
+    private long getZipTime(long time) {
+        return timestamp >= 0 ? time - TimeZone.getDefault().getOffset(time) : time;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while packaging the server");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not package the server", e.getCause());
+        }
+    }
+
+    private static void addParents(List<Source> sources, Set<String> names, String name) {
+        int slash = name.lastIndexOf('/');
+        if (slash > 0) {
+            addParents(sources, names, name.substring(0, slash));
+        }
+        if (names.add(name + "/")) {
+            sources.add(new Source(name + "/", null, 0755, System.currentTimeMillis()));
+        }
+    }
+
+    private static void addDirectory(List<Source> sources, Set<String> names, String name, File directory,
+            List<String> excludes) {
+        int slash = name.lastIndexOf('/');
+        if (slash > 0) {
+            addParents(sources, names, name.substring(0, slash));
+        }
+        addTree(sources, names, name, directory, "", excludes);
+    }
+
+    private static void addTree(List<Source> sources, Set<String> names, String name, File directory,
+            String relativePath, List<String> excludes) {
+        if (names.add(name + "/")) {
+            sources.add(new Source(name + "/", directory, 0755, directory.lastModified()));
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String relative = relativePath + file.getName();
+            if (excludes.contains(relative)) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                addTree(sources, names, name + "/" + file.getName(), file, relative + "/", excludes);
+            } else if (file.isFile() && names.add(name + "/" + file.getName())) {
+                sources.add(new Source(name + "/" + file.getName(), file, file.canExecute() ? 0755 : 0644,
+                        file.lastModified()));
+            }
+        }
+    }
+
+    /**
+     * A file or directory to package, with the name of its archive entry.
+     */
+    public static class Source implements Comparable<Source> {
+        private final String name;
+        private final File file;
+        private final int mode;
+        private final long time;
+
+        Source(String name, File file, int mode, long time) {
+            this.name = name;
+            this.file = file;
+            this.mode = mode;
+            this.time = time;
+        }
+
+        /**
+         * @return the entry name, which ends with a slash for directories
+         */
+        public String getName() {
+            return name;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public int getMode() {
+            return mode;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        @Override
+        public int compareTo(Source other) {
+            return name.compareTo(other.name);
+        }
+    }
+}
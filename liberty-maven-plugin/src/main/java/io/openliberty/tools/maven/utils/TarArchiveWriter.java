@@ -0,0 +1,177 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Writes a POSIX tar archive to a stream. Names that do not fit in the ustar
+ * header and sizes of 8 GB and more are recorded in PAX extended headers.
+ */
+public class TarArchiveWriter implements Closeable {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final long MAX_OCTAL_SIZE = 077777777777L;
+
+    private final OutputStream out;
+
+    public TarArchiveWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Add a directory entry.
+     */
+    public void addDirectory(String name, int mode, long time) throws IOException {
+        writeHeader(name.endsWith("/") ? name : name + "/", '5', 0, mode, time);
+    }
+
+    /**
+     * Add a file entry with the content of the file.
+     */
+    public void addFile(String name, File file, int mode, long time) throws IOException {
+        long size = file.length();
+        writeHeader(name, '0', size, mode, time);
+        long copied = Files.copy(file.toPath(), out);
+        if (copied != size) {
+            throw new IOException("The size of " + file + " changed while it was archived");
+        }
+        pad(size);
+    }
+
+    /**
+     * Write the end of archive blocks and close the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        out.write(new byte[2 * BLOCK_SIZE]);
+        out.close();
+    }
+
+    private void writeHeader(String name, char type, long size, int mode, long time) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int split = getPrefixSplit(nameBytes);
+        boolean pax = split < 0 || size > MAX_OCTAL_SIZE;
+        if (pax) {
+            StringBuilder records = new StringBuilder();
+            if (split < 0) {
+                records.append(getPaxRecord("path", name));
+            }
+            if (size > MAX_OCTAL_SIZE) {
+                records.append(getPaxRecord("size", Long.toString(size)));
+            }
+            byte[] content = records.toString().getBytes(StandardCharsets.UTF_8);
+            String paxName = "PaxHeaders/" + new File(name).getName();
+            byte[] paxNameBytes = paxName.getBytes(StandardCharsets.UTF_8);
+            out.write(createHeader(paxNameBytes.length > 100 ? "PaxHeaders/entry".getBytes(StandardCharsets.UTF_8)
+                    : paxNameBytes, null, 'x', content.length, 0644, time));
+            out.write(content);
+            pad(content.length);
+        }
+
+        byte[] prefix = null;
+        byte[] shortName = nameBytes;
+        if (split > 0) {
+            prefix = new byte[split];
+            System.arraycopy(nameBytes, 0, prefix, 0, split);
+            shortName = new byte[nameBytes.length - split - 1];
+            System.arraycopy(nameBytes, split + 1, shortName, 0, shortName.length);
+        } else if (split < 0) {
+            shortName = truncate(nameBytes, 100);
+        }
+        out.write(createHeader(shortName, prefix, type, Math.min(size, MAX_OCTAL_SIZE), mode, time));
+    }
+
+    /**
+     * @return 0 if the name fits in the name field, the index of the slash to
+     *         split the name at into the prefix and name fields, or -1 if the name
+     *         does not fit in the header
+     */
+    private static int getPrefixSplit(byte[] name) {
+        if (name.length <= 100) {
+            return 0;
+        }
+        for (int i = Math.min(name.length - 1, 155); i > 0; i--) {
+            if (name[i] == '/' && name.length - i - 1 <= 100 && name.length - i - 1 > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String getPaxRecord(String key, String value) {
+        // the length of a record includes the digits of the length itself
+        int length = key.length() + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int digits = Integer.toString(length).length();
+        while (Integer.toString(length + digits).length() != digits) {
+            digits++;
+        }
+        return (length + digits) + " " + key + "=" + value + "\n";
+    }
+
+    private static byte[] createHeader(byte[] name, byte[] prefix, char type, long size, int mode, long time) {
+        byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(name, 0, header, 0, Math.min(name.length, 100));
+        writeOctal(header, 100, 8, mode & 07777);
+        writeOctal(header, 108, 8, 0);
+        writeOctal(header, 116, 8, 0);
+        writeOctal(header, 124, 12, size);
+        writeOctal(header, 136, 12, Math.max(0, time / 1000));
+        header[156] = (byte) type;
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+        if (prefix != null) {
+            System.arraycopy(prefix, 0, header, 345, Math.min(prefix.length, 155));
+        }
+        // the checksum is computed with the checksum field set to spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        writeOctal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        for (int i = 0; i < digits; i++) {
+            int index = octal.length() - digits + i;
+            header[offset + i] = (byte) (index < 0 ? '0' : octal.charAt(index));
+        }
+        header[offset + digits] = 0;
+    }
+
+    private static byte[] truncate(byte[] bytes, int length) {
+        byte[] truncated = new byte[Math.min(bytes.length, length)];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        return truncated;
+    }
+
+    private void pad(long size) throws IOException {
+        int remainder = (int) (size % BLOCK_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The main class of the test JVM that dev mode keeps running between unit test
+ * runs. It only uses the JDK, so that it can run from the plugin jar without the
+ * dependencies of the plugin.
+ *
+ * The dependencies of the tests, including the JUnit Platform launcher, are
+ * loaded once by a class loader that lives as long as the JVM. Each run loads
+ * the project and test classes with a new class loader on top of it, and runs
+ * the requested test classes with the JUnit Platform launcher, which the worker
+ * calls through reflection.
+ *
+ * A run is requested with a line on standard input that holds
+ * {@code run<TAB>class directories<TAB>test classes}. The output of the tests
+ * goes to standard output, followed by a line that starts with
+ * {@link #DONE_MARKER} and holds the found, succeeded, failed, aborted and
+ * skipped test counts and the total failure count. The worker exits when its
+ * standard input is closed.
+ */
+public class TestWorker {
+
+    public static final String DONE_MARKER = "#liberty-test-worker-done";
+
+    private static final String LAUNCHER_PACKAGE = "org.junit.platform.launcher.";
+
+    private final ClassLoader dependencyLoader;
+    private final String dependencyClasspath;
+    private final PrintStream out;
+
+    TestWorker(List<String> dependencies, PrintStream out) throws Exception {
+        List<URL> urls = new ArrayList<URL>();
+        StringBuilder classpath = new StringBuilder();
+        for (String dependency : dependencies) {
+            urls.add(new File(dependency).toURI().toURL());
+            classpath.append(File.pathSeparator).append(dependency);
+        }
+        // the parent skips the application class loader, which holds the plugin jar
+        this.dependencyLoader = new URLClassLoader(urls.toArray(new URL[urls.size()]),
+                ClassLoader.getSystemClassLoader().getParent());
+        this.dependencyClasspath = classpath.toString();
+        this.out = out;
+    }
+
+    /**
+     * @param args the file that lists the dependency class path entries, one per
+     *             line
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> dependencies = new ArrayList<String>();
+        for (String line : Files.readAllLines(new File(args[0]).toPath(), StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                dependencies.add(line);
+            }
+        }
+        TestWorker worker = new TestWorker(dependencies, System.out);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] request = line.split("\t", -1);
+            if (request.length == 3 && request[0].equals("run")) {
+                worker.run(split(request[1], File.pathSeparator), split(request[2], ","));
+            }
+        }
+        System.exit(0);
+    }
+
+    void run(List<String> classDirectories, List<String> testClasses) {
+        long[] counts = new long[6];
+        List<URL> urls = new ArrayList<URL>();
+        StringBuilder classpath = new StringBuilder();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        URLClassLoader loader = null;
+        try {
+            for (String directory : classDirectories) {
+                urls.add(new File(directory).toURI().toURL());
+                classpath.append(classpath.length() == 0 ? "" : File.pathSeparator).append(directory);
+            }
+            // class path scanning frameworks read the class path from this property
+            System.setProperty("java.class.path", classpath + dependencyClasspath);
+            loader = new URLClassLoader(urls.toArray(new URL[urls.size()]), dependencyLoader);
+            thread.setContextClassLoader(loader);
+            counts = execute(loader, testClasses);
+        } catch (Throwable e) {
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            out.println("Could not run the tests: " + cause);
+            cause.printStackTrace(out);
+            counts[5] = 1;
+        } finally {
+            thread.setContextClassLoader(contextLoader);
+            if (loader != null) {
+                try {
+                    loader.close();
+                } catch (Exception e) {
+                    // the classes of the run are not used anymore
+                }
+            }
+        }
+        out.println();
+        StringBuilder done = new StringBuilder(DONE_MARKER);
+        for (long count : counts) {
+            done.append(' ').append(count);
+        }
+        out.println(done);
+        out.flush();
+    }
+
+    private long[] execute(ClassLoader loader, List<String> testClasses) throws Exception {
+        Class<?> selectorsClass = loader.loadClass("org.junit.platform.engine.discovery.DiscoverySelectors");
+        Class<?> builderClass = loader.loadClass(LAUNCHER_PACKAGE + "core.LauncherDiscoveryRequestBuilder");
+        Class<?> requestClass = loader.loadClass(LAUNCHER_PACKAGE + "LauncherDiscoveryRequest");
+        Class<?> launcherClass = loader.loadClass(LAUNCHER_PACKAGE + "Launcher");
+        Class<?> listenerClass = loader.loadClass(LAUNCHER_PACKAGE + "TestExecutionListener");
+        Class<?> summaryListenerClass = loader.loadClass(LAUNCHER_PACKAGE + "listeners.SummaryGeneratingListener");
+        Class<?> summaryClass = loader.loadClass(LAUNCHER_PACKAGE + "listeners.TestExecutionSummary");
+
+        List<Object> selectors = new ArrayList<Object>();
+        for (String testClass : testClasses) {
+            selectors.add(selectorsClass.getMethod("selectClass", Class.class).invoke(null,
+                    Class.forName(testClass, false, loader)));
+        }
+        Object builder = builderClass.getMethod("request").invoke(null);
+        builderClass.getMethod("selectors", List.class).invoke(builder, selectors);
+        Object request = builderClass.getMethod("build").invoke(builder);
+
+        // the engines are created for each run, so that they do not hold on to earlier classes
+        Object launcher = loader.loadClass(LAUNCHER_PACKAGE + "core.LauncherFactory").getMethod("create")
+                .invoke(null);
+        Object summaryListener = summaryListenerClass.getConstructor().newInstance();
+        Object listeners = Array.newInstance(listenerClass, 1);
+        Array.set(listeners, 0, summaryListener);
+        launcherClass.getMethod("execute", requestClass, listeners.getClass()).invoke(launcher, request, listeners);
+
+        Object summary = summaryListenerClass.getMethod("getSummary").invoke(summaryListener);
+        PrintWriter writer = new PrintWriter(out);
+        summaryClass.getMethod("printFailuresTo", PrintWriter.class).invoke(summary, writer);
+        writer.flush();
+        return new long[] { getCount(summaryClass, summary, "getTestsFoundCount"),
+                getCount(summaryClass, summary, "getTestsSucceededCount"),
+                getCount(summaryClass, summary, "getTestsFailedCount"),
+                getCount(summaryClass, summary, "getTestsAbortedCount"),
+                getCount(summaryClass, summary, "getTestsSkippedCount"),
+                getCount(summaryClass, summary, "getTotalFailureCount") };
+    }
+
+    private static long getCount(Class<?> summaryClass, Object summary, String method) throws Exception {
+        return ((Number) summaryClass.getMethod(method).invoke(summary)).longValue();
+    }
+
+    private static List<String> split(String value, String separator) {
+        List<String> values = new ArrayList<String>();
+        for (String part : value.split(Pattern.quote(separator))) {
+            if (!part.isEmpty()) {
+                values.add(part);
+            }
+        }
+        return values;
+    }
+}
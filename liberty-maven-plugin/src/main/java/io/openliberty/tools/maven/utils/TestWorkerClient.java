@@ -0,0 +1,223 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs unit tests in a {@link TestWorker} JVM that is kept running between test
+ * runs, so that each run does not pay for the JVM startup and the loading of
+ * the test dependencies again.
+ *
+ * The worker is started by the first run and replaced when the JVM command,
+ * environment, working directory or dependency class path of a run differs
+ * from the one it was started with, including when a dependency jar changes on
+ * disk. It is also replaced when it exits, for example when a test calls
+ * {@code System.exit}.
+ */
+public class TestWorkerClient {
+
+    private final Log log;
+    private Process process;
+    private Writer input;
+    private BufferedReader output;
+    private String processKey;
+
+    public TestWorkerClient(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Run test classes in the worker, starting it first if needed.
+     *
+     * @param command          the java executable followed by the JVM arguments
+     * @param environment      the environment variables to add for the worker
+     * @param workingDirectory the working directory of the worker
+     * @param dependencies     the jar class path entries, loaded once by the
+     *                         worker
+     * @param classpathFile    the file to pass the dependencies to the worker in
+     * @param classDirectories the class path directories, loaded again by every
+     *                         run
+     * @param testClasses      the fully qualified names of the test classes
+     * @return the result of the run
+     */
+    public synchronized Result run(List<String> command, Map<String, String> environment, File workingDirectory,
+            List<String> dependencies, File classpathFile, List<String> classDirectories, List<String> testClasses)
+            throws IOException {
+        String key = getProcessKey(command, environment, workingDirectory, dependencies);
+        if (process != null && (!process.isAlive() || !key.equals(processKey))) {
+            log.debug("Restarting the test JVM because "
+                    + (process.isAlive() ? "its class path or configuration changed" : "it exited"));
+            close();
+        }
+        if (process == null) {
+            start(command, environment, workingDirectory, dependencies, classpathFile);
+            processKey = key;
+        }
+
+        StringBuilder request = new StringBuilder("run\t");
+        for (int i = 0; i < classDirectories.size(); i++) {
+            request.append(i == 0 ? "" : File.pathSeparator).append(classDirectories.get(i));
+        }
+        request.append('\t');
+        for (int i = 0; i < testClasses.size(); i++) {
+            request.append(i == 0 ? "" : ",").append(testClasses.get(i));
+        }
+        try {
+            input.write(request.append('\n').toString());
+            input.flush();
+            String line;
+            // the worker ends the test output with a line break before the result
+            boolean emptyLine = false;
+            while ((line = output.readLine()) != null) {
+                int marker = line.indexOf(TestWorker.DONE_MARKER);
+                if (marker < 0) {
+                    if (emptyLine) {
+                        log.info("");
+                    }
+                    emptyLine = line.isEmpty();
+                    if (!emptyLine) {
+                        log.info(line);
+                    }
+                    continue;
+                }
+                if (marker > 0) {
+                    log.info(line.substring(0, marker));
+                }
+                return new Result(line.substring(marker + TestWorker.DONE_MARKER.length()).trim().split(" "));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        close();
+        throw new IOException("The test JVM exited before the tests completed.");
+    }
+
+    /**
+     * Stop the worker. The next run starts a new one.
+     */
+    public synchronized void close() {
+        if (process != null) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // the worker is stopped below
+            }
+            process.destroy();
+            process = null;
+            processKey = null;
+        }
+    }
+
+    private void start(List<String> command, Map<String, String> environment, File workingDirectory,
+            List<String> dependencies, File classpathFile) throws IOException {
+        Files.createDirectories(classpathFile.getParentFile().toPath());
+        Files.write(classpathFile.toPath(), dependencies, StandardCharsets.UTF_8);
+
+        List<String> processCommand = new ArrayList<String>(command);
+        processCommand.add("-cp");
+        processCommand.add(getWorkerLocation());
+        processCommand.add(TestWorker.class.getName());
+        processCommand.add(classpathFile.getAbsolutePath());
+        log.debug("Starting the test JVM: " + processCommand);
+
+        ProcessBuilder builder = new ProcessBuilder(processCommand);
+        builder.directory(workingDirectory);
+        builder.environment().putAll(environment);
+        builder.redirectErrorStream(true);
+        process = builder.start();
+        input = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    }
+
+    private static String getWorkerLocation() throws IOException {
+        try {
+            return new File(TestWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .getAbsolutePath();
+        } catch (URISyntaxException e) {
+            throw new IOException("Could not find the location of the test worker", e);
+        }
+    }
+
+    private static String getProcessKey(List<String> command, Map<String, String> environment,
+            File workingDirectory, List<String> dependencies) {
+        StringBuilder key = new StringBuilder();
+        key.append(command).append('\n').append(new TreeMap<String, String>(environment)).append('\n')
+                .append(workingDirectory.getAbsolutePath());
+        for (String dependency : dependencies) {
+            File file = new File(dependency);
+            key.append('\n').append(dependency).append(':').append(file.length()).append(':')
+                    .append(file.lastModified());
+        }
+        return key.toString();
+    }
+
+    /**
+     * The test counts of a run.
+     */
+    public static class Result {
+        private final long found;
+        private final long succeeded;
+        private final long failed;
+        private final long aborted;
+        private final long skipped;
+        private final long failures;
+
+        Result(String[] counts) throws IOException {
+            if (counts.length != 6) {
+                throw new IOException("Unexpected test JVM result: " + String.join(" ", counts));
+            }
+            try {
+                found = Long.parseLong(counts[0]);
+                succeeded = Long.parseLong(counts[1]);
+                failed = Long.parseLong(counts[2]);
+                aborted = Long.parseLong(counts[3]);
+                skipped = Long.parseLong(counts[4]);
+                failures = Long.parseLong(counts[5]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Unexpected test JVM result: " + String.join(" ", counts), e);
+            }
+        }
+
+        /**
+         * @return true if a test or a test container failed
+         */
+        public boolean hasFailures() {
+            return failures > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Tests run: " + (found - skipped) + ", Failures: " + failed + ", Aborted: " + aborted
+                    + ", Skipped: " + skipped + ", Succeeded: " + succeeded;
+        }
+    }
+}
@@ -0,0 +1,518 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a ZIP archive from entries that are compressed before they are added,
+ * so that the entries of one archive can be compressed on several threads while
+ * a single thread writes them in order.
+ *
+ * Entries are compressed with {@link #compress(String, File, int, long, File)},
+ * which can run concurrently, and added with {@link #add(Entry)}. The
+ * compressed content of an unchanged entry can also be copied from an earlier
+ * archive, see {@link #readEntries(File)}. The ZIP64
+ * extensions are used for archives and entries that need them. Entry names are
+ * encoded as UTF-8 and the Unix permissions of entries are recorded, so that
+ * scripts stay executable when the archive is extracted.
+ */
+public class ZipArchiveWriter implements Closeable {
+
+    public static final int STORED = 0;
+    public static final int DEFLATED = 8;
+
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_ENTRY_LIMIT = 0xFFFF;
+    private static final int UTF8_FLAG = 0x800;
+    private static final int UNIX_VERSION = 3 << 8;
+
+    private final CountingOutputStream out;
+    private final List<Entry> entries = new ArrayList<Entry>();
+
+    public ZipArchiveWriter(File archive) throws IOException {
+        this.out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(archive), 65536));
+    }
+
+    /**
+     * Compress a file for an archive entry. This method can be called from
+     * several threads at once.
+     *
+     * @param name           the name of the entry
+     * @param file           the file to compress
+     * @param mode           the Unix permissions of the entry
+     * @param time           the modification time of the entry
+     * @param spillDirectory the directory to keep the compressed content of
+     *                       large files in, instead of in memory
+     * @return the compressed entry, stored instead of deflated if deflating does
+     *         not make it smaller
+     */
+    public static Entry compress(String name, File file, int mode, long time, File spillDirectory)
+            throws IOException {
+        long size = file.length();
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        File spill = null;
+        ByteArrayOutputStream memory = null;
+        OutputStream target;
+        if (size > Entry.IN_MEMORY_LIMIT) {
+            spill = File.createTempFile("entry", ".bin", spillDirectory);
+            target = new BufferedOutputStream(new FileOutputStream(spill), 65536);
+        } else {
+            memory = new ByteArrayOutputStream((int) Math.max(32, size / 2));
+            target = memory;
+        }
+        CountingOutputStream counter = new CountingOutputStream(target);
+        long uncompressedSize = 0;
+        try (InputStream in = new FileInputStream(file);
+                DeflaterOutputStream deflated = new DeflaterOutputStream(counter, deflater, 65536)) {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                deflated.write(buffer, 0, read);
+                uncompressedSize += read;
+            }
+        } finally {
+            deflater.end();
+        }
+        if (counter.getCount() < uncompressedSize) {
+            return new Entry(name, DEFLATED, crc.getValue(), uncompressedSize, counter.getCount(), mode, time,
+                    memory == null ? null : memory.toByteArray(), spill);
+        }
+        // already compressed content, such as jars, is stored as is
+        if (spill != null) {
+            Files.delete(spill.toPath());
+        }
+        return new Entry(name, STORED, crc.getValue(), uncompressedSize, uncompressedSize, mode, time, null, file);
+    }
+
+    /**
+     * Create an entry that copies the compressed content of an entry of another
+     * archive as is.
+     *
+     * @param previous an entry read with {@link #readEntries(File)}
+     * @param mode     the Unix permissions of the new entry
+     * @param time     the modification time of the new entry
+     */
+    public static Entry copy(Entry previous, int mode, long time) {
+        return new Entry(previous.name, previous.method, previous.crc, previous.size, previous.compressedSize, mode,
+                time, null, previous.dataFile, previous.dataOffset, false);
+    }
+
+    /**
+     * Read the entries of an archive, so that their compressed content can be
+     * copied to a new archive with {@link #copy(Entry, int, long)}.
+     *
+     * @return the file entries of the archive by name
+     * @throws IOException if the archive cannot be read or is not a ZIP archive
+     */
+    public static Map<String, Entry> readEntries(File archive) throws IOException {
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        try (RandomAccessFile file = new RandomAccessFile(archive, "r")) {
+            long end = findEndOfCentralDirectory(file);
+            file.seek(end + 10);
+            long count = readShort(file);
+            long directorySize = readInt(file);
+            long directoryOffset = readInt(file);
+            if (count == ZIP64_ENTRY_LIMIT || directorySize == ZIP64_LIMIT || directoryOffset == ZIP64_LIMIT) {
+                file.seek(end - 20);
+                if (readInt(file) != 0x07064b50) {
+                    throw new IOException("Missing ZIP64 end of central directory locator in " + archive);
+                }
+                file.seek(end - 12);
+                long record = readLong(file);
+                file.seek(record + 32);
+                count = readLong(file);
+                directorySize = readLong(file);
+                directoryOffset = readLong(file);
+            }
+            byte[] directory = new byte[(int) directorySize];
+            file.seek(directoryOffset);
+            file.readFully(directory);
+            int position = 0;
+            for (long i = 0; i < count; i++) {
+                if (getInt(directory, position) != 0x02014b50) {
+                    throw new IOException("Invalid central directory in " + archive);
+                }
+                int method = getShort(directory, position + 10);
+                long crc = getInt(directory, position + 16) & ZIP64_LIMIT;
+                long compressedSize = getInt(directory, position + 20) & ZIP64_LIMIT;
+                long size = getInt(directory, position + 24) & ZIP64_LIMIT;
+                int nameLength = getShort(directory, position + 28);
+                int extraLength = getShort(directory, position + 30);
+                int commentLength = getShort(directory, position + 32);
+                long offset = getInt(directory, position + 42) & ZIP64_LIMIT;
+                String name = new String(directory, position + 46, nameLength, StandardCharsets.UTF_8);
+                int extra = position + 46 + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = getShort(directory, extra);
+                    int length = getShort(directory, extra + 2);
+                    if (id == 0x0001) {
+                        int field = extra + 4;
+                        if (size == ZIP64_LIMIT) {
+                            size = getLong(directory, field);
+                            field += 8;
+                        }
+                        if (compressedSize == ZIP64_LIMIT) {
+                            compressedSize = getLong(directory, field);
+                            field += 8;
+                        }
+                        if (offset == ZIP64_LIMIT) {
+                            offset = getLong(directory, field);
+                        }
+                    }
+                    extra += 4 + length;
+                }
+                position = extraEnd + commentLength;
+                if (name.endsWith("/")) {
+                    continue;
+                }
+                file.seek(offset + 26);
+                long dataOffset = offset + 30 + readShort(file) + readShort(file);
+                entries.put(name, new Entry(name, method, crc, size, compressedSize, 0, 0, null, archive, dataOffset,
+                        false));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Invalid central directory in " + archive, e);
+        }
+        return entries;
+    }
+
+    private static long findEndOfCentralDirectory(RandomAccessFile file) throws IOException {
+        long length = file.length();
+        int tail = (int) Math.min(length, 65535 + 22);
+        byte[] bytes = new byte[tail];
+        file.seek(length - tail);
+        file.readFully(bytes);
+        for (int i = tail - 22; i >= 0; i--) {
+            if (getInt(bytes, i) == 0x06054b50) {
+                return length - tail + i;
+            }
+        }
+        throw new IOException("Not a ZIP archive");
+    }
+
+    private static void copyRange(File file, long offset, long length, OutputStream out) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(offset);
+            byte[] buffer = new byte[65536];
+            while (length > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+                if (read < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+                out.write(buffer, 0, read);
+                length -= read;
+            }
+        }
+    }
+
+    /**
+     * @return an entry for a directory
+     */
+    public static Entry directory(String name, int mode, long time) {
+        return new Entry(name.endsWith("/") ? name : name + "/", STORED, 0, 0, 0, mode, time, new byte[0], null);
+    }
+
+    /**
+     * Add an entry to the archive.
+     */
+    public void add(Entry entry) throws IOException {
+        entry.offset = out.getCount();
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        boolean zip64 = entry.needsZip64();
+        ByteArrayOutputStream extra = new ByteArrayOutputStream();
+        if (zip64) {
+            writeShort(extra, 0x0001);
+            writeShort(extra, 16);
+            writeLong(extra, entry.size);
+            writeLong(extra, entry.compressedSize);
+        }
+        writeInt(out, 0x04034b50);
+        writeShort(out, zip64 ? 45 : 20);
+        writeShort(out, UTF8_FLAG);
+        writeShort(out, entry.method);
+        writeInt(out, entry.dosTime);
+        writeInt(out, (int) entry.crc);
+        writeInt(out, zip64 ? (int) ZIP64_LIMIT : (int) entry.compressedSize);
+        writeInt(out, zip64 ? (int) ZIP64_LIMIT : (int) entry.size);
+        writeShort(out, name.length);
+        writeShort(out, extra.size());
+        out.write(name);
+        extra.writeTo(out);
+        entry.writeData(out);
+        entries.add(entry);
+    }
+
+    /**
+     * Write the central directory and close the archive.
+     */
+    @Override
+    public void close() throws IOException {
+        long directoryOffset = out.getCount();
+        for (Entry entry : entries) {
+            writeCentralDirectoryEntry(entry);
+        }
+        long directorySize = out.getCount() - directoryOffset;
+        boolean zip64 = entries.size() >= ZIP64_ENTRY_LIMIT || directoryOffset >= ZIP64_LIMIT
+                || directorySize >= ZIP64_LIMIT;
+        if (zip64) {
+            long recordOffset = out.getCount();
+            writeInt(out, 0x06064b50);
+            writeLong(out, 44);
+            writeShort(out, UNIX_VERSION | 45);
+            writeShort(out, 45);
+            writeInt(out, 0);
+            writeInt(out, 0);
+            writeLong(out, entries.size());
+            writeLong(out, entries.size());
+            writeLong(out, directorySize);
+            writeLong(out, directoryOffset);
+            writeInt(out, 0x07064b50);
+            writeInt(out, 0);
+            writeLong(out, recordOffset);
+            writeInt(out, 1);
+        }
+        writeInt(out, 0x06054b50);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, zip64 ? ZIP64_ENTRY_LIMIT : entries.size());
+        writeShort(out, zip64 ? ZIP64_ENTRY_LIMIT : entries.size());
+        writeInt(out, zip64 ? (int) ZIP64_LIMIT : (int) directorySize);
+        writeInt(out, zip64 ? (int) ZIP64_LIMIT : (int) directoryOffset);
+        writeShort(out, 0);
+        out.close();
+    }
+
+    private void writeCentralDirectoryEntry(Entry entry) throws IOException {
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        boolean sizes64 = entry.needsZip64();
+        boolean offset64 = entry.offset >= ZIP64_LIMIT;
+        ByteArrayOutputStream extra = new ByteArrayOutputStream();
+        if (sizes64 || offset64) {
+            writeShort(extra, 0x0001);
+            writeShort(extra, (sizes64 ? 16 : 0) + (offset64 ? 8 : 0));
+            if (sizes64) {
+                writeLong(extra, entry.size);
+                writeLong(extra, entry.compressedSize);
+            }
+            if (offset64) {
+                writeLong(extra, entry.offset);
+            }
+        }
+        int version = sizes64 || offset64 ? 45 : 20;
+        writeInt(out, 0x02014b50);
+        writeShort(out, UNIX_VERSION | version);
+        writeShort(out, version);
+        writeShort(out, UTF8_FLAG);
+        writeShort(out, entry.method);
+        writeInt(out, entry.dosTime);
+        writeInt(out, (int) entry.crc);
+        writeInt(out, sizes64 ? (int) ZIP64_LIMIT : (int) entry.compressedSize);
+        writeInt(out, sizes64 ? (int) ZIP64_LIMIT : (int) entry.size);
+        writeShort(out, name.length);
+        writeShort(out, extra.size());
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        int fileType = entry.isDirectory() ? 0040000 : 0100000;
+        writeInt(out, ((fileType | entry.mode) << 16) | (entry.isDirectory() ? 0x10 : 0));
+        writeInt(out, offset64 ? (int) ZIP64_LIMIT : (int) entry.offset);
+        out.write(name);
+        extra.writeTo(out);
+    }
+
+    private static int getShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return getShort(bytes, offset) | getShort(bytes, offset + 2) << 16;
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        return (getInt(bytes, offset) & ZIP64_LIMIT) | (long) getInt(bytes, offset + 4) << 32;
+    }
+
+    private static int readShort(RandomAccessFile file) throws IOException {
+        return file.readUnsignedByte() | file.readUnsignedByte() << 8;
+    }
+
+    private static long readInt(RandomAccessFile file) throws IOException {
+        return readShort(file) | (long) readShort(file) << 16;
+    }
+
+    private static long readLong(RandomAccessFile file) throws IOException {
+        return readInt(file) | readInt(file) << 32;
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        writeShort(out, value & 0xFFFF);
+        writeShort(out, (value >>> 16) & 0xFFFF);
+    }
+
+    private static void writeLong(OutputStream out, long value) throws IOException {
+        writeInt(out, (int) value);
+        writeInt(out, (int) (value >>> 32));
+    }
+
+    /**
+     * @return the MS-DOS date and time of the local time, as used in ZIP headers
+     */
+    static int toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16 | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * An entry with its content in the form it is written to the archive.
+     */
+    public static class Entry {
+        static final long IN_MEMORY_LIMIT = 8 * 1024 * 1024;
+
+        private final String name;
+        private final int method;
+        private final long crc;
+        private final long size;
+        private final long compressedSize;
+        private final int mode;
+        private final int dosTime;
+        private final byte[] data;
+        private final File dataFile;
+        private final long dataOffset;
+        private final boolean temporary;
+        private long offset;
+
+        Entry(String name, int method, long crc, long size, long compressedSize, int mode, long time,
+                byte[] data, File dataFile) {
+            this(name, method, crc, size, compressedSize, mode, time, data, dataFile, 0,
+                    method == DEFLATED && dataFile != null);
+        }
+
+        Entry(String name, int method, long crc, long size, long compressedSize, int mode, long time,
+                byte[] data, File dataFile, long dataOffset, boolean temporary) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.mode = mode & 07777;
+            this.dosTime = toDosTime(time);
+            this.data = data;
+            this.dataFile = dataFile;
+            this.dataOffset = dataOffset;
+            this.temporary = temporary;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        private boolean needsZip64() {
+            return size >= ZIP64_LIMIT || compressedSize >= ZIP64_LIMIT;
+        }
+
+        private void writeData(OutputStream out) throws IOException {
+            if (data != null) {
+                out.write(data);
+                return;
+            }
+            if (dataOffset > 0) {
+                copyRange(dataFile, dataOffset, compressedSize, out);
+                return;
+            }
+            try {
+                Files.copy(dataFile.toPath(), out);
+            } finally {
+                if (temporary) {
+                    Files.deleteIfExists(dataFile.toPath());
+                }
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
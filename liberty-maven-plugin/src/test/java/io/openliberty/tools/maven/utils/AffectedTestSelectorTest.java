@@ -0,0 +1,173 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AffectedTestSelectorTest {
+
+    private static final String RUN = "app:test";
+    private static final List<String> INCLUDES = Arrays.asList("**/*Test.java");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File classes;
+    private File testClasses;
+    private AffectedTestSelector selector;
+
+    @Before
+    public void setUp() throws Exception {
+        classes = temp.newFolder("classes");
+        testClasses = temp.newFolder("test-classes");
+        compile(classes, "p/Helper.java", "package p; public class Helper { public static int one() { return 1; } }");
+        compile(classes, "p/Service.java", "package p; public class Service { public int get() { return Helper.one(); } }");
+        compile(classes, "p/Other.java", "package p; public class Other { }");
+        compile(testClasses, "p/ServiceTest.java", "package p; public class ServiceTest { Service service = new Service(); }");
+        compile(testClasses, "p/OtherTest.java", "package p; public class OtherTest { Other other = new Other(); }");
+        selector = new AffectedTestSelector(new SystemStreamLog());
+    }
+
+    @Test
+    public void all_tests_run_until_they_passed_once() throws Exception {
+        // when
+        List<String> tests = select(false);
+
+        // then
+        assertNull("expected all tests to run", tests);
+    }
+
+    @Test
+    public void no_tests_are_selected_without_changes() throws Exception {
+        // given
+        select(false);
+        selector.passed(RUN);
+
+        // when
+        List<String> tests = select(false);
+
+        // then
+        assertTrue("expected no tests, got " + tests, tests.isEmpty());
+    }
+
+    @Test
+    public void changed_class_selects_the_tests_that_depend_on_it() throws Exception {
+        // given
+        select(false);
+        selector.passed(RUN);
+        compile(classes, "p/Helper.java", "package p; public class Helper { public static int one() { return 2 - 1; } }");
+
+        // when
+        List<String> tests = select(false);
+
+        // then
+        assertEquals(Arrays.asList("p.ServiceTest"), tests);
+    }
+
+    @Test
+    public void affected_tests_are_selected_until_they_pass() throws Exception {
+        // given
+        select(false);
+        selector.passed(RUN);
+        compile(classes, "p/Other.java", "package p; public class Other { int value; }");
+        assertEquals(Arrays.asList("p.OtherTest"), select(false));
+
+        // when
+        List<String> tests = select(false);
+
+        // then
+        assertEquals(Arrays.asList("p.OtherTest"), tests);
+        selector.passed(RUN);
+        assertTrue("expected no tests once they passed", select(false).isEmpty());
+    }
+
+    @Test
+    public void deleted_class_selects_the_tests_that_used_it() throws Exception {
+        // given
+        select(false);
+        selector.passed(RUN);
+        Files.delete(new File(testClasses, "p/OtherTest.class").toPath());
+
+        // when
+        List<String> tests = select(false);
+
+        // then
+        assertTrue("expected the deleted test not to be selected, got " + tests, tests.isEmpty());
+    }
+
+    @Test
+    public void production_change_runs_all_integration_tests() throws Exception {
+        // given
+        select(true);
+        selector.passed(RUN);
+        compile(classes, "p/Other.java", "package p; public class Other { int value; }");
+
+        // when
+        List<String> tests = select(true);
+
+        // then
+        assertNull("expected all integration tests to run", tests);
+    }
+
+    @Test
+    public void test_classes_are_matched_against_the_patterns() throws Exception {
+        // when
+        List<String> tests = AffectedTestSelector.getTestClasses(testClasses, INCLUDES,
+                Collections.singletonList("**/Other*"));
+
+        // then
+        assertEquals(Arrays.asList("p.ServiceTest"), tests);
+        assertNull("expected regex patterns to be unsupported", AffectedTestSelector.getTestClasses(testClasses,
+                Collections.singletonList("%regex[.*Test.*]"), Collections.<String>emptyList()));
+    }
+
+    private List<String> select(boolean productionChangesRunAll) {
+        return selector.select(RUN, classes, testClasses, productionChangesRunAll, INCLUDES,
+                Collections.<String>emptyList());
+    }
+
+    private void compile(File output, String path, String content) throws IOException {
+        File source = new File(temp.getRoot(), "src/" + path);
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        File classFile = new File(output, path.replace(".java", ".class"));
+        long previous = classFile.lastModified();
+        List<String> args = new ArrayList<String>(Arrays.asList("-d", output.getAbsolutePath(), "-cp",
+                classes.getAbsolutePath(), source.getAbsolutePath()));
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(new String[0])));
+        // make the change visible even within the file system's timestamp resolution
+        classFile.setLastModified(Math.max(classFile.lastModified(), previous + 2000));
+    }
+}
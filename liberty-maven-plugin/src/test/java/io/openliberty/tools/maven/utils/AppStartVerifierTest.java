@@ -0,0 +1,253 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AppStartVerifierTest {
+
+    private static final long TIMEOUT = 10000;
+    // the expressions of BasicSupport
+    private static final String START_REGEXP = "CWWKZ0001I.*";
+    private static final String FAIL_REGEXP = "CWWKZ0002E:[^:]*";
+    private static final String UPDATE_REGEXP = "CWWKZ0003I.*";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File log;
+    private LogWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        log = temp.newFile("messages.log");
+        watcher = new LogWatcher(log);
+    }
+
+    @After
+    public void tearDown() {
+        watcher.close();
+    }
+
+    @Test
+    public void started_applications_are_reported_with_their_message() throws Exception {
+        // given
+        append(started("a"), started("b"));
+
+        // when
+        List<AppStartVerifier.Result> results = newVerifier().verify(Arrays.asList("b", "a", "b"), TIMEOUT);
+
+        // then
+        assertEquals(2, results.size());
+        assertResult(results.get(0), "b", AppStartVerifier.Status.STARTED, started("b"));
+        assertResult(results.get(1), "a", AppStartVerifier.Status.STARTED, started("a"));
+        assertTrue("expected all applications to start", AppStartVerifier.getNotStarted(results).isEmpty());
+    }
+
+    @Test
+    public void failed_application_ends_the_verification_before_the_timeout() throws Exception {
+        // given
+        append(started("a"), failed("b"));
+        long start = System.currentTimeMillis();
+
+        // when
+        List<AppStartVerifier.Result> results = newVerifier().verify(Arrays.asList("a", "b"), TIMEOUT);
+
+        // then
+        assertTrue("expected not to wait for the timeout", System.currentTimeMillis() - start < TIMEOUT / 2);
+        assertResult(results.get(0), "a", AppStartVerifier.Status.STARTED, started("a"));
+        assertResult(results.get(1), "b", AppStartVerifier.Status.FAILED, failed("b"));
+        assertEquals(Arrays.asList("b"), AppStartVerifier.getNotStarted(results));
+    }
+
+    @Test
+    public void messages_written_while_waiting_end_the_verification() throws Exception {
+        // given
+        append(started("a"));
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(300);
+                    append(failed("b"));
+                } catch (InterruptedException | IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        long start = System.currentTimeMillis();
+
+        // when
+        writer.start();
+        List<AppStartVerifier.Result> results = newVerifier().verify(Arrays.asList("a", "b"), TIMEOUT);
+
+        // then
+        writer.join();
+        assertTrue("expected not to wait for the timeout", System.currentTimeMillis() - start < TIMEOUT / 2);
+        assertEquals(AppStartVerifier.Status.FAILED, results.get(1).getStatus());
+        assertTrue("expected the failure to take longer than the start",
+                results.get(1).getElapsed() >= results.get(0).getElapsed());
+    }
+
+    @Test
+    public void application_without_a_message_times_out() throws Exception {
+        // given
+        append(started("a"));
+
+        // when
+        List<AppStartVerifier.Result> results = newVerifier().verify(Arrays.asList("a", "b"), 500);
+
+        // then
+        assertEquals(AppStartVerifier.Status.STARTED, results.get(0).getStatus());
+        assertResult(results.get(1), "b", AppStartVerifier.Status.TIMED_OUT, null);
+        assertTrue("expected the time to the timeout", results.get(1).getElapsed() >= 500);
+    }
+
+    @Test
+    public void application_name_only_matches_as_a_whole_name() throws Exception {
+        // given
+        append(started("app2"), failed("my-app"), failed("app.war"), started("app"));
+
+        // when
+        List<AppStartVerifier.Result> results = newVerifier().verify(Arrays.asList("app"), TIMEOUT);
+
+        // then
+        assertResult(results.get(0), "app", AppStartVerifier.Status.STARTED, started("app"));
+    }
+
+    @Test
+    public void failures_before_the_offset_are_ignored() throws Exception {
+        // given
+        append(failed("a"));
+        long offset = log.length();
+        append(started("a"));
+        AppStartVerifier verifier = newVerifier();
+        verifier.setFailureLogOffset(offset);
+
+        // when
+        List<AppStartVerifier.Result> results = verifier.verify(Collections.singletonList("a"), TIMEOUT);
+
+        // then
+        assertResult(results.get(0), "a", AppStartVerifier.Status.STARTED, started("a"));
+    }
+
+    @Test
+    public void starts_before_the_offset_do_not_count_for_redeployed_applications() throws Exception {
+        // given
+        append(started("a"));
+        long offset = log.length();
+        append(failed("a"));
+        AppStartVerifier verifier = newVerifier();
+        verifier.setFailureLogOffset(offset);
+        verifier.setRedeployed(Collections.singletonList("a"), offset, UPDATE_REGEXP);
+
+        // when
+        List<AppStartVerifier.Result> results = verifier.verify(Collections.singletonList("a"), TIMEOUT);
+
+        // then
+        assertResult(results.get(0), "a", AppStartVerifier.Status.FAILED, failed("a"));
+    }
+
+    @Test
+    public void update_counts_as_the_start_of_a_redeployed_application() throws Exception {
+        // given
+        append(started("a"), started("b"));
+        long offset = log.length();
+        append(updated("a"));
+        AppStartVerifier verifier = newVerifier();
+        verifier.setFailureLogOffset(offset);
+        verifier.setRedeployed(Collections.singletonList("a"), offset, UPDATE_REGEXP);
+
+        // when
+        List<AppStartVerifier.Result> results = verifier.verify(Arrays.asList("a", "b"), TIMEOUT);
+
+        // then
+        assertResult(results.get(0), "a", AppStartVerifier.Status.STARTED, updated("a"));
+        assertResult(results.get(1), "b", AppStartVerifier.Status.STARTED, started("b"));
+    }
+
+    @Test
+    public void table_lists_the_status_time_and_failure_of_every_application() {
+        // given
+        List<AppStartVerifier.Result> results = Arrays.asList(
+                new AppStartVerifier.Result("a", AppStartVerifier.Status.STARTED, started("a"), 1200),
+                new AppStartVerifier.Result("inventory", AppStartVerifier.Status.FAILED, "CWWKZ0002E: failed", 300),
+                new AppStartVerifier.Result("b", AppStartVerifier.Status.TIMED_OUT, null, 30000));
+
+        // when
+        List<String> table = AppStartVerifier.formatTable(results);
+
+        // then
+        assertEquals(Arrays.asList(
+                "Application  Status         Time",
+                "a            started       1.2 s",
+                "inventory    failed        0.3 s  CWWKZ0002E: failed",
+                "b            timed out    30.0 s"), table);
+    }
+
+    private AppStartVerifier newVerifier() {
+        return new AppStartVerifier(watcher, START_REGEXP, FAIL_REGEXP);
+    }
+
+    private static void assertResult(AppStartVerifier.Result result, String appName, AppStartVerifier.Status status,
+            String line) {
+        assertEquals(appName, result.getAppName());
+        assertEquals(status, result.getStatus());
+        if (line == null) {
+            assertNull(result.getLine());
+        } else {
+            assertEquals(line, result.getLine());
+        }
+    }
+
+    private static String started(String appName) {
+        return "[1] CWWKZ0001I: Application " + appName + " started in 1.234 seconds.";
+    }
+
+    private static String updated(String appName) {
+        return "[3] CWWKZ0003I: The application " + appName + " updated in 0.456 seconds.";
+    }
+
+    private static String failed(String appName) {
+        return "[2] CWWKZ0002E: An exception occurred while starting the application " + appName
+                + ". The exception message was: java.lang.IllegalStateException: broken";
+    }
+
+    private void append(String... lines) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append('\n');
+        }
+        Files.write(log.toPath(), content.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+}
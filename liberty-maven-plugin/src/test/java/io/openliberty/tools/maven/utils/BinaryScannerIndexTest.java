@@ -0,0 +1,231 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryScannerIndexTest {
+
+    private static final String INPUTS = "inputs";
+    private static final String SCANNER = "scanner";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File classes;
+    private File indexFile;
+    private List<String> directories;
+
+    @Before
+    public void setUp() throws Exception {
+        classes = temp.newFolder("classes");
+        indexFile = new File(temp.getRoot(), "liberty-plugin-binary-scanner-index.properties");
+        directories = Collections.singletonList(classes.getAbsolutePath());
+        write("a/A.class", "A");
+        write("a/B.class", "B");
+        BinaryScannerIndex index = newIndex();
+        index.update(directories);
+        index.save(INPUTS, SCANNER, new HashSet<String>(Arrays.asList("servlet-6.0", "jsonb-3.0")));
+    }
+
+    @Test
+    public void unchanged_class_files_reuse_the_previous_result() throws Exception {
+        // when
+        BinaryScannerIndex index = newIndex();
+        index.update(directories);
+
+        // then
+        assertTrue("expected the same inputs", index.hasSameInputs(INPUTS));
+        assertTrue("expected no added class files", index.getAddedClassFiles().isEmpty());
+        assertFalse("expected no changed class files", index.hasChangedOrRemovedClassFiles());
+        assertEquals(new HashSet<String>(Arrays.asList("servlet-6.0", "jsonb-3.0")), index.getFeatures());
+    }
+
+    @Test
+    public void added_class_files_are_reported() throws Exception {
+        // given
+        File added = write("a/C.class", "C");
+
+        // when
+        BinaryScannerIndex index = newIndex();
+        index.update(directories);
+
+        // then
+        assertEquals(Arrays.asList(added.getAbsolutePath()), index.getAddedClassFiles());
+        assertFalse("expected only additions", index.hasChangedOrRemovedClassFiles());
+    }
+
+    @Test
+    public void touched_class_file_with_the_same_content_is_not_changed() throws Exception {
+        // given
+        File classFile = new File(classes, "a/A.class");
+        classFile.setLastModified(classFile.lastModified() + 5000);
+
+        // when
+        BinaryScannerIndex index = newIndex();
+        index.update(directories);
+
+        // then
+        assertTrue("expected no added class files", index.getAddedClassFiles().isEmpty());
+        assertFalse("expected the same content to count as unchanged", index.hasChangedOrRemovedClassFiles());
+    }
+
+    @Test
+    public void changed_class_file_requires_a_full_scan() throws Exception {
+        // given
+        write("a/B.class", "B without JSON-B");
+
+        // when
+        BinaryScannerIndex index = newIndex();
+        index.update(directories);
+
+        // then
+        assertTrue("expected the changed class file to require a full scan", index.hasChangedOrRemovedClassFiles());
+        assertTrue("expected a changed class file not to be reported as added", index.getAddedClassFiles().isEmpty());
+    }
+
+    @Test
+    public void change_followed_by_a_removal_requires_a_full_scan_each_time() throws Exception {
+        // given
+        write("a/B.class", "B without JSON-B");
+        BinaryScannerIndex index = newIndex();
+        index.update(directories);
+        assertTrue("expected the change to require a full scan", index.hasChangedOrRemovedClassFiles());
+        index.save(INPUTS, SCANNER, new HashSet<String>(Arrays.asList("servlet-6.0")));
+        Files.delete(new File(classes, "a/B.class").toPath());
+
+        // when
+        index = newIndex();
+        index.update(directories);
+
+        // then
+        assertTrue("expected the removal to require a full scan", index.hasChangedOrRemovedClassFiles());
+        assertEquals(new HashSet<String>(Arrays.asList("servlet-6.0")), index.getFeatures());
+        index.save(INPUTS, SCANNER, new HashSet<String>(Arrays.asList("servlet-6.0")));
+        index = newIndex();
+        index.update(directories);
+        assertFalse("expected the saved full scan to be current", index.hasChangedOrRemovedClassFiles());
+    }
+
+    @Test
+    public void scan_of_some_class_files_skips_the_ones_already_scanned() throws Exception {
+        // given
+        File changed = write("a/B.class", "B without JSON-B");
+        File added = write("a/C.class", "C");
+        List<String> classFiles = Arrays.asList(new File(classes, "a/A.class").getAbsolutePath(),
+                changed.getAbsolutePath(), added.getAbsolutePath());
+
+        // when
+        List<String> toScan = newIndex().getChangedClassFiles(classFiles, SCANNER);
+
+        // then
+        assertEquals(Arrays.asList(changed.getAbsolutePath(), added.getAbsolutePath()), toScan);
+    }
+
+    @Test
+    public void scanned_class_files_are_recorded_with_their_features() throws Exception {
+        // given
+        File added = write("a/C.class", "C");
+        BinaryScannerIndex index = newIndex();
+        index.getChangedClassFiles(Collections.singletonList(added.getAbsolutePath()), SCANNER);
+
+        // when
+        index.saveClassFiles(new HashSet<String>(Arrays.asList("cdi-4.0")));
+
+        // then
+        index = newIndex();
+        assertTrue("expected the scanned class file to be skipped",
+                index.getChangedClassFiles(Collections.singletonList(added.getAbsolutePath()), SCANNER).isEmpty());
+        index.update(directories);
+        assertTrue("expected the inputs of the full scan to be kept", index.hasSameInputs(INPUTS));
+        assertTrue("expected the recorded class file not to be added", index.getAddedClassFiles().isEmpty());
+        assertFalse("expected no changed class files", index.hasChangedOrRemovedClassFiles());
+        assertEquals(new HashSet<String>(Arrays.asList("servlet-6.0", "jsonb-3.0", "cdi-4.0")), index.getFeatures());
+    }
+
+    @Test
+    public void recorded_change_requires_a_full_scan() throws Exception {
+        // given
+        File changed = write("a/B.class", "B without JSON-B");
+        BinaryScannerIndex index = newIndex();
+        index.getChangedClassFiles(Collections.singletonList(changed.getAbsolutePath()), SCANNER);
+        index.saveClassFiles(new HashSet<String>(Arrays.asList("servlet-6.0")));
+
+        // when
+        index = newIndex();
+        index.update(directories);
+
+        // then
+        assertTrue("expected the recorded change to require a full scan", index.hasChangedOrRemovedClassFiles());
+        index.save(INPUTS, SCANNER, new HashSet<String>(Arrays.asList("servlet-6.0")));
+        index = newIndex();
+        index.update(directories);
+        assertFalse("expected the saved full scan to be current", index.hasChangedOrRemovedClassFiles());
+    }
+
+    @Test
+    public void other_scanner_scans_all_given_class_files() throws Exception {
+        // given
+        List<String> classFiles = Collections.singletonList(new File(classes, "a/A.class").getAbsolutePath());
+
+        // when
+        List<String> toScan = newIndex().getChangedClassFiles(classFiles, "other scanner");
+
+        // then
+        assertEquals(classFiles, toScan);
+    }
+
+    @Test
+    public void invalidated_index_has_different_inputs() throws Exception {
+        // given
+        BinaryScannerIndex index = newIndex();
+
+        // when
+        index.invalidate();
+
+        // then
+        assertFalse("expected the index file to be deleted", indexFile.exists());
+        assertFalse("expected no previous inputs", newIndex().hasSameInputs(INPUTS));
+    }
+
+    private BinaryScannerIndex newIndex() {
+        return new BinaryScannerIndex(indexFile, new SystemStreamLog());
+    }
+
+    private File write(String path, String content) throws IOException {
+        File file = new File(classes, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CachingArtifactResolverTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File localRepo;
+    private DefaultRepositorySystemSession repoSession;
+    private RepositorySystem repositorySystem;
+    private AtomicInteger resolveCalls;
+
+    @Before
+    public void setUp() throws Exception {
+        localRepo = temp.newFolder("repo");
+        resolveCalls = new AtomicInteger();
+        final RepositorySystem delegate = MavenRepositorySystemUtils.newServiceLocator().getService(RepositorySystem.class);
+        // count the calls that reach the repository system
+        repositorySystem = (RepositorySystem) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { RepositorySystem.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("resolveArtifact")) {
+                            resolveCalls.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(delegate, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+        repoSession = MavenRepositorySystemUtils.newSession();
+        repoSession.setLocalRepositoryManager(
+                delegate.newLocalRepositoryManager(repoSession, new LocalRepository(localRepo, "simple")));
+    }
+
+    @Test
+    public void batch_resolves_all_artifacts_from_local_repository() throws Exception {
+        // given
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        for (int i = 0; i < 20; i++) {
+            artifacts.add(install("test.group", "lib" + i, "1.0"));
+        }
+
+        // when
+        List<ArtifactResult> results = newResolver().resolveArtifacts(artifacts);
+
+        // then
+        assertEquals(20, results.size());
+        for (int i = 0; i < 20; i++) {
+            assertTrue("expected artifact to be resolved", results.get(i).isResolved());
+            assertEquals("lib" + i + "-1.0.jar", results.get(i).getArtifact().getFile().getName());
+        }
+    }
+
+    @Test
+    public void resolved_artifacts_are_cached_for_the_session() throws Exception {
+        // given
+        Artifact artifact = install("test.group", "cached", "1.0");
+        newResolver().resolveArtifacts(Collections.singletonList(artifact));
+        int callsAfterFirstResolve = resolveCalls.get();
+
+        // when
+        ArtifactResult result = newResolver().resolveArtifact(new DefaultArtifact("test.group:cached:jar:1.0"));
+
+        // then
+        assertTrue("expected artifact to be resolved", result.isResolved());
+        assertEquals("expected no further repository system calls", callsAfterFirstResolve, resolveCalls.get());
+    }
+
+    @Test
+    public void classifier_is_part_of_the_cache_key() throws Exception {
+        // given
+        install("test.group", "classified", "1.0");
+        File dir = new File(localRepo, "test/group/classified/1.0");
+        Files.write(new File(dir, "classified-1.0-tests.jar").toPath(), "tests".getBytes(StandardCharsets.UTF_8));
+        CachingArtifactResolver resolver = newResolver();
+        resolver.resolveArtifact(new DefaultArtifact("test.group:classified:jar:1.0"));
+
+        // when
+        ArtifactResult result = resolver.resolveArtifact(new DefaultArtifact("test.group:classified:jar:tests:1.0"));
+
+        // then
+        assertEquals("classified-1.0-tests.jar", result.getArtifact().getFile().getName());
+    }
+
+    @Test
+    public void same_coordinates_from_different_repositories_are_cached_separately() throws Exception {
+        // given
+        Artifact artifact = install("test.group", "shared", "1.0");
+        newResolver().resolveArtifact(artifact);
+        int callsAfterFirstResolve = resolveCalls.get();
+        RemoteRepository other = new RemoteRepository.Builder("other", "default",
+                temp.newFolder("other").toURI().toString()).build();
+        CachingArtifactResolver otherResolver = new CachingArtifactResolver(repositorySystem, repoSession,
+                Collections.singletonList(other));
+
+        // when
+        otherResolver.resolveArtifact(artifact);
+
+        // then
+        assertNotEquals(newResolver().getKey(artifact), otherResolver.getKey(artifact));
+        assertEquals("expected the artifact to be resolved again for the other repository",
+                callsAfterFirstResolve + 1, resolveCalls.get());
+    }
+
+    @Test
+    public void batch_reports_missing_artifacts() throws Exception {
+        // given
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        artifacts.add(install("test.group", "present", "1.0"));
+        artifacts.add(new DefaultArtifact("test.group:missing:jar:1.0"));
+
+        // when
+        try {
+            newResolver().resolveArtifacts(artifacts);
+            fail("expected ArtifactResolutionException");
+        } catch (ArtifactResolutionException e) {
+            // then
+            assertEquals(2, e.getResults().size());
+            assertTrue("expected present artifact to be resolved", e.getResults().get(0).isResolved());
+            assertTrue("expected missing artifact to not be resolved", !e.getResults().get(1).isResolved());
+        }
+    }
+
+    @Test
+    public void version_range_resolves_highest_version() throws Exception {
+        // given
+        install("test.group", "ranged", "1.0");
+        install("test.group", "ranged", "1.2");
+        writeMetadata("test.group", "ranged", "1.0", "1.2");
+
+        // when
+        String highest = newResolver().resolveVersionRange(new DefaultArtifact("test.group:ranged:jar:[1.0,2.0)"))
+                .getHighestVersion().toString();
+
+        // then
+        assertEquals("1.2", highest);
+    }
+
+    private CachingArtifactResolver newResolver() {
+        return new CachingArtifactResolver(repositorySystem, repoSession, Collections.<RemoteRepository>emptyList());
+    }
+
+    private Artifact install(String groupId, String artifactId, String version) throws IOException {
+        File dir = new File(localRepo, groupId.replace('.', '/') + "/" + artifactId + "/" + version);
+        dir.mkdirs();
+        File jar = new File(dir, artifactId + "-" + version + ".jar");
+        Files.write(jar.toPath(), (artifactId + version).getBytes(StandardCharsets.UTF_8));
+        return new DefaultArtifact(groupId, artifactId, "jar", version);
+    }
+
+    private void writeMetadata(String groupId, String artifactId, String... versions) throws IOException {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<metadata><groupId>").append(groupId).append("</groupId><artifactId>").append(artifactId)
+                .append("</artifactId><versioning><versions>");
+        for (String version : versions) {
+            xml.append("<version>").append(version).append("</version>");
+        }
+        xml.append("</versions></versioning></metadata>");
+        File dir = new File(localRepo, groupId.replace('.', '/') + "/" + artifactId);
+        Files.write(new File(dir, "maven-metadata-local.xml").toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
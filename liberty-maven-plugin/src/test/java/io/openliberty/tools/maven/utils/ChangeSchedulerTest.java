@@ -0,0 +1,202 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Test;
+
+public class ChangeSchedulerTest {
+
+    private static final long TIMEOUT = 5000;
+
+    private final Object lock = new Object();
+    private ChangeScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void work_scheduled_again_under_the_same_key_runs_once() throws Exception {
+        // given
+        scheduler = new ChangeScheduler(100, 1000, lock, new SystemStreamLog());
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        Runnable work = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                done.countDown();
+            }
+        };
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            scheduler.schedule(0, "resources", work);
+        }
+
+        // then
+        assertTrue("expected the batch to run", done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        Thread.sleep(300);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void batch_runs_in_phase_order() throws Exception {
+        // given
+        scheduler = new ChangeScheduler(TIMEOUT, TIMEOUT, lock, new SystemStreamLog());
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        scheduler.schedule(1, "exploded", record(order, "exploded"));
+        scheduler.schedule(0, "resources", record(order, "resources"));
+        scheduler.schedule(0, "resource-sync", record(order, "resource-sync"));
+
+        // when
+        scheduler.flush();
+
+        // then
+        assertEquals(Arrays.asList("resources", "resource-sync", "exploded"), order);
+    }
+
+    @Test
+    public void batch_waits_until_the_changes_stop() throws Exception {
+        // given
+        scheduler = new ChangeScheduler(300, 2000, lock, new SystemStreamLog());
+        final CountDownLatch done = new CountDownLatch(1);
+        Runnable work = countDown(done);
+        long start = System.currentTimeMillis();
+        scheduler.schedule(0, "resources", work);
+        Thread.sleep(150);
+
+        // when
+        long lastChange = System.currentTimeMillis();
+        scheduler.schedule(0, "resources", work);
+
+        // then
+        assertTrue("expected the batch to run", done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        long ran = System.currentTimeMillis();
+        assertTrue("expected the batch to wait for the last change, ran after " + (ran - start) + " ms",
+                ran - lastChange >= 300);
+    }
+
+    @Test
+    public void quiet_time_grows_with_the_interval_between_changes() throws Exception {
+        // given
+        scheduler = new ChangeScheduler(250, 2000, lock, new SystemStreamLog());
+        Runnable work = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            scheduler.schedule(0, "resources", work);
+            Thread.sleep(150);
+        }
+
+        // then
+        long quiet = scheduler.getQuietMillis();
+        assertTrue("expected twice the interval between changes, was " + quiet, quiet >= 300 && quiet <= 2000);
+    }
+
+    @Test
+    public void batch_never_waits_longer_than_the_maximum() throws Exception {
+        // given
+        scheduler = new ChangeScheduler(400, 500, lock, new SystemStreamLog());
+        CountDownLatch done = new CountDownLatch(1);
+        Runnable work = countDown(done);
+
+        // when
+        long end = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < end && done.getCount() > 0) {
+            scheduler.schedule(0, "resources", work);
+            Thread.sleep(50);
+        }
+
+        // then
+        assertEquals("expected the batch to run while the changes kept coming", 0, done.getCount());
+    }
+
+    @Test
+    public void batch_does_not_run_while_the_lock_is_held() throws Exception {
+        // given
+        scheduler = new ChangeScheduler(10, 10, lock, new SystemStreamLog());
+        CountDownLatch done = new CountDownLatch(1);
+
+        // when
+        synchronized (lock) {
+            scheduler.schedule(0, "resources", countDown(done));
+
+            // then
+            assertFalse("expected the batch to wait for the lock", done.await(300, TimeUnit.MILLISECONDS));
+        }
+        assertTrue("expected the batch to run once the lock is released", done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void flush_runs_the_pending_work_on_the_calling_thread() throws Exception {
+        // given
+        scheduler = new ChangeScheduler(TIMEOUT, TIMEOUT, lock, new SystemStreamLog());
+        final List<Thread> threads = new ArrayList<Thread>();
+        scheduler.schedule(0, "resources", new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+            }
+        });
+
+        // when
+        scheduler.flush();
+        scheduler.flush();
+
+        // then
+        assertEquals(Arrays.asList(Thread.currentThread()), threads);
+    }
+
+    private static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+        };
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+}
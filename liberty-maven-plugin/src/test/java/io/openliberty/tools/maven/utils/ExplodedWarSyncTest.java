@@ -0,0 +1,186 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExplodedWarSyncTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private MavenProject project;
+    private File stateFile;
+    private File exploded;
+    private Xpp3Dom config;
+
+    @Before
+    public void setUp() throws Exception {
+        Model model = new Model();
+        model.setGroupId("test");
+        model.setArtifactId("app");
+        model.setVersion("1.0");
+        Build build = new Build();
+        build.setDirectory(new File(temp.getRoot(), "target").getAbsolutePath());
+        build.setOutputDirectory(new File(temp.getRoot(), "target/classes").getAbsolutePath());
+        build.setFinalName("app");
+        model.setBuild(build);
+        project = new MavenProject(model);
+        project.setFile(new File(temp.getRoot(), "pom.xml"));
+        project.getProperties().setProperty("greeting", "hello");
+
+        stateFile = new File(temp.getRoot(), "target/liberty-plugin-exploded-war.properties");
+        exploded = new File(temp.getRoot(), "target/app");
+        config = new Xpp3Dom("configuration");
+        Xpp3Dom resource = new Xpp3Dom("resource");
+        resource.addChild(value("directory", "src/main/conf"));
+        resource.addChild(value("targetPath", "WEB-INF/conf"));
+        resource.addChild(value("filtering", "true"));
+        Xpp3Dom webResources = new Xpp3Dom("webResources");
+        webResources.addChild(resource);
+        config.addChild(webResources);
+
+        write("src/main/webapp/index.html", "<html/>");
+        write("src/main/webapp/WEB-INF/conf/app.properties", "source=webapp");
+        write("target/classes/a/A.class", "A");
+        // what the exploded goal builds
+        write("target/app/index.html", "<html/>");
+        write("target/app/WEB-INF/conf/app.properties", "source=webapp");
+        write("target/app/WEB-INF/classes/a/A.class", "A");
+        newSync(false).recordBaseline();
+    }
+
+    @Test
+    public void changed_source_is_copied_to_its_target() throws Exception {
+        // given
+        write("src/main/webapp/index.html", "<html><body/></html>");
+        write("target/classes/a/B.class", "B");
+
+        // when
+        boolean synced = newSync(false).sync();
+
+        // then
+        assertTrue("expected the exploded WAR to be synced", synced);
+        assertEquals("<html><body/></html>", read("target/app/index.html"));
+        assertEquals("B", read("target/app/WEB-INF/classes/a/B.class"));
+    }
+
+    @Test
+    public void deleted_source_is_deleted_from_the_exploded_war() throws Exception {
+        // given
+        Files.delete(new File(temp.getRoot(), "target/classes/a/A.class").toPath());
+
+        // when
+        boolean synced = newSync(false).sync();
+
+        // then
+        assertTrue("expected the exploded WAR to be synced", synced);
+        assertFalse("expected the class to be deleted", new File(exploded, "WEB-INF/classes/a/A.class").exists());
+        assertTrue("expected other entries to be kept", new File(exploded, "index.html").isFile());
+    }
+
+    @Test
+    public void deleted_source_with_overlays_runs_the_exploded_goal() throws Exception {
+        // given
+        Files.delete(new File(temp.getRoot(), "src/main/webapp/index.html").toPath());
+
+        // when
+        boolean synced = newSync(true).sync();
+
+        // then
+        assertFalse("expected the exploded goal to run, as an overlay may provide the entry", synced);
+        assertTrue("expected the entry to be kept", new File(exploded, "index.html").isFile());
+    }
+
+    @Test
+    public void web_resource_is_filtered_to_its_target_path() throws Exception {
+        // given
+        write("src/main/conf/messages.properties", "message=${greeting}");
+
+        // when
+        newSync(false).sync();
+
+        // then
+        assertEquals("message=hello", read("target/app/WEB-INF/conf/messages.properties"));
+    }
+
+    @Test
+    public void first_source_of_a_target_path_wins() throws Exception {
+        // given
+        write("src/main/conf/app.properties", "source=${greeting}");
+        ExplodedWarSync sync = newSync(false);
+        sync.sync();
+        assertEquals("source=hello", read("target/app/WEB-INF/conf/app.properties"));
+        Files.delete(new File(temp.getRoot(), "src/main/conf/app.properties").toPath());
+
+        // when
+        sync = newSync(false);
+        sync.sync();
+
+        // then
+        assertEquals("source=webapp", read("target/app/WEB-INF/conf/app.properties"));
+    }
+
+    @Test
+    public void state_is_only_current_for_the_same_properties() throws Exception {
+        // given
+        assertTrue("expected the recorded state to be current", newSync(false).isCurrent());
+
+        // when
+        project.getProperties().setProperty("greeting", "goodbye");
+
+        // then
+        assertFalse("expected changed filter properties to need the exploded goal", newSync(false).isCurrent());
+    }
+
+    private ExplodedWarSync newSync(boolean overlays) throws IOException {
+        return new ExplodedWarSync(project, null, config, stateFile, overlays, new SystemStreamLog());
+    }
+
+    private static Xpp3Dom value(String name, String value) {
+        Xpp3Dom child = new Xpp3Dom(name);
+        child.setValue(value);
+        return child;
+    }
+
+    private File write(String path, String content) throws IOException {
+        File file = new File(temp.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private String read(String path) throws IOException {
+        return new String(Files.readAllBytes(new File(temp.getRoot(), path).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FeatureArtifactCacheTest {
+
+    private static final String SETTINGS = "enforce;{};install-map.jar";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File localRepo;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        localRepo = temp.newFolder("repo");
+        cacheDir = FeatureArtifactCache.getDefaultCacheDirectory(localRepo);
+    }
+
+    @Test
+    public void same_content_is_stored_once() throws Exception {
+        // given
+        File esa = install("io.openliberty.features", "servlet-4.0", "23.0.0.1", "esa", "servlet");
+        File otherRepoEsa = new File(temp.newFolder("other"), esa.getName());
+        Files.copy(esa.toPath(), otherRepoEsa.toPath());
+
+        // when
+        File cached = newCache().store(esa);
+        File cachedAgain = newCache().store(otherRepoEsa);
+
+        // then
+        assertEquals(cached, cachedAgain);
+        assertEquals(esa.getName(), cached.getName());
+        assertEquals(ChecksumUtil.sha256(esa), cached.getParentFile().getName());
+        assertTrue("expected the ESA to be in the cache", newCache().contains(cached));
+        assertFalse("expected the repository ESA to not be in the cache", newCache().contains(esa));
+    }
+
+    @Test
+    public void signature_is_stored_next_to_the_esa() throws Exception {
+        // given
+        File esa = install("io.openliberty.features", "jsonp-1.1", "23.0.0.1", "esa", "jsonp");
+        File signature = install("io.openliberty.features", "jsonp-1.1", "23.0.0.1", "esa.asc", "jsonp signature");
+        FeatureArtifactCache cache = newCache();
+        File cachedEsa = cache.store(esa);
+
+        // when
+        File cachedSignature = cache.storeSignature(signature, cachedEsa);
+
+        // then
+        assertEquals(new File(cachedEsa.getParentFile(), esa.getName() + ".asc"), cachedSignature);
+        assertEquals("jsonp signature", new String(Files.readAllBytes(cachedSignature.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void verification_result_is_reused_across_instances() throws Exception {
+        // given
+        File esa = install("io.openliberty.features", "cdi-2.0", "23.0.0.1", "esa", "cdi");
+        File signature = install("io.openliberty.features", "cdi-2.0", "23.0.0.1", "esa.asc", "cdi signature");
+        FeatureArtifactCache cache = newCache();
+        File cachedEsa = cache.store(esa);
+        cache.storeSignature(signature, cachedEsa);
+
+        // when
+        cache.setVerified(Collections.singleton(cachedEsa), SETTINGS);
+
+        // then
+        assertTrue("expected the ESA to be verified", newCache().isVerified(cachedEsa, SETTINGS));
+        assertFalse("expected other settings to need verification", newCache().isVerified(cachedEsa, "all;{};install-map.jar"));
+    }
+
+    @Test
+    public void changed_signature_needs_verification() throws Exception {
+        // given
+        File esa = install("io.openliberty.features", "mpConfig-1.4", "23.0.0.1", "esa", "mpConfig");
+        File signature = install("io.openliberty.features", "mpConfig-1.4", "23.0.0.1", "esa.asc", "good signature");
+        File cachedEsa = newCache().store(esa);
+        newCache().storeSignature(signature, cachedEsa);
+        newCache().setVerified(Arrays.asList(cachedEsa), SETTINGS);
+
+        // when
+        Files.write(signature.toPath(), "other signature".getBytes(StandardCharsets.UTF_8));
+        newCache().storeSignature(signature, cachedEsa);
+
+        // then
+        assertFalse("expected the ESA to need verification", newCache().isVerified(cachedEsa, SETTINGS));
+    }
+
+    @Test
+    public void esa_replaced_with_the_same_size_needs_verification() throws Exception {
+        // given
+        File esa = install("io.openliberty.features", "jaxrs-2.1", "23.0.0.1", "esa", "jaxrs good");
+        File cachedEsa = newCache().store(esa);
+        newCache().setVerified(Arrays.asList(cachedEsa), SETTINGS);
+
+        // when
+        Files.write(cachedEsa.toPath(), "jaxrs evil".getBytes(StandardCharsets.UTF_8));
+
+        // then
+        assertFalse("expected the ESA to need verification", newCache().isVerified(cachedEsa, SETTINGS));
+    }
+
+    @Test
+    public void changed_entry_of_the_same_size_is_stored_again() throws Exception {
+        // given
+        File esa = install("io.openliberty.features", "jpa-2.2", "23.0.0.1", "esa", "jpa good");
+        File cachedEsa = newCache().store(esa);
+        File original = new File(temp.newFolder("original"), esa.getName());
+        Files.write(original.toPath(), "jpa good".getBytes(StandardCharsets.UTF_8));
+        Files.write(cachedEsa.toPath(), "jpa evil".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        File cachedAgain = newCache().store(original);
+
+        // then
+        assertEquals(cachedEsa, cachedAgain);
+        assertEquals("jpa good", new String(Files.readAllBytes(cachedAgain.toPath()), StandardCharsets.UTF_8));
+    }
+
+    private FeatureArtifactCache newCache() {
+        return new FeatureArtifactCache(cacheDir, new SystemStreamLog());
+    }
+
+    private File install(String groupId, String artifactId, String version, String extension, String content)
+            throws IOException {
+        File dir = new File(localRepo, groupId.replace('.', '/') + "/" + artifactId + "/" + version);
+        dir.mkdirs();
+        File file = new File(dir, artifactId + "-" + version + "." + extension);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FeaturesJsonIndexTest {
+
+    private static final String FEATURES_JSON = "["
+            + feature("com.ibm.websphere.appserver.jaxrs-2.1", "jaxrs-2.1",
+                    "{\"feature\":\"com.ibm.websphere.appserver.servlet-4.0\",\"tolerates\":[\"5.0\"]},"
+                            + "{\"feature\":\"com.ibm.websphere.appserver.jsonp-1.1\"}")
+            + "," + feature("com.ibm.websphere.appserver.servlet-4.0", "servlet-4.0", "")
+            + "," + feature("com.ibm.websphere.appserver.jsonp-1.1", "jsonp-1.1", "")
+            + "," + feature("com.ibm.websphere.appserver.servlet-5.0", "servlet-5.0", "")
+            + "]";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void closure_includes_required_features_but_not_tolerated_ones() throws Exception {
+        // given
+        File json = writeJson(FEATURES_JSON);
+
+        // when
+        Set<String> coordinates = new FeaturesJsonIndex(Collections.singleton(json))
+                .getMavenCoordinates(Collections.singleton("JAXRS-2.1"));
+
+        // then
+        assertEquals(new HashSet<String>(Arrays.asList("io.openliberty.features:jaxrs-2.1:23.0.0.1",
+                "io.openliberty.features:servlet-4.0:23.0.0.1", "io.openliberty.features:jsonp-1.1:23.0.0.1")),
+                coordinates);
+    }
+
+    @Test
+    public void closure_ignores_unknown_features() throws Exception {
+        // given
+        File json = writeJson(FEATURES_JSON);
+
+        // when
+        Set<String> coordinates = new FeaturesJsonIndex(Collections.singleton(json))
+                .getMavenCoordinates(Arrays.asList("servlet-4.0", "myUserFeature-1.0"));
+
+        // then
+        assertEquals(Collections.singleton("io.openliberty.features:servlet-4.0:23.0.0.1"), coordinates);
+    }
+
+    @Test
+    public void closure_esas_resolve_from_local_repository() throws Exception {
+        // given
+        File localRepo = temp.newFolder("repo");
+        RepositorySystem repositorySystem = MavenRepositorySystemUtils.newServiceLocator().getService(RepositorySystem.class);
+        DefaultRepositorySystemSession repoSession = MavenRepositorySystemUtils.newSession();
+        repoSession.setLocalRepositoryManager(
+                repositorySystem.newLocalRepositoryManager(repoSession, new LocalRepository(localRepo, "simple")));
+        Set<String> coordinates = new FeaturesJsonIndex(Collections.singleton(writeJson(FEATURES_JSON)))
+                .getMavenCoordinates(Collections.singleton("jaxrs-2.1"));
+        List<Artifact> esas = new ArrayList<Artifact>();
+        for (String coordinate : coordinates) {
+            String[] parts = coordinate.split(":");
+            File dir = new File(localRepo, parts[0].replace('.', '/') + "/" + parts[1] + "/" + parts[2]);
+            dir.mkdirs();
+            Files.write(new File(dir, parts[1] + "-" + parts[2] + ".esa").toPath(),
+                    parts[1].getBytes(StandardCharsets.UTF_8));
+            esas.add(new DefaultArtifact(parts[0], parts[1], "esa", parts[2]));
+        }
+
+        // when
+        List<ArtifactResult> results = new CachingArtifactResolver(repositorySystem, repoSession,
+                Collections.<RemoteRepository>emptyList()).resolveArtifacts(esas);
+
+        // then
+        assertEquals(3, results.size());
+        for (ArtifactResult result : results) {
+            assertTrue("expected ESA to be resolved", result.isResolved());
+        }
+    }
+
+    private File writeJson(String content) throws Exception {
+        File json = temp.newFile("features-23.0.0.1.json");
+        Files.write(json.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return json;
+    }
+
+    private static String feature(String symbolicName, String shortName, String requireFeatureWithTolerates) {
+        return "{\"id\":\"" + shortName + "\",\"size\":1,\"wlpInformation\":{\"provideFeature\":[\"" + symbolicName
+                + "\"],\"shortName\":\"" + shortName + "\",\"visibility\":\"PUBLIC\",\"mavenCoordinates\":"
+                + "\"io.openliberty.features:" + shortName + ":23.0.0.1\",\"requireFeatureWithTolerates\":["
+                + requireFeatureWithTolerates + "]}}";
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImageLayoutWriterTest {
+
+    private static final long TIMESTAMP = 315532802000L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void layout_references_blobs_by_digest() throws Exception {
+        // given
+        File source = temp.newFolder("source");
+        File layout = new File(temp.getRoot(), "layout");
+
+        // when
+        newWriter(layout, "state").write(getLayers(source, "1"), "1.0", 2);
+
+        // then
+        assertEquals("{\"imageLayoutVersion\":\"1.0.0\"}", read(new File(layout, ImageLayoutWriter.LAYOUT_FILE)));
+        Map<String, Object> index = readJson(new File(layout, ImageLayoutWriter.INDEX_FILE));
+        Map<String, Object> descriptor = getMaps(index, "manifests").get(0);
+        assertEquals("1.0", getMap(descriptor, "annotations").get(ImageLayoutWriter.REF_NAME_ANNOTATION));
+        Map<String, Object> manifest = readBlob(layout, descriptor);
+        Map<String, Object> config = readBlob(layout, getMap(manifest, "config"));
+        List<Map<String, Object>> layers = getMaps(manifest, "layers");
+        List<?> diffIds = (List<?>) getMap(config, "rootfs").get("diff_ids");
+        assertEquals(2, layers.size());
+        for (int i = 0; i < layers.size(); i++) {
+            File blob = getBlob(layout, layers.get(i));
+            assertEquals("sha256:" + ChecksumUtil.sha256(gunzip(blob)), diffIds.get(i));
+        }
+        assertEquals("1980-01-01T00:00:02Z", config.get("created"));
+        assertEquals(Arrays.asList("/opt/ol/wlp/bin/server", "run", "defaultServer"),
+                getMap(config, "config").get("Cmd"));
+        assertEquals(layers.size() + 2, new File(layout, "blobs/sha256").list().length);
+    }
+
+    @Test
+    public void same_content_gives_the_same_image() throws Exception {
+        // given
+        File first = temp.newFolder("first");
+        File second = temp.newFolder("second");
+        List<ImageLayoutWriter.Layer> firstLayers = getLayers(first, "1");
+        List<ImageLayoutWriter.Layer> secondLayers = getLayers(second, "1");
+        new File(second, "bin/server").setLastModified(TIMESTAMP + 86400000L);
+
+        // when
+        String firstDigest = newWriter(new File(temp.getRoot(), "first-layout"), "first-state")
+                .write(firstLayers, "1.0", 1);
+        String secondDigest = newWriter(new File(temp.getRoot(), "second-layout"), "second-state")
+                .write(secondLayers, "1.0", 4);
+
+        // then
+        assertEquals(firstDigest, secondDigest);
+    }
+
+    @Test
+    public void only_changed_layers_are_written_again() throws Exception {
+        // given
+        File source = temp.newFolder("source");
+        File layout = new File(temp.getRoot(), "layout");
+        newWriter(layout, "state").write(getLayers(source, "1"), "1.0", 2);
+        List<Map<String, Object>> before = getLayerDescriptors(layout);
+        File runtimeBlob = getBlob(layout, before.get(0));
+        File applicationBlob = getBlob(layout, before.get(1));
+        runtimeBlob.setLastModified(1000);
+
+        // when
+        newWriter(layout, "state").write(getLayers(source, "2"), "1.0", 2);
+
+        // then
+        List<Map<String, Object>> after = getLayerDescriptors(layout);
+        assertEquals(before.get(0).get("digest"), after.get(0).get("digest"));
+        assertEquals(1000, runtimeBlob.lastModified());
+        assertNotEquals(before.get(1).get("digest"), after.get(1).get("digest"));
+        assertFalse("expected the previous application layer to be removed", applicationBlob.exists());
+    }
+
+    @Test
+    public void layers_are_added_to_the_base_image() throws Exception {
+        // given
+        File base = new File(temp.getRoot(), "base");
+        newWriter(base, "base-state").write(getLayers(temp.newFolder("base-source"), "base"), "base", 2);
+        List<Map<String, Object>> baseLayers = getLayerDescriptors(base);
+        File layout = new File(temp.getRoot(), "layout");
+        ImageLayoutWriter writer = newWriter(layout, "state");
+        writer.setBaseImage(base);
+
+        // when
+        writer.write(getLayers(temp.newFolder("source"), "1"), "1.0", 2);
+
+        // then
+        List<Map<String, Object>> layers = getLayerDescriptors(layout);
+        assertEquals(4, layers.size());
+        assertEquals(baseLayers, layers.subList(0, 2));
+        Map<String, Object> config = readBlob(layout,
+                getMap(readBlob(layout, getMaps(readJson(new File(layout, ImageLayoutWriter.INDEX_FILE)), "manifests")
+                        .get(0)), "config"));
+        assertEquals(4, ((List<?>) getMap(config, "rootfs").get("diff_ids")).size());
+        assertEquals(4, ((List<?>) config.get("history")).size());
+        for (Map<String, Object> layer : layers) {
+            assertTrue("expected the blob of " + layer.get("digest"), getBlob(layout, layer).isFile());
+        }
+    }
+
+    private ImageLayoutWriter newWriter(File layout, String state) {
+        ImageLayoutWriter writer = new ImageLayoutWriter(layout, new File(temp.getRoot(), state), TIMESTAMP,
+                new SystemStreamLog());
+        writer.setCommand(Arrays.asList("/opt/ol/wlp/bin/server", "run", "defaultServer"));
+        return writer;
+    }
+
+    private static List<ImageLayoutWriter.Layer> getLayers(File directory, String appVersion) throws IOException {
+        File server = write(directory, "bin/server", "#!/bin/sh");
+        server.setExecutable(true);
+        File app = write(directory, "apps/app.war", "application " + appVersion);
+        List<ServerPackager.Source> runtime = new ArrayList<ServerPackager.Source>();
+        runtime.add(new ServerPackager.Source("opt/", null, 0755, 0));
+        runtime.add(new ServerPackager.Source("opt/ol/wlp/bin/server", server, 0775, 0));
+        runtime.add(new ServerPackager.Source("opt/ol/wlp/bin/", server.getParentFile(), 0775, 0));
+        runtime.add(new ServerPackager.Source("opt/ol/wlp/", directory, 0775, 0));
+        runtime.add(new ServerPackager.Source("opt/ol/", null, 0755, 0));
+        List<ServerPackager.Source> application = new ArrayList<ServerPackager.Source>();
+        application.add(new ServerPackager.Source("opt/ol/wlp/usr/servers/defaultServer/apps/app.war", app, 0664, 0));
+        return Arrays.asList(new ImageLayoutWriter.Layer(ServerImageLayers.RUNTIME, runtime),
+                new ImageLayoutWriter.Layer(ServerImageLayers.APPLICATION, application));
+    }
+
+    private static List<Map<String, Object>> getLayerDescriptors(File layout) throws IOException {
+        Map<String, Object> index = readJson(new File(layout, ImageLayoutWriter.INDEX_FILE));
+        return getMaps(readBlob(layout, getMaps(index, "manifests").get(0)), "layers");
+    }
+
+    private static Map<String, Object> readBlob(File layout, Map<String, Object> descriptor) throws IOException {
+        return readJson(getBlob(layout, descriptor));
+    }
+
+    /**
+     * @return the blob of a descriptor, after checking its digest and size
+     */
+    private static File getBlob(File layout, Map<String, Object> descriptor) throws IOException {
+        String digest = (String) descriptor.get("digest");
+        File blob = new File(layout, "blobs/sha256/" + digest.substring("sha256:".length()));
+        assertEquals("sha256:" + ChecksumUtil.sha256(blob), digest);
+        assertEquals(((Number) descriptor.get("size")).longValue(), blob.length());
+        return blob;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readJson(File file) throws IOException {
+        return (Map<String, Object>) ImageLayoutWriter.readJson(file);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getMap(Map<String, Object> map, String name) {
+        return (Map<String, Object>) map.get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> getMaps(Map<String, Object> map, String name) {
+        return (List<Map<String, Object>>) map.get(name);
+    }
+
+    private static byte[] gunzip(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static File write(File directory, String path, String content) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
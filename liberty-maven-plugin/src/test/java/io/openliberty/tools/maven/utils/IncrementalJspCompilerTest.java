@@ -0,0 +1,202 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalJspCompilerTest {
+
+    private static final String CONFIGURATION = "jspVersion=2.3";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File webapp;
+    private File destination;
+    private File stateFile;
+
+    @Before
+    public void setUp() throws Exception {
+        webapp = temp.newFolder("webapp");
+        destination = new File(temp.getRoot(), "jsp-classes");
+        stateFile = new File(temp.getRoot(), "liberty-plugin-jsp-state.properties");
+        write("index.jsp", "<%@ include file=\"/WEB-INF/header.jspf\" %>index");
+        write("WEB-INF/header.jspf", "header");
+        write("admin/users.jsp", "<%@ taglib prefix=\"t\" tagdir=\"/WEB-INF/tags\" %><t:table/>");
+        write("WEB-INF/tags/table.tag", "table");
+        write("about.jsp", "about");
+        write("WEB-INF/web.xml", "<web-app/>");
+        assertEquals(Arrays.asList("about.jsp", "admin/users.jsp", "index.jsp"), compileStalePages(CONFIGURATION));
+    }
+
+    @Test
+    public void compiled_pages_are_not_stale() throws Exception {
+        // when
+        List<String> stale = newCompiler(CONFIGURATION).getStalePages();
+
+        // then
+        assertTrue("expected no stale pages, got " + stale, stale.isEmpty());
+    }
+
+    @Test
+    public void changed_page_is_stale() throws Exception {
+        // given
+        write("about.jsp", "about us");
+
+        // when
+        List<String> stale = newCompiler(CONFIGURATION).getStalePages();
+
+        // then
+        assertEquals(Arrays.asList("about.jsp"), stale);
+    }
+
+    @Test
+    public void changed_include_makes_the_pages_that_include_it_stale() throws Exception {
+        // given
+        write("WEB-INF/header.jspf", "new header");
+
+        // when
+        List<String> stale = newCompiler(CONFIGURATION).getStalePages();
+
+        // then
+        assertEquals(Arrays.asList("index.jsp"), stale);
+    }
+
+    @Test
+    public void added_tag_file_makes_the_pages_that_use_the_tag_directory_stale() throws Exception {
+        // given
+        write("WEB-INF/tags/row.tag", "row");
+
+        // when
+        List<String> stale = newCompiler(CONFIGURATION).getStalePages();
+
+        // then
+        assertEquals(Arrays.asList("admin/users.jsp"), stale);
+    }
+
+    @Test
+    public void page_with_a_missing_class_is_stale() throws Exception {
+        // given
+        Files.delete(new File(destination, IncrementalJspCompiler.getClassFileName("about.jsp")).toPath());
+
+        // when
+        List<String> stale = newCompiler(CONFIGURATION).getStalePages();
+
+        // then
+        assertEquals(Arrays.asList("about.jsp"), stale);
+    }
+
+    @Test
+    public void removed_page_has_its_classes_deleted() throws Exception {
+        // given
+        File classFile = new File(destination, IncrementalJspCompiler.getClassFileName("about.jsp"));
+        Files.delete(new File(webapp, "about.jsp").toPath());
+
+        // when
+        List<String> stale = newCompiler(CONFIGURATION).getStalePages();
+
+        // then
+        assertTrue("expected no stale pages, got " + stale, stale.isEmpty());
+        assertFalse("expected the class of the removed page to be deleted", classFile.exists());
+    }
+
+    @Test
+    public void configuration_or_deployment_descriptor_change_makes_all_pages_stale() throws Exception {
+        // when
+        List<String> staleForConfiguration = newCompiler("jspVersion=3.0").getStalePages();
+        write("WEB-INF/web.xml", "<web-app version=\"4.0\"/>");
+        List<String> staleForDescriptor = newCompiler(CONFIGURATION).getStalePages();
+
+        // then
+        assertEquals(3, staleForConfiguration.size());
+        assertEquals(3, staleForDescriptor.size());
+    }
+
+    @Test
+    public void staging_directory_holds_only_the_stale_pages_and_their_includes() throws Exception {
+        // given
+        write("index.jsp", "<%@ include file=\"/WEB-INF/header.jspf\" %>new index");
+        IncrementalJspCompiler compiler = newCompiler(CONFIGURATION);
+        List<String> stale = compiler.getStalePages();
+        File staging = new File(temp.getRoot(), "staging");
+
+        // when
+        compiler.stage(staging, stale);
+
+        // then
+        assertTrue("expected the stale page", new File(staging, "index.jsp").isFile());
+        assertTrue("expected its include", new File(staging, "WEB-INF/header.jspf").isFile());
+        assertTrue("expected other files", new File(staging, "WEB-INF/web.xml").isFile());
+        assertFalse("expected no current pages", new File(staging, "about.jsp").exists());
+        assertFalse("expected no current pages", new File(staging, "admin/users.jsp").exists());
+    }
+
+    @Test
+    public void class_file_names_follow_the_jsp_compiler() {
+        assertEquals("_index.class", IncrementalJspCompiler.getClassFileName("index.jsp"));
+        assertEquals("admin/_user_2D_list.class", IncrementalJspCompiler.getClassFileName("admin/user-list.jsp"));
+    }
+
+    private IncrementalJspCompiler newCompiler(String configuration) {
+        return new IncrementalJspCompiler(webapp, destination, stateFile, configuration, new SystemStreamLog());
+    }
+
+    /**
+     * Compile the stale pages the way the JSP compile server does, writing a
+     * class for each page.
+     */
+    private List<String> compileStalePages(String configuration) throws IOException {
+        IncrementalJspCompiler compiler = newCompiler(configuration);
+        List<String> stale = compiler.getStalePages();
+        File classes = new File(temp.getRoot(), "compiled");
+        FileUtils.deleteDirectory(classes);
+        for (String page : stale) {
+            File classFile = new File(classes, IncrementalJspCompiler.getClassFileName(page));
+            classFile.getParentFile().mkdirs();
+            Files.write(classFile.toPath(), page.getBytes(StandardCharsets.UTF_8));
+        }
+        compiler.compiled(stale, classes);
+        compiler.save();
+        Collections.sort(stale);
+        return stale;
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(webapp, path);
+        file.getParentFile().mkdirs();
+        long previous = file.lastModified();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        // make the change visible even within the file system's timestamp resolution
+        file.setLastModified(Math.max(file.lastModified(), previous + 2000));
+    }
+}
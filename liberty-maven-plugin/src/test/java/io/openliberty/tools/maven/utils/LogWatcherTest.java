@@ -0,0 +1,129 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogWatcherTest {
+
+    private static final long TIMEOUT = 5000;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void lines_written_before_the_watcher_are_matched() throws Exception {
+        // given
+        File log = temp.newFile("messages.log");
+        append(log, "[1] CWWKF0011I: The server is ready.\n");
+
+        // when
+        try (LogWatcher watcher = new LogWatcher(log)) {
+            // then
+            assertEquals("[1] CWWKF0011I: The server is ready.", watcher.waitFor("CWWKF0011I", TIMEOUT));
+        }
+    }
+
+    @Test
+    public void waiter_registered_after_lines_were_read_still_matches() throws Exception {
+        // given
+        File log = temp.newFile("messages.log");
+        append(log, "[1] CWWKZ0001I: Application a started.\n");
+        try (LogWatcher watcher = new LogWatcher(log)) {
+            assertEquals("[1] CWWKZ0001I: Application a started.", watcher.waitFor("Application a", TIMEOUT));
+            append(log, "[2] CWWKZ0001I: Application b started.\n");
+            assertEquals("[2] CWWKZ0001I: Application b started.", watcher.waitFor("Application b", TIMEOUT));
+
+            // when
+            String line = watcher.waitFor("Application a started", TIMEOUT);
+
+            // then
+            assertEquals("[1] CWWKZ0001I: Application a started.", line);
+        }
+    }
+
+    @Test
+    public void waiter_registered_while_another_waits_matches_earlier_lines() throws Exception {
+        // given
+        File log = temp.newFile("messages.log");
+        try (LogWatcher watcher = new LogWatcher(log)) {
+            watcher.watch("never written");
+            append(log, "[1] CWWKZ0001I: Application a started.\n");
+            assertEquals("[1] CWWKZ0001I: Application a started.", watcher.waitFor("Application a", TIMEOUT));
+
+            // when
+            Map<String, String> lines = watcher.waitFor(Arrays.asList("CWWKZ0001I", "Application c"), 500);
+
+            // then
+            assertEquals("[1] CWWKZ0001I: Application a started.", lines.get("CWWKZ0001I"));
+            assertNull(lines.get("Application c"));
+        }
+    }
+
+    @Test
+    public void lines_before_the_offset_are_not_matched() throws Exception {
+        // given
+        File log = temp.newFile("messages.log");
+        append(log, "[1] CWWKZ0002E: An exception occurred while starting the application a.\n");
+        long offset = log.length();
+        try (LogWatcher watcher = new LogWatcher(log)) {
+            watcher.waitFor("CWWKZ0002E", TIMEOUT);
+
+            // when
+            Future<String> failure = watcher.watch(Arrays.asList("CWWKZ0002E"), offset).get("CWWKZ0002E");
+            append(log, "[2] CWWKZ0002E: An exception occurred while starting the application b.\n");
+
+            // then
+            assertEquals("[2] CWWKZ0002E: An exception occurred while starting the application b.",
+                    failure.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void offset_in_the_middle_of_a_line_skips_that_line() throws Exception {
+        // given
+        File log = temp.newFile("messages.log");
+        append(log, "[1] first line\n[2] second line\n");
+        try (LogWatcher watcher = new LogWatcher(log)) {
+            watcher.waitFor("second", TIMEOUT);
+
+            // when
+            Future<String> line = watcher.watch(Arrays.asList("line"), 3).get("line");
+
+            // then
+            assertEquals("[2] second line", line.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static void append(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MavenProjectCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void copies_do_not_share_resolved_artifacts() throws Exception {
+        // given
+        Model model = new Model();
+        model.setGroupId("test");
+        model.setArtifactId("app");
+        model.setVersion("1.0");
+        MavenProject project = new MavenProject(model);
+        Artifact dependency = new DefaultArtifact("test", "module", "1.0", "compile", "jar", null,
+                new DefaultArtifactHandler("jar"));
+        dependency.setFile(new File("module-1.0.jar"));
+        project.setArtifacts(new LinkedHashSet<Artifact>(Collections.singleton(dependency)));
+
+        // when
+        MavenProject copy = MavenProjectCache.copy(project);
+        copy.getArtifactMap().get("test:module").setFile(new File("module/target/classes"));
+        copy.getModel().setVersion("2.0");
+
+        // then
+        assertNotSame(project, copy);
+        assertEquals(new File("module-1.0.jar"), project.getArtifactMap().get("test:module").getFile());
+        assertEquals("1.0", project.getVersion());
+        assertEquals(1, copy.getArtifacts().size());
+    }
+
+    @Test
+    public void file_stamp_changes_when_a_snapshot_is_installed_again() throws Exception {
+        // given
+        File jar = temp.newFile("module-1.0-SNAPSHOT.jar");
+        Files.write(jar.toPath(), "first".getBytes(StandardCharsets.UTF_8));
+        jar.setLastModified(1000000L);
+        String stamp = MavenProjectCache.getFileStamp(jar);
+
+        // when
+        Files.write(jar.toPath(), "second build".getBytes(StandardCharsets.UTF_8));
+        jar.setLastModified(2000000L);
+
+        // then
+        assertNotEquals(stamp, MavenProjectCache.getFileStamp(jar));
+        assertNull(MavenProjectCache.getFileStamp(new File(temp.getRoot(), "missing.jar")));
+    }
+
+    @Test
+    public void pom_hash_ignores_formatting() throws Exception {
+        // given
+        File pom = temp.newFile("pom.xml");
+        Files.write(pom.toPath(), ("<project><modelVersion>4.0.0</modelVersion><groupId>test</groupId>"
+                + "<artifactId>app</artifactId><version>1.0</version></project>").getBytes(StandardCharsets.UTF_8));
+        String hash = MavenProjectCache.getPomHash(pom);
+
+        // when
+        Files.write(pom.toPath(), ("<project>\n  <!-- comment -->\n  <modelVersion>4.0.0</modelVersion>\n"
+                + "  <groupId>test</groupId>\n  <artifactId>app</artifactId>\n  <version>1.0</version>\n</project>\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        // then
+        assertEquals(hash, MavenProjectCache.getPomHash(pom));
+    }
+}
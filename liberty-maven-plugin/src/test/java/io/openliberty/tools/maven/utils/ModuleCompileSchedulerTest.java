@@ -0,0 +1,217 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModuleCompileSchedulerTest {
+
+    private static final List<String> OPTIONS = Arrays.asList("-g");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final Map<File, Set<File>> prerequisites = new HashMap<File, Set<File>>();
+    private final List<String> compiled = Collections.synchronizedList(new ArrayList<String>());
+    private final Set<String> failing = new HashSet<String>();
+    private File classPathEntry;
+    private ModuleCompileScheduler scheduler;
+
+    @Before
+    public void setUp() throws Exception {
+        classPathEntry = temp.newFolder("lib");
+    }
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void upstream_modules_compile_before_their_dependents() throws Exception {
+        // given
+        dependsOn("api", "core");
+        dependsOn("web", "api", "core");
+        scheduler = newScheduler();
+
+        // when
+        scheduler.schedule(Arrays.asList(compilation("web"), compilation("api"), compilation("core")));
+
+        // then
+        assertEquals(Boolean.TRUE, take("web"));
+        assertEquals(Arrays.asList("core", "api", "web"), compiled);
+        assertEquals(Boolean.TRUE, take("api"));
+        assertEquals(Boolean.TRUE, take("core"));
+    }
+
+    @Test
+    public void dependents_of_a_failed_module_are_not_compiled() throws Exception {
+        // given
+        dependsOn("api", "core");
+        dependsOn("web", "api");
+        dependsOn("other");
+        failing.add("core");
+        scheduler = newScheduler();
+
+        // when
+        scheduler.schedule(Arrays.asList(compilation("core"), compilation("api"), compilation("web"),
+                compilation("other")));
+
+        // then
+        assertNull("expected the failed module to be compiled again by the caller", take("core"));
+        assertNull("expected the dependent module to be compiled by the caller", take("web"));
+        assertNull(take("api"));
+        assertEquals(Boolean.TRUE, take("other"));
+        assertEquals(new HashSet<String>(Arrays.asList("core", "other")), new HashSet<String>(compiled));
+    }
+
+    @Test
+    public void take_returns_the_result_of_the_same_compilation_once() throws Exception {
+        // given
+        scheduler = newScheduler();
+        scheduler.schedule(Collections.singletonList(compilation("core")));
+
+        // when
+        Boolean result = take("core");
+
+        // then
+        assertEquals(Boolean.TRUE, result);
+        assertNull("expected the result to be used once", take("core"));
+    }
+
+    @Test
+    public void take_returns_null_for_other_options_or_class_path() throws Exception {
+        // given
+        scheduler = newScheduler();
+        scheduler.schedule(Arrays.asList(compilation("core"), compilation("api")));
+
+        // when
+        Boolean otherOptions = scheduler.take(output("core"), sources("core"),
+                Collections.singletonList(classPathEntry), Arrays.asList("-g", "-parameters"));
+        Boolean otherClassPath = scheduler.take(output("api"), sources("api"),
+                Collections.<File>emptyList(), OPTIONS);
+
+        // then
+        assertNull("expected other options not to match", otherOptions);
+        assertNull("expected another class path not to match", otherClassPath);
+    }
+
+    @Test
+    public void take_returns_null_when_a_source_changed_after_scheduling() throws Exception {
+        // given
+        scheduler = newScheduler();
+        scheduler.schedule(Collections.singletonList(compilation("core")));
+        File source = sources("core").get(0);
+        source.setLastModified(source.lastModified() + 2000);
+
+        // when
+        Boolean result = take("core");
+
+        // then
+        assertNull("expected a changed source not to match", result);
+    }
+
+    @Test
+    public void modules_in_a_cycle_are_left_to_the_caller() throws Exception {
+        // given
+        dependsOn("a", "b");
+        dependsOn("b", "a");
+        dependsOn("c");
+        scheduler = newScheduler();
+
+        // when
+        scheduler.schedule(Arrays.asList(compilation("a"), compilation("b"), compilation("c")));
+
+        // then
+        assertEquals(Boolean.TRUE, take("c"));
+        assertNull(take("a"));
+        assertNull(take("b"));
+        assertEquals(Arrays.asList("c"), compiled);
+    }
+
+    private ModuleCompileScheduler newScheduler() {
+        IncrementalJavaCompiler compiler = new IncrementalJavaCompiler(new SystemStreamLog()) {
+            @Override
+            public boolean compile(Collection<File> sources, Collection<File> classPath, File outputDirectory,
+                    List<String> options, DiagnosticListener<? super JavaFileObject> diagnostics) {
+                String name = outputDirectory.getParentFile().getName();
+                compiled.add(name);
+                return !failing.contains(name);
+            }
+        };
+        return new ModuleCompileScheduler(prerequisites, compiler, 4, new SystemStreamLog());
+    }
+
+    private void dependsOn(String name, String... upstream) {
+        Set<File> modules = new HashSet<File>();
+        for (String module : upstream) {
+            modules.add(module(module));
+        }
+        prerequisites.put(module(name), modules);
+    }
+
+    private ModuleCompileScheduler.Compilation compilation(String name) throws IOException {
+        return new ModuleCompileScheduler.Compilation(module(name), output(name), sources(name),
+                Collections.singletonList(classPathEntry), OPTIONS);
+    }
+
+    private Boolean take(String name) throws IOException {
+        return scheduler.take(output(name), sources(name), Collections.singletonList(classPathEntry), OPTIONS);
+    }
+
+    private File module(String name) {
+        return new File(temp.getRoot(), name + "/pom.xml");
+    }
+
+    private File output(String name) {
+        return new File(temp.getRoot(), name + "/classes");
+    }
+
+    private List<File> sources(String name) throws IOException {
+        File source = new File(temp.getRoot(), name + "/src/" + name.toUpperCase() + ".java");
+        if (!source.isFile()) {
+            source.getParentFile().mkdirs();
+            source.createNewFile();
+        }
+        return Collections.singletonList(source);
+    }
+}
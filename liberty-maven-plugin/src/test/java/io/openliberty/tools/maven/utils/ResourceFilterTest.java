@@ -0,0 +1,176 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The expected output of each case is what the resources goal writes with
+ * maven-filtering for the same file and properties.
+ */
+public class ResourceFilterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private MavenProject project;
+    private MavenSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        Model model = new Model();
+        model.setGroupId("test");
+        model.setArtifactId("app");
+        model.setVersion("1.0");
+        project = new MavenProject(model);
+        project.setFile(new File(temp.getRoot(), "pom.xml"));
+
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setSystemProperties(new Properties());
+        request.setUserProperties(new Properties());
+        session = new MavenSession(null, (RepositorySystemSession) null, request, new DefaultMavenExecutionResult());
+    }
+
+    @Test
+    public void later_property_sources_override_earlier_ones() throws Exception {
+        // given
+        File filters = write("filter.properties", "a=filter\nb=filter\nc=filter\nd=filter\n");
+        project.getProperties().setProperty("b", "project");
+        project.getProperties().setProperty("c", "project");
+        project.getProperties().setProperty("d", "project");
+        session.getSystemProperties().setProperty("c", "system");
+        session.getSystemProperties().setProperty("d", "system");
+        session.getUserProperties().setProperty("d", "user");
+        ResourceFilter filter = newFilter(Collections.singletonList(filters.getName()), null);
+
+        // when
+        String filtered = filter(filter, "${a} ${b} ${c} ${d}");
+
+        // then
+        assertEquals("filter project system user", filtered);
+    }
+
+    @Test
+    public void system_properties_resolve_environment_and_java_expressions() throws Exception {
+        // given
+        session.getSystemProperties().setProperty("env.APP_HOME", "/opt/app");
+        session.getSystemProperties().setProperty("java.version", "17.0.2");
+        session.getSystemProperties().setProperty("user.home", "/home/dev");
+        ResourceFilter filter = newFilter(Collections.<String>emptyList(), null);
+
+        // when
+        String filtered = filter(filter, "${env.APP_HOME} ${java.version} ${user.home}");
+
+        // then
+        assertEquals("/opt/app 17.0.2 /home/dev", filtered);
+    }
+
+    @Test
+    public void project_expressions_resolve_with_both_default_delimiters() throws Exception {
+        // given
+        ResourceFilter filter = newFilter(Collections.<String>emptyList(), null);
+
+        // when
+        String filtered = filter(filter, "${project.artifactId} @project.version@ ${pom.groupId} ${unknown}");
+
+        // then
+        assertEquals("app 1.0 test ${unknown}", filtered);
+    }
+
+    @Test
+    public void escaped_expressions_are_not_filtered() throws Exception {
+        // given
+        project.getProperties().setProperty("name", "value");
+        ResourceFilter filter = newFilter(Collections.<String>emptyList(), "\\");
+
+        // when
+        String filtered = filter(filter, "\\${name} ${name}");
+
+        // then
+        assertEquals("${name} value", filtered);
+    }
+
+    @Test
+    public void windows_paths_are_escaped() throws Exception {
+        // given
+        project.getProperties().setProperty("dir", "C:\\liberty\\wlp");
+        ResourceFilter filter = newFilter(Collections.<String>emptyList(), null);
+
+        // when
+        String filtered = filter(filter, "dir=${dir}");
+
+        // then
+        assertEquals("dir=C:\\\\liberty\\\\wlp", filtered);
+    }
+
+    @Test
+    public void non_filtered_extensions_are_copied_as_they_are() throws Exception {
+        // given
+        project.getProperties().setProperty("name", "value");
+        File image = write("image.png", "${name}");
+        File target = new File(temp.getRoot(), "target/image.png");
+        ResourceFilter filter = newFilter(Collections.<String>emptyList(), null);
+
+        // when
+        filter.copy(image, target, true);
+
+        // then
+        assertEquals("${name}", read(target));
+    }
+
+    private ResourceFilter newFilter(List<String> filterFiles, String escapeString) throws IOException {
+        return new ResourceFilter(project, session, filterFiles, ResourceFilter.DEFAULT_DELIMITERS, escapeString, true,
+                Collections.<String>emptyList(), "UTF-8", new SystemStreamLog());
+    }
+
+    private String filter(ResourceFilter filter, String content) throws IOException {
+        File file = write("config.properties", content);
+        File target = new File(temp.getRoot(), "target/config.properties");
+        filter.copy(file, target, true);
+        return read(target);
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
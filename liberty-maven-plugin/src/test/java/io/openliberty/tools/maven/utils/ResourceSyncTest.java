@@ -0,0 +1,143 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.RepositorySystemSession;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceSyncTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private MavenProject project;
+    private MavenSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        Model model = new Model();
+        model.setGroupId("test");
+        model.setArtifactId("app");
+        model.setVersion("1.0");
+        Build build = new Build();
+        build.setOutputDirectory(new File(temp.getRoot(), "target/classes").getAbsolutePath());
+        Resource resources = new Resource();
+        resources.setDirectory("src/main/resources");
+        resources.addInclude("**/*.properties");
+        build.addResource(resources);
+        Resource more = new Resource();
+        more.setDirectory("src/main/more");
+        build.addResource(more);
+        model.setBuild(build);
+        project = new MavenProject(model);
+        project.setFile(new File(temp.getRoot(), "pom.xml"));
+
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setSystemProperties(new Properties());
+        request.setUserProperties(new Properties());
+        session = new MavenSession(null, (RepositorySystemSession) null, request, new DefaultMavenExecutionResult());
+    }
+
+    @Test
+    public void deleted_directory_deletes_its_targets() throws Exception {
+        // given
+        ResourceSync sync = newSync();
+        sync.sync(write("src/main/resources/conf/a.properties", "a"));
+        sync.sync(write("src/main/resources/conf/sub/b.properties", "b"));
+        FileUtils.deleteDirectory(new File(temp.getRoot(), "src/main/resources/conf"));
+
+        // when
+        boolean found = sync.sync(new File(temp.getRoot(), "src/main/resources/conf"));
+
+        // then
+        assertTrue("expected the directory to be in a resource directory", found);
+        assertFalse("expected the target directory to be deleted", target("conf").exists());
+    }
+
+    @Test
+    public void deleted_directory_keeps_the_files_of_another_resource() throws Exception {
+        // given
+        ResourceSync sync = newSync();
+        sync.sync(write("src/main/more/conf/a.properties", "more"));
+        sync.sync(write("src/main/resources/conf/a.properties", "resources"));
+        sync.sync(write("src/main/resources/conf/sub/b.properties", "b"));
+        FileUtils.deleteDirectory(new File(temp.getRoot(), "src/main/resources/conf"));
+
+        // when
+        sync.sync(new File(temp.getRoot(), "src/main/resources/conf"));
+
+        // then
+        assertEquals("more", read(target("conf/a.properties")));
+        assertFalse("expected the files of the deleted directory to be deleted", target("conf/sub").exists());
+    }
+
+    @Test
+    public void new_directory_copies_its_included_files() throws Exception {
+        // given
+        write("src/main/resources/web/x.properties", "x");
+        write("src/main/resources/web/y.txt", "y");
+
+        // when
+        newSync().sync(new File(temp.getRoot(), "src/main/resources/web"));
+
+        // then
+        assertEquals("x", read(target("web/x.properties")));
+        assertFalse("expected excluded files to not be copied", target("web/y.txt").exists());
+    }
+
+    private ResourceSync newSync() throws IOException {
+        return new ResourceSync(project, session, new Xpp3Dom("configuration"), new SystemStreamLog());
+    }
+
+    private File target(String path) {
+        return new File(temp.getRoot(), "target/classes/" + path);
+    }
+
+    private File write(String path, String content) throws IOException {
+        File file = new File(temp.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ServerImageLayersTest {
+
+    private static final String ROOT = "opt/ol/wlp/";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File installDir;
+    private File serverDir;
+
+    @Before
+    public void setUp() throws Exception {
+        installDir = temp.newFolder("wlp");
+        serverDir = new File(installDir, "usr/servers/defaultServer");
+        write(installDir, "bin/server", "script");
+        write(installDir, "lib/platform/kernel.mf", "Subsystem-Content: com.ibm.ws.kernel; version=\"1.0\",\n"
+                + " com.ibm.ws.shared; version=\"1.0\"\n");
+        write(installDir, "lib/com.ibm.ws.kernel_1.0.jar", "kernel");
+        write(installDir, "lib/com.ibm.ws.shared_1.0.jar", "shared");
+        write(installDir, "lib/features/servlet.mf", "Subsystem-Content: com.ibm.ws.servlet; version=\"[1.0,1.0.2\n"
+                + " 00)\", com.ibm.ws.shared; version=\"1.0\",\n"
+                + " com.ibm.websphere.servlet.api; location:=\"dev/api/spec/,lib/\"; type=\"jar\",\n"
+                + " com.ibm.ws.servlet.tool; location:=\"bin/tools/ws-tool.jar\"; type=\"file\",\n"
+                + " com.ibm.websphere.appserver.servletApi-4.0; type=\"osgi.subsystem.feature\"\n");
+        write(installDir, "lib/com.ibm.ws.servlet_1.0.16.jar", "servlet");
+        write(installDir, "dev/api/spec/com.ibm.websphere.servlet.api_1.0.16.jar", "servlet api");
+        write(installDir, "bin/tools/ws-tool.jar", "tool");
+        write(serverDir, "server.xml", "<server/>");
+        write(serverDir, "apps/app.war", "app");
+        write(serverDir, "dropins/dropin.war", "dropin");
+        write(serverDir, "lib/global/library.jar", "library");
+        write(serverDir, "logs/messages.log", "log");
+        write(serverDir, "workarea/state", "state");
+        write(serverDir, "apps/expanded/app.war/index.html", "expanded");
+        write(installDir, "usr/shared/config/shared.xml", "<server/>");
+        write(installDir, "usr/extension/lib/features/userFeature.mf", "user feature");
+    }
+
+    @Test
+    public void feature_files_are_split_from_the_kernel() throws Exception {
+        // when
+        Set<String> featureFiles = newLayers().getFeatureFiles();
+
+        // then
+        assertEquals(new HashSet<String>(Arrays.asList("lib/com.ibm.ws.servlet_1.0.16.jar",
+                "dev/api/spec/com.ibm.websphere.servlet.api_1.0.16.jar", "bin/tools/ws-tool.jar")), featureFiles);
+    }
+
+    @Test
+    public void files_are_put_in_their_layers() throws Exception {
+        // given
+        ServerImageLayers serverLayers = newLayers();
+        serverLayers.addDependencyDirectory(new File(serverDir, "lib/global"));
+
+        // when
+        Map<String, Set<String>> layers = getFileNames(serverLayers);
+
+        // then
+        assertEquals(Arrays.asList(ServerImageLayers.RUNTIME, ServerImageLayers.FEATURES,
+                ServerImageLayers.DEPENDENCIES, ServerImageLayers.CONFIGURATION, ServerImageLayers.APPLICATION),
+                Arrays.asList(layers.keySet().toArray()));
+        assertEquals(names("bin/server", "lib/platform/kernel.mf", "lib/com.ibm.ws.kernel_1.0.jar",
+                "lib/com.ibm.ws.shared_1.0.jar"), layers.get(ServerImageLayers.RUNTIME));
+        assertEquals(names("lib/features/servlet.mf", "lib/com.ibm.ws.servlet_1.0.16.jar",
+                "dev/api/spec/com.ibm.websphere.servlet.api_1.0.16.jar", "bin/tools/ws-tool.jar",
+                "usr/extension/lib/features/userFeature.mf"), layers.get(ServerImageLayers.FEATURES));
+        assertEquals(names("usr/servers/defaultServer/lib/global/library.jar"),
+                layers.get(ServerImageLayers.DEPENDENCIES));
+        assertEquals(names("usr/servers/defaultServer/server.xml", "usr/shared/config/shared.xml"),
+                layers.get(ServerImageLayers.CONFIGURATION));
+        assertEquals(names("usr/servers/defaultServer/apps/app.war", "usr/servers/defaultServer/dropins/dropin.war"),
+                layers.get(ServerImageLayers.APPLICATION));
+    }
+
+    @Test
+    public void server_libraries_are_configuration_without_dependency_directories() throws Exception {
+        // when
+        Map<String, Set<String>> layers = getFileNames(newLayers());
+
+        // then
+        assertFalse("expected no dependencies layer", layers.containsKey(ServerImageLayers.DEPENDENCIES));
+        assertTrue("expected the library in the config layer", layers.get(ServerImageLayers.CONFIGURATION)
+                .contains(ROOT + "usr/servers/defaultServer/lib/global/library.jar"));
+    }
+
+    @Test
+    public void every_layer_holds_its_parent_directories() throws Exception {
+        // when
+        for (ImageLayoutWriter.Layer layer : newLayers().getLayers()) {
+            Map<String, Integer> directories = new HashMap<String, Integer>();
+            for (ServerPackager.Source source : layer.getEntries()) {
+                if (source.isDirectory()) {
+                    directories.put(source.getName(), source.getMode());
+                }
+            }
+
+            // then
+            for (ServerPackager.Source source : layer.getEntries()) {
+                String name = source.getName();
+                String parent = name.substring(0, name.lastIndexOf('/', name.length() - 2) + 1);
+                assertTrue("expected the parent of " + name + " in the " + layer.getName() + " layer",
+                        parent.isEmpty() || directories.containsKey(parent));
+            }
+            assertEquals(Integer.valueOf(0755), directories.get("opt/ol/"));
+            assertEquals(Integer.valueOf(0775), directories.get(ROOT));
+        }
+    }
+
+    private ServerImageLayers newLayers() {
+        return new ServerImageLayers(installDir, new File(installDir, "usr"), serverDir, "/" + ROOT);
+    }
+
+    private static Map<String, Set<String>> getFileNames(ServerImageLayers serverLayers) throws IOException {
+        Map<String, Set<String>> layers = new LinkedHashMap<String, Set<String>>();
+        for (ImageLayoutWriter.Layer layer : serverLayers.getLayers()) {
+            Set<String> names = new HashSet<String>();
+            for (ServerPackager.Source source : layer.getEntries()) {
+                if (!source.isDirectory()) {
+                    names.add(source.getName());
+                }
+            }
+            layers.put(layer.getName(), names);
+        }
+        return layers;
+    }
+
+    private static Set<String> names(String... paths) {
+        Set<String> names = new HashSet<String>();
+        for (String path : paths) {
+            names.add(ROOT + path);
+        }
+        return names;
+    }
+
+    private static void write(File directory, String path, String content) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
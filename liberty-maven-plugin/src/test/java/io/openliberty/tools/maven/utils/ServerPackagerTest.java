@@ -0,0 +1,222 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ServerPackagerTest {
+
+    private static final long TIME = 1700000000000L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File installDirectory;
+    private File userDirectory;
+    private File serverDirectory;
+    private final List<String> messages = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws Exception {
+        installDirectory = temp.newFolder("wlp");
+        userDirectory = new File(installDirectory, "usr");
+        serverDirectory = new File(userDirectory, "servers/defaultServer");
+        write("lib/kernel.jar", "kernel");
+        write("bin/server", "#!/bin/sh").setExecutable(true);
+        write("usr/servers/defaultServer/server.xml", "<server/>");
+        write("usr/servers/defaultServer/apps/app.war", "app");
+        write("usr/servers/defaultServer/apps/expanded/app.war/index.html", "expanded");
+        write("usr/servers/defaultServer/logs/messages.log", "log");
+        write("usr/servers/defaultServer/workarea/.sLock", "lock");
+        write("usr/shared/config/shared.xml", "<server/>");
+    }
+
+    @Test
+    public void sources_follow_the_layout_of_the_package_command() {
+        // when
+        List<String> names = getNames(newPackager(true).getSources());
+
+        // then
+        assertEquals(Arrays.asList("wlp/", "wlp/bin/", "wlp/bin/server", "wlp/lib/", "wlp/lib/kernel.jar",
+                "wlp/usr/", "wlp/usr/servers/", "wlp/usr/servers/defaultServer/",
+                "wlp/usr/servers/defaultServer/apps/", "wlp/usr/servers/defaultServer/apps/app.war",
+                "wlp/usr/servers/defaultServer/server.xml", "wlp/usr/shared/", "wlp/usr/shared/config/",
+                "wlp/usr/shared/config/shared.xml"), names);
+    }
+
+    @Test
+    public void sources_without_the_runtime_hold_only_the_user_directory_parts() {
+        // when
+        List<String> names = getNames(newPackager(false).getSources());
+
+        // then
+        assertEquals(Arrays.asList("wlp/", "wlp/usr/", "wlp/usr/servers/", "wlp/usr/servers/defaultServer/",
+                "wlp/usr/servers/defaultServer/apps/", "wlp/usr/servers/defaultServer/apps/app.war",
+                "wlp/usr/servers/defaultServer/server.xml", "wlp/usr/shared/", "wlp/usr/shared/config/",
+                "wlp/usr/shared/config/shared.xml"), names);
+    }
+
+    @Test
+    public void zip_holds_the_files_and_their_permissions() throws Exception {
+        // given
+        File archive = new File(temp.getRoot(), "server.zip");
+
+        // when
+        newPackager(true).write(archive, ServerPackager.ZIP, 2);
+
+        // then
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals(14, zip.size());
+            try (InputStream in = zip.getInputStream(zip.getEntry("wlp/usr/servers/defaultServer/server.xml"))) {
+                assertEquals("<server/>", new String(IOUtil.toByteArray(in), StandardCharsets.UTF_8));
+            }
+        }
+        List<ServerPackager.Source> sources = newPackager(true).getSources();
+        assertEquals(0755, getSource(sources, "wlp/bin/server").getMode());
+        assertEquals(0644, getSource(sources, "wlp/lib/kernel.jar").getMode());
+    }
+
+    @Test
+    public void reproducible_archives_hold_the_same_bytes_for_the_same_content() throws Exception {
+        // given
+        File first = writeReproducible("first", ServerPackager.ZIP);
+        File firstTar = writeReproducible("first", ServerPackager.TAR_GZ);
+        touchAll(installDirectory, TIME + 60000);
+
+        // when
+        File second = writeReproducible("second", ServerPackager.ZIP);
+        File secondTar = writeReproducible("second", ServerPackager.TAR_GZ);
+
+        // then
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        assertArrayEquals(Files.readAllBytes(firstTar.toPath()), Files.readAllBytes(secondTar.toPath()));
+        try (InputStream in = new GZIPInputStream(new FileInputStream(secondTar))) {
+            assertTrue("expected a readable gzip stream", IOUtil.toByteArray(in).length > 0);
+        }
+    }
+
+    @Test
+    public void unchanged_reproducible_archive_is_not_written_again() throws Exception {
+        // given
+        writeReproducible("archive", ServerPackager.ZIP);
+        messages.clear();
+
+        // when
+        writeReproducible("archive", ServerPackager.ZIP);
+
+        // then
+        assertEquals(Arrays.asList("The package archive.zip is up to date."), messages);
+    }
+
+    @Test
+    public void changed_reproducible_archive_copies_the_unchanged_entries() throws Exception {
+        // given
+        writeReproducible("archive", ServerPackager.ZIP);
+        write("usr/servers/defaultServer/server.xml", "<server description=\"changed\"/>");
+        messages.clear();
+
+        // when
+        File archive = writeReproducible("archive", ServerPackager.ZIP);
+
+        // then
+        assertTrue("expected the unchanged entries to be copied, got " + messages,
+                messages.get(messages.size() - 1).endsWith("copying 4 unchanged entries"));
+        assertArrayEquals("expected the same bytes as a full package",
+                Files.readAllBytes(writeReproducible("full", ServerPackager.ZIP).toPath()),
+                Files.readAllBytes(archive.toPath()));
+    }
+
+    private ServerPackager newPackager(boolean includeRuntime) {
+        return new ServerPackager(installDirectory, userDirectory, serverDirectory, null, includeRuntime,
+                new SystemStreamLog() {
+                    @Override
+                    public void info(CharSequence content) {
+                        messages.add(content.toString());
+                    }
+
+                    @Override
+                    public void debug(CharSequence content) {
+                        messages.add(content.toString());
+                    }
+                });
+    }
+
+    private File writeReproducible(String name, String format) throws IOException {
+        File archive = new File(temp.getRoot(), name + "." + format);
+        ServerPackager packager = newPackager(true);
+        packager.setReproducible(TIME, new File(temp.getRoot(), "liberty-plugin-package-" + name + "-"
+                + format + ".properties"));
+        packager.write(archive, format, 2);
+        return archive;
+    }
+
+    private File write(String path, String content) throws IOException {
+        File file = new File(installDirectory, path);
+        file.getParentFile().mkdirs();
+        long previous = file.lastModified();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        // make the change visible even within the file system's timestamp resolution
+        file.setLastModified(Math.max(file.lastModified(), previous + 2000));
+        return file;
+    }
+
+    private static void touchAll(File directory, long time) {
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                touchAll(file, time);
+            }
+            file.setLastModified(time);
+        }
+    }
+
+    private static List<String> getNames(List<ServerPackager.Source> sources) {
+        List<String> names = new ArrayList<String>();
+        for (ServerPackager.Source source : sources) {
+            names.add(source.getName());
+        }
+        return names;
+    }
+
+    private static ServerPackager.Source getSource(List<ServerPackager.Source> sources, String name) {
+        for (ServerPackager.Source source : sources) {
+            if (source.getName().equals(name)) {
+                return source;
+            }
+        }
+        throw new AssertionError("no source " + name);
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * (C) Copyright IBM Corporation 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ZipArchiveWriterTest {
+
+    private static final long TIME = 1700000000000L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File spill;
+    private File text;
+    private File random;
+
+    @Before
+    public void setUp() throws Exception {
+        spill = temp.newFolder("spill");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("<server description=\"").append(i).append("\"/>\n");
+        }
+        text = write("server.xml", content.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] bytes = new byte[4096];
+        new Random(42).nextBytes(bytes);
+        random = write("app.jar", bytes);
+    }
+
+    @Test
+    public void archive_is_readable_by_java_zip() throws Exception {
+        // when
+        File archive = writeArchive("archive.zip", TIME);
+
+        // then
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals(3, zip.size());
+            assertTrue("expected a directory entry", zip.getEntry("wlp/").isDirectory());
+            assertContent(zip, "wlp/server.xml", text);
+            assertContent(zip, "wlp/lib/app.jar", random);
+        }
+    }
+
+    @Test
+    public void content_that_does_not_shrink_is_stored() throws Exception {
+        // when
+        File archive = writeArchive("archive.zip", TIME);
+
+        // then
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("wlp/server.xml").getMethod());
+            assertEquals(ZipEntry.STORED, zip.getEntry("wlp/lib/app.jar").getMethod());
+        }
+    }
+
+    @Test
+    public void same_entries_and_time_give_the_same_bytes() throws Exception {
+        // given
+        byte[] first = Files.readAllBytes(writeArchive("first.zip", TIME).toPath());
+        text.setLastModified(TIME + 60000);
+        random.setLastModified(TIME + 60000);
+
+        // when
+        byte[] second = Files.readAllBytes(writeArchive("second.zip", TIME).toPath());
+
+        // then
+        assertArrayEquals(first, second);
+        assertTrue("expected another time to give other bytes",
+                !Arrays.equals(first, Files.readAllBytes(writeArchive("third.zip", TIME + 60000).toPath())));
+    }
+
+    @Test
+    public void copied_entries_keep_their_content() throws Exception {
+        // given
+        File previous = writeArchive("previous.zip", TIME);
+        Map<String, ZipArchiveWriter.Entry> entries = ZipArchiveWriter.readEntries(previous);
+        File archive = new File(temp.getRoot(), "archive.zip");
+
+        // when
+        try (ZipArchiveWriter zip = new ZipArchiveWriter(archive)) {
+            zip.add(ZipArchiveWriter.copy(entries.get("wlp/server.xml"), 0755, TIME));
+            zip.add(ZipArchiveWriter.copy(entries.get("wlp/lib/app.jar"), 0644, TIME));
+        }
+
+        // then
+        assertEquals("expected only file entries to be read", 2, entries.size());
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertContent(zip, "wlp/server.xml", text);
+            assertContent(zip, "wlp/lib/app.jar", random);
+        }
+        assertEquals(Integer.valueOf(0100755), getModes(archive).get("wlp/server.xml"));
+    }
+
+    @Test
+    public void copied_entries_give_the_same_bytes_as_compressed_ones() throws Exception {
+        // given
+        File previous = writeArchive("previous.zip", TIME);
+        Map<String, ZipArchiveWriter.Entry> entries = ZipArchiveWriter.readEntries(previous);
+        File archive = new File(temp.getRoot(), "archive.zip");
+
+        // when
+        try (ZipArchiveWriter zip = new ZipArchiveWriter(archive)) {
+            zip.add(ZipArchiveWriter.directory("wlp", 0755, TIME));
+            zip.add(ZipArchiveWriter.copy(entries.get("wlp/server.xml"), 0644, TIME));
+            zip.add(ZipArchiveWriter.copy(entries.get("wlp/lib/app.jar"), 0755, TIME));
+        }
+
+        // then
+        assertArrayEquals(Files.readAllBytes(previous.toPath()), Files.readAllBytes(archive.toPath()));
+    }
+
+    @Test
+    public void unix_modes_are_recorded() throws Exception {
+        // when
+        File archive = writeArchive("archive.zip", TIME);
+
+        // then
+        Map<String, Integer> modes = getModes(archive);
+        assertEquals(Integer.valueOf(040755), modes.get("wlp/"));
+        assertEquals(Integer.valueOf(0100644), modes.get("wlp/server.xml"));
+        assertEquals(Integer.valueOf(0100755), modes.get("wlp/lib/app.jar"));
+    }
+
+    @Test
+    public void times_before_1980_are_clamped() {
+        assertEquals((1 << 21) | (1 << 16), ZipArchiveWriter.toDosTime(0));
+    }
+
+    private File writeArchive(String name, long time) throws IOException {
+        File archive = new File(temp.getRoot(), name);
+        try (ZipArchiveWriter zip = new ZipArchiveWriter(archive)) {
+            zip.add(ZipArchiveWriter.directory("wlp", 0755, time));
+            zip.add(ZipArchiveWriter.compress("wlp/server.xml", text, 0644, time, spill));
+            zip.add(ZipArchiveWriter.compress("wlp/lib/app.jar", random, 0755, time, spill));
+        }
+        return archive;
+    }
+
+    private File write(String name, byte[] content) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static void assertContent(ZipFile zip, String name, File expected) throws IOException {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            assertArrayEquals(Files.readAllBytes(expected.toPath()), IOUtil.toByteArray(in));
+        }
+    }
+
+    /**
+     * @return the Unix file type and permissions of the entries, from the
+     *         external attributes of the central directory
+     */
+    private static Map<String, Integer> getModes(File archive) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(archive.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        Map<String, Integer> modes = new HashMap<String, Integer>();
+        int end = bytes.limit() - 22;
+        int position = bytes.getInt(end + 16);
+        for (int i = 0; i < (bytes.getShort(end + 10) & 0xFFFF); i++) {
+            assertEquals(0x02014b50, bytes.getInt(position));
+            int nameLength = bytes.getShort(position + 28) & 0xFFFF;
+            int extraLength = bytes.getShort(position + 30) & 0xFFFF;
+            int commentLength = bytes.getShort(position + 32) & 0xFFFF;
+            byte[] name = new byte[nameLength];
+            for (int j = 0; j < nameLength; j++) {
+                name[j] = bytes.get(position + 46 + j);
+            }
+            modes.put(new String(name, StandardCharsets.UTF_8), bytes.getInt(position + 38) >>> 16);
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return modes;
+    }
+}